@@ -0,0 +1,218 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal average-time benchmark runner modelled on JMH's {@code avgt} mode: each
+ * benchmark gets warmup iterations, then measured iterations of a fixed wall-clock
+ * length, and is reported as mean time per operation with a 99.9% confidence error.
+ * Every result is fed to a sink so the JIT cannot drop the work as dead code.
+ */
+public final class BenchmarkHarness {
+
+    private static volatile int sink;
+
+    private final Options options;
+    private final Map<String, Benchmark> benchmarks = new LinkedHashMap<>();
+
+    public BenchmarkHarness(Options options) {
+        this.options = Objects.requireNonNull(options);
+    }
+
+    public BenchmarkHarness add(String name, Benchmark benchmark) {
+        benchmarks.put(Objects.requireNonNull(name), Objects.requireNonNull(benchmark));
+        return this;
+    }
+
+    /**
+     * Runs every registered benchmark whose name matches the include filter.
+     *
+     * @param out progress and result table
+     * @return results in registration order
+     */
+    public List<Result> run(PrintStream out) throws Exception {
+        List<Result> results = new ArrayList<>();
+
+        for (Map.Entry<String, Benchmark> entry : benchmarks.entrySet()) {
+            String name = entry.getKey();
+            if (!options.include().matcher(name).find()) {
+                continue;
+            }
+
+            out.println("# Benchmark: " + name);
+            for (int i = 1; i <= options.warmupIterations(); i++) {
+                double nanos = iteration(entry.getValue());
+                out.printf(Locale.ROOT, "# Warmup Iteration %d: %.3f us/op%n", i, nanos / 1000.0);
+            }
+
+            double[] samples = new double[options.measurementIterations()];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = iteration(entry.getValue());
+                out.printf(Locale.ROOT, "Iteration %d: %.3f us/op%n", i + 1, samples[i] / 1000.0);
+            }
+
+            results.add(Result.of(name, samples));
+            out.println();
+        }
+
+        printTable(results, out);
+        if (options.csvOutput() != null) {
+            writeCsv(results, options.csvOutput());
+        }
+        return results;
+    }
+
+    private double iteration(Benchmark benchmark) throws Exception {
+        long budget = options.iterationMillis() * 1_000_000L;
+        long start = System.nanoTime();
+        long elapsed;
+        long ops = 0;
+        int local = 0;
+
+        do {
+            Object value = benchmark.run();
+            local += value == null ? 0 : System.identityHashCode(value);
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budget);
+
+        sink += local;
+        return (double) elapsed / ops;
+    }
+
+    private static void printTable(List<Result> results, PrintStream out) {
+        int width = "Benchmark".length();
+        for (Result r : results) {
+            width = Math.max(width, r.name().length());
+        }
+        String row = "%-" + width + "s  %4s  %3s  %12s    %10s  %5s%n";
+        out.printf(Locale.ROOT, row, "Benchmark", "Mode", "Cnt", "Score", "Error", "Units");
+        for (Result r : results) {
+            out.printf(Locale.ROOT, row,
+                    r.name(),
+                    "avgt",
+                    r.count(),
+                    String.format(Locale.ROOT, "%.3f", r.scoreMicros()),
+                    String.format(Locale.ROOT, "+- %.3f", r.errorMicros()),
+                    "us/op");
+        }
+    }
+
+    private static void writeCsv(List<Result> results, Path file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\"Benchmark\",\"Mode\",\"Cnt\",\"Score\",\"Score Error (99.9%)\",\"Unit\"")
+                .append(System.lineSeparator());
+        for (Result r : results) {
+            sb.append(String.format(Locale.ROOT, "\"%s\",\"avgt\",%d,%.6f,%.6f,\"us/op\"",
+                    r.name(), r.count(), r.scoreMicros(), r.errorMicros()))
+                    .append(System.lineSeparator());
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, sb.toString());
+    }
+
+    @FunctionalInterface
+    public interface Benchmark {
+        /**
+         * Runs one operation.
+         *
+         * @return the operation's result, consumed so the work cannot be eliminated
+         */
+        Object run() throws Exception;
+    }
+
+    public record Options(int warmupIterations,
+                          int measurementIterations,
+                          long iterationMillis,
+                          Pattern include,
+                          Path csvOutput) {
+
+        public static Options defaults() {
+            return new Options(5, 5, 1000L, Pattern.compile(""), null);
+        }
+
+        /**
+         * Parses JMH-style flags: {@code -wi N}, {@code -i N}, {@code -r millis},
+         * {@code -rff file.csv}, and an optional include regex.
+         *
+         * @param args command line
+         * @return parsed options
+         */
+        public static Options parse(String[] args) {
+            Options o = defaults();
+            int warmup = o.warmupIterations();
+            int measure = o.measurementIterations();
+            long millis = o.iterationMillis();
+            Pattern include = o.include();
+            Path csv = null;
+
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                boolean hasValue = i + 1 < args.length;
+                switch (arg) {
+                    case "-wi" -> warmup = hasValue ? Integer.parseInt(args[++i]) : warmup;
+                    case "-i" -> measure = hasValue ? Integer.parseInt(args[++i]) : measure;
+                    case "-r" -> millis = hasValue ? Long.parseLong(args[++i]) : millis;
+                    case "-rff" -> csv = hasValue ? Path.of(args[++i]) : null;
+                    default -> include = Pattern.compile(arg);
+                }
+            }
+            return new Options(
+                    Math.max(0, warmup),
+                    Math.max(1, measure),
+                    Math.max(1L, millis),
+                    include,
+                    csv
+            );
+        }
+    }
+
+    public record Result(String name,
+                         int count,
+                         double scoreMicros,
+                         double errorMicros) {
+
+        // Two-sided Student t quantiles at 99.9% for 1..10 degrees of freedom.
+        private static final double[] T_999 = {
+                636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587
+        };
+
+        static Result of(String name, double[] nanosPerOp) {
+            int n = nanosPerOp.length;
+            double mean = 0.0;
+            for (double v : nanosPerOp) {
+                mean += v;
+            }
+            mean /= n;
+
+            double error = Double.NaN;
+            if (n > 1) {
+                double variance = 0.0;
+                for (double v : nanosPerOp) {
+                    variance += (v - mean) * (v - mean);
+                }
+                double stdDev = Math.sqrt(variance / (n - 1));
+                double t = n - 1 <= T_999.length ? T_999[n - 2] : 3.291;
+                error = t * stdDev / Math.sqrt(n);
+            }
+            return new Result(name, n, mean / 1000.0, error / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package bench;
+
+import model.Comments;
+import model.Comments.ParsedComment;
+import model.RubricTableBuilder;
+import service.CheckstyleService;
+import service.GradingReportEditorService;
+import service.ProcessRunner;
+import service.ServiceLogger;
+import service.SourceCodeService;
+import service.UnitTestService;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regression benchmarks for the per-student hot paths of report generation and the
+ * grading editor, run against a {@link SyntheticCourse} fixture.
+ * <p>
+ * Compile {@code src/main/java} and {@code src/bench/java} against {@code lib/*}, then:
+ * </p>
+ * <pre>
+ * java -cp out/bench:out/production:lib/* bench.PipelineBenchmarks [-wi 5] [-i 5] [-r 1000]
+ *      [-rff bench_output.csv] [name-regex]
+ * </pre>
+ */
+public final class PipelineBenchmarks {
+
+    private PipelineBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkHarness.Options options = BenchmarkHarness.Options.parse(args);
+
+        try (SyntheticCourse course = SyntheticCourse.create(12, 200, 300, 120, 40)) {
+            ServiceLogger quiet = _ -> { };
+            ProcessRunner noProcesses = new ProcessRunner();
+
+            CheckstyleService checkstyle =
+                    new CheckstyleService(noProcesses, quiet, Path.of("checkstyle.jar"));
+            Method parseCheckstyle =
+                    privateMethod(CheckstyleService.class, "parseCheckstyleOutput", List.class);
+
+            UnitTestService unitTests = new UnitTestService(noProcesses, quiet);
+            Method parseJUnit =
+                    privateMethod(UnitTestService.class, "parseJUnitReports", Path.class);
+
+            GradingReportEditorService editor = new GradingReportEditorService(
+                    course.assignment(),
+                    course.assignmentsFile()
+            );
+            SourceCodeService sourceCode = new SourceCodeService();
+
+            String markdown = course.gradingMarkdown();
+            List<ParsedComment> comments = Comments.parseInjectedComments(markdown);
+            Map<String, Integer> manualDeductions = Map.of("ri_impl", 7, "ri_docs", 2);
+
+            System.out.println("# Fixture: " + course.checkstyleLines().size()
+                    + " checkstyle lines, " + comments.size() + " injected comments, "
+                    + markdown.length() + " chars of grading markdown");
+
+            new BenchmarkHarness(options)
+                    .add("checkstyle.parseCheckstyleOutput",
+                            () -> parseCheckstyle.invoke(checkstyle, course.checkstyleLines()))
+                    .add("unitTests.parseJUnitReports",
+                            () -> parseJUnit.invoke(unitTests, course.junitReportsDir()))
+                    .add("rubric.buildRubricMarkdown",
+                            () -> RubricTableBuilder.buildRubricMarkdown(
+                                    course.assignment(),
+                                    course.assignmentsFile(),
+                                    12,
+                                    3.0,
+                                    120,
+                                    manualDeductions))
+                    .add("editor.rebuildRubricAndSummary",
+                            () -> editor.rebuildRubricAndSummary(markdown, comments))
+                    .add("comments.parseInjectedComments",
+                            () -> Comments.parseInjectedComments(markdown))
+                    .add("sourceCode.buildSourceCodeMarkdown",
+                            () -> sourceCode.buildSourceCodeMarkdown(
+                                    course.assignment(),
+                                    SyntheticCourse.STUDENT_PACKAGE,
+                                    course.repo()))
+                    .run(System.out);
+        }
+    }
+
+    // The parsers are private, so they are reached the same way the parsing tests do.
+    private static Method privateMethod(Class<?> type, String name, Class<?>... params)
+            throws NoSuchMethodException {
+        Method m = type.getDeclaredMethod(name, params);
+        m.setAccessible(true);
+        return m;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package bench;
+
+import model.Assignment;
+import model.AssignmentsFile;
+import model.RubricItemDef;
+import model.RubricItemRef;
+import service.GradingReportEditorService;
+import service.SourceCodeService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates a synthetic student submission shaped like a typical lab: a cloned repo
+ * with several source files, checkstyle console output, JUnit XML reports, and a
+ * grading draft with injected comments. Content is seeded so runs are comparable.
+ */
+public final class SyntheticCourse implements AutoCloseable {
+
+    public static final String STUDENT_PACKAGE = "student01";
+
+    private static final String[] RULES = {
+            "MagicNumber", "JavadocMethod", "LineLength", "FinalParameters",
+            "WhitespaceAround", "NeedBraces", "HiddenField"
+    };
+    private static final String[] RUBRIC_IDS = {
+            "ri_impl", "ri_style", "ri_tests", "ri_docs", "ri_commits"
+    };
+
+    private final Path root;
+    private final Path repo;
+    private final Path junitReportsDir;
+    private final List<String> checkstyleLines;
+    private final Assignment assignment;
+    private final AssignmentsFile assignmentsFile;
+    private final String gradingMarkdown;
+
+    private SyntheticCourse(Path root,
+                            Path repo,
+                            Path junitReportsDir,
+                            List<String> checkstyleLines,
+                            Assignment assignment,
+                            AssignmentsFile assignmentsFile,
+                            String gradingMarkdown) {
+        this.root = root;
+        this.repo = repo;
+        this.junitReportsDir = junitReportsDir;
+        this.checkstyleLines = checkstyleLines;
+        this.assignment = assignment;
+        this.assignmentsFile = assignmentsFile;
+        this.gradingMarkdown = gradingMarkdown;
+    }
+
+    /**
+     * @param sourceFiles number of student source files
+     * @param linesPerFile approximate lines per source file
+     * @param violations checkstyle violations to emit
+     * @param testCases JUnit test cases across all report files
+     * @param comments injected grading comments
+     * @return a fixture under a fresh temp directory; close it to delete the files
+     */
+    public static SyntheticCourse create(int sourceFiles,
+                                         int linesPerFile,
+                                         int violations,
+                                         int testCases,
+                                         int comments) throws IOException {
+        Random random = new Random(42L);
+        Path root = Files.createTempDirectory("ghcu-bench");
+        Path repo = root.resolve("lab1-submissions").resolve("lab1-" + STUDENT_PACKAGE);
+        Files.createDirectories(repo.resolve(".git"));
+        Path pkgDir = Files.createDirectories(repo.resolve("src").resolve(STUDENT_PACKAGE));
+
+        List<String> expectedFiles = new ArrayList<>();
+        for (int f = 0; f < sourceFiles; f++) {
+            String className = "Class" + f;
+            Files.writeString(pkgDir.resolve(className + ".java"), javaSource(className, linesPerFile));
+            expectedFiles.add("src/{studentPackage}/" + className + ".java");
+        }
+
+        List<String> checkstyleLines = new ArrayList<>();
+        checkstyleLines.add("Starting audit...");
+        for (int v = 0; v < violations; v++) {
+            String file = pkgDir.resolve("Class" + random.nextInt(sourceFiles) + ".java").toString();
+            checkstyleLines.add("[ERROR] " + file + ":" + (1 + random.nextInt(linesPerFile)) + ":"
+                    + (1 + random.nextInt(80)) + ": Synthetic violation number " + v + ". ["
+                    + RULES[random.nextInt(RULES.length)] + "]");
+        }
+        checkstyleLines.add("Audit done.");
+
+        Path reports = Files.createDirectories(root.resolve("junit-reports"));
+        int perFile = 20;
+        for (int start = 0, n = 0; start < testCases; start += perFile, n++) {
+            Files.writeString(
+                    reports.resolve("TEST-junit-jupiter-" + n + ".xml"),
+                    junitXml(n, start, Math.min(perFile, testCases - start), random)
+            );
+        }
+
+        Assignment assignment = buildAssignment(expectedFiles);
+        AssignmentsFile assignmentsFile = buildAssignmentsFile();
+        String markdown = gradingMarkdown(assignment, assignmentsFile, repo, comments, random);
+
+        return new SyntheticCourse(
+                root,
+                repo,
+                reports,
+                List.copyOf(checkstyleLines),
+                assignment,
+                assignmentsFile,
+                markdown
+        );
+    }
+
+    public Path repo() {
+        return repo;
+    }
+
+    public Path junitReportsDir() {
+        return junitReportsDir;
+    }
+
+    public List<String> checkstyleLines() {
+        return checkstyleLines;
+    }
+
+    public Assignment assignment() {
+        return assignment;
+    }
+
+    public AssignmentsFile assignmentsFile() {
+        return assignmentsFile;
+    }
+
+    public String gradingMarkdown() {
+        return gradingMarkdown;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private static String javaSource(String className, int lines) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(STUDENT_PACKAGE).append(";\n\n");
+        sb.append("/**\n * Synthetic class ").append(className).append(".\n */\n");
+        sb.append("public class ").append(className).append(" {\n");
+        int methods = Math.max(1, (lines - 6) / 8);
+        for (int m = 0; m < methods; m++) {
+            sb.append("    /** Computes value ").append(m).append(". */\n");
+            sb.append("    public int value").append(m).append("(int x) {\n");
+            sb.append("        int total = 0;\n");
+            sb.append("        for (int i = 0; i < x; i++) {\n");
+            sb.append("            total += i * ").append(m + 1).append(";\n");
+            sb.append("        }\n");
+            sb.append("        return total;\n");
+            sb.append("    }\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static String junitXml(int fileIndex, int start, int count, Random random) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<testsuite name=\"JUnit Jupiter\" tests=\"").append(count).append("\">\n");
+        for (int t = start; t < start + count; t++) {
+            sb.append("  <testcase name=\"test").append(t).append("()\" classname=\"")
+                    .append(STUDENT_PACKAGE).append(".TestSuite$Part").append(fileIndex)
+                    .append("\" time=\"0.01\">\n");
+            if (random.nextInt(10) == 0) {
+                sb.append("    <failure message=\"expected: &lt;").append(t)
+                        .append("&gt; but was: &lt;0&gt;\" type=\"org.opentest4j.AssertionFailedError\">")
+                        .append("org.opentest4j.AssertionFailedError: expected: &lt;").append(t)
+                        .append("&gt; but was: &lt;0&gt;\n\tat ").append(STUDENT_PACKAGE)
+                        .append(".TestSuite.test").append(t).append("(TestSuite.java:").append(t)
+                        .append(")\n</failure>\n");
+            }
+            sb.append("  </testcase>\n");
+        }
+        sb.append("</testsuite>\n");
+        return sb.toString();
+    }
+
+    private static Assignment buildAssignment(List<String> expectedFiles) {
+        Assignment assignment = new Assignment();
+        assignment.setCourseCode("CSC1120");
+        assignment.setAssignmentCode("L1");
+        assignment.setAssignmentName("Lab 1 - Synthetic Benchmark");
+        assignment.setExpectedFiles(expectedFiles);
+
+        List<RubricItemRef> refs = new ArrayList<>();
+        int[] points = {50, 10, 20, 10, 10};
+        for (int i = 0; i < RUBRIC_IDS.length; i++) {
+            RubricItemRef ref = new RubricItemRef();
+            ref.setRubricItemId(RUBRIC_IDS[i]);
+            ref.setPoints(points[i]);
+            refs.add(ref);
+        }
+        Assignment.Rubric rubric = new Assignment.Rubric();
+        rubric.setItems(refs);
+        assignment.setRubric(rubric);
+        return assignment;
+    }
+
+    private static AssignmentsFile buildAssignmentsFile() {
+        String[] names = {"Implementation", "Coding Standards", "Unit Tests", "Javadoc", "Commits"};
+        Map<String, RubricItemDef> library = new LinkedHashMap<>();
+        for (int i = 0; i < RUBRIC_IDS.length; i++) {
+            RubricItemDef def = new RubricItemDef();
+            def.setId(RUBRIC_IDS[i]);
+            def.setName(names[i]);
+            def.setCheckstyleItem("ri_style".equals(RUBRIC_IDS[i]));
+            library.put(RUBRIC_IDS[i], def);
+        }
+        AssignmentsFile file = new AssignmentsFile();
+        file.setRubricItemLibrary(library);
+        file.setAssignments(List.of());
+        return file;
+    }
+
+    private static String gradingMarkdown(Assignment assignment,
+                                          AssignmentsFile assignmentsFile,
+                                          Path repo,
+                                          int comments,
+                                          Random random) {
+        GradingReportEditorService editor =
+                new GradingReportEditorService(assignment, assignmentsFile);
+        String source = new SourceCodeService()
+                .buildSourceCodeMarkdown(assignment, STUDENT_PACKAGE, repo);
+
+        // Drop injected comments between source lines, the way graders annotate code.
+        String[] lines = source.split("\n", -1);
+        int every = Math.max(1, lines.length / Math.max(1, comments));
+        StringBuilder body = new StringBuilder();
+        int injected = 0;
+        for (int i = 0; i < lines.length; i++) {
+            body.append(lines[i]).append('\n');
+            if (injected < comments && i > 0 && i % every == 0 && !lines[i].startsWith("```")) {
+                String rubric = RUBRIC_IDS[random.nextInt(RUBRIC_IDS.length)];
+                body.append("<a id=\"cmt_").append(injected).append("\"></a>\n")
+                        .append("<!-- cmt-meta rubric:").append(rubric).append(" -->\n")
+                        .append("```\n")
+                        .append("> #### -").append(1 + random.nextInt(3))
+                        .append(" Synthetic comment ").append(injected).append('\n')
+                        .append("> Explain why this line needs attention.\n\n")
+                        .append("```\n\n");
+                injected++;
+            }
+        }
+
+        return editor.buildFreshReportSkeleton(STUDENT_PACKAGE) + "\n" + body;
+    }
+}
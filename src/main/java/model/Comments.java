@@ -249,26 +249,29 @@ public class Comments {
     }
 
     public static List<ParsedComment> parseInjectedComments(String markdown) {
-        List<ParsedComment> out = new ArrayList<>();
-
         if (markdown == null || markdown.isEmpty()) {
-            return out;
+            return new ArrayList<>();
         }
+        return GradingReportDocument.parse(markdown).comments();
+    }
 
-        String[] lines = markdown.split("\\R", -1);
-
-        String lastAnchor = null;
-        String lastTitle = null;
-        String lastRubric = null;
-        Integer lastLoss = null;
-
-        for (String line : lines) {
-            if (line == null) {
-                continue;
-            }
-
-            String t = line.trim();
-
+    /**
+     * Line-by-line state machine for one injected comment. A comment starts at an anchor
+     * line and is complete once a title, rubric id and point loss have been seen after it;
+     * another anchor line starts over.
+     */
+    static final class InjectedCommentParser {
+
+        private String lastAnchor = null;
+        private String lastTitle = null;
+        private String lastRubric = null;
+        private Integer lastLoss = null;
+
+        /**
+         * @param t trimmed line
+         * @return the completed comment, or null
+         */
+        ParsedComment accept(String t) {
             // anchor line:
             // canonical: <a id="cmt_..."></a>
             // legacy/edited: ...<a id="cmt_..."></a>...
@@ -279,7 +282,7 @@ public class Comments {
                 String rubricFromMeta = extractRubricMeta(t);
                 lastRubric = rubricFromMeta;
                 lastLoss = null;
-                continue;
+                return null;
             }
 
             // metadata line for canonical injected comments:
@@ -287,7 +290,7 @@ public class Comments {
             String rubricMeta = extractRubricMeta(t);
             if (rubricMeta != null) {
                 lastRubric = rubricMeta;
-                continue;
+                return null;
             }
 
             // title line:
@@ -308,7 +311,7 @@ public class Comments {
                     }
                 }
                 lastTitle = heading;
-                continue;
+                return null;
             }
 
             // points line:
@@ -337,20 +340,21 @@ public class Comments {
 
             // finalize a comment once we have anchor + title + rubric + loss
             if (lastAnchor != null && lastTitle != null && lastRubric != null && lastLoss != null) {
-                out.add(new ParsedComment(lastAnchor, lastRubric, lastLoss, lastTitle));
+                ParsedComment parsed =
+                        new ParsedComment(lastAnchor, lastRubric, lastLoss, lastTitle);
 
                 // reset so we don't double-add
                 lastAnchor = null;
                 lastTitle = null;
                 lastRubric = null;
                 lastLoss = null;
+                return parsed;
             }
+            return null;
         }
-
-        return out;
     }
 
-    private static String extractAnchorId(String line) {
+    static String extractAnchorId(String line) {
         if (line == null || line.isEmpty()) {
             return null;
         }
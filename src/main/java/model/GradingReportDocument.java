@@ -0,0 +1,344 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package model;
+
+import model.Comments.ParsedComment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A grading report parsed into the parts the editor rewrites.
+ * <p>
+ * The preamble runs from the top to the first major generated section
+ * ({@code ## Source Code}, {@code ## Checkstyle Violations}, ...). It holds the title,
+ * the rubric and comment-summary marker blocks and the feedback. Everything from that
+ * section on is the body: the embedded source, its code fences and the injected comment
+ * blocks, which are found through their anchors. Parsing only reads as far as the
+ * markers and the first section heading. Anchors and comments are located on first use,
+ * and replacing a block's contents shifts the known offsets instead of parsing again.
+ * </p>
+ */
+public final class GradingReportDocument {
+
+    public static final String RUBRIC_TABLE_BEGIN = "<!-- RUBRIC_TABLE_BEGIN -->";
+    public static final String RUBRIC_TABLE_END = "<!-- RUBRIC_TABLE_END -->";
+    public static final String COMMENTS_SUMMARY_BEGIN = "<!-- COMMENTS_SUMMARY_BEGIN -->";
+    public static final String COMMENTS_SUMMARY_END = "<!-- COMMENTS_SUMMARY_END -->";
+
+    private static final Pattern MAJOR_SECTION = Pattern.compile(
+            "(?m)^##\\s+(Source Code|Checkstyle Violations|Failed Unit Tests|Commit History\\b).*"
+    );
+    private static final String ANCHOR_START = "<a";
+
+    private final String text;
+    private final int bodyStart;
+    private final Block rubric;
+    private final Block summary;
+    private List<Anchor> anchors;
+    private List<ParsedComment> comments;
+
+    private GradingReportDocument(String text,
+                                  int bodyStart,
+                                  Block rubric,
+                                  Block summary,
+                                  List<Anchor> anchors) {
+        this.text = text;
+        this.bodyStart = bodyStart;
+        this.rubric = rubric;
+        this.summary = summary;
+        this.anchors = anchors;
+    }
+
+    public static GradingReportDocument parse(String markdown) {
+        String text = markdown == null ? "" : markdown;
+        Matcher matcher = MAJOR_SECTION.matcher(text);
+        int bodyStart = matcher.find() ? matcher.start() : text.length();
+        return new GradingReportDocument(
+                text,
+                bodyStart,
+                Block.locate(text, RUBRIC_TABLE_BEGIN, RUBRIC_TABLE_END),
+                Block.locate(text, COMMENTS_SUMMARY_BEGIN, COMMENTS_SUMMARY_END),
+                null
+        );
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @return offset of the first major generated section, or the text length if none
+     */
+    public int bodyStart() {
+        return bodyStart;
+    }
+
+    public String preamble() {
+        return text.substring(0, bodyStart);
+    }
+
+    public String body() {
+        return text.substring(bodyStart);
+    }
+
+    /**
+     * @return the rubric block, located by the first begin and first end marker
+     */
+    public Block rubric() {
+        return rubric;
+    }
+
+    /**
+     * @return the comment-summary block, located by the first begin and first end marker
+     */
+    public Block summary() {
+        return summary;
+    }
+
+    /**
+     * @return trimmed rubric block contents, or null when the markers are missing or
+     *         out of order
+     */
+    public String rubricContents() {
+        return rubric.contents(text);
+    }
+
+    /**
+     * @return trimmed summary block contents, or null when the markers are missing or
+     *         out of order
+     */
+    public String summaryContents() {
+        return summary.contents(text);
+    }
+
+    /**
+     * @return true when no rubric or summary marker appears in the body
+     */
+    public boolean markersOnlyInPreamble() {
+        return text.indexOf(RUBRIC_TABLE_BEGIN, bodyStart) < 0
+                && text.indexOf(RUBRIC_TABLE_END, bodyStart) < 0
+                && text.indexOf(COMMENTS_SUMMARY_BEGIN, bodyStart) < 0
+                && text.indexOf(COMMENTS_SUMMARY_END, bodyStart) < 0;
+    }
+
+    /**
+     * @return lines holding a comment anchor, in document order
+     */
+    public List<Anchor> anchors() {
+        if (anchors == null) {
+            anchors = Collections.unmodifiableList(findAnchors(text));
+        }
+        return anchors;
+    }
+
+    /**
+     * Injected comments, read from the few lines after each anchor rather than from
+     * every line of the report.
+     *
+     * @return parsed comments in document order
+     */
+    public List<ParsedComment> comments() {
+        if (comments == null) {
+            comments = Collections.unmodifiableList(parseComments());
+        }
+        return new ArrayList<>(comments);
+    }
+
+    /**
+     * Replaces the contents of a block the way the editor always has: trimmed contents
+     * that already match are left alone, otherwise the new contents go between the
+     * markers on their own lines.
+     *
+     * @param block {@link #rubric()} or {@link #summary()} of this document
+     * @param newContents replacement contents
+     * @return the updated document; this one when nothing changed
+     */
+    public GradingReportDocument withBlockContents(Block block, String newContents) {
+        if (!block.isPresent()) {
+            return this;
+        }
+
+        int start = block.contentStart();
+        String current = text.substring(start, block.end()).trim();
+        String replacement = newContents == null ? "" : newContents.trim();
+        if (current.equals(replacement)) {
+            return this;
+        }
+
+        String inserted = System.lineSeparator() + replacement + System.lineSeparator();
+        String updated = text.substring(0, start) + inserted + text.substring(block.end());
+        String removed = text.substring(start, block.end());
+        if (mayMoveStructure(removed) || mayMoveStructure(inserted)) {
+            return parse(updated);
+        }
+
+        int delta = inserted.length() - removed.length();
+        return new GradingReportDocument(
+                updated,
+                shift(bodyStart, start, delta),
+                rubric.shiftedAfter(start, delta),
+                summary.shiftedAfter(start, delta),
+                shiftAnchors(start, delta)
+        );
+    }
+
+    // Text without markers, anchors or headings cannot move any located part.
+    private static boolean mayMoveStructure(String value) {
+        return value.indexOf('<') >= 0 || value.contains("##");
+    }
+
+    private static int shift(int offset, int editStart, int delta) {
+        return offset >= editStart ? offset + delta : offset;
+    }
+
+    private List<Anchor> shiftAnchors(int editStart, int delta) {
+        if (anchors == null) {
+            return null;
+        }
+        List<Anchor> shifted = new ArrayList<>(anchors.size());
+        for (Anchor anchor : anchors) {
+            shifted.add(new Anchor(
+                    anchor.id(),
+                    shift(anchor.lineStart(), editStart, delta),
+                    shift(anchor.lineEnd(), editStart, delta)
+            ));
+        }
+        return Collections.unmodifiableList(shifted);
+    }
+
+    private List<ParsedComment> parseComments() {
+        List<ParsedComment> out = new ArrayList<>();
+        List<Anchor> found = anchors();
+
+        for (int i = 0; i < found.size(); i++) {
+            int limit = i + 1 < found.size() ? found.get(i + 1).lineStart() : text.length();
+            Comments.InjectedCommentParser parser = new Comments.InjectedCommentParser();
+            int lineStart = found.get(i).lineStart();
+            boolean done = false;
+
+            while (!done) {
+                int lineEnd = lineEnd(text, lineStart);
+                ParsedComment parsed = parser.accept(text.substring(lineStart, lineEnd).trim());
+                if (parsed != null) {
+                    out.add(parsed);
+                    done = true;
+                } else {
+                    lineStart = nextLineStart(text, lineEnd);
+                    done = lineStart < 0 || lineStart >= limit;
+                }
+            }
+        }
+        return out;
+    }
+
+    private static List<Anchor> findAnchors(String text) {
+        List<Anchor> found = new ArrayList<>();
+        int index = text.indexOf(ANCHOR_START);
+
+        while (index >= 0) {
+            int lineStart = lineStart(text, index);
+            int lineEnd = lineEnd(text, index);
+            String id = Comments.extractAnchorId(text.substring(lineStart, lineEnd).trim());
+            if (id != null) {
+                found.add(new Anchor(id, lineStart, lineEnd));
+            }
+            index = text.indexOf(ANCHOR_START, lineEnd);
+        }
+        return found;
+    }
+
+    // Line breaks are the ones \R matches, so lines agree with split("\\R").
+    private static boolean isLineBreak(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u000B' || ch == '\u000C'
+                || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+
+    private static int lineStart(String text, int index) {
+        int i = index;
+        while (i > 0 && !isLineBreak(text.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int lineEnd(String text, int index) {
+        int i = index;
+        while (i < text.length() && !isLineBreak(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return start of the line after the break at {@code lineEnd}, or -1 at end of text
+     */
+    private static int nextLineStart(String text, int lineEnd) {
+        if (lineEnd >= text.length()) {
+            return -1;
+        }
+        if (text.charAt(lineEnd) == '\r'
+                && lineEnd + 1 < text.length()
+                && text.charAt(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
+
+    /**
+     * A marker-delimited block. Offsets are -1 for a marker that is missing.
+     *
+     * @param beginMarker begin marker text
+     * @param begin offset of the first begin marker
+     * @param end offset of the first end marker
+     */
+    public record Block(String beginMarker, int begin, int end) {
+
+        static Block locate(String text, String beginMarker, String endMarker) {
+            return new Block(beginMarker, text.indexOf(beginMarker), text.indexOf(endMarker));
+        }
+
+        /**
+         * @return true when both markers exist, begin before end
+         */
+        public boolean isPresent() {
+            return begin >= 0 && end >= 0 && end >= begin;
+        }
+
+        /**
+         * @return true when both markers exist, in any order
+         */
+        public boolean hasBothMarkers() {
+            return begin >= 0 && end >= 0;
+        }
+
+        public int contentStart() {
+            return begin + beginMarker.length();
+        }
+
+        String contents(String text) {
+            return isPresent() ? text.substring(contentStart(), end).trim() : null;
+        }
+
+        Block shiftedAfter(int editStart, int delta) {
+            return new Block(
+                    beginMarker,
+                    shift(begin, editStart, delta),
+                    shift(end, editStart, delta)
+            );
+        }
+    }
+
+    /**
+     * @param id anchor id, e.g. {@code cmt_missing_javadoc}
+     * @param lineStart offset of the anchor line
+     * @param lineEnd offset of the end of the anchor line, before its line break
+     */
+    public record Anchor(String id, int lineStart, int lineEnd) {
+    }
+}
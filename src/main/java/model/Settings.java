@@ -3,6 +3,8 @@ package model;
 public class Settings {
     private int schemaVersion;
     private String checkstyleConfigUrl;
+    private int pushParallelism;
+    private int autosaveDelaySeconds;
 
     public Settings() {
     }
@@ -22,4 +24,27 @@ public class Settings {
     public void setCheckstyleConfigUrl(String checkstyleConfigUrl) {
         this.checkstyleConfigUrl = checkstyleConfigUrl;
     }
+
+    /**
+     * @return repos pushed at once by Save &amp; Export; 0 or less means the default
+     */
+    public int getPushParallelism() {
+        return pushParallelism;
+    }
+
+    public void setPushParallelism(int pushParallelism) {
+        this.pushParallelism = pushParallelism;
+    }
+
+    /**
+     * @return quiet period in seconds before the grading window autosaves the active
+     *         draft; autosave is off unless this is positive, so it is off by default
+     */
+    public int getAutosaveDelaySeconds() {
+        return autosaveDelaySeconds;
+    }
+
+    public void setAutosaveDelaySeconds(int autosaveDelaySeconds) {
+        this.autosaveDelaySeconds = autosaveDelaySeconds;
+    }
 }
@@ -0,0 +1,321 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloaded checkstyle configs, one entry per URL, so switching between course configs
+ * does not throw the other one away.
+ * <p>
+ * A URL is only fetched in the foreground the first time it is used. After that the
+ * cached copy is returned right away, and once it is older than the refresh interval
+ * it is revalidated in the background with a conditional GET ({@code If-None-Match} /
+ * {@code If-Modified-Since}). When the server cannot be reached the last good copy keeps
+ * being used.
+ * </p>
+ */
+public class CheckstyleConfigCache implements AutoCloseable {
+
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(10);
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(20);
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private static final String CONFIG_FILE = "checkstyle.xml";
+    private static final String META_FILE = "entry.properties";
+    private static final String LEGACY_CONFIG_FILE = "checkstyle.xml";
+    private static final String LEGACY_URL_FILE = "checkstyle-url.txt";
+
+    private final Path cacheRoot;
+    private final HttpClient client;
+    private final Duration refreshInterval;
+    private final Executor refreshExecutor;
+    private final Clock clock;
+    private final ServiceLogger logger;
+    private final Set<String> refreshing = new HashSet<>();
+    private final Map<String, Long> lastAttemptMillis = new HashMap<>();
+
+    /**
+     * @param cacheRoot directory holding the cached configs
+     * @param logger logger
+     */
+    public CheckstyleConfigCache(Path cacheRoot, ServiceLogger logger) {
+        this(
+                cacheRoot,
+                HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build(),
+                DEFAULT_REFRESH_INTERVAL,
+                newRefreshExecutor(),
+                Clock.systemUTC(),
+                logger
+        );
+    }
+
+    CheckstyleConfigCache(Path cacheRoot,
+                          HttpClient client,
+                          Duration refreshInterval,
+                          Executor refreshExecutor,
+                          Clock clock,
+                          ServiceLogger logger) {
+        this.cacheRoot = Objects.requireNonNull(cacheRoot);
+        this.client = Objects.requireNonNull(client);
+        this.refreshInterval = Objects.requireNonNull(refreshInterval);
+        this.refreshExecutor = Objects.requireNonNull(refreshExecutor);
+        this.clock = Objects.requireNonNull(clock);
+        this.logger = Objects.requireNonNull(logger);
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkstyle-config-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the cached config for a URL, downloading it if this is the first use.
+     *
+     * @param url config URL
+     * @return local copy of the config
+     * @throws IOException when there is no cached copy and the download fails
+     */
+    public Path configFor(String url) throws IOException {
+        Path entryDir = entryDir(url);
+        Path configFile = entryDir.resolve(CONFIG_FILE);
+
+        synchronized (this) {
+            if (!Files.exists(configFile) && !adoptLegacyConfig(url, entryDir)) {
+                fetch(url, entryDir, new Properties());
+                return configFile;
+            }
+        }
+
+        scheduleRefreshIfStale(url, entryDir);
+        return configFile;
+    }
+
+    @Override
+    public void close() {
+        if (refreshExecutor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    private void scheduleRefreshIfStale(String url, Path entryDir) {
+        Properties meta = readMeta(entryDir);
+        long now = clock.millis();
+        long checkedAt = parseLong(meta.getProperty("checkedAt"));
+        if (now - checkedAt < refreshInterval.toMillis()) {
+            return;
+        }
+
+        // Failed attempts are not retried until the interval passes again.
+        synchronized (refreshing) {
+            Long lastAttempt = lastAttemptMillis.get(url);
+            if (lastAttempt != null && now - lastAttempt < refreshInterval.toMillis()) {
+                return;
+            }
+            if (!refreshing.add(url)) {
+                return;
+            }
+            lastAttemptMillis.put(url, now);
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(url, entryDir));
+        } catch (RejectedExecutionException e) {
+            synchronized (refreshing) {
+                refreshing.remove(url);
+            }
+        }
+    }
+
+    private void refresh(String url, Path entryDir) {
+        // Not under the cache lock: lookups keep returning the current copy meanwhile.
+        try {
+            fetch(url, entryDir, readMeta(entryDir));
+        } catch (IOException e) {
+            logger.log("Checkstyle config refresh failed, using the cached copy: "
+                    + e.getMessage());
+        } finally {
+            synchronized (refreshing) {
+                refreshing.remove(url);
+            }
+        }
+    }
+
+    /*
+     * Sends a GET that is conditional on whatever validators the entry has. A 304 only
+     * moves the check time forward; a 200 replaces the config atomically, so a
+     * checkstyle run reading the old copy is never handed a half-written file.
+     */
+    private void fetch(String url, Path entryDir, Properties meta) throws IOException {
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder()
+                    .uri(URI.create(url))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url);
+        }
+
+        Path configFile = entryDir.resolve(CONFIG_FILE);
+        if (Files.exists(configFile)) {
+            String etag = meta.getProperty("etag");
+            String lastModified = meta.getProperty("lastModified");
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+        }
+
+        Files.createDirectories(entryDir);
+        try {
+            HttpResponse<InputStream> response =
+                    client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+
+            try (InputStream in = response.body()) {
+                if (response.statusCode() == HTTP_NOT_MODIFIED && Files.exists(configFile)) {
+                    meta.setProperty("checkedAt", String.valueOf(clock.millis()));
+                    writeMeta(entryDir, meta);
+                    return;
+                }
+                if (response.statusCode() != HTTP_OK) {
+                    throw new IOException(
+                            "HTTP " + response.statusCode() + " downloading config.");
+                }
+
+                Path download = Files.createTempFile(entryDir, "download-", ".tmp");
+                try {
+                    Files.copy(in, download, StandardCopyOption.REPLACE_EXISTING);
+                    moveIntoPlace(download, configFile);
+                } finally {
+                    Files.deleteIfExists(download);
+                }
+            }
+
+            Properties updated = new Properties();
+            updated.setProperty("url", url);
+            updated.setProperty("checkedAt", String.valueOf(clock.millis()));
+            response.headers().firstValue("ETag")
+                    .ifPresent(v -> updated.setProperty("etag", v));
+            response.headers().firstValue("Last-Modified")
+                    .ifPresent(v -> updated.setProperty("lastModified", v));
+            writeMeta(entryDir, updated);
+            logger.log("Downloaded checkstyle config: " + url);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted.");
+        }
+    }
+
+    /*
+     * Earlier versions kept one config next to the URL it came from. Reusing it for
+     * that URL keeps the first run after an upgrade working offline.
+     */
+    private boolean adoptLegacyConfig(String url, Path entryDir) {
+        Path legacyConfig = cacheRoot.resolve(LEGACY_CONFIG_FILE);
+        Path legacyUrl = cacheRoot.resolve(LEGACY_URL_FILE);
+        try {
+            if (!Files.isRegularFile(legacyConfig) || !Files.isRegularFile(legacyUrl)
+                    || !Files.readString(legacyUrl).trim().equals(url)) {
+                return false;
+            }
+            Files.createDirectories(entryDir);
+            Files.copy(legacyConfig, entryDir.resolve(CONFIG_FILE),
+                    StandardCopyOption.REPLACE_EXISTING);
+            Properties meta = new Properties();
+            meta.setProperty("url", url);
+            writeMeta(entryDir, meta);
+            Files.deleteIfExists(legacyUrl);
+            Files.deleteIfExists(legacyConfig);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path entryDir(String url) {
+        String key = ResultCache.keyBuilder().add(url).build();
+        return cacheRoot.resolve("configs").resolve(key.substring(0, 16));
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Properties readMeta(Path entryDir) {
+        Properties meta = new Properties();
+        Path metaFile = entryDir.resolve(META_FILE);
+        if (Files.isRegularFile(metaFile)) {
+            try (Reader in = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+                meta.load(in);
+            } catch (IOException | IllegalArgumentException ignored) {
+                // An unreadable entry is revalidated without validators.
+            }
+        }
+        return meta;
+    }
+
+    private static void writeMeta(Path entryDir, Properties meta) throws IOException {
+        Path temp = Files.createTempFile(entryDir, "entry-", ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                meta.store(out, null);
+            }
+            moveIntoPlace(temp, entryDir.resolve(META_FILE));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
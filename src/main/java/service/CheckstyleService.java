@@ -5,30 +5,36 @@
 package service;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.Objects;
-import java.util.stream.Stream;
 
 import util.AppDataUtil;
 
 public class CheckstyleService {
 
+    private static final String CACHE_KIND = "checkstyle";
+
+    /*
+     * Windows caps a command line at 32,767 characters. Batch runs split their file list
+     * to stay well below that, leaving room for quoting added by the process launcher.
+     */
+    static final int MAX_COMMAND_LINE_CHARS = 24_000;
+
     private final ProcessRunner processRunner;
     private final ServiceLogger logger;
     private final Path checkstyleJar;
     private final ToolArtifactService toolArtifactService;
+    private final ResultCache resultCache;
+    private final SourceSnapshotCache snapshots;
+    private CheckstyleConfigCache configCache;
 
     public CheckstyleService(ProcessRunner processRunner,
                              ServiceLogger logger,
@@ -41,15 +47,57 @@ public class CheckstyleService {
         );
     }
 
+    /**
+     * Creates a service that reuses results for repos whose sources, config and
+     * checkstyle jar are unchanged since the last run.
+     *
+     * @param processRunner process runner
+     * @param logger logger
+     * @param checkstyleJar checkstyle jar
+     * @param resultCache persistent result cache
+     */
+    public CheckstyleService(ProcessRunner processRunner,
+                             ServiceLogger logger,
+                             Path checkstyleJar,
+                             ResultCache resultCache) {
+        this(
+                processRunner,
+                logger,
+                checkstyleJar,
+                new ToolArtifactService(AppDataUtil.appDataDir()),
+                Objects.requireNonNull(resultCache)
+        );
+    }
+
     CheckstyleService(ProcessRunner processRunner,
                       ServiceLogger logger,
                       Path checkstyleJar,
                       ToolArtifactService toolArtifactService) {
+        this(processRunner, logger, checkstyleJar, toolArtifactService, null);
+    }
+
+    CheckstyleService(ProcessRunner processRunner,
+                      ServiceLogger logger,
+                      Path checkstyleJar,
+                      ToolArtifactService toolArtifactService,
+                      ResultCache resultCache) {
+        this(processRunner, logger, checkstyleJar, toolArtifactService, resultCache,
+                SourceSnapshotCache.shared());
+    }
+
+    CheckstyleService(ProcessRunner processRunner,
+                      ServiceLogger logger,
+                      Path checkstyleJar,
+                      ToolArtifactService toolArtifactService,
+                      ResultCache resultCache,
+                      SourceSnapshotCache snapshots) {
 
         this.processRunner = Objects.requireNonNull(processRunner);
         this.logger = Objects.requireNonNull(logger);
         this.checkstyleJar = Objects.requireNonNull(checkstyleJar);
         this.toolArtifactService = Objects.requireNonNull(toolArtifactService);
+        this.resultCache = resultCache;
+        this.snapshots = Objects.requireNonNull(snapshots);
     }
 
     public CheckstyleResult buildCheckstyleResult(Path repoPath,
@@ -60,29 +108,16 @@ public class CheckstyleService {
 
         final int zeroViolations = 0;
 
-        if (!checkstyleEnabled) {
-            return new CheckstyleResult("_Checkstyle disabled._", zeroViolations);
-        }
-
-        if (missingCheckstyleRubricItem) {
-            return new CheckstyleResult("_No checkstyle rubric item for this assignment._",
-                    zeroViolations);
-        }
-
-        String url = "";
-        if (checkstyleUrl != null) {
-            url = checkstyleUrl.trim();
-        }
-
-        if (url.isEmpty()) {
-            return new CheckstyleResult("_Checkstyle enabled but URL is blank._",
-                    zeroViolations);
+        CheckstyleResult unavailable = checkPreconditions(
+                checkstyleEnabled,
+                missingCheckstyleRubricItem,
+                checkstyleUrl
+        );
+        if (unavailable != null) {
+            return unavailable;
         }
 
-        if (!Files.exists(checkstyleJar)) {
-            return new CheckstyleResult("_Missing checkstyle jar in program folder._",
-                    zeroViolations);
-        }
+        String url = checkstyleUrl.trim();
 
         if (repoPath == null) {
             return new CheckstyleResult("_Checkstyle failed: repoPath is null._",
@@ -95,7 +130,7 @@ public class CheckstyleService {
         }
 
         try {
-            Path configFile = downloadCheckstyleConfig(selectedRootPath, url);
+            Path configFile = downloadCheckstyleConfig(url);
             List<Path> javaFiles = findJavaFiles(repoPath.resolve("src"));
 
             if (javaFiles.isEmpty()) {
@@ -103,6 +138,12 @@ public class CheckstyleService {
                         zeroViolations);
             }
 
+            String cacheKey = cacheKey(configFile, url, repoPath, javaFiles);
+            CheckstyleResult cached = cachedResult(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+
             List<String> args = buildCheckstyleArgs(configFile, javaFiles);
 
             ProcessResult result = processRunner.runCaptureLinesWithExitCode(args, repoPath);
@@ -112,21 +153,346 @@ public class CheckstyleService {
                         zeroViolations);
             }
 
-            CheckstyleSummary summary = parseCheckstyleOutput(result.outputLines());
-            int violations = summary.getTotalViolations();
+            CheckstyleResult checked = toResult(parseCheckstyleOutput(result.outputLines()));
+            cacheResult(cacheKey, checked);
+            return checked;
 
-            if (violations == 0) {
-                return new CheckstyleResult("_No checkstyle violations._",
-                        zeroViolations);
+        } catch (IOException e) {
+            return new CheckstyleResult("_Checkstyle failed: " + e.getMessage() + "_",
+                    zeroViolations);
+        }
+    }
+
+    /**
+     * Runs checkstyle once over every repo's {@code src/} files and splits the output
+     * back into one result per repo. The map is keyed by the normalized absolute repo
+     * path. If the shared run aborts part way (for example on a file checkstyle cannot
+     * parse), every repo is re-run on its own so one bad submission cannot hide the
+     * results of the others.
+     *
+     * @param repoPaths repo roots to check
+     * @param selectedRootPath selected course root
+     * @param checkstyleEnabled whether checkstyle is enabled
+     * @param missingCheckstyleRubricItem whether the assignment lacks a checkstyle rubric item
+     * @param checkstyleUrl URL of the checkstyle config
+     * @return results keyed by normalized absolute repo path
+     */
+    public Map<Path, CheckstyleResult> buildCheckstyleResults(Collection<Path> repoPaths,
+                                                              Path selectedRootPath,
+                                                              boolean checkstyleEnabled,
+                                                              boolean missingCheckstyleRubricItem,
+                                                              String checkstyleUrl) {
+        final int zeroViolations = 0;
+        Map<Path, CheckstyleResult> results = new LinkedHashMap<>();
+
+        if (repoPaths == null || repoPaths.isEmpty()) {
+            return results;
+        }
+
+        List<Path> repos = new ArrayList<>();
+        for (Path repoPath : repoPaths) {
+            if (repoPath != null) {
+                repos.add(repoKey(repoPath));
             }
+        }
 
-            return new CheckstyleResult(buildViolationsMarkdown(summary, violations),
-                    violations);
+        CheckstyleResult unavailable = checkPreconditions(
+                checkstyleEnabled,
+                missingCheckstyleRubricItem,
+                checkstyleUrl
+        );
+        if (unavailable == null && selectedRootPath == null) {
+            unavailable = new CheckstyleResult("_Checkstyle failed: selectedRootPath is null._",
+                    zeroViolations);
+        }
+        if (unavailable != null) {
+            for (Path repo : repos) {
+                results.put(repo, unavailable);
+            }
+            return results;
+        }
+
+        String url = checkstyleUrl.trim();
+
+        try {
+            Path configFile = downloadCheckstyleConfig(url);
+
+            Map<Path, List<Path>> filesByRepo = new LinkedHashMap<>();
+            Map<Path, String> cacheKeys = new LinkedHashMap<>();
+            List<Path> allFiles = new ArrayList<>();
+            int reused = 0;
+            for (Path repo : repos) {
+                List<Path> javaFiles = findJavaFiles(repo.resolve("src"));
+                if (javaFiles.isEmpty()) {
+                    results.put(repo, new CheckstyleResult("_No Java files found under src/._",
+                            zeroViolations));
+                    continue;
+                }
+
+                String cacheKey = cacheKey(configFile, url, repo, javaFiles);
+                CheckstyleResult cached = cachedResult(cacheKey);
+                if (cached != null) {
+                    results.put(repo, cached);
+                    reused++;
+                } else {
+                    filesByRepo.put(repo, javaFiles);
+                    if (cacheKey != null) {
+                        cacheKeys.put(repo, cacheKey);
+                    }
+                    allFiles.addAll(javaFiles);
+                }
+            }
+
+            if (reused > 0) {
+                logger.log("Reusing cached checkstyle results for " + reused + " repo(s).");
+            }
+
+            if (filesByRepo.isEmpty()) {
+                return results;
+            }
+
+            List<List<Path>> chunks = chunkForCommandLine(
+                    allFiles,
+                    commandLineLength(buildCheckstyleArgs(configFile, List.of())),
+                    MAX_COMMAND_LINE_CHARS
+            );
+            logger.log("Running checkstyle over " + filesByRepo.size() + " repo(s), "
+                    + allFiles.size() + " file(s) in " + chunks.size() + " run(s).");
+
+            List<String> outputLines = new ArrayList<>();
+            for (List<Path> chunk : chunks) {
+                ProcessResult result = processRunner.runCaptureLinesWithExitCode(
+                        buildCheckstyleArgs(configFile, chunk),
+                        selectedRootPath
+                );
+
+                if (result.exitCode() < 0) {
+                    CheckstyleResult failed = new CheckstyleResult(
+                            buildExecutionFailedMarkdown(result.outputLines()),
+                            zeroViolations
+                    );
+                    for (Path repo : filesByRepo.keySet()) {
+                        results.put(repo, failed);
+                    }
+                    return results;
+                }
+
+                if (!isCompletedAudit(result.outputLines())) {
+                    logger.log("Batch checkstyle run did not complete; "
+                            + "checking repos one at a time.");
+                    for (Path repo : filesByRepo.keySet()) {
+                        results.put(repo, buildCheckstyleResult(
+                                repo,
+                                selectedRootPath,
+                                true,
+                                false,
+                                url
+                        ));
+                    }
+                    return results;
+                }
+                outputLines.addAll(result.outputLines());
+            }
+
+            Map<Path, List<String>> linesByRepo = splitOutputByRepo(
+                    outputLines,
+                    filesByRepo.keySet()
+            );
+            for (Path repo : filesByRepo.keySet()) {
+                CheckstyleResult checked = toResult(parseCheckstyleOutput(linesByRepo.get(repo)));
+                cacheResult(cacheKeys.get(repo), checked);
+                results.put(repo, checked);
+            }
+
+            return results;
 
         } catch (IOException e) {
-            return new CheckstyleResult("_Checkstyle failed: " + e.getMessage() + "_",
+            CheckstyleResult failed = new CheckstyleResult(
+                    "_Checkstyle failed: " + e.getMessage() + "_",
+                    zeroViolations
+            );
+            for (Path repo : repos) {
+                results.putIfAbsent(repo, failed);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Splits a file list so that no command line built from it gets longer than
+     * {@code maxChars}. A single file longer than the budget still gets its own chunk.
+     *
+     * @param files files to check, in order
+     * @param fixedChars length of the command line without any file
+     * @param maxChars command line length budget
+     * @return the files in order, in chunks
+     */
+    static List<List<Path>> chunkForCommandLine(List<Path> files, int fixedChars, int maxChars) {
+        List<List<Path>> chunks = new ArrayList<>();
+        List<Path> chunk = new ArrayList<>();
+        int length = fixedChars;
+        for (Path file : files) {
+            int fileChars = argumentLength(file.toAbsolutePath().toString());
+            if (!chunk.isEmpty() && length + fileChars > maxChars) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                length = fixedChars;
+            }
+            chunk.add(file);
+            length += fileChars;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static int commandLineLength(List<String> args) {
+        int length = 0;
+        for (String arg : args) {
+            length += argumentLength(arg);
+        }
+        return length;
+    }
+
+    // The argument plus a separating space and the quotes a path with spaces needs.
+    private static int argumentLength(String arg) {
+        return arg.length() + 3;
+    }
+
+    /**
+     * Key used by {@link #buildCheckstyleResults} for a repo path.
+     *
+     * @param repoPath repo root
+     * @return normalized absolute path
+     */
+    public static Path repoKey(Path repoPath) {
+        return repoPath.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Key covering everything that affects a repo's checkstyle result: the config
+     * contents and URL, the checkstyle jar, the repo location (paths appear in the
+     * markdown) and every checked source file.
+     */
+    private String cacheKey(Path configFile,
+                            String url,
+                            Path repoPath,
+                            List<Path> javaFiles) {
+        if (resultCache == null) {
+            return null;
+        }
+
+        try {
+            ResultCache.KeyBuilder key = ResultCache.keyBuilder()
+                    .add(CACHE_KIND)
+                    .add(url)
+                    .addFile(configFile)
+                    .addFileIdentity(checkstyleJar)
+                    .add(repoKey(repoPath).toString());
+            for (Path javaFile : javaFiles) {
+                key.add(javaFile.toString()).add(snapshots.hash(javaFile));
+            }
+            return key.build();
+        } catch (IOException e) {
+            logger.log("Checkstyle result cache skipped: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private CheckstyleResult cachedResult(String cacheKey) {
+        if (cacheKey == null) {
+            return null;
+        }
+        return resultCache.get(CACHE_KIND, cacheKey, CheckstyleResult.class).orElse(null);
+    }
+
+    private void cacheResult(String cacheKey, CheckstyleResult result) {
+        if (cacheKey != null) {
+            resultCache.put(CACHE_KIND, cacheKey, result);
+        }
+    }
+
+    private CheckstyleResult checkPreconditions(boolean checkstyleEnabled,
+                                                boolean missingCheckstyleRubricItem,
+                                                String checkstyleUrl) {
+        final int zeroViolations = 0;
+
+        if (!checkstyleEnabled) {
+            return new CheckstyleResult("_Checkstyle disabled._", zeroViolations);
+        }
+
+        if (missingCheckstyleRubricItem) {
+            return new CheckstyleResult("_No checkstyle rubric item for this assignment._",
+                    zeroViolations);
+        }
+
+        if (checkstyleUrl == null || checkstyleUrl.trim().isEmpty()) {
+            return new CheckstyleResult("_Checkstyle enabled but URL is blank._",
                     zeroViolations);
         }
+
+        if (!Files.exists(checkstyleJar)) {
+            return new CheckstyleResult("_Missing checkstyle jar in program folder._",
+                    zeroViolations);
+        }
+
+        return null;
+    }
+
+    private CheckstyleResult toResult(CheckstyleSummary summary) {
+        int violations = summary.getTotalViolations();
+
+        if (violations == 0) {
+            return new CheckstyleResult("_No checkstyle violations._", 0);
+        }
+
+        return new CheckstyleResult(buildViolationsMarkdown(summary, violations), violations);
+    }
+
+    private boolean isCompletedAudit(List<String> outputLines) {
+        if (outputLines == null) {
+            return false;
+        }
+        for (String line : outputLines) {
+            if (line != null && line.trim().equals("Audit done.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<Path, List<String>> splitOutputByRepo(List<String> outputLines,
+                                                      Collection<Path> repos) {
+        Map<Path, List<String>> byRepo = new LinkedHashMap<>();
+        Map<String, Path> srcPrefixes = new LinkedHashMap<>();
+        for (Path repo : repos) {
+            byRepo.put(repo, new ArrayList<>());
+            srcPrefixes.put(repo.resolve("src").toString().replace("\\", "/") + "/", repo);
+        }
+
+        for (String line : outputLines) {
+            if (line == null) {
+                continue;
+            }
+            String normalized = line.replace("\\", "/");
+
+            Path owner = null;
+            int ownerPrefixLength = -1;
+            for (Map.Entry<String, Path> entry : srcPrefixes.entrySet()) {
+                String prefix = entry.getKey();
+                if (prefix.length() > ownerPrefixLength && normalized.contains(prefix)) {
+                    owner = entry.getValue();
+                    ownerPrefixLength = prefix.length();
+                }
+            }
+
+            if (owner != null) {
+                byRepo.get(owner).add(line);
+            }
+        }
+
+        return byRepo;
     }
 
     private List<String> buildCheckstyleArgs(Path configFile, List<Path> javaFiles) {
@@ -227,78 +593,22 @@ public class CheckstyleService {
         return summary;
     }
 
-    private Path downloadCheckstyleConfig(Path selectedRootPath, String url) throws IOException {
-        Path cacheRoot = toolArtifactService.checkstyleCacheRoot();
-
-        Path configFile = cacheRoot.resolve("checkstyle.xml");
-        Path urlFile = cacheRoot.resolve("checkstyle-url.txt");
-
-        String previousUrl = "";
-        if (Files.exists(urlFile)) {
-            try {
-                previousUrl = Files.readString(urlFile).trim();
-            } catch (IOException ignored) {
-                previousUrl = "";
-            }
-        }
-
-        boolean urlChanged = !url.equals(previousUrl);
-        if (Files.exists(configFile) && !urlChanged) {
-            return configFile;
-        }
-
-        final int connectTimeoutSeconds = 10;
-        final int requestTimeoutSeconds = 20;
-        final int httpOk = 200;
-
-        HttpClient client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
-                .build();
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(requestTimeoutSeconds))
-                .GET()
-                .build();
-
-        try {
-            HttpResponse<InputStream> response =
-                    client.send(request, HttpResponse.BodyHandlers.ofInputStream());
-
-            if (response.statusCode() != httpOk) {
-                throw new IOException("HTTP " + response.statusCode() + " downloading config.");
-            }
-
-            try (InputStream in = response.body()) {
-                Files.copy(in, configFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-            }
-
-            Files.writeString(urlFile, url + System.lineSeparator());
-            logger.log("Downloaded checkstyle config: " + configFile);
-
-            return configFile;
+    private Path downloadCheckstyleConfig(String url) throws IOException {
+        return configCache().configFor(url);
+    }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Download interrupted.");
-        } catch (IllegalArgumentException e) {
-            throw new IOException("Invalid URL: " + url);
+    private synchronized CheckstyleConfigCache configCache() throws IOException {
+        if (configCache == null) {
+            configCache = new CheckstyleConfigCache(
+                    toolArtifactService.checkstyleCacheRoot(),
+                    logger
+            );
         }
+        return configCache;
     }
 
     private List<Path> findJavaFiles(Path srcRoot) throws IOException {
-        List<Path> files = new ArrayList<>();
-
-        if (!Files.exists(srcRoot) || !Files.isDirectory(srcRoot)) {
-            return files;
-        }
-
-        try (Stream<Path> stream = Files.walk(srcRoot)) {
-            stream.filter(Files::isRegularFile)
-                    .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".java"))
-                    .forEach(files::add);
-        }
-
+        List<Path> files = new ArrayList<>(snapshots.javaFiles(srcRoot));
         files.sort(Comparator.comparing(Path::toString));
         return files;
     }
@@ -0,0 +1,404 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Moves compiled classes from one student package to another by rewriting the names in
+ * their constant pool, and describes the API a student's compiled classes expose.
+ * <p>
+ * Two students whose {@link #describeApi} strings match compile the same test suite to
+ * the same bytecode apart from the package name, so a suite compiled for one of them can
+ * be relocated to the other instead of running javac again.
+ * </p>
+ */
+final class ClassFileRelocator {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_VOLATILE = 0x0040;
+    private static final int ACC_VARARGS = 0x0080;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    // Only flags javac looks at when compiling against a class.
+    private static final int CLASS_FLAGS = ACC_PUBLIC | ACC_FINAL | ACC_INTERFACE
+            | ACC_ABSTRACT | ACC_ANNOTATION | ACC_ENUM;
+    private static final int FIELD_FLAGS = ACC_PUBLIC | ACC_PROTECTED | ACC_STATIC
+            | ACC_FINAL | ACC_VOLATILE | ACC_ENUM;
+    private static final int METHOD_FLAGS = ACC_PUBLIC | ACC_PROTECTED | ACC_STATIC
+            | ACC_FINAL | ACC_VARARGS | ACC_ABSTRACT;
+    private static final int INNER_FLAGS = ACC_PUBLIC | ACC_PROTECTED | ACC_STATIC
+            | ACC_FINAL | ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION | ACC_ENUM;
+
+    private static final String PLACEHOLDER = "\u0000";
+
+    private ClassFileRelocator() {
+    }
+
+    /**
+     * Replaces references to a package in a class name, descriptor, signature or
+     * string. Both the internal ({@code a/b/}) and the source ({@code a.b.}) form are
+     * replaced, but only where the package name starts a qualified name.
+     *
+     * @param text text to rewrite
+     * @param fromPackage package to move away from, e.g. {@code jonesa}
+     * @param toPackage package to move to
+     * @return rewritten text, or {@code text} itself when nothing matched
+     */
+    static String relocate(String text, String fromPackage, String toPackage) {
+        String fromSlash = fromPackage.replace('.', '/') + "/";
+        String fromDot = fromPackage + ".";
+        String toSlash = toPackage.replace('.', '/') + "/";
+        String toDot = toPackage + ".";
+
+        StringBuilder out = null;
+        int copied = 0;
+        int i = 0;
+        while (i < text.length()) {
+            String replacement = null;
+            int matched = 0;
+            if (text.startsWith(fromSlash, i) && startsQualifiedName(text, i, true)) {
+                replacement = toSlash;
+                matched = fromSlash.length();
+            } else if (text.startsWith(fromDot, i) && startsQualifiedName(text, i, false)) {
+                replacement = toDot;
+                matched = fromDot.length();
+            }
+
+            if (replacement == null) {
+                i++;
+                continue;
+            }
+            if (out == null) {
+                out = new StringBuilder(text.length() + 16);
+            }
+            out.append(text, copied, i).append(replacement);
+            i += matched;
+            copied = i;
+        }
+
+        if (out == null) {
+            return text;
+        }
+        return out.append(text, copied, text.length()).toString();
+    }
+
+    /*
+     * Internal names start the text (CONSTANT_Class) or follow the 'L' of a descriptor
+     * or signature. Source names follow anything that is not part of a longer name.
+     */
+    private static boolean startsQualifiedName(String text, int index, boolean internal) {
+        if (index == 0) {
+            return true;
+        }
+        char previous = text.charAt(index - 1);
+        if (internal && previous == 'L') {
+            return true;
+        }
+        return !Character.isJavaIdentifierPart(previous) && previous != '.' && previous != '/';
+    }
+
+    /**
+     * Rewrites every UTF-8 constant of a class file with {@link #relocate}. Constant
+     * pool indices do not change, so the rest of the file is copied as is.
+     *
+     * @param classFile class file bytes
+     * @param fromPackage package the class was compiled against
+     * @param toPackage package to bind it to
+     * @return relocated class file
+     * @throws IOException when the class file is malformed or a name grows too long
+     */
+    static byte[] relocate(byte[] classFile, String fromPackage, String toPackage)
+            throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(classFile.length + 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(in.readInt());
+        int count = in.readUnsignedShort();
+        out.writeShort(count);
+
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            out.writeByte(tag);
+            if (tag == 1) {
+                out.writeUTF(relocate(in.readUTF(), fromPackage, toPackage));
+            } else {
+                byte[] body = new byte[constantLength(tag)];
+                in.readFully(body);
+                out.write(body);
+                if (tag == 5 || tag == 6) {
+                    i++;
+                }
+            }
+        }
+
+        out.write(in.readAllBytes());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Describes everything about the compiled classes under {@code classesDir} that
+     * javac can see when compiling code against them: non-private classes, members,
+     * generic signatures, constant values, records and permitted subclasses. Method
+     * bodies, private members and anonymous classes are left out. References to the
+     * student's own package are replaced with a placeholder, so two students with the
+     * same API get the same description.
+     *
+     * @param classesDir compiler output directory
+     * @param studentPackage the student's package
+     * @return API description
+     * @throws IOException when a class file cannot be read or parsed
+     */
+    static String describeApi(Path classesDir, String studentPackage) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> stream = Files.walk(classesDir)) {
+            classFiles = stream
+                    .filter(p -> p.toString().endsWith(".class"))
+                    .sorted(Comparator.comparing(p -> classesDir.relativize(p).toString()))
+                    .toList();
+        }
+
+        StringBuilder api = new StringBuilder();
+        for (Path classFile : classFiles) {
+            describeClass(Files.readAllBytes(classFile), api);
+        }
+        return relocate(api.toString(), studentPackage, PLACEHOLDER);
+    }
+
+    private static void describeClass(byte[] classFile, StringBuilder api) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        in.readInt();
+        Object[] pool = readConstantPool(in);
+
+        int flags = in.readUnsignedShort();
+        String name = className(pool, in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        String superName = superIndex == 0 ? "" : className(pool, superIndex);
+        List<String> interfaces = new ArrayList<>();
+        int interfaceCount = in.readUnsignedShort();
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(className(pool, in.readUnsignedShort()));
+        }
+
+        List<String> members = new ArrayList<>();
+        readMembers(in, pool, "field", FIELD_FLAGS, members);
+        readMembers(in, pool, "method", METHOD_FLAGS, members);
+
+        String signature = "";
+        boolean hidden = (flags & ACC_SYNTHETIC) != 0;
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            String attribute = utf8(pool, in.readUnsignedShort());
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            DataInputStream attr = new DataInputStream(new ByteArrayInputStream(body));
+            switch (attribute) {
+                case "Signature" -> signature = utf8(pool, attr.readUnsignedShort());
+                case "InnerClasses" -> hidden |= readInnerClasses(attr, pool, name, members);
+                case "Record" -> readRecord(attr, pool, members);
+                case "PermittedSubclasses" -> {
+                    int count = attr.readUnsignedShort();
+                    for (int c = 0; c < count; c++) {
+                        members.add("permits " + className(pool, attr.readUnsignedShort()));
+                    }
+                }
+                default -> {
+                    // Not visible to code compiled against this class.
+                }
+            }
+        }
+
+        if (hidden) {
+            return;
+        }
+        members.sort(null);
+        api.append("class ").append(name)
+                .append(' ').append(flags & CLASS_FLAGS)
+                .append(" extends ").append(superName)
+                .append(" implements ").append(String.join(",", interfaces))
+                .append(" signature ").append(signature)
+                .append('\n');
+        for (String member : members) {
+            api.append("  ").append(member).append('\n');
+        }
+    }
+
+    private static void readMembers(DataInputStream in,
+                                    Object[] pool,
+                                    String kind,
+                                    int visibleFlags,
+                                    List<String> members) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            int flags = in.readUnsignedShort();
+            String name = utf8(pool, in.readUnsignedShort());
+            String descriptor = utf8(pool, in.readUnsignedShort());
+            StringBuilder member = new StringBuilder()
+                    .append(kind).append(' ').append(name).append(' ').append(descriptor)
+                    .append(' ').append(flags & visibleFlags);
+
+            int attributeCount = in.readUnsignedShort();
+            for (int a = 0; a < attributeCount; a++) {
+                String attribute = utf8(pool, in.readUnsignedShort());
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                DataInputStream attr = new DataInputStream(new ByteArrayInputStream(body));
+                switch (attribute) {
+                    case "Signature" -> member.append(" signature ")
+                            .append(utf8(pool, attr.readUnsignedShort()));
+                    case "ConstantValue" -> member.append(" constant ")
+                            .append(constantValue(pool, attr.readUnsignedShort()));
+                    case "Exceptions" -> {
+                        int exceptions = attr.readUnsignedShort();
+                        for (int e = 0; e < exceptions; e++) {
+                            member.append(" throws ")
+                                    .append(className(pool, attr.readUnsignedShort()));
+                        }
+                    }
+                    default -> {
+                        // Code and debug attributes do not affect callers.
+                    }
+                }
+            }
+
+            boolean hidden = (flags & (ACC_PRIVATE | ACC_SYNTHETIC)) != 0
+                    || "<clinit>".equals(name);
+            if (!hidden) {
+                members.add(member.toString());
+            }
+        }
+    }
+
+    /**
+     * Lists the member classes {@code owner} declares and reports whether {@code owner}
+     * itself is a private, local or anonymous class.
+     */
+    private static boolean readInnerClasses(DataInputStream attr,
+                                            Object[] pool,
+                                            String owner,
+                                            List<String> members) throws IOException {
+        boolean hidden = false;
+        int count = attr.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            String inner = className(pool, attr.readUnsignedShort());
+            int outerIndex = attr.readUnsignedShort();
+            int nameIndex = attr.readUnsignedShort();
+            int flags = attr.readUnsignedShort();
+
+            boolean visible = outerIndex != 0 && nameIndex != 0
+                    && (flags & (ACC_PRIVATE | ACC_SYNTHETIC)) == 0;
+            if (inner.equals(owner)) {
+                hidden = !visible;
+            } else if (visible && className(pool, outerIndex).equals(owner)) {
+                members.add("inner " + inner + " " + (flags & INNER_FLAGS));
+            }
+        }
+        return hidden;
+    }
+
+    private static void readRecord(DataInputStream attr, Object[] pool, List<String> members)
+            throws IOException {
+        int count = attr.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            StringBuilder component = new StringBuilder("component ")
+                    .append(i).append(' ')
+                    .append(utf8(pool, attr.readUnsignedShort())).append(' ')
+                    .append(utf8(pool, attr.readUnsignedShort()));
+            int attributeCount = attr.readUnsignedShort();
+            for (int a = 0; a < attributeCount; a++) {
+                String attribute = utf8(pool, attr.readUnsignedShort());
+                byte[] body = new byte[attr.readInt()];
+                attr.readFully(body);
+                if ("Signature".equals(attribute)) {
+                    int index = ((body[0] & 0xFF) << 8) | (body[1] & 0xFF);
+                    component.append(" signature ").append(utf8(pool, index));
+                }
+            }
+            members.add(component.toString());
+        }
+    }
+
+    private static Object[] readConstantPool(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        Object[] pool = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> pool[i] = in.readUTF();
+                case 3 -> pool[i] = in.readInt();
+                case 4 -> pool[i] = in.readFloat();
+                case 5 -> pool[i++] = in.readLong();
+                case 6 -> pool[i++] = in.readDouble();
+                case 7, 8 -> pool[i] = new int[] {in.readUnsignedShort()};
+                default -> in.skipNBytes(constantLength(tag));
+            }
+        }
+        return pool;
+    }
+
+    private static int constantLength(int tag) throws IOException {
+        return switch (tag) {
+            case 7, 8, 16, 19, 20 -> 2;
+            case 15 -> 3;
+            case 3, 4, 9, 10, 11, 12, 17, 18 -> 4;
+            case 5, 6 -> 8;
+            default -> throw new IOException("unknown constant pool tag " + tag);
+        };
+    }
+
+    private static String utf8(Object[] pool, int index) throws IOException {
+        if (index <= 0 || index >= pool.length || !(pool[index] instanceof String s)) {
+            throw new IOException("bad constant pool reference " + index);
+        }
+        return s;
+    }
+
+    private static String className(Object[] pool, int index) throws IOException {
+        if (index <= 0 || index >= pool.length || !(pool[index] instanceof int[] ref)) {
+            throw new IOException("bad class reference " + index);
+        }
+        return utf8(pool, ref[0]);
+    }
+
+    private static String constantValue(Object[] pool, int index) throws IOException {
+        if (index <= 0 || index >= pool.length || pool[index] == null) {
+            throw new IOException("bad constant value reference " + index);
+        }
+        Object value = pool[index];
+        if (value instanceof int[] ref) {
+            return '"' + utf8(pool, ref[0]) + '"';
+        }
+        return value.getClass().getSimpleName() + ":" + value;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Compiled instructor test suites, kept in memory so each assignment's suite is compiled
+ * once and then bound to every other student whose classes have the same API.
+ * <p>
+ * Entries are keyed by the test sources, the tool classpath and the student API
+ * described by {@link ClassFileRelocator#describeApi}. Students with a different API
+ * miss the cache and are compiled with javac as before, which also keeps javac's
+ * compile errors in their reports.
+ * </p>
+ */
+final class CompiledTestSuiteCache {
+
+    static final int DEFAULT_CAPACITY = 16;
+
+    private final int capacity;
+    private final Map<String, CompiledSuite> suites;
+
+    CompiledTestSuiteCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    CompiledTestSuiteCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.suites = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    synchronized CompiledSuite get(String key) {
+        return suites.get(key);
+    }
+
+    synchronized void put(String key, CompiledSuite suite) {
+        suites.put(Objects.requireNonNull(key), Objects.requireNonNull(suite));
+        while (suites.size() > capacity) {
+            String eldest = suites.keySet().iterator().next();
+            suites.remove(eldest);
+        }
+    }
+
+    synchronized int size() {
+        return suites.size();
+    }
+
+    /**
+     * @param boundPackage student package the suite was compiled against
+     * @param classFiles class file bytes by path relative to the output directory,
+     *                   using {@code /} separators
+     */
+    record CompiledSuite(String boundPackage, Map<String, byte[]> classFiles) {
+
+        CompiledSuite {
+            Objects.requireNonNull(boundPackage);
+            classFiles = Collections.unmodifiableMap(new TreeMap<>(classFiles));
+        }
+
+        /**
+         * Reads every class file javac wrote for the suite.
+         *
+         * @param outputDir javac output directory holding only the test classes
+         * @param boundPackage student package the suite was compiled against
+         * @return compiled suite
+         */
+        static CompiledSuite read(Path outputDir, String boundPackage) throws IOException {
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(outputDir)) {
+                files = stream.filter(Files::isRegularFile).toList();
+            }
+
+            Map<String, byte[]> classFiles = new TreeMap<>();
+            for (Path file : files) {
+                String relative = outputDir.relativize(file).toString().replace('\\', '/');
+                classFiles.put(relative, Files.readAllBytes(file));
+            }
+            return new CompiledSuite(boundPackage, classFiles);
+        }
+
+        /**
+         * Writes the suite into a student's output directory, rebound to the student's
+         * package.
+         *
+         * @param classesDir output directory already holding the student's classes
+         * @param studentPackage package to bind the suite to
+         */
+        void writeTo(Path classesDir, String studentPackage) throws IOException {
+            boolean relocate = !boundPackage.equals(studentPackage);
+            for (Map.Entry<String, byte[]> entry : classFiles.entrySet()) {
+                String relative = entry.getKey();
+                byte[] bytes = entry.getValue();
+                if (relocate) {
+                    relative = ClassFileRelocator.relocate(relative, boundPackage, studentPackage);
+                    if (relative.endsWith(".class")) {
+                        bytes = ClassFileRelocator.relocate(bytes, boundPackage, studentPackage);
+                    }
+                }
+
+                Path target = classesDir.resolve(relative);
+                Files.createDirectories(target.getParent());
+                Files.write(target, bytes);
+            }
+        }
+    }
+}
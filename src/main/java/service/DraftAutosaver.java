@@ -0,0 +1,118 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Debounced background autosave. Each edit to a student's draft restarts that student's
+ * timer; the draft is saved once the grader has paused for {@code delay}. Saves run on
+ * one background thread, so they never overlap.
+ */
+public class DraftAutosaver implements AutoCloseable {
+
+    public static final Duration DEFAULT_DELAY = Duration.ofSeconds(5);
+
+    private final Consumer<String> saver;
+    private final Duration delay;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Pending> pending = new HashMap<>();
+    private long nextTicket = 0L;
+
+    /**
+     * @param saver saves one student's draft; runs on the autosave thread
+     * @param delay quiet period after the last edit
+     */
+    public DraftAutosaver(Consumer<String> saver, Duration delay) {
+        this(saver, delay, newScheduler());
+    }
+
+    DraftAutosaver(Consumer<String> saver,
+                   Duration delay,
+                   ScheduledExecutorService scheduler) {
+        this.saver = Objects.requireNonNull(saver);
+        this.delay = Objects.requireNonNull(delay);
+        this.scheduler = Objects.requireNonNull(scheduler);
+    }
+
+    private static ScheduledExecutorService newScheduler() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "draft-autosave-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Restarts the autosave timer for a student.
+     */
+    public synchronized void draftChanged(String studentPackage) {
+        if (studentPackage == null) {
+            return;
+        }
+        Pending previous = pending.remove(studentPackage);
+        if (previous != null) {
+            previous.future().cancel(false);
+        }
+        long ticket = nextTicket++;
+        try {
+            ScheduledFuture<?> future = scheduler.schedule(
+                    () -> saveNow(studentPackage, ticket),
+                    delay.toMillis(),
+                    TimeUnit.MILLISECONDS
+            );
+            pending.put(studentPackage, new Pending(ticket, future));
+        } catch (RejectedExecutionException ignored) {
+            // Closed; the window is going away.
+        }
+    }
+
+    /**
+     * Drops every pending autosave, e.g. because a full save is about to run.
+     */
+    public synchronized void cancelPending() {
+        for (Pending entry : pending.values()) {
+            entry.future().cancel(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * @return number of students waiting for an autosave
+     */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public void close() {
+        cancelPending();
+        scheduler.shutdownNow();
+    }
+
+    private void saveNow(String studentPackage, long ticket) {
+        synchronized (this) {
+            Pending current = pending.get(studentPackage);
+            if (current != null && current.ticket() == ticket) {
+                pending.remove(studentPackage);
+            }
+        }
+        saver.accept(studentPackage);
+    }
+
+    private record Pending(long ticket, ScheduledFuture<?> future) {
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Prepares the drafts of the students around the current one on a background thread, so
+ * moving through the roster does not wait on disk reads and report parsing.
+ * <p>
+ * {@link #prefetchAround} queues the next and previous {@code radius} students, nearest
+ * first. Prepared drafts are kept in a small least-recently-used cache. {@link #take}
+ * hands one over and forgets it. Queued work for students that left the window is
+ * skipped rather than run.
+ * </p>
+ *
+ * @param <T> prepared draft type
+ */
+public class DraftPrefetcher<T> implements AutoCloseable {
+
+    public static final int DEFAULT_RADIUS = 2;
+    public static final int DEFAULT_CAPACITY = 8;
+
+    private final Function<String, T> loader;
+    private final int radius;
+    private final int capacity;
+    private final ExecutorService executor;
+    private final Map<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile Set<String> window = Set.of();
+
+    /**
+     * @param loader prepares one student's draft off the FX thread; returns null when the
+     *               draft cannot be prepared ahead of time
+     */
+    public DraftPrefetcher(Function<String, T> loader) {
+        this(loader, DEFAULT_RADIUS, DEFAULT_CAPACITY, newWorkerPool());
+    }
+
+    DraftPrefetcher(Function<String, T> loader,
+                    int radius,
+                    int capacity,
+                    ExecutorService executor) {
+        this.loader = Objects.requireNonNull(loader);
+        this.radius = Math.max(1, radius);
+        this.capacity = Math.max(1, capacity);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    private static ExecutorService newWorkerPool() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "draft-prefetch-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queues the neighbours of {@code current}.
+     *
+     * @param roster students in display order
+     * @param current student now shown
+     * @param wanted filter for students worth preparing, e.g. those without a draft yet
+     */
+    public void prefetchAround(List<String> roster,
+                               String current,
+                               Predicate<String> wanted) {
+        int index = roster.indexOf(current);
+        if (index < 0) {
+            return;
+        }
+
+        List<String> neighbours = new ArrayList<>();
+        for (int distance = 1; distance <= radius; distance++) {
+            addIfPresent(roster, index + distance, neighbours);
+            addIfPresent(roster, index - distance, neighbours);
+        }
+        window = Set.copyOf(neighbours);
+
+        for (String student : neighbours) {
+            if (wanted.test(student)) {
+                schedule(student);
+            }
+        }
+    }
+
+    /**
+     * Hands over a prepared draft. A draft still being prepared is waited for; one that
+     * is only queued is dropped so the caller can load it directly.
+     *
+     * @param student student package
+     * @return the prepared draft, or null on a miss
+     */
+    public T take(String student) {
+        Entry<T> entry;
+        synchronized (entries) {
+            entry = entries.remove(student);
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.future.isDone() && !entry.started) {
+            entry.future.cancel(false);
+            return null;
+        }
+        try {
+            return entry.future.join();
+        } catch (CancellationException | CompletionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Drops one prepared draft, e.g. after its report file changed on disk.
+     */
+    public void invalidate(String student) {
+        Entry<T> entry;
+        synchronized (entries) {
+            entry = entries.remove(student);
+        }
+        if (entry != null) {
+            entry.future.cancel(false);
+        }
+    }
+
+    /**
+     * Drops every prepared draft.
+     */
+    public void invalidateAll() {
+        List<Entry<T>> dropped;
+        synchronized (entries) {
+            dropped = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        for (Entry<T> entry : dropped) {
+            entry.future.cancel(false);
+        }
+    }
+
+    /**
+     * @return number of drafts prepared or queued
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        invalidateAll();
+        executor.shutdownNow();
+    }
+
+    private static void addIfPresent(List<String> roster, int index, List<String> out) {
+        if (index >= 0 && index < roster.size() && roster.get(index) != null) {
+            out.add(roster.get(index));
+        }
+    }
+
+    private void schedule(String student) {
+        Entry<T> entry = new Entry<>();
+        synchronized (entries) {
+            if (entries.containsKey(student)) {
+                return;
+            }
+            entries.put(student, entry);
+            evictOverCapacity();
+        }
+
+        try {
+            executor.execute(() -> run(student, entry));
+        } catch (RejectedExecutionException e) {
+            invalidate(student);
+        }
+    }
+
+    private void run(String student, Entry<T> entry) {
+        if (entry.future.isDone()) {
+            return;
+        }
+        if (!window.contains(student)) {
+            // Moved past this student before the work started.
+            synchronized (entries) {
+                entries.remove(student, entry);
+            }
+            entry.future.cancel(false);
+            return;
+        }
+
+        entry.started = true;
+        try {
+            T prepared = loader.apply(student);
+            if (prepared == null) {
+                synchronized (entries) {
+                    entries.remove(student, entry);
+                }
+            }
+            entry.future.complete(prepared);
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                entries.remove(student, entry);
+            }
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    // Caller holds the entries lock. Students outside the window go first.
+    private void evictOverCapacity() {
+        Iterator<Map.Entry<String, Entry<T>>> outside = entries.entrySet().iterator();
+        while (entries.size() > capacity && outside.hasNext()) {
+            Map.Entry<String, Entry<T>> eldest = outside.next();
+            if (!window.contains(eldest.getKey())) {
+                eldest.getValue().future.cancel(false);
+                outside.remove();
+            }
+        }
+        Iterator<Map.Entry<String, Entry<T>>> any = entries.entrySet().iterator();
+        while (entries.size() > capacity && any.hasNext()) {
+            any.next().getValue().future.cancel(false);
+            any.remove();
+        }
+    }
+
+    private static final class Entry<T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private volatile boolean started = false;
+    }
+}
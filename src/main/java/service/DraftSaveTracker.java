@@ -0,0 +1,106 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what was last written for each student's report, so saving can skip drafts
+ * that have not changed since.
+ * <p>
+ * A draft counts as unchanged when the content hash of what would be written matches
+ * the last write and every written file still has the size and modification time it
+ * had right after that write. Anything else, including a report replaced behind our
+ * back, is written again.
+ * </p>
+ */
+public class DraftSaveTracker {
+
+    private final Map<String, SavedDraft> savedByStudent = new ConcurrentHashMap<>();
+
+    /**
+     * @param parts everything that decides the written output, e.g. target and markdown
+     * @return SHA-256 content hash
+     */
+    public static String contentHash(String... parts) {
+        ResultCache.KeyBuilder key = ResultCache.keyBuilder();
+        for (String part : parts) {
+            key.add(part);
+        }
+        return key.build();
+    }
+
+    /**
+     * @param studentPackage student package
+     * @param hash {@link #contentHash} of the draft about to be saved
+     * @param outputs files the save would write
+     * @return true when the same content was written and the files are untouched since
+     */
+    public boolean isUnchanged(String studentPackage, String hash, List<Path> outputs) {
+        SavedDraft saved = savedByStudent.get(studentPackage);
+        if (saved == null || !saved.hash().equals(hash)) {
+            return false;
+        }
+        return saved.outputs().equals(stamp(outputs));
+    }
+
+    /**
+     * Records a successful save. Call after every output file was written.
+     */
+    public void recordSaved(String studentPackage, String hash, List<Path> outputs) {
+        List<FileStamp> stamps = stamp(outputs);
+        if (stamps.size() == outputs.size()) {
+            savedByStudent.put(studentPackage, new SavedDraft(hash, stamps));
+        } else {
+            savedByStudent.remove(studentPackage);
+        }
+    }
+
+    public void forget(String studentPackage) {
+        savedByStudent.remove(studentPackage);
+    }
+
+    public void clear() {
+        savedByStudent.clear();
+    }
+
+    // Missing or unreadable files are left out, which never matches a recorded save.
+    private static List<FileStamp> stamp(List<Path> outputs) {
+        List<FileStamp> stamps = new ArrayList<>(outputs.size());
+        for (Path output : outputs) {
+            try {
+                BasicFileAttributes attrs =
+                        Files.readAttributes(output, BasicFileAttributes.class);
+                stamps.add(new FileStamp(
+                        output.toAbsolutePath().normalize(),
+                        attrs.size(),
+                        attrs.lastModifiedTime().toMillis()
+                ));
+            } catch (IOException ignored) {
+                // Treated as changed.
+            }
+        }
+        return stamps;
+    }
+
+    private record SavedDraft(String hash, List<FileStamp> outputs) {
+
+        private SavedDraft {
+            Objects.requireNonNull(hash);
+            outputs = List.copyOf(outputs);
+        }
+    }
+
+    private record FileStamp(Path path, long size, long modifiedMillis) {
+    }
+}
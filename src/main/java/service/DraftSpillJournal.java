@@ -0,0 +1,219 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only scratch file holding deflated drafts that were evicted from memory. The
+ * file lives for one grading session: it is created on the first write and deleted on
+ * {@link #close()}. Space taken by drafts that were read back is reclaimed by
+ * {@link #compact}.
+ */
+final class DraftSpillJournal implements AutoCloseable {
+
+    private static final long MIN_COMPACT_BYTES = 1024L * 1024L;
+
+    private final Path directory;
+    private Path file;
+    private FileChannel channel;
+    private long liveBytes = 0L;
+
+    DraftSpillJournal(Path directory) {
+        this.directory = Objects.requireNonNull(directory);
+    }
+
+    /**
+     * @param markdown draft text
+     * @return where the draft was written
+     */
+    Location write(String markdown) throws IOException {
+        byte[] raw = markdown.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = deflate(raw);
+        FileChannel out = channel();
+        long offset = out.size();
+        writeFully(out, ByteBuffer.wrap(stored), offset);
+        liveBytes += stored.length;
+        return new Location(offset, stored.length, raw.length);
+    }
+
+    String read(Location location) throws IOException {
+        ByteBuffer stored = ByteBuffer.allocate(location.storedLength());
+        FileChannel in = channel();
+        long position = location.offset();
+        while (stored.hasRemaining()) {
+            int read = in.read(stored, position);
+            if (read < 0) {
+                throw new IOException("draft journal is truncated: " + file);
+            }
+            position += read;
+        }
+        return new String(inflate(stored.array(), location.rawLength()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Marks a record as no longer needed.
+     */
+    void release(Location location) {
+        liveBytes = Math.max(0L, liveBytes - location.storedLength());
+    }
+
+    /**
+     * @return true when most of the file is released records
+     */
+    boolean shouldCompact() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        long size = channel.size();
+        return size >= MIN_COMPACT_BYTES && size > 2L * liveBytes;
+    }
+
+    /**
+     * Rewrites the live records into a fresh file.
+     *
+     * @param live every record still referenced, in any order
+     * @return new locations, index-aligned with {@code live}
+     */
+    List<Location> compact(List<Location> live) throws IOException {
+        Path compacted = Files.createTempFile(directory, "drafts-", ".journal");
+        compacted.toFile().deleteOnExit();
+        List<Location> moved = new ArrayList<>(live.size());
+        long total = 0L;
+
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.WRITE)) {
+            long position = 0L;
+            for (Location location : live) {
+                ByteBuffer stored = ByteBuffer.allocate(location.storedLength());
+                long readPosition = location.offset();
+                while (stored.hasRemaining()) {
+                    if (channel.read(stored, readPosition) < 0) {
+                        throw new IOException("draft journal is truncated: " + file);
+                    }
+                    readPosition = location.offset() + stored.position();
+                }
+                stored.flip();
+                writeFully(out, stored, position);
+                moved.add(new Location(position, location.storedLength(), location.rawLength()));
+                position += location.storedLength();
+                total += location.storedLength();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+
+        closeChannel();
+        Files.deleteIfExists(file);
+        file = compacted;
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        liveBytes = total;
+        return moved;
+    }
+
+    /**
+     * @return bytes currently referenced by spilled drafts
+     */
+    long liveBytes() {
+        return liveBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeChannel();
+        if (file != null) {
+            Files.deleteIfExists(file);
+            file = null;
+        }
+        liveBytes = 0L;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(directory);
+            file = Files.createTempFile(directory, "drafts-", ".journal");
+            file.toFile().deleteOnExit();
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position)
+            throws IOException {
+        long next = position;
+        while (buffer.hasRemaining()) {
+            next += out.write(buffer, next);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int filled = 0;
+            while (filled < rawLength && !inflater.finished()) {
+                int length = inflater.inflate(raw, filled, rawLength - filled);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                filled += length;
+            }
+            if (filled != rawLength) {
+                throw new IOException("draft journal record is corrupt");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("draft journal record is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @param offset start of the record in the journal
+     * @param storedLength deflated length in bytes
+     * @param rawLength UTF-8 length in bytes before deflating
+     */
+    record Location(long offset, int storedLength, int rawLength) {
+    }
+}
@@ -0,0 +1,731 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads commit history straight from a repository's {@code .git} directory: HEAD,
+ * loose and packed refs, loose objects and version 2 pack files, including deltified
+ * objects.
+ * <p>
+ * {@link #log} produces the same lines as
+ * {@code git log -n N --pretty=format:"%h %ad %an - %s" --date=short}. Anything this
+ * reader does not handle the way git would (SHA-256 repositories, replace refs, grafts,
+ * alternates, configured abbreviation lengths, non-UTF-8 commit encodings, ...) raises
+ * {@link UnsupportedRepositoryException} so the caller can fall back to running git.
+ * </p>
+ */
+public final class GitObjectReader {
+
+    private static final int HASH_BYTES = 20;
+    private static final int HASH_HEX = 40;
+    private static final int DEFAULT_ABBREV = 7;
+    // Above this many objects git may pick a longer default abbreviation.
+    private static final long MAX_OBJECTS_FOR_DEFAULT_ABBREV = 8192L;
+    private static final int MAX_SYMREF_DEPTH = 5;
+    private static final int MAX_DELTA_DEPTH = 64;
+
+    private static final int OBJ_COMMIT = 1;
+    private static final int OBJ_TREE = 2;
+    private static final int OBJ_BLOB = 3;
+    private static final int OBJ_TAG = 4;
+    private static final int OBJ_OFS_DELTA = 6;
+    private static final int OBJ_REF_DELTA = 7;
+
+    private final Path gitDir;
+    private final Path objectsDir;
+    private final List<PackIndex> packs;
+    private final Set<String> shallowCommits;
+
+    private GitObjectReader(Path gitDir) throws IOException {
+        this.gitDir = gitDir;
+        this.objectsDir = gitDir.resolve("objects");
+        checkSupported();
+        this.packs = loadPackIndexes();
+        this.shallowCommits = readShallowCommits();
+    }
+
+    /**
+     * Opens the repository whose work tree is {@code repoPath}.
+     *
+     * @throws UnsupportedRepositoryException when there is no {@code .git} here or the
+     *         repository uses a feature this reader does not handle
+     */
+    public static GitObjectReader open(Path repoPath) throws IOException {
+        Path dotGit = repoPath.resolve(".git");
+        if (Files.isDirectory(dotGit)) {
+            return new GitObjectReader(dotGit);
+        }
+        if (Files.isRegularFile(dotGit)) {
+            String content = Files.readString(dotGit, StandardCharsets.UTF_8).trim();
+            if (content.startsWith("gitdir:")) {
+                Path target = repoPath.resolve(content.substring("gitdir:".length()).trim());
+                if (Files.isDirectory(target)) {
+                    return new GitObjectReader(target.normalize());
+                }
+            }
+        }
+        throw new UnsupportedRepositoryException("no .git directory in " + repoPath);
+    }
+
+    /**
+     * @param maxCount number of commits, newest first
+     * @return one {@code "%h %ad %an - %s"} line per commit; empty for an unborn branch
+     */
+    public List<String> log(int maxCount) throws IOException {
+        String head = resolveHead();
+        List<String> lines = new ArrayList<>();
+        if (head == null) {
+            return lines;
+        }
+
+        // git's default order: newest committer date first, ties in insertion order.
+        List<Commit> queue = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        seen.add(head);
+        queue.add(readCommit(head));
+
+        while (!queue.isEmpty() && lines.size() < maxCount) {
+            Commit commit = queue.removeFirst();
+            lines.add(format(commit));
+
+            if (shallowCommits.contains(commit.id())) {
+                continue;
+            }
+            for (String parent : commit.parents()) {
+                if (seen.add(parent)) {
+                    insertByDate(queue, readCommit(parent));
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static void insertByDate(List<Commit> queue, Commit commit) {
+        int index = 0;
+        while (index < queue.size()
+                && queue.get(index).committerTime() >= commit.committerTime()) {
+            index++;
+        }
+        queue.add(index, commit);
+    }
+
+    private String format(Commit commit) throws IOException {
+        return abbreviate(commit.id())
+                + " " + commit.authorDate()
+                + " " + commit.authorName()
+                + " - " + commit.subject();
+    }
+
+    private void checkSupported() throws IOException {
+        String config = readIfExists(gitDir.resolve("config")).toLowerCase(Locale.ROOT);
+        if (config.contains("objectformat")
+                || config.contains("refstorage")
+                || config.contains("abbrev")) {
+            throw new UnsupportedRepositoryException("repository config needs git");
+        }
+        if (Files.exists(gitDir.resolve("commondir"))
+                || Files.exists(gitDir.resolve("info").resolve("grafts"))
+                || Files.exists(objectsDir.resolve("info").resolve("alternates"))
+                || Files.exists(gitDir.resolve("refs").resolve("replace"))
+                || readIfExists(gitDir.resolve("packed-refs")).contains(" refs/replace/")) {
+            throw new UnsupportedRepositoryException("repository layout needs git");
+        }
+        for (Path userConfig : userConfigFiles()) {
+            if (readIfExists(userConfig).toLowerCase(Locale.ROOT).contains("abbrev")) {
+                throw new UnsupportedRepositoryException("abbreviation length is configured");
+            }
+        }
+    }
+
+    private static List<Path> userConfigFiles() {
+        List<Path> files = new ArrayList<>();
+        String home = System.getProperty("user.home");
+        if (home != null && !home.isBlank()) {
+            files.add(Path.of(home, ".gitconfig"));
+            files.add(Path.of(home, ".config", "git", "config"));
+        }
+        String xdg = System.getenv("XDG_CONFIG_HOME");
+        if (xdg != null && !xdg.isBlank()) {
+            files.add(Path.of(xdg, "git", "config"));
+        }
+        return files;
+    }
+
+    private static String readIfExists(Path file) throws IOException {
+        return Files.isRegularFile(file) ? Files.readString(file, StandardCharsets.UTF_8) : "";
+    }
+
+    private Set<String> readShallowCommits() throws IOException {
+        Set<String> shallow = new HashSet<>();
+        for (String line : readIfExists(gitDir.resolve("shallow")).split("\n")) {
+            if (!line.isBlank()) {
+                shallow.add(line.trim());
+            }
+        }
+        return shallow;
+    }
+
+    /**
+     * @return the commit HEAD points at, or null on an unborn branch
+     */
+    private String resolveHead() throws IOException {
+        String value = readIfExists(gitDir.resolve("HEAD")).trim();
+        for (int depth = 0; depth < MAX_SYMREF_DEPTH; depth++) {
+            if (isObjectId(value)) {
+                return peelToCommit(value);
+            }
+            if (!value.startsWith("ref:")) {
+                throw new UnsupportedRepositoryException("unreadable ref: " + value);
+            }
+            String ref = value.substring("ref:".length()).trim();
+            value = readRef(ref);
+            if (value == null) {
+                return null;
+            }
+        }
+        throw new UnsupportedRepositoryException("symbolic ref loop at HEAD");
+    }
+
+    private String readRef(String ref) throws IOException {
+        Path loose = gitDir.resolve(ref);
+        if (Files.isRegularFile(loose)) {
+            return Files.readString(loose, StandardCharsets.UTF_8).trim();
+        }
+        for (String line : readIfExists(gitDir.resolve("packed-refs")).split("\n")) {
+            if (line.startsWith("#") || line.startsWith("^") || line.length() <= HASH_HEX) {
+                continue;
+            }
+            if (line.substring(HASH_HEX + 1).trim().equals(ref)) {
+                return line.substring(0, HASH_HEX);
+            }
+        }
+        return null;
+    }
+
+    private String peelToCommit(String id) throws IOException {
+        String current = id;
+        for (int depth = 0; depth < MAX_SYMREF_DEPTH; depth++) {
+            RawObject object = readObject(current);
+            if (object.type() == OBJ_COMMIT) {
+                return current;
+            }
+            if (object.type() != OBJ_TAG) {
+                throw new UnsupportedRepositoryException("HEAD is not a commit");
+            }
+            String text = new String(object.data(), StandardCharsets.UTF_8);
+            if (!text.startsWith("object ")) {
+                throw new UnsupportedRepositoryException("unreadable tag " + current);
+            }
+            current = text.substring("object ".length(), "object ".length() + HASH_HEX);
+        }
+        throw new UnsupportedRepositoryException("tag chain too deep at HEAD");
+    }
+
+    private static boolean isObjectId(String value) {
+        if (value.length() != HASH_HEX) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Commit readCommit(String id) throws IOException {
+        RawObject object = readObject(id);
+        if (object.type() != OBJ_COMMIT) {
+            throw new UnsupportedRepositoryException(id + " is not a commit");
+        }
+        return parseCommit(id, object.data());
+    }
+
+    static Commit parseCommit(String id, byte[] data) throws IOException {
+        String text = new String(data, StandardCharsets.UTF_8);
+        int headerEnd = text.indexOf("\n\n");
+        String header = headerEnd < 0 ? text : text.substring(0, headerEnd);
+        String message = headerEnd < 0 ? "" : text.substring(headerEnd + 2);
+
+        List<String> parents = new ArrayList<>();
+        String author = null;
+        String committer = null;
+        for (String line : header.split("\n")) {
+            if (line.startsWith("parent ")) {
+                parents.add(line.substring("parent ".length()).trim());
+            } else if (line.startsWith("author ") && author == null) {
+                author = line.substring("author ".length());
+            } else if (line.startsWith("committer ") && committer == null) {
+                committer = line.substring("committer ".length());
+            } else if (line.startsWith("encoding ")) {
+                String encoding = line.substring("encoding ".length()).trim();
+                if (!encoding.equalsIgnoreCase("utf-8") && !encoding.equalsIgnoreCase("utf8")) {
+                    throw new UnsupportedRepositoryException("commit encoding " + encoding);
+                }
+            }
+        }
+        if (author == null || committer == null) {
+            throw new UnsupportedRepositoryException("commit " + id + " has no author");
+        }
+
+        Ident authorIdent = Ident.parse(author);
+        Ident committerIdent = Ident.parse(committer);
+        return new Commit(
+                id,
+                parents,
+                authorIdent.name(),
+                authorIdent.date(),
+                committerIdent.epochSeconds(),
+                subjectOf(message)
+        );
+    }
+
+    /**
+     * Like git's {@code %s}: leading blank lines skipped, then the first paragraph with
+     * each line's trailing whitespace removed, joined by single spaces.
+     */
+    static String subjectOf(String message) {
+        String[] lines = message.split("\n", -1);
+        int index = 0;
+        while (index < lines.length && lines[index].isBlank()) {
+            index++;
+        }
+        StringBuilder subject = new StringBuilder();
+        while (index < lines.length && !lines[index].isBlank()) {
+            if (!subject.isEmpty()) {
+                subject.append(' ');
+            }
+            subject.append(lines[index].stripTrailing());
+            index++;
+        }
+        return subject.toString();
+    }
+
+    private String abbreviate(String id) throws IOException {
+        for (int length = DEFAULT_ABBREV; length < HASH_HEX; length++) {
+            if (countWithPrefix(id.substring(0, length)) <= 1) {
+                return id.substring(0, length);
+            }
+        }
+        return id;
+    }
+
+    private int countWithPrefix(String prefix) throws IOException {
+        Set<String> matches = new HashSet<>();
+        Path looseDir = objectsDir.resolve(prefix.substring(0, 2));
+        if (Files.isDirectory(looseDir)) {
+            String rest = prefix.substring(2);
+            try (Stream<Path> files = Files.list(looseDir)) {
+                files.map(p -> p.getFileName().toString())
+                        .filter(name -> name.length() == HASH_HEX - 2 && name.startsWith(rest))
+                        .forEach(name -> matches.add(prefix.substring(0, 2) + name));
+            }
+        }
+        for (PackIndex pack : packs) {
+            pack.collectWithPrefix(prefix, matches);
+        }
+        return matches.size();
+    }
+
+    private RawObject readObject(String id) throws IOException {
+        Path loose = objectsDir.resolve(id.substring(0, 2)).resolve(id.substring(2));
+        if (Files.isRegularFile(loose)) {
+            return readLooseObject(loose);
+        }
+        for (PackIndex pack : packs) {
+            long offset = pack.offsetOf(id);
+            if (offset >= 0) {
+                return pack.readAt(offset, 0);
+            }
+        }
+        throw new UnsupportedRepositoryException("object " + id + " not found");
+    }
+
+    private static RawObject readLooseObject(Path file) throws IOException {
+        byte[] inflated;
+        try (InputStream in = new InflaterInputStream(Files.newInputStream(file))) {
+            inflated = in.readAllBytes();
+        }
+        int space = indexOf(inflated, (byte) ' ', 0);
+        int nul = indexOf(inflated, (byte) 0, 0);
+        if (space < 0 || nul < space) {
+            throw new UnsupportedRepositoryException("corrupt loose object " + file);
+        }
+        String type = new String(inflated, 0, space, StandardCharsets.US_ASCII);
+        byte[] data = new byte[inflated.length - nul - 1];
+        System.arraycopy(inflated, nul + 1, data, 0, data.length);
+        return new RawObject(typeCode(type), data);
+    }
+
+    private static int typeCode(String type) throws IOException {
+        return switch (type) {
+            case "commit" -> OBJ_COMMIT;
+            case "tree" -> OBJ_TREE;
+            case "blob" -> OBJ_BLOB;
+            case "tag" -> OBJ_TAG;
+            default -> throw new UnsupportedRepositoryException("object type " + type);
+        };
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private List<PackIndex> loadPackIndexes() throws IOException {
+        Path packDir = objectsDir.resolve("pack");
+        List<PackIndex> found = new ArrayList<>();
+        if (!Files.isDirectory(packDir)) {
+            return found;
+        }
+        List<Path> indexFiles;
+        try (Stream<Path> files = Files.list(packDir)) {
+            indexFiles = files
+                    .filter(p -> p.getFileName().toString().endsWith(".idx"))
+                    .sorted()
+                    .toList();
+        }
+        long objectCount = 0L;
+        for (Path indexFile : indexFiles) {
+            String name = indexFile.getFileName().toString();
+            Path packFile = indexFile.resolveSibling(
+                    name.substring(0, name.length() - ".idx".length()) + ".pack");
+            if (!Files.isRegularFile(packFile)) {
+                continue;
+            }
+            PackIndex pack = PackIndex.read(indexFile, packFile, this);
+            objectCount += pack.objectCount();
+            found.add(pack);
+        }
+        if (objectCount > MAX_OBJECTS_FOR_DEFAULT_ABBREV) {
+            throw new UnsupportedRepositoryException("large repository; abbreviation may differ");
+        }
+        return found;
+    }
+
+    /**
+     * One pack file and its version 2 index.
+     */
+    private static final class PackIndex {
+
+        private static final int IDX_MAGIC = 0xff744f63;
+        private static final HexFormat HEX = HexFormat.of();
+
+        private final Path packFile;
+        private final GitObjectReader owner;
+        private final int[] fanout;
+        private final byte[] names;
+        private final long[] offsets;
+        private final Map<Long, RawObject> baseCache = new HashMap<>();
+
+        private PackIndex(Path packFile,
+                          GitObjectReader owner,
+                          int[] fanout,
+                          byte[] names,
+                          long[] offsets) {
+            this.packFile = packFile;
+            this.owner = owner;
+            this.fanout = fanout;
+            this.names = names;
+            this.offsets = offsets;
+        }
+
+        static PackIndex read(Path indexFile, Path packFile, GitObjectReader owner)
+                throws IOException {
+            ByteBuffer idx = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+            if (idx.remaining() < 8 + 256 * 4 || idx.getInt(0) != IDX_MAGIC
+                    || idx.getInt(4) != 2) {
+                throw new UnsupportedRepositoryException("unsupported pack index " + indexFile);
+            }
+            int[] fanout = new int[256];
+            for (int i = 0; i < 256; i++) {
+                fanout[i] = idx.getInt(8 + i * 4);
+            }
+            int count = fanout[255];
+            int namesStart = 8 + 256 * 4;
+            int crcStart = namesStart + count * HASH_BYTES;
+            int offsetStart = crcStart + count * 4;
+            int largeStart = offsetStart + count * 4;
+            if (count < 0 || idx.limit() < largeStart) {
+                throw new UnsupportedRepositoryException("truncated pack index " + indexFile);
+            }
+
+            byte[] names = new byte[count * HASH_BYTES];
+            idx.get(namesStart, names);
+            long[] offsets = new long[count];
+            for (int i = 0; i < count; i++) {
+                int small = idx.getInt(offsetStart + i * 4);
+                if ((small & 0x80000000) == 0) {
+                    offsets[i] = small;
+                } else {
+                    offsets[i] = idx.getLong(largeStart + (small & 0x7fffffff) * 8);
+                }
+            }
+            return new PackIndex(packFile, owner, fanout, names, offsets);
+        }
+
+        int objectCount() {
+            return offsets.length;
+        }
+
+        long offsetOf(String id) {
+            byte[] wanted = HEX.parseHex(id);
+            int first = wanted[0] & 0xff;
+            int low = first == 0 ? 0 : fanout[first - 1];
+            int high = fanout[first] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Arrays.compareUnsigned(
+                        names, mid * HASH_BYTES, (mid + 1) * HASH_BYTES,
+                        wanted, 0, HASH_BYTES);
+                if (cmp == 0) {
+                    return offsets[mid];
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return -1L;
+        }
+
+        void collectWithPrefix(String prefix, Set<String> out) {
+            int first = Integer.parseInt(prefix.substring(0, 2), 16);
+            int low = first == 0 ? 0 : fanout[first - 1];
+            for (int i = low; i < fanout[first]; i++) {
+                String name = HEX.formatHex(names, i * HASH_BYTES, (i + 1) * HASH_BYTES);
+                if (name.startsWith(prefix)) {
+                    out.add(name);
+                }
+            }
+        }
+
+        RawObject readAt(long offset, int depth) throws IOException {
+            if (depth > MAX_DELTA_DEPTH) {
+                throw new UnsupportedRepositoryException("delta chain too deep");
+            }
+            RawObject cached = baseCache.get(offset);
+            if (cached != null) {
+                return cached;
+            }
+
+            RawObject object;
+            try (RandomAccessFile pack = new RandomAccessFile(packFile.toFile(), "r")) {
+                pack.seek(offset);
+                int c = pack.readUnsignedByte();
+                int type = (c >> 4) & 0x7;
+                long size = c & 0x0f;
+                int shift = 4;
+                while ((c & 0x80) != 0) {
+                    c = pack.readUnsignedByte();
+                    size |= (long) (c & 0x7f) << shift;
+                    shift += 7;
+                }
+
+                switch (type) {
+                    case OBJ_COMMIT, OBJ_TREE, OBJ_BLOB, OBJ_TAG ->
+                            object = new RawObject(type, inflate(pack, size));
+                    case OBJ_OFS_DELTA -> {
+                        c = pack.readUnsignedByte();
+                        long distance = c & 0x7f;
+                        while ((c & 0x80) != 0) {
+                            c = pack.readUnsignedByte();
+                            distance = ((distance + 1) << 7) | (c & 0x7f);
+                        }
+                        byte[] delta = inflate(pack, size);
+                        RawObject base = readAt(offset - distance, depth + 1);
+                        object = new RawObject(base.type(), applyDelta(base.data(), delta));
+                    }
+                    case OBJ_REF_DELTA -> {
+                        byte[] baseId = new byte[HASH_BYTES];
+                        pack.readFully(baseId);
+                        byte[] delta = inflate(pack, size);
+                        RawObject base = owner.readObject(HEX.formatHex(baseId));
+                        object = new RawObject(base.type(), applyDelta(base.data(), delta));
+                    }
+                    default -> throw new UnsupportedRepositoryException(
+                            "pack object type " + type);
+                }
+            }
+            if (object.type() == OBJ_COMMIT || object.type() == OBJ_TAG) {
+                baseCache.put(offset, object);
+            }
+            return object;
+        }
+
+        private static byte[] inflate(RandomAccessFile pack, long size) throws IOException {
+            if (size > Integer.MAX_VALUE - 16) {
+                throw new UnsupportedRepositoryException("pack object too large");
+            }
+            byte[] out = new byte[(int) size];
+            Inflater inflater = new Inflater();
+            try {
+                byte[] buffer = new byte[8192];
+                int filled = 0;
+                while (filled < out.length) {
+                    if (inflater.finished() || inflater.needsDictionary()) {
+                        throw new UnsupportedRepositoryException("pack object size mismatch");
+                    }
+                    if (inflater.needsInput()) {
+                        int read = pack.read(buffer);
+                        if (read < 0) {
+                            throw new UnsupportedRepositoryException("truncated pack object");
+                        }
+                        inflater.setInput(buffer, 0, read);
+                    }
+                    filled += inflater.inflate(out, filled, out.length - filled);
+                }
+                return out;
+            } catch (DataFormatException e) {
+                throw new UnsupportedRepositoryException("corrupt pack object");
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    static byte[] applyDelta(byte[] base, byte[] delta) throws IOException {
+        int[] position = {0};
+        long baseSize = readDeltaSize(delta, position);
+        long resultSize = readDeltaSize(delta, position);
+        if (baseSize != base.length) {
+            throw new UnsupportedRepositoryException("delta base size mismatch");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) resultSize);
+        int i = position[0];
+        while (i < delta.length) {
+            int op = delta[i++] & 0xff;
+            if ((op & 0x80) != 0) {
+                long copyOffset = 0;
+                long copySize = 0;
+                for (int bit = 0; bit < 4; bit++) {
+                    if ((op & (1 << bit)) != 0) {
+                        copyOffset |= (long) (delta[i++] & 0xff) << (8 * bit);
+                    }
+                }
+                for (int bit = 0; bit < 3; bit++) {
+                    if ((op & (0x10 << bit)) != 0) {
+                        copySize |= (long) (delta[i++] & 0xff) << (8 * bit);
+                    }
+                }
+                if (copySize == 0) {
+                    copySize = 0x10000;
+                }
+                if (copyOffset + copySize > base.length) {
+                    throw new UnsupportedRepositoryException("delta copy out of range");
+                }
+                out.write(base, (int) copyOffset, (int) copySize);
+            } else if (op != 0) {
+                if (i + op > delta.length) {
+                    throw new UnsupportedRepositoryException("delta insert out of range");
+                }
+                out.write(delta, i, op);
+                i += op;
+            } else {
+                throw new UnsupportedRepositoryException("reserved delta opcode");
+            }
+        }
+        if (out.size() != resultSize) {
+            throw new UnsupportedRepositoryException("delta result size mismatch");
+        }
+        return out.toByteArray();
+    }
+
+    private static long readDeltaSize(byte[] delta, int[] position) {
+        long size = 0;
+        int shift = 0;
+        int c;
+        do {
+            c = delta[position[0]++] & 0xff;
+            size |= (long) (c & 0x7f) << shift;
+            shift += 7;
+        } while ((c & 0x80) != 0);
+        return size;
+    }
+
+    private record RawObject(int type, byte[] data) {
+    }
+
+    record Commit(String id,
+                  List<String> parents,
+                  String authorName,
+                  LocalDate authorDate,
+                  long committerTime,
+                  String subject) {
+    }
+
+    /**
+     * A parsed {@code Name <email> epoch +hhmm} line.
+     */
+    private record Ident(String name, long epochSeconds, LocalDate date) {
+
+        static Ident parse(String line) throws IOException {
+            int emailStart = line.indexOf('<');
+            int emailEnd = line.indexOf('>', emailStart + 1);
+            if (emailStart < 0 || emailEnd < 0) {
+                throw new UnsupportedRepositoryException("malformed ident: " + line);
+            }
+            String name = line.substring(0, emailStart).stripTrailing();
+            String[] when = line.substring(emailEnd + 1).trim().split("\\s+");
+            if (when.length != 2 || when[1].length() != 5) {
+                throw new UnsupportedRepositoryException("malformed ident date: " + line);
+            }
+            try {
+                long epoch = Long.parseLong(when[0]);
+                int sign = when[1].charAt(0) == '-' ? -1 : 1;
+                int hours = Integer.parseInt(when[1].substring(1, 3));
+                int minutes = Integer.parseInt(when[1].substring(3, 5));
+                ZoneOffset offset = ZoneOffset.ofHoursMinutes(sign * hours, sign * minutes);
+                LocalDate date = LocalDate.ofInstant(Instant.ofEpochSecond(epoch), offset);
+                return new Ident(name, epoch, date);
+            } catch (RuntimeException e) {
+                throw new UnsupportedRepositoryException("malformed ident date: " + line);
+            }
+        }
+    }
+
+    /**
+     * Raised for anything this reader does not handle; callers fall back to git.
+     */
+    public static final class UnsupportedRepositoryException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public UnsupportedRepositoryException(String message) {
+            super(message);
+        }
+    }
+}
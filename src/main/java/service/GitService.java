@@ -1,37 +1,39 @@
 package service;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 
 public class GitService {
 
+    private static final int HISTORY_COUNT = 10;
+
     private final ProcessRunner processRunner;
 
     public GitService(ProcessRunner processRunner) {
         this.processRunner = Objects.requireNonNull(processRunner);
     }
 
+    /**
+     * Formats the last commits as a fenced block. The history is read in-process with
+     * {@link GitObjectReader}; repositories it cannot read are handed to {@code git log}.
+     */
     public String buildCommitHistoryMarkdown(Path repoPath) {
         StringBuilder sb = new StringBuilder();
 
-        final int historyCount = 10;
-        List<String> args = List.of(
-                "git",
-                "log",
-                "-n",
-                String.valueOf(historyCount),
-                "--pretty=format:%h %ad %an - %s",
-                "--date=short"
-        );
-
-        ProcessResult result = processRunner.runCaptureLinesWithExitCode(args, repoPath);
+        List<String> lines;
+        try {
+            lines = GitObjectReader.open(repoPath).log(HISTORY_COUNT);
+        } catch (IOException | RuntimeException e) {
+            lines = runGitLog(repoPath);
+        }
 
-        if (result.exitCode() != 0 || result.outputLines().isEmpty()) {
+        if (lines.isEmpty()) {
             sb.append("_No commit history available._").append(System.lineSeparator());
         } else {
             sb.append("```").append(System.lineSeparator());
-            for (String line : result.outputLines()) {
+            for (String line : lines) {
                 sb.append(line).append(System.lineSeparator());
             }
             sb.append("```").append(System.lineSeparator());
@@ -39,4 +41,21 @@ public class GitService {
 
         return sb.toString();
     }
+
+    private List<String> runGitLog(Path repoPath) {
+        List<String> args = List.of(
+                "git",
+                "log",
+                "-n",
+                String.valueOf(HISTORY_COUNT),
+                "--pretty=format:%h %ad %an - %s",
+                "--date=short"
+        );
+
+        ProcessResult result = processRunner.runCaptureLinesWithExitCode(args, repoPath);
+        if (result.exitCode() != 0) {
+            return List.of();
+        }
+        return result.outputLines();
+    }
 }
@@ -134,6 +134,24 @@ public class GradingDraftService {
         );
     }
 
+    /**
+     * @return the report and its feedback copy, as written by {@link #saveReportMarkdown}
+     */
+    public List<Path> reportOutputPaths(String assignmentId,
+                                        String studentPackage,
+                                        Path rootPath,
+                                        Path feedbackRootOverride) {
+        Path reportPath = buildReportPath(assignmentId, studentPackage, rootPath);
+        return List.of(
+                reportPath,
+                feedbackReportPath(
+                        rootPath,
+                        reportPath.getFileName().toString(),
+                        feedbackRootOverride
+                )
+        );
+    }
+
     private String normalizeForSavedReport(String markdown) {
         String out = markdown == null ? "" : markdown;
         out = replaceRubricPatchBlockWithRawTable(out);
@@ -221,12 +239,19 @@ public class GradingDraftService {
                                    String reportFileName,
                                    String html,
                                    Path feedbackRootOverride) throws IOException {
+        writeReportFileAtomically(
+                feedbackReportPath(rootPath, reportFileName, feedbackRootOverride),
+                html
+        );
+    }
+
+    private Path feedbackReportPath(Path rootPath,
+                                    String reportFileName,
+                                    Path feedbackRootOverride) {
         Path feedbackRoot = feedbackRootOverride == null
                 ? resolveFeedbackRoot(rootPath)
                 : feedbackRootOverride;
-        Path feedbackDir = feedbackRoot.resolve(FEEDBACK_FOLDER_NAME);
-        Path feedbackReportPath = feedbackDir.resolve(reportFileName);
-        writeReportFileAtomically(feedbackReportPath, html);
+        return feedbackRoot.resolve(FEEDBACK_FOLDER_NAME).resolve(reportFileName);
     }
 
     private Path resolveFeedbackRoot(Path rootPath) {
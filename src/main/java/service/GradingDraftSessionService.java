@@ -4,26 +4,75 @@
  */
 package service;
 
+import util.AppDataUtil;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per-student editor drafts for one grading session.
+ * <p>
+ * Caret, selection and load state are always kept in memory. Draft text is kept in
+ * memory for the most recently used drafts, up to {@code maxResidentChars}; colder
+ * drafts are written to a {@link DraftSpillJournal} and read back transparently the
+ * next time their text is needed. A draft that cannot be written stays in memory, so
+ * nothing is dropped when the disk is unavailable.
+ * </p>
+ */
+public class GradingDraftSessionService implements AutoCloseable {
 
-public class GradingDraftSessionService {
+    public static final long DEFAULT_MAX_RESIDENT_CHARS = 8L * 1024L * 1024L;
 
     private final Map<String, DraftState> draftsByStudent = new HashMap<>();
+    private final LinkedHashMap<String, DraftState> residentDrafts =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxResidentChars;
+    private final DraftSpillJournal journal;
+    private final ServiceLogger logger;
+    private long residentChars = 0L;
+
+    public GradingDraftSessionService() {
+        this(
+                AppDataUtil.appDataDir().resolve("drafts"),
+                DEFAULT_MAX_RESIDENT_CHARS,
+                _ -> {
+                }
+        );
+    }
+
+    /**
+     * @param journalDir directory for the spill journal, created on first spill
+     * @param maxResidentChars draft text kept in memory before cold drafts are spilled
+     * @param logger receives spill and read-back failures
+     */
+    public GradingDraftSessionService(Path journalDir,
+                                      long maxResidentChars,
+                                      ServiceLogger logger) {
+        this.journal = new DraftSpillJournal(Objects.requireNonNull(journalDir));
+        this.maxResidentChars = Math.max(0L, maxResidentChars);
+        this.logger = Objects.requireNonNull(logger);
+    }
 
-    public void updateCaretIfPresent(String studentPackage,
-                                     int caretPosition) {
+    public synchronized void updateCaretIfPresent(String studentPackage,
+                                                  int caretPosition) {
         DraftState draft = draftsByStudent.get(studentPackage);
         if (draft != null) {
             draft.setCaretPositionOnly(caretPosition);
         }
     }
 
-    public void updateMarkdownIfPresent(String studentPackage,
-                                        String markdown) {
+    public synchronized void updateMarkdownIfPresent(String studentPackage,
+                                                     String markdown) {
         DraftState draft = draftsByStudent.get(studentPackage);
         if (draft != null) {
-            draft.setMarkdown(markdown);
+            storeMarkdown(studentPackage, draft, markdown);
         }
     }
 
@@ -33,52 +82,50 @@ public class GradingDraftSessionService {
         saveEditorState(studentPackage, markdown, caretPosition, caretPosition);
     }
 
-    public void saveEditorState(String studentPackage,
-                                String markdown,
-                                int caretPosition,
-                                int selectionEnd) {
+    public synchronized void saveEditorState(String studentPackage,
+                                             String markdown,
+                                             int caretPosition,
+                                             int selectionEnd) {
         DraftState draft = draftFor(studentPackage);
-        draft.setMarkdown(markdown);
+        storeMarkdown(studentPackage, draft, markdown);
         draft.setSelection(caretPosition, selectionEnd);
         draft.setLoadedFromDisk(true);
     }
 
-    public boolean needsReload(String studentPackage) {
+    public synchronized boolean needsReload(String studentPackage) {
         DraftState draft = draftFor(studentPackage);
-        return !draft.isLoadedFromDisk()
-                || draft.getMarkdown() == null
-                || draft.getMarkdown().trim().isEmpty();
+        return !draft.isLoadedFromDisk() || draft.isBlank();
     }
 
-    public String getMarkdown(String studentPackage) {
-        return draftFor(studentPackage).getMarkdown();
+    public synchronized String getMarkdown(String studentPackage) {
+        return markdownOf(studentPackage, draftFor(studentPackage));
     }
 
-    public void setMarkdown(String studentPackage,
-                            String markdown) {
-        draftFor(studentPackage).setMarkdown(markdown);
+    public synchronized void setMarkdown(String studentPackage,
+                                         String markdown) {
+        storeMarkdown(studentPackage, draftFor(studentPackage), markdown);
     }
 
-    public int getCaretPosition(String studentPackage) {
+    public synchronized int getCaretPosition(String studentPackage) {
         return draftFor(studentPackage).getCaretPosition();
     }
 
-    public int getSelectionStart(String studentPackage) {
+    public synchronized int getSelectionStart(String studentPackage) {
         return draftFor(studentPackage).getSelectionStart();
     }
 
-    public int getSelectionEnd(String studentPackage) {
+    public synchronized int getSelectionEnd(String studentPackage) {
         return draftFor(studentPackage).getSelectionEnd();
     }
 
-    public void setCaretPosition(String studentPackage,
-                                 int caretPosition) {
+    public synchronized void setCaretPosition(String studentPackage,
+                                              int caretPosition) {
         draftFor(studentPackage).setSelection(caretPosition, caretPosition);
     }
 
-    public void setSelection(String studentPackage,
-                             int selectionStart,
-                             int selectionEnd) {
+    public synchronized void setSelection(String studentPackage,
+                                          int selectionStart,
+                                          int selectionEnd) {
         draftFor(studentPackage).setSelection(selectionStart, selectionEnd);
     }
 
@@ -88,53 +135,220 @@ public class GradingDraftSessionService {
         updateFromEditorIfPresent(studentPackage, markdown, caretPosition, caretPosition);
     }
 
-    public void updateFromEditorIfPresent(String studentPackage,
-                                          String markdown,
-                                          int selectionStart,
-                                          int selectionEnd) {
+    public synchronized void updateFromEditorIfPresent(String studentPackage,
+                                                       String markdown,
+                                                       int selectionStart,
+                                                       int selectionEnd) {
         DraftState draft = draftsByStudent.get(studentPackage);
         if (draft != null) {
             draft.setSelection(selectionStart, selectionEnd);
-            draft.setMarkdown(markdown);
+            storeMarkdown(studentPackage, draft, markdown);
             draft.setLoadedFromDisk(true);
         }
     }
 
-    public void updateSelectionIfPresent(String studentPackage,
-                                         int selectionStart,
-                                         int selectionEnd) {
+    public synchronized void updateSelectionIfPresent(String studentPackage,
+                                                      int selectionStart,
+                                                      int selectionEnd) {
         DraftState draft = draftsByStudent.get(studentPackage);
         if (draft != null) {
             draft.setSelection(selectionStart, selectionEnd);
         }
     }
 
-    public boolean isLoadedFromDisk(String studentPackage) {
+    /**
+     * @return true when the student already has a draft with text, without creating one
+     */
+    public synchronized boolean hasDraft(String studentPackage) {
+        DraftState draft = draftsByStudent.get(studentPackage);
+        return draft != null && draft.isLoadedFromDisk() && !draft.isBlank();
+    }
+
+    /**
+     * Records an edit the grader made to the student's draft. Loading or rebuilding a
+     * draft without the grader's input is not an edit.
+     */
+    public synchronized void markEdited(String studentPackage) {
+        DraftState draft = draftsByStudent.get(studentPackage);
+        if (draft != null) {
+            draft.edits++;
+        }
+    }
+
+    /**
+     * @return edits made to the student's draft so far; pass it to
+     *         {@link #markSaved(String, long)} once the draft read with it is saved
+     */
+    public synchronized long editCount(String studentPackage) {
+        DraftState draft = draftsByStudent.get(studentPackage);
+        return draft == null ? 0L : draft.edits;
+    }
+
+    /**
+     * Records that the draft was saved as it was at {@code editCount}. Edits made while
+     * the save ran stay unsaved.
+     */
+    public synchronized void markSaved(String studentPackage, long editCount) {
+        DraftState draft = draftsByStudent.get(studentPackage);
+        if (draft != null) {
+            draft.savedEdits = Math.max(draft.savedEdits, editCount);
+        }
+    }
+
+    /**
+     * @return true when the grader edited the student's draft since it was last saved
+     */
+    public synchronized boolean hasUnsavedEdits(String studentPackage) {
+        DraftState draft = draftsByStudent.get(studentPackage);
+        return draft != null && draft.edits > draft.savedEdits;
+    }
+
+    public synchronized boolean isLoadedFromDisk(String studentPackage) {
         return draftFor(studentPackage).isLoadedFromDisk();
     }
 
-    public void setLoadedFromDisk(String studentPackage,
-                                  boolean loadedFromDisk) {
+    public synchronized void setLoadedFromDisk(String studentPackage,
+                                               boolean loadedFromDisk) {
         draftFor(studentPackage).setLoadedFromDisk(loadedFromDisk);
     }
 
+    /**
+     * @return characters of draft text currently held in memory
+     */
+    public synchronized long residentChars() {
+        return residentChars;
+    }
+
+    /**
+     * @return number of drafts whose text is currently in the spill journal
+     */
+    public synchronized int spilledDraftCount() {
+        int count = 0;
+        for (DraftState draft : draftsByStudent.values()) {
+            if (draft.spilled != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Deletes the spill journal. Spilled draft text is gone afterwards, so call this only
+     * once the session is over.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.log("Failed to delete draft journal: " + e.getMessage());
+        }
+    }
+
     private DraftState draftFor(String studentPackage) {
         return draftsByStudent.computeIfAbsent(studentPackage, _ -> new DraftState());
     }
 
+    private String markdownOf(String studentPackage, DraftState draft) {
+        if (draft.spilled != null) {
+            String markdown;
+            try {
+                markdown = journal.read(draft.spilled);
+            } catch (IOException e) {
+                // Keep the journal record so a later read can still succeed.
+                throw new IllegalStateException(
+                        "Failed to read spilled draft for " + studentPackage, e);
+            }
+            journal.release(draft.spilled);
+            draft.spilled = null;
+            draft.markdown = markdown;
+            residentChars += markdown.length();
+        }
+        residentDrafts.put(studentPackage, draft);
+        String markdown = draft.markdown;
+        spillColdDrafts(studentPackage);
+        return markdown;
+    }
+
+    private void storeMarkdown(String studentPackage, DraftState draft, String markdown) {
+        String value = markdown == null ? "" : markdown;
+        if (draft.spilled != null) {
+            journal.release(draft.spilled);
+            draft.spilled = null;
+        } else {
+            residentChars -= draft.markdown.length();
+        }
+        draft.markdown = value;
+        draft.blank = value.trim().isEmpty();
+        residentChars += value.length();
+        residentDrafts.put(studentPackage, draft);
+        spillColdDrafts(studentPackage);
+    }
+
+    // Least recently used first; the draft just touched always stays in memory.
+    private void spillColdDrafts(String keepStudent) {
+        Iterator<Map.Entry<String, DraftState>> coldest = residentDrafts.entrySet().iterator();
+        boolean spilledAny = false;
+        while (residentChars > maxResidentChars && coldest.hasNext()) {
+            Map.Entry<String, DraftState> entry = coldest.next();
+            DraftState draft = entry.getValue();
+            if (entry.getKey().equals(keepStudent) || draft.markdown.isEmpty()) {
+                continue;
+            }
+            try {
+                draft.spilled = journal.write(draft.markdown);
+            } catch (IOException e) {
+                logger.log("Keeping drafts in memory; draft journal failed: " + e.getMessage());
+                return;
+            }
+            residentChars -= draft.markdown.length();
+            draft.markdown = null;
+            coldest.remove();
+            spilledAny = true;
+        }
+        if (spilledAny) {
+            compactJournalIfMostlyReleased();
+        }
+    }
+
+    private void compactJournalIfMostlyReleased() {
+        try {
+            if (!journal.shouldCompact()) {
+                return;
+            }
+            List<DraftState> spilled = new ArrayList<>();
+            List<DraftSpillJournal.Location> locations = new ArrayList<>();
+            for (DraftState draft : draftsByStudent.values()) {
+                if (draft.spilled != null) {
+                    spilled.add(draft);
+                    locations.add(draft.spilled);
+                }
+            }
+            List<DraftSpillJournal.Location> moved = journal.compact(locations);
+            for (int i = 0; i < spilled.size(); i++) {
+                spilled.get(i).spilled = moved.get(i);
+            }
+        } catch (IOException e) {
+            logger.log("Failed to compact draft journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Editor state for one student. {@code markdown} is null while the text is spilled.
+     */
     private static class DraftState {
         private String markdown = "";
+        private DraftSpillJournal.Location spilled = null;
+        private boolean blank = true;
         private int caretPosition = 0;
         private int selectionStart = 0;
         private int selectionEnd = 0;
         private boolean loadedFromDisk = false;
+        private long edits = 0L;
+        private long savedEdits = 0L;
 
-        public String getMarkdown() {
-            return markdown;
-        }
-
-        public void setMarkdown(String markdown) {
-            this.markdown = markdown == null ? "" : markdown;
+        public boolean isBlank() {
+            return blank;
         }
 
         public int getCaretPosition() {
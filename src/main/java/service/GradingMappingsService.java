@@ -11,17 +11,23 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Consumer;
 
 public class GradingMappingsService {
     private static final long UNSET_TIMESTAMP = Long.MIN_VALUE;
+    private static final long RACY_WINDOW_MILLIS = 2_000L;
 
     private final Consumer<String> statusConsumer;
     private final Map<String, String> repoPathByStudentPackage = new LinkedHashMap<>();
+    private final Map<Path, DirectoryStamp> validatedRepoParents = new HashMap<>();
     private String cachedMappingContextKey = "";
     private long cachedMappingFileLastModified = UNSET_TIMESTAMP;
+    private RepoReportIndex reportIndex;
+    private Path reportIndexDir;
 
     public GradingMappingsService(Consumer<String> statusConsumer) {
         this.statusConsumer = statusConsumer == null ? msg -> {
@@ -41,7 +47,14 @@ public class GradingMappingsService {
         return mappingFile;
     }
 
-    public Map<String, String> loadMappingsForUse(Path mappingsPath,
+    /**
+     * Synchronized because the grading window looks up repos from the FX thread and
+     * from its save, push and autosave workers, which all share this cache and may
+     * rewrite the mapping file.
+     *
+     * @return a copy of the current mappings, by student package
+     */
+    public synchronized Map<String, String> loadMappingsForUse(Path mappingsPath,
                                                   String assignmentId,
                                                   Path rootPath,
                                                   Path appDataDir) {
@@ -53,6 +66,7 @@ public class GradingMappingsService {
         );
         if (!contextKey.equals(cachedMappingContextKey)) {
             repoPathByStudentPackage.clear();
+            validatedRepoParents.clear();
             cachedMappingContextKey = contextKey;
             cachedMappingFileLastModified = UNSET_TIMESTAMP;
         }
@@ -74,14 +88,16 @@ public class GradingMappingsService {
         }
 
         if (Files.isRegularFile(mappingFile)) {
-            Map<String, String> validMappings = readValidMappings(mappingFile);
+            Map<String, Map<String, String>> fileMappings = readMappingFile(mappingFile);
+            Map<String, String> validMappings = flattenMappings(fileMappings);
 
             if (!validMappings.isEmpty()) {
                 repoPathByStudentPackage.clear();
                 repoPathByStudentPackage.putAll(validMappings);
             }
 
-            boolean valid = mappingsFileHasValidRepoPaths(mappingFile);
+            boolean valid = !validMappings.isEmpty()
+                    && validMappings.size() == fileMappings.size();
 
             if (valid) {
                 cachedMappingFileLastModified = readLastModifiedMillis(mappingFile);
@@ -92,7 +108,7 @@ public class GradingMappingsService {
         }
 
         Map<String, Map<String, String>> reconstructed =
-                reconstructMappingsFromRoot(rootPath, assignmentId);
+                reconstructMappingsFromRoot(rootPath, assignmentId, appDataDir);
 
         if (reconstructed.isEmpty()) {
             if (repoPathByStudentPackage.isEmpty()) {
@@ -161,11 +177,17 @@ public class GradingMappingsService {
         return mappingFilePart + "|" + assignmentPart + "|" + rootPart;
     }
 
+    /*
+     * Drops mappings whose repo is gone. Removing or renaming a repo changes its parent
+     * directory's modification time, so repos under a parent that is unchanged since
+     * the last pass are kept without being checked one by one.
+     */
     private void revalidateCachedMappings() {
         if (repoPathByStudentPackage.isEmpty()) {
             return;
         }
 
+        Map<Path, Boolean> trustedParents = new HashMap<>();
         Map<String, String> valid = new LinkedHashMap<>();
         for (Map.Entry<String, String> entry : repoPathByStudentPackage.entrySet()) {
             String studentPackage = entry.getKey();
@@ -179,7 +201,10 @@ public class GradingMappingsService {
             }
 
             Path repoDir = Path.of(repoPath);
-            if (Files.isDirectory(repoDir)) {
+            Path parent = repoDir.toAbsolutePath().getParent();
+            boolean trusted = parent != null
+                    && trustedParents.computeIfAbsent(parent, this::isUnchangedSinceValidated);
+            if (trusted || Files.isDirectory(repoDir)) {
                 valid.put(studentPackage, repoDir.toString());
             }
         }
@@ -188,6 +213,24 @@ public class GradingMappingsService {
         repoPathByStudentPackage.putAll(valid);
     }
 
+    private boolean isUnchangedSinceValidated(Path parent) {
+        long modified;
+        try {
+            modified = Files.getLastModifiedTime(parent).toMillis();
+        } catch (IOException e) {
+            validatedRepoParents.remove(parent);
+            return false;
+        }
+
+        DirectoryStamp previous = validatedRepoParents.put(
+                parent,
+                new DirectoryStamp(modified, System.currentTimeMillis())
+        );
+        return previous != null
+                && previous.modifiedMillis() == modified
+                && modified < previous.validatedAt() - RACY_WINDOW_MILLIS;
+    }
+
     private long readLastModifiedMillis(Path file) {
         if (file == null || !Files.isRegularFile(file)) {
             return -1L;
@@ -243,14 +286,9 @@ public class GradingMappingsService {
         return mappingsDir.resolve(fileName);
     }
 
-    private boolean mappingsFileHasValidRepoPaths(Path mappingFile) {
-        if (mappingFile == null || !Files.isRegularFile(mappingFile)) {
-            return false;
-        }
-
+    private Map<String, Map<String, String>> readMappingFile(Path mappingFile) {
         try {
             ObjectMapper mapper = new ObjectMapper();
-
             Map<String, Map<String, String>> mapping =
                     mapper.readValue(
                             Files.readAllBytes(mappingFile),
@@ -258,28 +296,7 @@ public class GradingMappingsService {
                             }
                     );
 
-            if (mapping == null || mapping.isEmpty()) {
-                return false;
-            }
-
-            return flattenMappings(mapping).size() == mapping.size();
-
-        } catch (IOException e) {
-            return false;
-        }
-    }
-
-    private Map<String, String> readValidMappings(Path mappingFile) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            Map<String, Map<String, String>> mapping =
-                    mapper.readValue(
-                            Files.readAllBytes(mappingFile),
-                            new TypeReference<>() {
-                            }
-                    );
-
-            return flattenMappings(mapping);
+            return mapping == null ? Map.of() : mapping;
         } catch (IOException e) {
             return Map.of();
         }
@@ -319,7 +336,8 @@ public class GradingMappingsService {
     }
 
     private Map<String, Map<String, String>> reconstructMappingsFromRoot(Path rootPath,
-                                                                         String assignmentId) {
+                                                                         String assignmentId,
+                                                                         Path appDataDir) {
         status("Root path = " + rootPath);
         if (rootPath == null) {
             status("Root path is NULL");
@@ -330,98 +348,36 @@ public class GradingMappingsService {
             return mapping;
         }
 
-        Path reposContainer = null;
-
-        try (var stream = Files.list(rootPath)) {
-
-            for (Path child : stream.toList()) {
-
-                if (!Files.isDirectory(child)) {
-                    continue;
-                }
-
-                if (child.getFileName().toString().equalsIgnoreCase("packages")) {
-                    continue;
-                }
-
-                boolean containsAssignmentReports = false;
-
-                try (var sub = Files.list(child)) {
-                    for (Path maybeRepo : sub.toList()) {
-
-                        if (!Files.isDirectory(maybeRepo)) {
-                            continue;
-                        }
-
-                        try (var files = Files.list(maybeRepo)) {
-                            for (Path f : files.toList()) {
-
-                                String name = f.getFileName().toString();
-
-                                if (name.startsWith(assignmentId)
-                                        && name.endsWith(".html")) {
-                                    containsAssignmentReports = true;
-                                }
-                            }
-                        }
-                    }
-                }
-
-                if (containsAssignmentReports) {
-                    reposContainer = child;
-                }
-            }
-
+        Map<String, Path> repos;
+        try {
+            repos = reportIndex(appDataDir).reposWithReports(rootPath, assignmentId);
         } catch (IOException e) {
             status("Failed scanning root: " + e.getMessage());
             return mapping;
         }
 
-        if (reposContainer == null || !Files.isDirectory(reposContainer)) {
-            return mapping;
-        }
-
-        try (var repos = Files.list(reposContainer)) {
-
-            for (Path repoDir : repos.toList()) {
-
-                if (!Files.isDirectory(repoDir)) {
-                    continue;
-                }
-
-                try (var files = Files.list(repoDir)) {
-
-                    for (Path file : files.toList()) {
-
-                        String fileName = file.getFileName().toString();
-
-                        if (fileName.startsWith(assignmentId)
-                                && fileName.endsWith(".html")) {
-
-                            String studentPackage =
-                                    fileName.substring(
-                                            assignmentId.length(),
-                                            fileName.length() - ".html".length()
-                                    );
-
-                            Map<String, String> entry = new LinkedHashMap<>();
-                            entry.put("repoPath", repoDir.toAbsolutePath().toString());
-
-                            mapping.put(studentPackage, entry);
-                        }
-                    }
-
-                }
-            }
-
-        } catch (IOException e) {
-            status("Failed scanning repos: " + e.getMessage());
+        for (Map.Entry<String, Path> repo : repos.entrySet()) {
+            Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("repoPath", repo.getValue().toAbsolutePath().toString());
+            mapping.put(repo.getKey(), entry);
         }
         status("Reconstructed mapping count: " + mapping.size());
         return mapping;
     }
 
+    private RepoReportIndex reportIndex(Path appDataDir) {
+        Path indexDir = appDataDir == null ? null : appDataDir.resolve("mappings");
+        if (reportIndex == null || !Objects.equals(indexDir, reportIndexDir)) {
+            reportIndex = new RepoReportIndex(indexDir);
+            reportIndexDir = indexDir;
+        }
+        return reportIndex;
+    }
+
     private void status(String msg) {
         statusConsumer.accept(msg);
     }
+
+    private record DirectoryStamp(long modifiedMillis, long validatedAt) {
+    }
 }
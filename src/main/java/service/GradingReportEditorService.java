@@ -7,6 +7,7 @@ package service;
 import model.Assignment;
 import model.AssignmentsFile;
 import model.Comments.ParsedComment;
+import model.GradingReportDocument;
 import model.RubricItemDef;
 import model.RubricItemRef;
 import model.RubricTableBuilder;
@@ -20,10 +21,11 @@ import java.util.regex.Pattern;
 
 public class GradingReportEditorService {
 
-    private static final String COMMENTS_SUMMARY_BEGIN = "<!-- COMMENTS_SUMMARY_BEGIN -->";
-    private static final String COMMENTS_SUMMARY_END = "<!-- COMMENTS_SUMMARY_END -->";
-    private static final String RUBRIC_TABLE_BEGIN = "<!-- RUBRIC_TABLE_BEGIN -->";
-    private static final String RUBRIC_TABLE_END = "<!-- RUBRIC_TABLE_END -->";
+    private static final String COMMENTS_SUMMARY_BEGIN =
+            GradingReportDocument.COMMENTS_SUMMARY_BEGIN;
+    private static final String COMMENTS_SUMMARY_END = GradingReportDocument.COMMENTS_SUMMARY_END;
+    private static final String RUBRIC_TABLE_BEGIN = GradingReportDocument.RUBRIC_TABLE_BEGIN;
+    private static final String RUBRIC_TABLE_END = GradingReportDocument.RUBRIC_TABLE_END;
 
     private final Assignment assignment;
     private final AssignmentsFile assignmentsFile;
@@ -36,6 +38,31 @@ public class GradingReportEditorService {
 
     public String normalizeRubricAndSummaryBlocks(String markdown) {
         String text = markdown == null ? "" : markdown;
+        GradingReportDocument document = GradingReportDocument.parse(text);
+        if (canNormalizePreambleOnly(document)) {
+            // Nothing past the preamble would be rewritten; leave the generated body alone.
+            return normalizeWholeText(document.preamble()) + document.body();
+        }
+        return normalizeWholeText(text);
+    }
+
+    /**
+     * Normalizing only the preamble gives the same result as normalizing the whole
+     * report when the rubric block exists (so no raw table is searched for in the body),
+     * every marker sits in the preamble, and removing the blocks does not expose a new
+     * major section heading.
+     */
+    private boolean canNormalizePreambleOnly(GradingReportDocument document) {
+        String rubric = document.rubricContents();
+        if (rubric == null || rubric.isBlank() || !document.markersOnlyInPreamble()) {
+            return false;
+        }
+        String working = removeAllBlocks(document.preamble(), RUBRIC_TABLE_BEGIN, RUBRIC_TABLE_END);
+        working = removeAllBlocks(working, COMMENTS_SUMMARY_BEGIN, COMMENTS_SUMMARY_END);
+        return findPreambleBoundary(working) == working.length();
+    }
+
+    private String normalizeWholeText(String text) {
         String existingRubric =
                 extractBlockContents(text, RUBRIC_TABLE_BEGIN, RUBRIC_TABLE_END);
         String existingSummary =
@@ -199,45 +226,47 @@ public class GradingReportEditorService {
     public String ensurePatchSectionsExist(String markdown,
                                            String studentPackage) {
         String text = markdown == null ? "" : markdown;
-        boolean hasRubric = text.contains(RUBRIC_TABLE_BEGIN) && text.contains(RUBRIC_TABLE_END);
-        boolean hasSummary = text.contains(COMMENTS_SUMMARY_BEGIN)
-                && text.contains(COMMENTS_SUMMARY_END);
-        if (hasRubric && hasSummary) {
+        GradingReportDocument document = GradingReportDocument.parse(text);
+        if (document.rubric().hasBothMarkers() && document.summary().hasBothMarkers()) {
             return text;
         }
-        String skeleton = buildFreshReportSkeleton(studentPackage);
-        if (text.trim().startsWith("#")) {
-            return injectMissingBlocksIntoExisting(text);
+        if (startsWithHeading(text)) {
+            return injectMissingBlocksIntoExisting(document);
         }
+        String skeleton = buildFreshReportSkeleton(studentPackage);
         return skeleton + System.lineSeparator() + text;
     }
 
+    private boolean startsWithHeading(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch > ' ') {
+                return ch == '#';
+            }
+        }
+        return false;
+    }
+
     public String rebuildRubricAndSummary(String text,
                                           List<ParsedComment> comments) {
         String safeText = text == null ? "" : text;
         String normalized = safeText.replace("\r\n", "\n");
-        String existingSummary = extractBlockContents(
-                normalized,
-                COMMENTS_SUMMARY_BEGIN,
-                COMMENTS_SUMMARY_END
-        );
+        GradingReportDocument document = GradingReportDocument.parse(normalized);
         Map<String, Integer> previousManualDeductions =
-                computePreviousManualDeductions(existingSummary, comments);
+                computePreviousManualDeductions(document.summaryContents(), comments);
         Map<String, Integer> currentManualDeductions =
                 computeManualDeductionsByRubricId(comments);
-        String newSummary = buildCommentSummaryMarkdown(comments);
-        String updated = replaceBlock(
-                normalized,
-                COMMENTS_SUMMARY_BEGIN,
-                COMMENTS_SUMMARY_END,
-                newSummary
+
+        document = document.withBlockContents(
+                document.summary(),
+                buildCommentSummaryMarkdown(comments)
         );
         String updatedRubric = buildUpdatedRubricBlockFromExisting(
-                updated,
+                document.rubricContents(),
                 previousManualDeductions,
                 currentManualDeductions
         );
-        return replaceBlock(updated, RUBRIC_TABLE_BEGIN, RUBRIC_TABLE_END, updatedRubric);
+        return document.withBlockContents(document.rubric(), updatedRubric).text();
     }
 
     private int findInsertPosition(String text) {
@@ -420,64 +449,109 @@ public class GradingReportEditorService {
         return null;
     }
 
-    private String injectMissingBlocksIntoExisting(String markdown) {
-        String text = markdown == null ? "" : markdown;
-        boolean hasRubric = text.contains(RUBRIC_TABLE_BEGIN) && text.contains(RUBRIC_TABLE_END);
-        boolean hasSummary = text.contains(COMMENTS_SUMMARY_BEGIN)
-                && text.contains(COMMENTS_SUMMARY_END);
+    private String injectMissingBlocksIntoExisting(GradingReportDocument document) {
+        String text = document.text();
+        boolean hasRubric = document.rubric().hasBothMarkers();
+        boolean hasSummary = document.summary().hasBothMarkers();
         if (hasRubric && hasSummary) {
             return text;
         }
-        String[] lines = text.split("\\R", -1);
-        int insertAtLine = -1;
+
+        // The blocks go after the first blank line that follows the first heading, or
+        // after the first line. Only the lines up to that point are scanned.
+        int firstLineEnd = -1;
+        int insertAt = -1;
         boolean sawHeading = false;
-        boolean done = false;
-        for (int i = 0; i < lines.length && !done; i++) {
-            String trimmed = lines[i].trim();
+        int lineStart = 0;
+        while (insertAt < 0 && lineStart >= 0) {
+            int lineEnd = lineEnd(text, lineStart);
+            if (firstLineEnd < 0) {
+                firstLineEnd = lineEnd;
+            }
+            String trimmed = text.substring(lineStart, lineEnd).trim();
             if (!sawHeading && trimmed.startsWith("#")) {
                 sawHeading = true;
             } else if (sawHeading && trimmed.isEmpty()) {
-                insertAtLine = i + 1;
-                done = true;
+                insertAt = lineEnd;
             }
+            lineStart = nextLineStart(text, lineEnd);
+        }
+        if (insertAt < 0) {
+            insertAt = firstLineEnd;
         }
 
-        if (insertAtLine < 0) {
-            insertAtLine = 1;
+        String newline = System.lineSeparator();
+        int restStart = nextLineStart(text, insertAt);
+        StringBuilder sb = new StringBuilder(text.length() + 256);
+        sb.append(withSystemLineBreaks(text.substring(0, insertAt))).append(newline);
+
+        if (!hasRubric) {
+            sb.append(newline);
+            sb.append(RUBRIC_TABLE_BEGIN).append(newline);
+            sb.append(newline);
+            sb.append(RUBRIC_TABLE_END).append(newline);
+            sb.append(newline);
+        }
+        if (!hasSummary) {
+            sb.append(newline);
+            sb.append(COMMENTS_SUMMARY_BEGIN).append(newline);
+            sb.append(buildCommentSummaryMarkdown(new ArrayList<>()))
+                    .append(newline);
+            sb.append(COMMENTS_SUMMARY_END).append(newline);
+            sb.append(newline);
         }
 
-        StringBuilder sb = new StringBuilder();
+        if (restStart >= 0) {
+            sb.append(withSystemLineBreaks(text.substring(restStart))).append(newline);
+        }
+        return sb.toString();
+    }
 
-        for (int i = 0; i < lines.length; i++) {
-            sb.append(lines[i]).append(System.lineSeparator());
+    private static int lineEnd(String text, int lineStart) {
+        int i = lineStart;
+        while (i < text.length() && !isLineBreak(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
 
-            if (i == insertAtLine - 1) {
-                if (!hasRubric) {
-                    sb.append(System.lineSeparator());
-                    sb.append(RUBRIC_TABLE_BEGIN).append(System.lineSeparator());
-                    sb.append(System.lineSeparator());
-                    sb.append(RUBRIC_TABLE_END).append(System.lineSeparator());
-                    sb.append(System.lineSeparator());
-                }
-                if (!hasSummary) {
-                    sb.append(System.lineSeparator());
-                    sb.append(COMMENTS_SUMMARY_BEGIN).append(System.lineSeparator());
-                    sb.append(buildCommentSummaryMarkdown(new ArrayList<>()))
-                            .append(System.lineSeparator());
-                    sb.append(COMMENTS_SUMMARY_END).append(System.lineSeparator());
-                    sb.append(System.lineSeparator());
-                }
-            }
+    private static int nextLineStart(String text, int lineEnd) {
+        if (lineEnd >= text.length()) {
+            return -1;
         }
+        if (text.charAt(lineEnd) == '\r'
+                && lineEnd + 1 < text.length()
+                && text.charAt(lineEnd + 1) == '\n') {
+            return lineEnd + 2;
+        }
+        return lineEnd + 1;
+    }
 
-        return sb.toString();
+    private static boolean isLineBreak(char ch) {
+        return ch == '\n' || ch == '\r' || ch == '\u000B' || ch == '\u000C'
+                || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
     }
 
-    private String buildUpdatedRubricBlockFromExisting(String fullText,
+    /**
+     * Rewrites every line break as {@link System#lineSeparator()}, without copying text
+     * that already uses it throughout.
+     */
+    private static String withSystemLineBreaks(String text) {
+        String newline = System.lineSeparator();
+        boolean onlyNewlines = "\n".equals(newline);
+        for (int i = 0; i < text.length() && onlyNewlines; i++) {
+            char ch = text.charAt(i);
+            onlyNewlines = ch == '\n' || !isLineBreak(ch);
+        }
+        if (onlyNewlines) {
+            return text;
+        }
+        return String.join(newline, text.split("\\R", -1));
+    }
+
+    private String buildUpdatedRubricBlockFromExisting(String existingBlock,
                                                        Map<String, Integer> previousManualDeductions,
                                                        Map<String, Integer> currentManualDeductions) {
-        String safe = fullText == null ? "" : fullText;
-        String existingBlock = extractBlockContents(safe, RUBRIC_TABLE_BEGIN, RUBRIC_TABLE_END);
         if (existingBlock == null || existingBlock.isBlank()) {
             return buildRubricGradeTableMarkdownFromDeductions(currentManualDeductions);
         }
@@ -858,37 +932,6 @@ public class GradingReportEditorService {
         return sb.toString();
     }
 
-    private String replaceBlock(String text,
-                                String beginMarker,
-                                String endMarker,
-                                String newContent) {
-        String src = text == null ? "" : text;
-        int beginIndex = src.indexOf(beginMarker);
-        int endIndex = src.indexOf(endMarker);
-
-        if (beginIndex < 0 || endIndex < 0 || endIndex < beginIndex) {
-            return src;
-        }
-
-        int start = beginIndex + beginMarker.length();
-        String before = src.substring(0, start);
-        String current = src.substring(start, endIndex);
-        String after = src.substring(endIndex);
-
-        String normalizedCurrent = current == null ? "" : current.trim();
-        String normalizedNew = newContent == null ? "" : newContent.trim();
-
-        if (normalizedCurrent.equals(normalizedNew)) {
-            return src;
-        }
-
-        return before
-                + System.lineSeparator()
-                + normalizedNew
-                + System.lineSeparator()
-                + after;
-    }
-
     private String buildCommentSummaryMarkdown(List<ParsedComment> comments) {
         StringBuilder sb = new StringBuilder();
 
@@ -8,15 +8,94 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class GradingSyncService {
 
     private static final long GIT_COMMAND_TIMEOUT_SECONDS = 30L;
+    private static final int GIT_TIMEOUT_EXIT_CODE = 124;
+
+    public static final int DEFAULT_PUSH_PARALLELISM = 4;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofSeconds(1);
+
+    /**
+     * Lower-cased fragments of git output that point at a network or server hiccup
+     * (or a remote that moved on between our pull and push) rather than a real problem
+     * with the repo. Commands failing with one of these are retried.
+     */
+    private static final List<String> TRANSIENT_GIT_ERRORS = List.of(
+            "could not resolve host",
+            "failed to connect",
+            "connection timed out",
+            "connection reset",
+            "connection refused",
+            "operation timed out",
+            "the remote end hung up unexpectedly",
+            "early eof",
+            "rpc failed",
+            "internal server error",
+            "service unavailable",
+            "bad gateway",
+            "git command timed out",
+            "cannot lock ref",
+            "fetch first",
+            "non-fast-forward"
+    );
+
+    /**
+     * Lower-cased fragments of git output that mean retrying cannot help, such as a
+     * rejected login or a missing permission. They win over {@link #TRANSIENT_GIT_ERRORS},
+     * since git wraps them in the same generic lines as network errors.
+     */
+    private static final List<String> PERMANENT_GIT_ERRORS = List.of(
+            "returned error: 401",
+            "returned error: 403",
+            "returned error: 404",
+            "http 401",
+            "http 403",
+            "authentication failed",
+            "permission denied",
+            "repository not found"
+    );
+
+    private final int pushParallelism;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final DraftSaveTracker saveTracker = new DraftSaveTracker();
+
+    public GradingSyncService() {
+        this(DEFAULT_PUSH_PARALLELISM);
+    }
+
+    /**
+     * @param pushParallelism number of repos pushed at the same time (at least 1)
+     */
+    public GradingSyncService(int pushParallelism) {
+        this(pushParallelism, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF);
+    }
+
+    GradingSyncService(int pushParallelism,
+                       int maxAttempts,
+                       Duration initialBackoff) {
+        this.pushParallelism = Math.max(1, pushParallelism);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff == null ? Duration.ZERO : initialBackoff;
+    }
 
     public interface DraftAccess {
 
@@ -60,6 +139,7 @@ public class GradingSyncService {
                                       Path feedbackRoot) {
         boolean success = true;
         int wrote = 0;
+        int unchanged = 0;
         String message = "";
         List<String> failureDetails = new ArrayList<>();
 
@@ -82,28 +162,48 @@ public class GradingSyncService {
                 success = false;
                 failureDetails.add("Could not find repo for " + pkg);
             } else {
-                try {
-                    String markdownToSave = markdown == null ? "" : markdown;
-
-                    gradingDraftService.saveReportMarkdown(
-                            assignmentId,
-                            pkg,
-                            repoDir,
-                            markdownToSave,
-                            feedbackRoot
-                    );
-
-                    wrote++;
-                } catch (IOException e) {
-                    success = false;
-                    failureDetails.add("Failed writing report for "
-                            + pkg + ": " + e.getMessage());
+                String markdownToSave = markdown == null ? "" : markdown;
+                List<Path> outputs = gradingDraftService.reportOutputPaths(
+                        assignmentId,
+                        pkg,
+                        repoDir,
+                        feedbackRoot
+                );
+                String hash = DraftSaveTracker.contentHash(
+                        assignmentId,
+                        outputs.toString(),
+                        markdownToSave
+                );
+
+                if (saveTracker.isUnchanged(pkg, hash, outputs)) {
+                    unchanged++;
+                } else {
+                    try {
+                        gradingDraftService.saveReportMarkdown(
+                                assignmentId,
+                                pkg,
+                                repoDir,
+                                markdownToSave,
+                                feedbackRoot
+                        );
+                        saveTracker.recordSaved(pkg, hash, outputs);
+
+                        wrote++;
+                    } catch (IOException e) {
+                        saveTracker.forget(pkg);
+                        success = false;
+                        failureDetails.add("Failed writing report for "
+                                + pkg + ": " + e.getMessage());
+                    }
                 }
             }
         }
 
         if (success) {
             message = "Saved " + wrote + " HTML report(s) to student repositories.";
+            if (unchanged > 0) {
+                message = message + " " + unchanged + " unchanged report(s) skipped.";
+            }
         } else {
             message = summarizeDetails(failureDetails);
         }
@@ -114,80 +214,240 @@ public class GradingSyncService {
     public PushResult pushAllRepos(List<String> studentPackages,
                                    Function<String, Path> repoDirFinder,
                                    String assignmentId) {
-        int pushed = 0;
-        int skipped = 0;
-        int failed = 0;
-        List<String> details = new ArrayList<>();
+        return pushAllRepos(studentPackages, repoDirFinder, assignmentId, null);
+    }
 
-        for (String pkg : studentPackages) {
-            Path repoDir = repoDirFinder.apply(pkg);
-            if (repoDir == null) {
-                failed++;
-                details.add(pkg + ": repo path missing");
-                continue;
-            }
+    /**
+     * Pushes every student's feedback report, several repos at a time. Pull and push
+     * are retried with exponential backoff when git reports a transient failure.
+     * <p>
+     * After each repo finishes, {@code progress} (if not null) receives the running
+     * totals so far; it is called from worker threads. Details are always listed in
+     * roster order, whatever order the repos finish in.
+     * </p>
+     *
+     * @param studentPackages roster in display order
+     * @param repoDirFinder repo directory lookup
+     * @param assignmentId report file prefix
+     * @param progress optional listener for running totals
+     * @return final totals
+     */
+    public PushResult pushAllRepos(List<String> studentPackages,
+                                   Function<String, Path> repoDirFinder,
+                                   String assignmentId,
+                                   Consumer<PushResult> progress) {
+        List<String> packages = List.copyOf(studentPackages);
+        RepoPushOutcome[] outcomes = new RepoPushOutcome[packages.size()];
+
+        if (packages.isEmpty()) {
+            return aggregate(outcomes);
+        }
 
-            String baseName = assignmentId + pkg;
-            Path outHtml = repoDir.resolve(baseName + ".html");
+        int workers = Math.min(pushParallelism, packages.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workers, newPushThreadFactory());
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < packages.size(); i++) {
+                int index = i;
+                String pkg = packages.get(i);
+                futures.add(executor.submit(() -> {
+                    RepoPushOutcome outcome;
+                    try {
+                        outcome = pushRepo(pkg, repoDirFinder.apply(pkg), assignmentId);
+                    } catch (RuntimeException e) {
+                        outcome = RepoPushOutcome.failed(pkg + ": " + e.getMessage());
+                    }
 
-            if (!Files.exists(outHtml)) {
-                skipped++;
-                details.add(pkg + ": report file missing");
-                continue;
+                    PushResult snapshot;
+                    synchronized (outcomes) {
+                        outcomes[index] = outcome;
+                        snapshot = aggregate(outcomes);
+                    }
+                    if (progress != null) {
+                        progress.accept(snapshot);
+                    }
+                }));
             }
 
-            try {
-                PreflightResult preflight = preflightPush(repoDir, outHtml.getFileName().toString());
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Outcomes are recorded inside the task; a throwing listener lands here.
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
 
-                if (!preflight.allowed()) {
-                    skipped++;
-                    details.add(pkg + ": " + preflight.message());
-                    continue;
+        synchronized (outcomes) {
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] == null) {
+                    outcomes[i] = RepoPushOutcome.failed(packages.get(i) + ": push cancelled");
                 }
+            }
+            return aggregate(outcomes);
+        }
+    }
 
-                GitCommandResult pull = runGit(repoDir, "pull");
+    private RepoPushOutcome pushRepo(String pkg,
+                                     Path repoDir,
+                                     String assignmentId) {
+        if (repoDir == null) {
+            return RepoPushOutcome.failed(pkg + ": repo path missing");
+        }
 
-                if (pull.exitCode() != 0) {
-                    failed++;
-                    details.add(pkg + ": git pull failed: "
-                            + summarizeGitOutput(pull.output()));
-                    continue;
-                }
+        String baseName = assignmentId + pkg;
+        Path outHtml = repoDir.resolve(baseName + ".html");
+
+        if (!Files.exists(outHtml)) {
+            return RepoPushOutcome.skipped(pkg + ": report file missing");
+        }
 
-                GitCommandResult add = runGit(repoDir, "add", "--", "*.html");
+        try {
+            PreflightResult preflight = preflightPush(repoDir, outHtml.getFileName().toString());
 
-                if (add.exitCode() != 0) {
-                    failed++;
-                    details.add(pkg + ": git add failed: " + summarizeGitOutput(add.output()));
-                } else {
-                    GitCommandResult commit =
-                            runGit(repoDir, "commit", "-m", "Add feedback for " + assignmentId);
-
-                    if (commit.exitCode() != 0) {
-                        skipped++;
-                        details.add(pkg + ": git commit skipped: "
-                                + summarizeGitOutput(commit.output()));
-                    } else {
-                        GitCommandResult push = runGit(repoDir, "push");
-
-                        if (push.exitCode() != 0) {
-                            failed++;
-                            details.add(pkg + ": git push failed: "
-                                    + summarizeGitOutput(push.output()));
-                        } else {
-                            pushed++;
-                        }
-                    }
-                }
-            } catch (IOException | InterruptedException e) {
-                failed++;
-                details.add(pkg + ": " + e.getMessage());
+            if (!preflight.allowed()) {
+                return RepoPushOutcome.skipped(pkg + ": " + preflight.message());
+            }
+
+            GitCommandResult pull = runGitWithRetry(repoDir, "pull");
+
+            if (pull.exitCode() != 0) {
+                return RepoPushOutcome.failed(pkg + ": git pull failed: "
+                        + summarizeGitOutput(pull.output()));
+            }
+
+            GitCommandResult add = runGit(repoDir, "add", "--", "*.html");
+
+            if (add.exitCode() != 0) {
+                return RepoPushOutcome.failed(pkg + ": git add failed: "
+                        + summarizeGitOutput(add.output()));
+            }
+
+            GitCommandResult commit =
+                    runGit(repoDir, "commit", "-m", "Add feedback for " + assignmentId);
+
+            if (commit.exitCode() != 0) {
+                return RepoPushOutcome.skipped(pkg + ": git commit skipped: "
+                        + summarizeGitOutput(commit.output()));
+            }
+
+            GitCommandResult push = pushWithRetry(repoDir);
+
+            if (push.exitCode() != 0) {
+                return RepoPushOutcome.failed(pkg + ": git push failed: "
+                        + summarizeGitOutput(push.output()));
+            }
+            return RepoPushOutcome.pushed();
+
+        } catch (IOException e) {
+            return RepoPushOutcome.failed(pkg + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RepoPushOutcome.failed(pkg + ": push cancelled");
+        }
+    }
+
+    private GitCommandResult runGitWithRetry(Path repoDir,
+                                             String... args)
+            throws IOException, InterruptedException {
+        GitCommandResult result = runGit(repoDir, args);
+        int attempt = 1;
+        while (result.exitCode() != 0 && attempt < maxAttempts && isTransient(result)) {
+            backoff(attempt);
+            attempt++;
+            result = runGit(repoDir, args);
+        }
+        return result;
+    }
+
+    /**
+     * Pushes, and when the push is rejected or drops out, pulls again before the
+     * next attempt so a remote that moved on in the meantime is merged in first.
+     */
+    private GitCommandResult pushWithRetry(Path repoDir)
+            throws IOException, InterruptedException {
+        GitCommandResult result = runGit(repoDir, "push");
+        int attempt = 1;
+        while (result.exitCode() != 0 && attempt < maxAttempts && isTransient(result)) {
+            backoff(attempt);
+            attempt++;
+
+            GitCommandResult pull = runGit(repoDir, "pull");
+            if (pull.exitCode() != 0 && !isTransient(pull)) {
+                return pull;
+            }
+            result = runGit(repoDir, "push");
+        }
+        return result;
+    }
+
+    private static boolean isTransient(GitCommandResult result) {
+        if (result.exitCode() == GIT_TIMEOUT_EXIT_CODE) {
+            return true;
+        }
+        String output = result.output() == null
+                ? ""
+                : result.output().toLowerCase(Locale.ROOT);
+        for (String fragment : PERMANENT_GIT_ERRORS) {
+            if (output.contains(fragment)) {
+                return false;
+            }
+        }
+        for (String fragment : TRANSIENT_GIT_ERRORS) {
+            if (output.contains(fragment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long baseMillis = initialBackoff.toMillis() << Math.min(attempt - 1, 10);
+        if (baseMillis <= 0) {
+            return;
+        }
+        // Jitter keeps parallel workers from hitting the server in lockstep.
+        long jitter = ThreadLocalRandom.current().nextLong(baseMillis / 2 + 1);
+        Thread.sleep(baseMillis + jitter);
+    }
+
+    private PushResult aggregate(RepoPushOutcome[] outcomes) {
+        int pushed = 0;
+        int skipped = 0;
+        int failed = 0;
+        List<String> details = new ArrayList<>();
+
+        for (RepoPushOutcome outcome : outcomes) {
+            if (outcome == null) {
+                continue;
+            }
+            switch (outcome.status()) {
+                case PUSHED -> pushed++;
+                case SKIPPED -> skipped++;
+                case FAILED -> failed++;
+            }
+            if (!outcome.detail().isEmpty()) {
+                details.add(outcome.detail());
             }
         }
 
         return new PushResult(pushed, skipped, failed, summarizeDetails(details));
     }
 
+    private static ThreadFactory newPushThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread worker = new Thread(runnable, "push-worker-" + counter.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        };
+    }
+
     public PreflightResult preflightPush(Path repoDir,
                                          String reportFileName)
             throws IOException, InterruptedException {
@@ -310,7 +570,7 @@ public class GradingSyncService {
         if (!finished) {
             p.destroyForcibly();
             return new GitCommandResult(
-                    124,
+                    GIT_TIMEOUT_EXIT_CODE,
                     "git command timed out after " + GIT_COMMAND_TIMEOUT_SECONDS + " seconds"
             );
         }
@@ -327,6 +587,28 @@ public class GradingSyncService {
                                     String output) {
     }
 
+    private enum PushStatus {
+        PUSHED,
+        SKIPPED,
+        FAILED
+    }
+
+    private record RepoPushOutcome(PushStatus status,
+                                   String detail) {
+
+        static RepoPushOutcome pushed() {
+            return new RepoPushOutcome(PushStatus.PUSHED, "");
+        }
+
+        static RepoPushOutcome skipped(String detail) {
+            return new RepoPushOutcome(PushStatus.SKIPPED, detail);
+        }
+
+        static RepoPushOutcome failed(String detail) {
+            return new RepoPushOutcome(PushStatus.FAILED, detail);
+        }
+    }
+
     public record PreflightResult(boolean allowed,
                                   String message) {
     }
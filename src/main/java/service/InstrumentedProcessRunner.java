@@ -0,0 +1,94 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ProcessRunner} that reports each process it runs during a report run to the
+ * {@link RunMetrics} bound to the calling thread: wall time, exit code and output size.
+ * Outside a report run it behaves exactly like {@link ProcessRunner}.
+ */
+public class InstrumentedProcessRunner extends ProcessRunner {
+
+    /**
+     * Creates a runner that applies {@link ProcessRunner#DEFAULT_TIMEOUT} to every command.
+     */
+    public InstrumentedProcessRunner() {
+        super();
+    }
+
+    /**
+     * @param defaultTimeout wall-clock limit for commands that do not set their own, or
+     *                       null for no limit
+     */
+    public InstrumentedProcessRunner(Duration defaultTimeout) {
+        super(defaultTimeout);
+    }
+
+    @Override
+    public CompletableFuture<ProcessResult> runAsync(List<String> args,
+                                                     Path workingDir,
+                                                     RunOptions options) {
+        RunMetrics.Binding binding = RunMetrics.current();
+        if (binding == null || options == null) {
+            return super.runAsync(args, workingDir, options);
+        }
+
+        // Count every line, including ones the caller only streams and never captures.
+        AtomicLong outputChars = new AtomicLong();
+        LineLogger listener = options.lineListener();
+        RunOptions counted = options.withLineListener(line -> {
+            outputChars.addAndGet(line.length());
+            if (listener != null) {
+                listener.log(line);
+            }
+        });
+
+        long start = System.nanoTime();
+        CompletableFuture<ProcessResult> process = super.runAsync(args, workingDir, counted);
+
+        // Callers waiting on the returned future see the process already recorded.
+        CompletableFuture<ProcessResult> recorded = process.whenComplete((result, _) ->
+                binding.metrics().recordProcess(
+                        binding.student(),
+                        commandName(args),
+                        System.nanoTime() - start,
+                        outputChars.get(),
+                        result == null ? -1 : result.exitCode()
+                ));
+        recorded.whenComplete((_, _) -> {
+            if (recorded.isCancelled()) {
+                process.cancel(true);
+            }
+        });
+        return recorded;
+    }
+
+    static String commandName(List<String> args) {
+        if (args == null || args.isEmpty() || args.get(0) == null) {
+            return "unknown";
+        }
+        String exe = fileName(args.get(0));
+        if (exe.toLowerCase().endsWith(".exe")) {
+            exe = exe.substring(0, exe.length() - ".exe".length());
+        }
+        // "java -jar checkstyle.jar" is more useful than just "java".
+        int jar = args.indexOf("-jar");
+        if (jar >= 0 && jar + 1 < args.size()) {
+            return exe + " " + fileName(args.get(jar + 1));
+        }
+        return exe;
+    }
+
+    private static String fileName(String path) {
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return path.substring(slash + 1);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import model.Assignment;
+import model.RepoMapping;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * {@link ReportService.ReportDependencies} decorator that times every tool call into
+ * the {@link RunMetrics} bound to the calling thread, under the bound student. Calls
+ * made outside a bound run pass straight through.
+ */
+public class InstrumentedReportDependencies implements ReportService.ReportDependencies {
+
+    public static final String STAGE_CHECKSTYLE = "checkstyle";
+    public static final String STAGE_CHECKSTYLE_BATCH = "checkstyle-batch";
+    public static final String STAGE_UNIT_TESTS = "unit-tests";
+    public static final String STAGE_MANUAL_DEDUCTIONS = "manual-deductions";
+    public static final String STAGE_FEEDBACK = "feedback";
+    public static final String STAGE_SOURCE_CODE = "source-code";
+    public static final String STAGE_GIT_LOG = "git-log";
+    public static final String STAGE_HTML = "html-wrap";
+
+    private final ReportService.ReportDependencies delegate;
+
+    public InstrumentedReportDependencies(ReportService.ReportDependencies delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    @Override
+    public void log(String msg) {
+        delegate.log(msg);
+    }
+
+    @Override
+    public Map<String, RepoMapping> loadMapping(Path mappingsPath) {
+        return delegate.loadMapping(mappingsPath);
+    }
+
+    @Override
+    public Path resolveRepoRoot(Path mappedRepoPath) {
+        return delegate.resolveRepoRoot(mappedRepoPath);
+    }
+
+    @Override
+    public CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath) {
+        return time(STAGE_CHECKSTYLE, () -> delegate.buildCheckstyleResult(repoPath));
+    }
+
+    @Override
+    public void prepareCheckstyleResults(Collection<Path> repoRoots) {
+        time(STAGE_CHECKSTYLE_BATCH, () -> {
+            delegate.prepareCheckstyleResults(repoRoots);
+            return null;
+        });
+    }
+
+    @Override
+    public UnitTestService.UnitTestResult buildUnitTestResultMarkdown(String studentPackage,
+                                                                      Path repoPath) {
+        return time(STAGE_UNIT_TESTS,
+                () -> delegate.buildUnitTestResultMarkdown(studentPackage, repoPath));
+    }
+
+    @Override
+    public Map<String, Integer> loadManualDeductionsFromGradingDraft(String assignmentId,
+                                                                     String studentPackage,
+                                                                     Path rootPath) {
+        return time(STAGE_MANUAL_DEDUCTIONS,
+                () -> delegate.loadManualDeductionsFromGradingDraft(
+                        assignmentId, studentPackage, rootPath));
+    }
+
+    @Override
+    public String loadFeedbackSectionMarkdown(String assignmentId,
+                                              String studentPackage,
+                                              Path rootPath) {
+        return time(STAGE_FEEDBACK,
+                () -> delegate.loadFeedbackSectionMarkdown(assignmentId, studentPackage, rootPath));
+    }
+
+    @Override
+    public String buildSourceCodeMarkdown(Assignment assignment,
+                                          String studentPackage,
+                                          Path repoPath) {
+        return time(STAGE_SOURCE_CODE,
+                () -> delegate.buildSourceCodeMarkdown(assignment, studentPackage, repoPath));
+    }
+
+    @Override
+    public void writeSourceCodeMarkdown(Assignment assignment,
+                                        String studentPackage,
+                                        Path repoPath,
+                                        Appendable out) throws IOException {
+        RunMetrics.Binding binding = RunMetrics.current();
+        if (binding == null) {
+            delegate.writeSourceCodeMarkdown(assignment, studentPackage, repoPath, out);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            delegate.writeSourceCodeMarkdown(assignment, studentPackage, repoPath, out);
+        } finally {
+            binding.metrics().recordStage(
+                    binding.student(), STAGE_SOURCE_CODE, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String buildCommitHistoryMarkdown(Path repoPath) {
+        return time(STAGE_GIT_LOG, () -> delegate.buildCommitHistoryMarkdown(repoPath));
+    }
+
+    @Override
+    public String wrapMarkdownAsHtml(String title, String markdown) {
+        return time(STAGE_HTML, () -> delegate.wrapMarkdownAsHtml(title, markdown));
+    }
+
+    /*
+     * The markdown streams through the wrapper and times its own sections, so that
+     * time is left out of the wrapping stage.
+     */
+    @Override
+    public void writeHtmlDocument(String title,
+                                  ReportService.ContentWriter markdown,
+                                  Appendable out) throws IOException {
+        RunMetrics.Binding binding = RunMetrics.current();
+        if (binding == null) {
+            delegate.writeHtmlDocument(title, markdown, out);
+            return;
+        }
+        long[] markdownNanos = new long[1];
+        long start = System.nanoTime();
+        try {
+            delegate.writeHtmlDocument(title, body -> {
+                long markdownStart = System.nanoTime();
+                try {
+                    markdown.writeTo(body);
+                } finally {
+                    markdownNanos[0] += System.nanoTime() - markdownStart;
+                }
+            }, out);
+        } finally {
+            binding.metrics().recordStage(binding.student(), STAGE_HTML,
+                    System.nanoTime() - start - markdownNanos[0]);
+        }
+    }
+
+    @Override
+    public ToolArtifactService toolArtifactService() {
+        return delegate.toolArtifactService();
+    }
+
+    private static <T> T time(String stage, Supplier<T> work) {
+        RunMetrics.Binding binding = RunMetrics.current();
+        if (binding == null) {
+            return work.get();
+        }
+        return binding.metrics().time(stage, work);
+    }
+}
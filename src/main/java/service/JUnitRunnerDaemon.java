@@ -0,0 +1,242 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.discovery.ClassNameFilter;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Entry point of the long-lived test runner JVM started by {@link JUnitRunnerPool}.
+ * <p>
+ * The process reads one request per line from stdin and answers on stdout:
+ * </p>
+ * <pre>
+ * RUN\t{classesDir}
+ * FAILURE\t{className}\t{testName}\t{message}   (zero or more)
+ * DONE\t{totalTests}
+ * </pre>
+ * Each request runs in its own class loader, so students never see each other's
+ * classes, while JUnit and JavaFX stay loaded (and the toolkit stays started) between
+ * requests. System properties, the default locale and time zone, the standard streams
+ * and the default uncaught exception handler are put back after every request. Other
+ * JVM-wide state is not, so {@link UnitTestService} keeps students whose code touches it
+ * out of this runner. Student output is discarded so it cannot corrupt the protocol.
+ */
+public final class JUnitRunnerDaemon {
+
+    static final String READY = "READY";
+    static final String RUN = "RUN";
+    static final String FAILURE = "FAILURE";
+    static final String ERROR = "ERROR";
+    static final String DONE = "DONE";
+    static final String FIELD_SEPARATOR = "\t";
+
+    private JUnitRunnerDaemon() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        PrintStream protocol = new PrintStream(
+                new FileOutputStream(FileDescriptor.out),
+                true,
+                StandardCharsets.UTF_8
+        );
+        BufferedReader requests = new BufferedReader(new InputStreamReader(
+                new FileInputStream(FileDescriptor.in),
+                StandardCharsets.UTF_8
+        ));
+
+        System.setIn(InputStream.nullInputStream());
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+
+        Launcher launcher = LauncherFactory.create();
+        protocol.println(READY);
+
+        String line = requests.readLine();
+        while (line != null) {
+            if (line.startsWith(RUN + FIELD_SEPARATOR)) {
+                runRequest(launcher, Path.of(line.substring(RUN.length() + 1)), protocol);
+            }
+            line = requests.readLine();
+        }
+
+        // Student tests may leave non-daemon threads behind.
+        System.exit(0);
+    }
+
+    private static void runRequest(Launcher launcher, Path classesDir, PrintStream protocol) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        JvmState jvmState = JvmState.capture();
+        ResultListener listener = new ResultListener();
+
+        try (URLClassLoader studentLoader = new URLClassLoader(
+                "student-" + classesDir.getFileName(),
+                new URL[] {classesDir.toUri().toURL()},
+                JUnitRunnerDaemon.class.getClassLoader())) {
+
+            thread.setContextClassLoader(studentLoader);
+
+            LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                    .selectors(DiscoverySelectors.selectClasspathRoots(Set.of(classesDir)))
+                    .filters(ClassNameFilter.includeClassNamePatterns(
+                            ClassNameFilter.STANDARD_INCLUDE_PATTERN))
+                    .build();
+
+            launcher.execute(request, listener);
+
+            for (String[] failure : listener.failures) {
+                protocol.println(FAILURE + FIELD_SEPARATOR + clean(failure[0])
+                        + FIELD_SEPARATOR + clean(failure[1])
+                        + FIELD_SEPARATOR + clean(failure[2]));
+            }
+            protocol.println(DONE + FIELD_SEPARATOR + listener.totalTests);
+
+        } catch (Throwable t) {
+            protocol.println(ERROR + FIELD_SEPARATOR + clean(String.valueOf(t)));
+            protocol.println(DONE + FIELD_SEPARATOR + 0);
+        } finally {
+            thread.setContextClassLoader(previous);
+            jvmState.restore();
+        }
+    }
+
+    private record JvmState(Properties properties,
+                            Locale locale,
+                            TimeZone timeZone,
+                            InputStream in,
+                            PrintStream out,
+                            PrintStream err,
+                            Thread.UncaughtExceptionHandler uncaughtExceptionHandler) {
+
+        static JvmState capture() {
+            Properties properties = new Properties();
+            properties.putAll(System.getProperties());
+            return new JvmState(
+                    properties,
+                    Locale.getDefault(),
+                    TimeZone.getDefault(),
+                    System.in,
+                    System.out,
+                    System.err,
+                    Thread.getDefaultUncaughtExceptionHandler()
+            );
+        }
+
+        void restore() {
+            System.setProperties(properties);
+            Locale.setDefault(locale);
+            TimeZone.setDefault(timeZone);
+            System.setIn(in);
+            System.setOut(out);
+            System.setErr(err);
+            Thread.setDefaultUncaughtExceptionHandler(uncaughtExceptionHandler);
+        }
+    }
+
+    private static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private static final class ResultListener implements TestExecutionListener {
+
+        private final List<String[]> failures = new ArrayList<>();
+        private TestPlan testPlan;
+        private int totalTests = 0;
+
+        @Override
+        public void testPlanExecutionStarted(TestPlan testPlan) {
+            this.testPlan = testPlan;
+        }
+
+        @Override
+        public void executionSkipped(TestIdentifier testIdentifier, String reason) {
+            if (testIdentifier.isTest()) {
+                totalTests++;
+            }
+        }
+
+        @Override
+        public void executionFinished(TestIdentifier testIdentifier,
+                                      TestExecutionResult result) {
+            if (testIdentifier.isTest()) {
+                totalTests++;
+            }
+
+            if (result.getStatus() != TestExecutionResult.Status.FAILED) {
+                return;
+            }
+
+            String message = result.getThrowable()
+                    .map(JUnitRunnerDaemon::messageOf)
+                    .orElse("");
+            failures.add(new String[] {
+                    classNameOf(testIdentifier),
+                    testIdentifier.getLegacyReportingName(),
+                    message
+            });
+        }
+
+        private String classNameOf(TestIdentifier testIdentifier) {
+            TestIdentifier current = testIdentifier;
+            while (current != null) {
+                Optional<TestSource> source = current.getSource();
+                if (source.isPresent() && source.get() instanceof MethodSource method) {
+                    return method.getClassName();
+                }
+                if (source.isPresent() && source.get() instanceof ClassSource type) {
+                    return type.getClassName();
+                }
+                current = testPlan == null
+                        ? null
+                        : testPlan.getParent(current).orElse(null);
+            }
+            return "";
+        }
+    }
+
+    private static String messageOf(Throwable t) {
+        String message = t.getMessage();
+        if (message == null || message.isBlank()) {
+            return t.toString();
+        }
+        return message;
+    }
+}
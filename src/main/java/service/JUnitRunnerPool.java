@@ -0,0 +1,274 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps warm {@link JUnitRunnerDaemon} JVMs around so each student's tests run
+ * without paying JVM and headless JavaFX startup again. Workers are borrowed for one
+ * run at a time, so parallel report workers each get their own JVM. A worker that
+ * times out, crashes or has served {@code maxRunsPerWorker} students is discarded.
+ */
+public class JUnitRunnerPool implements AutoCloseable {
+
+    private static final String END_OF_STREAM = "\u0000EOF";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private final List<String> launchCommand;
+    private final Path workingDir;
+    private final int maxRunsPerWorker;
+    private final ConcurrentLinkedQueue<Worker> idleWorkers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param launchCommand full command that starts {@link JUnitRunnerDaemon}
+     * @param workingDir working directory for the runner JVMs
+     * @param maxRunsPerWorker runs after which a worker is recycled to bound leaks
+     */
+    public JUnitRunnerPool(List<String> launchCommand,
+                           Path workingDir,
+                           int maxRunsPerWorker) {
+        this.launchCommand = List.copyOf(Objects.requireNonNull(launchCommand));
+        this.workingDir = Objects.requireNonNull(workingDir);
+        this.maxRunsPerWorker = Math.max(1, maxRunsPerWorker);
+    }
+
+    /**
+     * Runs every test class under {@code classesDir} in a warm runner JVM.
+     *
+     * @param classesDir compiled student and test classes
+     * @param timeout wall-clock limit for the whole run
+     * @return the outcome; never null
+     */
+    public RunOutcome run(Path classesDir, Duration timeout) {
+        Worker worker;
+        try {
+            worker = borrowWorker();
+        } catch (IOException e) {
+            return RunOutcome.failed("could not start test runner: " + e.getMessage());
+        }
+
+        RunOutcome outcome;
+        try {
+            outcome = worker.run(classesDir, timeout);
+        } catch (IOException e) {
+            outcome = RunOutcome.failed("test runner failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = RunOutcome.failed("interrupted while waiting for test runner");
+        }
+
+        if (outcome.status() == RunStatus.COMPLETED && worker.runs < maxRunsPerWorker) {
+            idleWorkers.add(worker);
+        } else {
+            worker.destroy();
+        }
+        return outcome;
+    }
+
+    /**
+     * @return number of runner JVMs currently waiting for work
+     */
+    public int idleWorkerCount() {
+        return idleWorkers.size();
+    }
+
+    @Override
+    public void close() {
+        Worker worker = idleWorkers.poll();
+        while (worker != null) {
+            worker.destroy();
+            worker = idleWorkers.poll();
+        }
+    }
+
+    private Worker borrowWorker() throws IOException {
+        Worker worker = idleWorkers.poll();
+        while (worker != null && !worker.process.isAlive()) {
+            worker.destroy();
+            worker = idleWorkers.poll();
+        }
+        if (worker != null) {
+            return worker;
+        }
+        return startWorker();
+    }
+
+    private Worker startWorker() throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(launchCommand);
+        pb.directory(workingDir.toFile());
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        Worker worker = new Worker(pb.start());
+        try {
+            String first = worker.nextLine(STARTUP_TIMEOUT.toMillis());
+            if (!JUnitRunnerDaemon.READY.equals(first)) {
+                worker.destroy();
+                throw new IOException("runner did not report ready (got: " + first + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker.destroy();
+            throw new IOException("interrupted while starting test runner");
+        }
+        return worker;
+    }
+
+    private static final class Worker {
+
+        private final Process process;
+        private final Writer requests;
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private int runs = 0;
+
+        private Worker(Process process) {
+            this.process = process;
+            this.requests = new OutputStreamWriter(
+                    process.getOutputStream(),
+                    StandardCharsets.UTF_8
+            );
+
+            Thread reader = new Thread(this::pumpOutput, "junit-runner-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void pumpOutput() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    process.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                String line = reader.readLine();
+                while (line != null) {
+                    lines.add(line);
+                    line = reader.readLine();
+                }
+            } catch (IOException ignored) {
+                // Treated as end of stream below.
+            }
+            lines.add(END_OF_STREAM);
+        }
+
+        private RunOutcome run(Path classesDir, Duration timeout)
+                throws IOException, InterruptedException {
+            runs++;
+            requests.write(JUnitRunnerDaemon.RUN + JUnitRunnerDaemon.FIELD_SEPARATOR
+                    + classesDir.toAbsolutePath() + "\n");
+            requests.flush();
+
+            long deadline = System.currentTimeMillis() + timeout.toMillis();
+            List<TestFailure> failures = new ArrayList<>();
+            String error = null;
+
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                String line = remaining > 0 ? nextLine(remaining) : null;
+
+                if (line == null) {
+                    return RunOutcome.timedOut("tests did not finish within "
+                            + timeout.toSeconds() + " seconds");
+                }
+                if (END_OF_STREAM.equals(line)) {
+                    return RunOutcome.failed("test runner exited unexpectedly (exit code "
+                            + exitCodeOrUnknown() + ")");
+                }
+
+                String[] fields = line.split(JUnitRunnerDaemon.FIELD_SEPARATOR, -1);
+                switch (fields[0]) {
+                    case JUnitRunnerDaemon.FAILURE -> failures.add(new TestFailure(
+                            field(fields, 1),
+                            field(fields, 2),
+                            field(fields, 3)
+                    ));
+                    case JUnitRunnerDaemon.ERROR -> error = field(fields, 1);
+                    case JUnitRunnerDaemon.DONE -> {
+                        if (error != null) {
+                            return RunOutcome.failed(error);
+                        }
+                        return new RunOutcome(
+                                RunStatus.COMPLETED,
+                                parseCount(field(fields, 1)),
+                                failures,
+                                ""
+                        );
+                    }
+                    default -> {
+                        // Unknown lines are ignored.
+                    }
+                }
+            }
+        }
+
+        private String nextLine(long timeoutMillis) throws InterruptedException {
+            return lines.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private String exitCodeOrUnknown() {
+            try {
+                if (process.waitFor(1, TimeUnit.SECONDS)) {
+                    return String.valueOf(process.exitValue());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "unknown";
+        }
+
+        private void destroy() {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+
+        private static String field(String[] fields, int index) {
+            return index < fields.length ? fields[index] : "";
+        }
+
+        private static int parseCount(String value) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+
+    public enum RunStatus {
+        COMPLETED,
+        TIMED_OUT,
+        FAILED
+    }
+
+    public record TestFailure(String className,
+                              String testName,
+                              String message) {
+    }
+
+    public record RunOutcome(RunStatus status,
+                             int totalTests,
+                             List<TestFailure> failures,
+                             String message) {
+
+        static RunOutcome failed(String message) {
+            return new RunOutcome(RunStatus.FAILED, 0, List.of(), message);
+        }
+
+        static RunOutcome timedOut(String message) {
+            return new RunOutcome(RunStatus.TIMED_OUT, 0, List.of(), message);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Compiles Java sources inside this JVM with {@link JavaCompiler} instead of forking
+ * {@code javac}. File managers are pooled and reused, so the classpath jars and the
+ * JavaFX module path are opened once and stay indexed between students. Closing the
+ * engine closes the pooled file managers and their open jars.
+ */
+public class JavaCompileEngine implements AutoCloseable {
+
+    private final JavaCompiler compiler;
+    private final ConcurrentLinkedQueue<StandardJavaFileManager> idleFileManagers =
+            new ConcurrentLinkedQueue<>();
+    private volatile boolean closed = false;
+
+    public JavaCompileEngine() {
+        this(ToolProvider.getSystemJavaCompiler());
+    }
+
+    JavaCompileEngine(JavaCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * @return true when a system compiler is available (false when running on a bare JRE)
+     */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * Compiles the given files with javac-style options such as {@code -d}, {@code -cp},
+     * {@code -encoding}, {@code --module-path} and {@code --add-modules}.
+     *
+     * @param options javac options, without the {@code javac} executable
+     * @param sourceFiles files to compile
+     * @return the outcome with every diagnostic javac reported
+     */
+    public CompileOutcome compile(List<String> options, List<Path> sourceFiles) {
+        if (compiler == null) {
+            return CompileOutcome.failure("No system Java compiler is available.");
+        }
+
+        List<String> taskOptions = new ArrayList<>();
+        if (!options.contains("-encoding")) {
+            // Pooled file managers remember the last encoding; pin javac's default.
+            taskOptions.add("-encoding");
+            taskOptions.add(Charset.defaultCharset().name());
+        }
+        taskOptions.addAll(options);
+
+        StandardJavaFileManager fileManager = borrowFileManager();
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        StringWriter extraOutput = new StringWriter();
+        boolean reusable = true;
+
+        try {
+            Iterable<? extends JavaFileObject> units =
+                    fileManager.getJavaFileObjectsFromPaths(sourceFiles);
+
+            Boolean ok = compiler.getTask(
+                    extraOutput,
+                    fileManager,
+                    collector,
+                    taskOptions,
+                    null,
+                    units
+            ).call();
+
+            List<CompileDiagnostic> diagnostics = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> d : collector.getDiagnostics()) {
+                diagnostics.add(CompileDiagnostic.from(d));
+            }
+            for (String line : extraOutput.toString().split("\\R")) {
+                if (!line.isBlank()) {
+                    diagnostics.add(CompileDiagnostic.plain(line));
+                }
+            }
+
+            return new CompileOutcome(Boolean.TRUE.equals(ok), diagnostics);
+
+        } catch (RuntimeException e) {
+            reusable = false;
+            return CompileOutcome.failure("Compiler failed: " + e.getMessage());
+        } finally {
+            if (reusable && !closed) {
+                idleFileManagers.add(fileManager);
+                if (closed) {
+                    // Closed while compiling; do not leave the file manager pooled.
+                    drainPool();
+                }
+            } else {
+                closeQuietly(fileManager);
+            }
+        }
+    }
+
+    /**
+     * Closes the pooled file managers. The engine can still compile afterwards, but no
+     * longer keeps file managers open between calls.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        drainPool();
+    }
+
+    private void drainPool() {
+        StandardJavaFileManager fileManager = idleFileManagers.poll();
+        while (fileManager != null) {
+            closeQuietly(fileManager);
+            fileManager = idleFileManagers.poll();
+        }
+    }
+
+    private StandardJavaFileManager borrowFileManager() {
+        StandardJavaFileManager fileManager = idleFileManagers.poll();
+        if (fileManager == null) {
+            fileManager = compiler.getStandardFileManager(null, Locale.getDefault(), null);
+        }
+        return fileManager;
+    }
+
+    private static void closeQuietly(StandardJavaFileManager fileManager) {
+        try {
+            fileManager.close();
+        } catch (IOException ignored) {
+            // The file manager is being discarded either way.
+        }
+    }
+
+    /**
+     * @param kind diagnostic kind
+     * @param file source file name, or empty
+     * @param line 1-based line, or {@link Diagnostic#NOPOS}
+     * @param column 1-based column as javac reports it, or {@link Diagnostic#NOPOS}
+     * @param message message text
+     * @param sourceLine text of the source line, or null when there is none
+     * @param caretOffset characters before the position within {@code sourceLine}
+     */
+    public record CompileDiagnostic(Diagnostic.Kind kind,
+                                    String file,
+                                    long line,
+                                    long column,
+                                    String message,
+                                    String sourceLine,
+                                    int caretOffset) {
+
+        /**
+         * Wraps an unstructured output line, such as one printed by a forked javac.
+         *
+         * @param line output line
+         * @return diagnostic that formats back to exactly {@code line}
+         */
+        public static CompileDiagnostic plain(String line) {
+            return new CompileDiagnostic(
+                    Diagnostic.Kind.OTHER,
+                    "",
+                    Diagnostic.NOPOS,
+                    Diagnostic.NOPOS,
+                    line,
+                    null,
+                    0
+            );
+        }
+
+        static CompileDiagnostic from(Diagnostic<? extends JavaFileObject> d) {
+            String file = d.getSource() == null ? "" : d.getSource().getName();
+            String sourceLine = null;
+            int caretOffset = 0;
+            if (d.getSource() != null && d.getPosition() != Diagnostic.NOPOS) {
+                try {
+                    CharSequence content = d.getSource().getCharContent(true);
+                    int position = (int) Math.min(d.getPosition(), content.length());
+                    int start = position;
+                    while (start > 0 && !isLineEnd(content.charAt(start - 1))) {
+                        start--;
+                    }
+                    int end = position;
+                    while (end < content.length() && !isLineEnd(content.charAt(end))) {
+                        end++;
+                    }
+                    sourceLine = content.subSequence(start, end).toString();
+                    caretOffset = position - start;
+                } catch (IOException e) {
+                    // Reported without the source line, as javac does when it cannot read it.
+                }
+            }
+            return new CompileDiagnostic(
+                    d.getKind(),
+                    file,
+                    d.getLineNumber(),
+                    d.getColumnNumber(),
+                    d.getMessage(Locale.getDefault()),
+                    sourceLine,
+                    caretOffset
+            );
+        }
+
+        private static boolean isLineEnd(char c) {
+            return c == '\n' || c == '\r';
+        }
+
+        public boolean isError() {
+            return kind == Diagnostic.Kind.ERROR;
+        }
+
+        /**
+         * Formats the diagnostic the way the javac command line prints it.
+         *
+         * @return the lines joined with {@code \n}
+         */
+        public String format() {
+            return String.join("\n", formatLines());
+        }
+
+        /**
+         * Formats the diagnostic the way the javac command line prints it: the location
+         * and message, then the source line with a caret under the position.
+         *
+         * @return e.g. {@code /repo/src/a/Main.java:12: error: ';' expected}, the source
+         *         line and the caret line
+         */
+        public List<String> formatLines() {
+            if (kind == Diagnostic.Kind.OTHER) {
+                return List.of(message);
+            }
+
+            StringBuilder sb = new StringBuilder();
+            if (!file.isEmpty()) {
+                sb.append(file);
+                if (line != Diagnostic.NOPOS) {
+                    sb.append(':').append(line);
+                }
+                sb.append(": ");
+            }
+            sb.append(label()).append(message);
+
+            // Like javac, the source line follows the first line of the message.
+            String[] messageLines = sb.toString().split("\\R", -1);
+            List<String> lines = new ArrayList<>();
+            lines.add(messageLines[0]);
+            if (sourceLine != null) {
+                lines.add(sourceLine);
+                StringBuilder caret = new StringBuilder();
+                for (int i = 0; i < caretOffset && i < sourceLine.length(); i++) {
+                    // javac keeps tabs so the caret lines up with the source line.
+                    caret.append(sourceLine.charAt(i) == '\t' ? '\t' : ' ');
+                }
+                lines.add(caret.append('^').toString());
+            }
+            lines.addAll(List.of(messageLines).subList(1, messageLines.length));
+            return lines;
+        }
+
+        private String label() {
+            return switch (kind) {
+                case ERROR -> "error: ";
+                case WARNING, MANDATORY_WARNING -> "warning: ";
+                case NOTE -> "Note: ";
+                default -> "";
+            };
+        }
+    }
+
+    public record CompileOutcome(boolean success,
+                                 List<CompileDiagnostic> diagnostics) {
+
+        static CompileOutcome failure(String message) {
+            return new CompileOutcome(false, List.of(CompileDiagnostic.plain(message)));
+        }
+
+        public int errorCount() {
+            int count = 0;
+            for (CompileDiagnostic d : diagnostics) {
+                if (d.isError()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @return javac-style output lines, ending with the error count like the CLI does
+         */
+        public List<String> outputLines() {
+            List<String> lines = new ArrayList<>();
+            for (CompileDiagnostic d : diagnostics) {
+                lines.addAll(d.formatLines());
+            }
+            int errors = errorCount();
+            if (errors > 0) {
+                lines.add(errors + (errors == 1 ? " error" : " errors"));
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+
+/**
+ * How long each student's report took in earlier runs of one assignment, so the next
+ * run can start the slowest students first and estimate how long it has left.
+ * <p>
+ * Each run is blended into the previous estimate, so one unusually slow or fast run
+ * moves it only halfway. Students without history are expected to take as long as the
+ * median recorded student.
+ * </p>
+ */
+public class JobDurationHistory {
+
+    static final double SMOOTHING = 0.5;
+
+    private final Path file;
+    private final ObjectMapper mapper;
+    private final Map<String, StudentHistory> students = new TreeMap<>();
+
+    /**
+     * @param file history file, or null to keep the history in memory only
+     */
+    public JobDurationHistory(Path file) {
+        this.file = file;
+        this.mapper = new ObjectMapper();
+        this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        read();
+    }
+
+    /**
+     * @param student student package
+     * @return the student's recorded duration, if any
+     */
+    public synchronized OptionalDouble estimateMillis(String student) {
+        StudentHistory history = students.get(student);
+        return history == null ? OptionalDouble.empty() : OptionalDouble.of(history.totalMillis());
+    }
+
+    /**
+     * @param student student package
+     * @return the recorded duration, the median recorded duration for a student without
+     *         history, or 0 when nothing has been recorded yet
+     */
+    public synchronized double expectedMillis(String student) {
+        StudentHistory history = students.get(student);
+        return history == null ? medianMillis() : history.totalMillis();
+    }
+
+    /**
+     * @param candidates student packages
+     * @return the students by expected duration, longest first; ties keep name order
+     */
+    public synchronized List<String> longestFirst(Collection<String> candidates) {
+        double median = medianMillis();
+        List<String> ordered = new ArrayList<>(candidates);
+        ordered.sort(Comparator
+                .comparingDouble((String s) -> {
+                    StudentHistory history = students.get(s);
+                    return history == null ? median : history.totalMillis();
+                })
+                .reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return ordered;
+    }
+
+    /**
+     * Blends every student timed in {@code snapshot} into the history.
+     *
+     * @param snapshot timings of a finished run
+     */
+    public synchronized void record(RunMetrics.Snapshot snapshot) {
+        for (RunMetrics.StudentSnapshot student : snapshot.students()) {
+            if (RunMetrics.RUN_SCOPE.equals(student.student())) {
+                continue;
+            }
+            record(student.student(), student.totalMillis(), student.stageMillis());
+        }
+    }
+
+    /**
+     * @param student student package
+     * @param totalMillis how long the student's report took
+     * @param stageMillis how long each stage took
+     */
+    public synchronized void record(String student,
+                                    double totalMillis,
+                                    Map<String, Double> stageMillis) {
+        StudentHistory previous = students.get(student);
+        if (previous == null) {
+            students.put(student, new StudentHistory(totalMillis, stageMillis, 1));
+            return;
+        }
+
+        Map<String, Double> stages = new TreeMap<>(previous.stageMillis());
+        stageMillis.forEach((stage, millis) ->
+                stages.merge(stage, millis, JobDurationHistory::blend));
+        students.put(student, new StudentHistory(
+                blend(previous.totalMillis(), totalMillis),
+                stages,
+                previous.runs() + 1
+        ));
+    }
+
+    /**
+     * @return every student's history, by student package
+     */
+    public synchronized Map<String, StudentHistory> students() {
+        return Map.copyOf(students);
+    }
+
+    /**
+     * Writes the history file. A failed write keeps the previous file.
+     *
+     * @throws IOException when the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "durations-", ".tmp");
+        try {
+            mapper.writeValue(temp.toFile(), new HistoryFile(students));
+            try {
+                Files.move(temp, file,
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void read() {
+        if (file == null || !Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            HistoryFile stored = mapper.readValue(file.toFile(), HistoryFile.class);
+            if (stored != null) {
+                students.putAll(stored.students());
+            }
+        } catch (IOException e) {
+            // An unreadable history only costs the scheduling order of one run.
+        }
+    }
+
+    private double medianMillis() {
+        if (students.isEmpty()) {
+            return 0.0;
+        }
+        double[] sorted = students.values().stream()
+                .mapToDouble(StudentHistory::totalMillis)
+                .sorted()
+                .toArray();
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+
+    private static double blend(double previous, double latest) {
+        return previous + SMOOTHING * (latest - previous);
+    }
+
+    /**
+     * @param totalMillis smoothed duration of the student's report
+     * @param stageMillis smoothed duration of each stage
+     * @param runs number of runs recorded
+     */
+    public record StudentHistory(double totalMillis, Map<String, Double> stageMillis, int runs) {
+
+        public StudentHistory {
+            stageMillis = stageMillis == null ? Map.of() : Map.copyOf(stageMillis);
+        }
+    }
+
+    record HistoryFile(Map<String, StudentHistory> students) {
+
+        HistoryFile {
+            students = students == null ? Map.of() : new TreeMap<>(students);
+        }
+    }
+}
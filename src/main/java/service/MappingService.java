@@ -12,22 +12,57 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import model.RepoMapping;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 public class MappingService {
 
+    private static final String PACKAGES_FOLDER_NAME = "packages";
+
     private final ServiceLogger logger;
+    private final int parallelism;
+    private final AtomicBoolean linksSupported;
+    private final Map<String, Object> packageLocks = new ConcurrentHashMap<>();
 
     public MappingService(ServiceLogger logger) {
+        this(logger, Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    /**
+     * @param logger logger
+     * @param parallelism repos extracted at the same time (at least 1)
+     * @param linkFiles hard-link unchanged-on-disk files into {@code packages/} instead of
+     *                  copying them, where the filesystem allows it. {@code packages/} is
+     *                  only read by later steps, and git replaces files rather than editing
+     *                  them in place, so links never leak changes back into a repo.
+     */
+    public MappingService(ServiceLogger logger, int parallelism, boolean linkFiles) {
         this.logger = Objects.requireNonNull(logger);
+        this.parallelism = Math.max(1, parallelism);
+        this.linksSupported = new AtomicBoolean(linkFiles);
     }
 
     public void saveMapping(Path mappingFile, Map<String, RepoMapping> mapping) {
@@ -74,27 +109,10 @@ public class MappingService {
         Objects.requireNonNull(selectedRootPath);
         Objects.requireNonNull(mappingsPath);
 
-        Path scanRoot = selectedRootPath;
-
-        List<Path> topDirs = listImmediateDirectories(selectedRootPath);
-        Path submissionsDir = null;
-
-        for (Path d : topDirs) {
-            String name = d.getFileName().toString().toLowerCase();
-            if (Files.isDirectory(d) && name.endsWith("-submissions")) {
-                submissionsDir = d;
-            }
-        }
-
-        if (submissionsDir != null) {
-            scanRoot = submissionsDir;
-        }
-
-        Path packagesRoot = selectedRootPath.resolve("packages");
+        Path scanRoot = resolveScanRoot(selectedRootPath);
+        Path packagesRoot = packagesRoot(selectedRootPath);
         ensureDirectoryExists(packagesRoot);
 
-        Map<String, RepoMapping> mapping = new TreeMap<>();
-
         List<Path> repoDirs = listImmediateDirectories(scanRoot);
         if (repoDirs.isEmpty()) {
             throw new IOException("No repositories found under: " + scanRoot);
@@ -103,44 +121,96 @@ public class MappingService {
         logger.log("Scanning repos under: " + scanRoot);
         logger.log("Found " + repoDirs.size() + " repository folder(s).");
 
+        // Repos are grouped by package so two repos claiming the same package are
+        // handled by one worker, in scan order, with the last one winning as before.
+        Map<String, List<PackageSource>> sourcesByPackage = new LinkedHashMap<>();
+
         for (Path repoDir : repoDirs) {
-            String repoFolderName = repoDir.getFileName().toString();
-            if (repoFolderName.equalsIgnoreCase("packages")) {
-                continue;
+            PackageSource source = locatePackage(repoDir);
+            if (source != null) {
+                sourcesByPackage
+                        .computeIfAbsent(source.packageName(), _ -> new ArrayList<>())
+                        .add(source);
             }
+        }
 
-            Path gitDir = repoDir.resolve(".git");
-            if (!Files.exists(gitDir) || !Files.isDirectory(gitDir)) {
-                logger.log("SKIP repo " + repoFolderName + ": not a git repository.");
-                continue;
-            }
+        SyncStats totals = new SyncStats();
+        Map<String, RepoMapping> mapping = extractAll(sourcesByPackage, packagesRoot, totals);
 
-            Path studentPackageDir = findStudentPackageDir(repoDir);
-            if (studentPackageDir == null) {
-                logger.log("SKIP repo " + repoFolderName
-                        + ": could not locate src/{studentPackage}.");
-                continue;
-            }
+        logger.log("Extract file summary: " + totals.linked + " linked, "
+                + totals.copied + " copied, " + totals.unchanged + " unchanged, "
+                + totals.removed + " removed.");
+
+        saveMapping(mappingsPath, mapping);
+        logger.log("Wrote " + mapping.size() + " mapping(s).");
+    }
+
+    /**
+     * Extracts a single repo's package into {@code packagesRoot}, for callers that see
+     * repos arrive one at a time. Safe to call concurrently; repos claiming the same
+     * package are serialized.
+     *
+     * @param repoDir cloned repo
+     * @param packagesRoot the {@code packages/} folder
+     * @return the extracted package, or null if the repo was skipped or failed
+     */
+    public ExtractedPackage extractRepo(Path repoDir, Path packagesRoot) throws IOException {
+        Objects.requireNonNull(repoDir);
+        Objects.requireNonNull(packagesRoot);
+        ensureDirectoryExists(packagesRoot);
 
-            String packageName = studentPackageDir.getFileName().toString();
-            Path dest = packagesRoot.resolve(packageName);
+        PackageSource source = locatePackage(repoDir);
+        if (source == null) {
+            return null;
+        }
 
-            boolean copied = copyPackageFolder(
-                    studentPackageDir,
-                    dest,
-                    repoFolderName,
-                    packageName
+        Object lock = packageLocks.computeIfAbsent(source.packageName(), _ -> new Object());
+        SyncStats stats;
+        synchronized (lock) {
+            stats = syncPackageFolder(
+                    source.packageDir(),
+                    packagesRoot.resolve(source.packageName()),
+                    repoDir.getFileName().toString(),
+                    source.packageName()
             );
+        }
+        return stats == null ? null : new ExtractedPackage(source.packageName(), repoDir);
+    }
+
+    /**
+     * @param selectedRootPath selected course root
+     * @return the {@code *-submissions} folder created by the classroom clone, or the
+     *         root itself when there is none
+     */
+    public Path resolveScanRoot(Path selectedRootPath) {
+        Path submissionsDir = null;
+
+        for (Path d : listImmediateDirectories(selectedRootPath)) {
+            String name = d.getFileName().toString().toLowerCase();
+            if (Files.isDirectory(d) && name.endsWith("-submissions")) {
+                submissionsDir = d;
+            }
+        }
+
+        return submissionsDir == null ? selectedRootPath : submissionsDir;
+    }
 
-            if (copied) {
-                RepoMapping m = new RepoMapping();
-                m.setRepoPath(repoDir.toAbsolutePath().toString());
-                mapping.put(packageName, m);
+    /**
+     * @param selectedRootPath selected course root
+     * @return repo folders under the scan root, excluding {@code packages/}
+     */
+    public List<Path> listRepos(Path selectedRootPath) {
+        List<Path> repos = new ArrayList<>();
+        for (Path dir : listImmediateDirectories(resolveScanRoot(selectedRootPath))) {
+            if (!dir.getFileName().toString().equalsIgnoreCase(PACKAGES_FOLDER_NAME)) {
+                repos.add(dir);
             }
         }
+        return repos;
+    }
 
-        saveMapping(mappingsPath, mapping);
-        logger.log("Wrote " + mapping.size() + " mapping(s).");
+    public Path packagesRoot(Path selectedRootPath) {
+        return selectedRootPath.resolve(PACKAGES_FOLDER_NAME);
     }
 
     public Path resolveRepoRoot(Path mappedRepoPath) {
@@ -182,6 +252,32 @@ public class MappingService {
         return dirs;
     }
 
+    private PackageSource locatePackage(Path repoDir) {
+        String repoFolderName = repoDir.getFileName().toString();
+        if (repoFolderName.equalsIgnoreCase(PACKAGES_FOLDER_NAME)) {
+            return null;
+        }
+
+        Path gitDir = repoDir.resolve(".git");
+        if (!Files.exists(gitDir) || !Files.isDirectory(gitDir)) {
+            logger.log("SKIP repo " + repoFolderName + ": not a git repository.");
+            return null;
+        }
+
+        Path studentPackageDir = findStudentPackageDir(repoDir);
+        if (studentPackageDir == null) {
+            logger.log("SKIP repo " + repoFolderName
+                    + ": could not locate src/{studentPackage}.");
+            return null;
+        }
+
+        return new PackageSource(
+                studentPackageDir.getFileName().toString(),
+                repoDir,
+                studentPackageDir
+        );
+    }
+
     private Path findStudentPackageDir(Path repoDir) {
         Path src = repoDir.resolve("src");
         if (!Files.isDirectory(src)) {
@@ -215,129 +311,261 @@ public class MappingService {
         return candidates.getFirst();
     }
 
-    private boolean copyPackageFolder(Path sourcePackageDir,
-                                      Path destPackageDir,
-                                      String repoName,
-                                      String studentPackage) {
+    private Map<String, RepoMapping> extractAll(Map<String, List<PackageSource>> sourcesByPackage,
+                                                Path packagesRoot,
+                                                SyncStats totals) throws IOException {
+        Map<String, RepoMapping> mapping = new TreeMap<>();
+        if (sourcesByPackage.isEmpty()) {
+            return mapping;
+        }
 
-        final class CopyStatus {
-            private boolean ok = true;
+        int workers = Math.min(parallelism, sourcesByPackage.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workers, newExtractThreadFactory());
+        Map<String, Future<Path>> futures = new LinkedHashMap<>();
+
+        try {
+            for (Map.Entry<String, List<PackageSource>> entry : sourcesByPackage.entrySet()) {
+                String packageName = entry.getKey();
+                Path dest = packagesRoot.resolve(packageName);
+                futures.put(packageName, executor.submit(() -> {
+                    Path extractedFrom = null;
+                    for (PackageSource source : entry.getValue()) {
+                        SyncStats stats = syncPackageFolder(
+                                source.packageDir(),
+                                dest,
+                                source.repoDir().getFileName().toString(),
+                                packageName
+                        );
+                        if (stats != null) {
+                            totals.add(stats);
+                            extractedFrom = source.repoDir();
+                        }
+                    }
+                    return extractedFrom;
+                }));
+            }
+
+            for (Map.Entry<String, Future<Path>> entry : futures.entrySet()) {
+                try {
+                    Path repoDir = entry.getValue().get();
+                    if (repoDir != null) {
+                        RepoMapping m = new RepoMapping();
+                        m.setRepoPath(repoDir.toAbsolutePath().toString());
+                        mapping.put(entry.getKey(), m);
+                    }
+                } catch (ExecutionException e) {
+                    logger.log("SKIP package " + entry.getKey() + ": " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Extract interrupted.", e);
+        } finally {
+            executor.shutdownNow();
         }
 
-        CopyStatus status = new CopyStatus();
+        return mapping;
+    }
+
+    /**
+     * Brings {@code destPackageDir} in line with {@code sourcePackageDir}. Files whose
+     * size and modification time already match are left alone, changed files are
+     * re-linked or re-copied, and files that no longer exist in the source are removed.
+     *
+     * @return counts for the folder, or null if the package could not be extracted
+     */
+    private SyncStats syncPackageFolder(Path sourcePackageDir,
+                                        Path destPackageDir,
+                                        String repoName,
+                                        String studentPackage) {
 
         if (sourcePackageDir == null) {
             logger.log("SKIP " + repoName + ": sourcePackageDir is null.");
-            status.ok = false;
-        } else if (destPackageDir == null) {
+            return null;
+        }
+        if (destPackageDir == null) {
             logger.log("SKIP " + repoName + ": destPackageDir is null.");
-            status.ok = false;
-        } else if (!Files.exists(sourcePackageDir) || !Files.isDirectory(sourcePackageDir)) {
+            return null;
+        }
+        if (!Files.exists(sourcePackageDir) || !Files.isDirectory(sourcePackageDir)) {
             logger.log("SKIP " + repoName + ": source package folder missing: " + sourcePackageDir);
-            status.ok = false;
+            return null;
         }
 
-        if (status.ok && Files.exists(destPackageDir)) {
-            boolean deleted = deleteDirectoryRecursively(destPackageDir);
-            if (!deleted) {
+        if (Files.exists(destPackageDir, LinkOption.NOFOLLOW_LINKS)
+                && !Files.isDirectory(destPackageDir, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                Files.delete(destPackageDir);
+            } catch (IOException e) {
                 logger.log("SKIP " + repoName
                         + ": cannot overwrite existing package folder: "
                         + destPackageDir);
-                status.ok = false;
+                return null;
             }
         }
 
-        if (status.ok) {
-            try {
-                Files.createDirectories(destPackageDir);
-            } catch (IOException e) {
-                logger.log("SKIP " + repoName
-                        + ": failed to create destination folder: "
-                        + e.getMessage());
-                status.ok = false;
+        SyncStats stats = new SyncStats();
+        boolean ok = true;
+        Set<Path> expected = new HashSet<>();
+
+        try (Stream<Path> stream = Files.walk(sourcePackageDir)) {
+            for (Path source : (Iterable<Path>) stream::iterator) {
+                Path rel = sourcePackageDir.relativize(source);
+                Path target = destPackageDir.resolve(rel);
+                expected.add(rel);
+
+                try {
+                    if (Files.isDirectory(source)) {
+                        Files.createDirectories(target);
+                    } else {
+                        syncFile(source, target, stats);
+                    }
+                } catch (IOException e) {
+                    logger.log("COPY ERROR " + repoName
+                            + ": failed to copy " + source
+                            + ": " + e.getMessage());
+                    ok = false;
+                }
             }
+        } catch (IOException | UncheckedIOException e) {
+            logger.log("SKIP " + repoName
+                    + ": failed to walk package directory: "
+                    + e.getMessage());
+            return null;
         }
 
-        if (status.ok) {
-            try {
-                Files.walkFileTree(sourcePackageDir, new java.nio.file.SimpleFileVisitor<>() {
-
-                    @Override
-                    public java.nio.file.FileVisitResult preVisitDirectory(
-                            Path dir,
-                            java.nio.file.attribute.BasicFileAttributes attrs) {
+        ok &= removeStaleEntries(destPackageDir, expected, stats);
 
-                        Path rel = sourcePackageDir.relativize(dir);
-                        Path targetDir = destPackageDir.resolve(rel);
-
-                        try {
-                            Files.createDirectories(targetDir);
-                        } catch (IOException e) {
-                            logger.log("COPY ERROR " + repoName
-                                    + ": failed to create directory " + targetDir
-                                    + ": " + e.getMessage());
-                            status.ok = false;
-                        }
-
-                        return java.nio.file.FileVisitResult.CONTINUE;
-                    }
+        if (!ok) {
+            return null;
+        }
 
-                    @Override
-                    public java.nio.file.FileVisitResult visitFile(
-                            Path file,
-                            java.nio.file.attribute.BasicFileAttributes attrs) {
+        logger.log("OK package " + studentPackage
+                + " extracted from repo " + repoName);
+        return stats;
+    }
 
-                        Path rel = sourcePackageDir.relativize(file);
-                        Path targetFile = destPackageDir.resolve(rel);
+    private void syncFile(Path source,
+                          Path target,
+                          SyncStats stats) throws IOException {
+        BasicFileAttributes sourceAttrs = Files.readAttributes(source, BasicFileAttributes.class);
 
-                        try {
-                            Files.copy(
-                                    file,
-                                    targetFile,
-                                    java.nio.file.StandardCopyOption.REPLACE_EXISTING
-                            );
-                        } catch (IOException e) {
-                            logger.log("COPY ERROR " + repoName
-                                    + ": failed to copy file " + file
-                                    + ": " + e.getMessage());
-                            status.ok = false;
-                        }
+        if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            BasicFileAttributes targetAttrs = Files.readAttributes(
+                    target,
+                    BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS
+            );
+            if (targetAttrs.isRegularFile()
+                    && targetAttrs.size() == sourceAttrs.size()
+                    && sameModifiedTime(targetAttrs, sourceAttrs)) {
+                stats.unchanged++;
+                return;
+            }
+            if (targetAttrs.isDirectory()) {
+                deleteDirectoryRecursively(target);
+            } else {
+                Files.delete(target);
+            }
+        }
 
-                        return java.nio.file.FileVisitResult.CONTINUE;
-                    }
+        if (linksSupported.get()) {
+            try {
+                Files.createLink(target, source);
+                stats.linked++;
+                return;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                // Different volume, or a filesystem without hard links; copy from now on.
+                if (linksSupported.compareAndSet(true, false)) {
+                    logger.log("Hard links unavailable for packages/ (" + e.getMessage()
+                            + "); copying files instead.");
+                }
+            }
+        }
 
-                    @Override
-                    public java.nio.file.FileVisitResult visitFileFailed(
-                            Path file,
-                            IOException exc) {
+        Files.copy(
+                source,
+                target,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.COPY_ATTRIBUTES
+        );
+        stats.copied++;
+    }
 
-                        if (exc != null) {
-                            logger.log("COPY ERROR " + repoName
-                                    + ": failed accessing " + file
-                                    + ": " + exc.getMessage());
-                            status.ok = false;
-                        }
+    /**
+     * Compares modification times at millisecond precision; copying attributes can
+     * truncate nanoseconds, depending on the filesystem.
+     */
+    private static boolean sameModifiedTime(BasicFileAttributes a, BasicFileAttributes b) {
+        return a.lastModifiedTime().toMillis() == b.lastModifiedTime().toMillis();
+    }
 
-                        return java.nio.file.FileVisitResult.CONTINUE;
-                    }
-                });
+    private boolean removeStaleEntries(Path destPackageDir,
+                                       Set<Path> expected,
+                                       SyncStats stats) {
+        List<Path> stale = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(destPackageDir)) {
+            stream
+                    .filter(p -> !expected.contains(destPackageDir.relativize(p)))
+                    .forEach(stale::add);
+        } catch (IOException | UncheckedIOException e) {
+            logger.log("Failed to scan " + destPackageDir + " for stale files: " + e.getMessage());
+            return false;
+        }
 
-            } catch (IOException e) {
-                logger.log("SKIP " + repoName
-                        + ": failed to walk package directory: "
-                        + e.getMessage());
-                status.ok = false;
+        boolean ok = true;
+        // Deepest first, so a stale directory's contents go before the directory.
+        stale.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+        for (Path path : stale) {
+            if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                continue;
+            }
+            if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                ok &= deleteDirectoryRecursively(path);
+            } else {
+                try {
+                    Files.delete(path);
+                    stats.removed++;
+                } catch (IOException e) {
+                    logger.log("Failed to delete file " + path + ": " + e.getMessage());
+                    ok = false;
+                }
             }
         }
+        return ok;
+    }
 
-        if (status.ok) {
-            logger.log("OK package " + studentPackage
-                    + " extracted from repo " + repoName);
-        }
+    private static ThreadFactory newExtractThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread worker = new Thread(runnable, "extract-worker-" + counter.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        };
+    }
 
-        return status.ok;
+    private record PackageSource(String packageName,
+                                 Path repoDir,
+                                 Path packageDir) {
     }
 
+    public record ExtractedPackage(String packageName,
+                                   Path repoDir) {
+    }
+
+    private static final class SyncStats {
+        private int linked;
+        private int copied;
+        private int unchanged;
+        private int removed;
+
+        private synchronized void add(SyncStats other) {
+            linked += other.linked;
+            copied += other.copied;
+            unchanged += other.unchanged;
+            removed += other.removed;
+        }
+    }
 
     private boolean deleteDirectoryRecursively(Path dir) {
 
@@ -0,0 +1,457 @@
+package service;
+
+import model.RepoMapping;
+import service.steps.ExtractStep;
+import service.steps.ImportsStep;
+import service.steps.PullStep;
+import service.steps.ReportsStep;
+import service.steps.RunAllStep;
+import service.steps.StepResult;
+import service.steps.StepStatus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the Run All workflow as a pipeline: each student's repo is extracted and
+ * reported on a worker as soon as git has finished cloning it, instead of waiting for
+ * the whole class at every step. Imports are generated once all packages are in.
+ * <p>
+ * Results keep the per-step shape of {@link WorkflowEngine}. A stage's duration is the
+ * wall-clock span from its first student starting to its last student finishing, and
+ * a stage fails if any student failed in it. A student whose extract fails is skipped
+ * for reports without affecting the others. If the pull fails, students already
+ * dispatched are cancelled and the later steps are skipped, as in
+ * {@link WorkflowEngine}.
+ * </p>
+ * <p>
+ * Extracting a repo is quick, so extracts always run before waiting reports. Waiting
+ * reports run longest first, by how long each student took in earlier runs, so a slow
+ * student does not start last and hold up the end of the run.
+ * </p>
+ * <p>
+ * Checkstyle is run over groups of extracted students rather than once per student,
+ * since each run starts a JVM. The first extracted student starts a group at once;
+ * students extracted while that group is checked wait and form the next group. A
+ * student's report is queued once its group has been checked.
+ * </p>
+ */
+public class PipelinedWorkflowEngine extends WorkflowEngine {
+
+    private final PullStep pullStep;
+    private final ExtractStep extractStep;
+    private final ImportsStep importsStep;
+    private final ReportsStep reportsStep;
+    private final ServiceLogger logger;
+    private final int workers;
+    private final AtomicLong submitted = new AtomicLong();
+
+    public PipelinedWorkflowEngine(PullStep pullStep,
+                                   ExtractStep extractStep,
+                                   ImportsStep importsStep,
+                                   ReportsStep reportsStep,
+                                   ServiceLogger logger,
+                                   int workers) {
+
+        super(List.of(pullStep, extractStep, importsStep, reportsStep), logger);
+
+        this.pullStep = Objects.requireNonNull(pullStep);
+        this.extractStep = Objects.requireNonNull(extractStep);
+        this.importsStep = Objects.requireNonNull(importsStep);
+        this.reportsStep = Objects.requireNonNull(reportsStep);
+        this.logger = Objects.requireNonNull(logger);
+        this.workers = Math.max(1, workers);
+    }
+
+    @Override
+    public RunAllService.RunAllResult run(WorkflowContext context) {
+
+        Map<RunAllStep, StepResult> results = new LinkedHashMap<>();
+
+        StageTracker extractStage = new StageTracker();
+        StageTracker reportStage = new StageTracker();
+        Map<String, RepoMapping> mapping = new ConcurrentSkipListMap<>();
+        CheckstyleBatch checkstyleBatch = new CheckstyleBatch();
+        reportsStep.beginRun();
+
+        // Added to from the pull's output thread and from this thread.
+        Set<Path> dispatched = ConcurrentHashMap.newKeySet();
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        List<Future<?>> futures = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                newWorkerThreadFactory()
+        );
+
+        try {
+            StepResult pullResult = pullStep.execute(context, repoDir -> dispatch(
+                    context, repoDir, dispatched, cancelled, futures, executor,
+                    extractStage, reportStage, mapping, checkstyleBatch));
+            results.put(RunAllStep.PULL, pullResult);
+            logStep(RunAllStep.PULL, pullResult);
+
+            if (pullResult.isFailed()) {
+                cancelAll(cancelled, futures, executor);
+                for (RunAllStep step : List.of(
+                        RunAllStep.EXTRACT, RunAllStep.IMPORTS, RunAllStep.REPORTS)) {
+                    StepResult skipped = skipped();
+                    results.put(step, skipped);
+                    logStep(step, skipped);
+                }
+                return new RunAllService.RunAllResult(results);
+            }
+
+            // Repos git did not announce (already cloned, or output we could not parse).
+            for (Path repoDir : extractStep.listRepos(context)) {
+                dispatch(context, repoDir, dispatched, cancelled, futures, executor,
+                        extractStage, reportStage, mapping, checkstyleBatch);
+            }
+
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        StepResult extractResult;
+        if (dispatched.isEmpty()) {
+            String message = "No repositories found under: " + context.root();
+            logger.log("Extract failed: " + message);
+            extractResult = new StepResult(StepStatus.FAILED, 0L, message);
+        } else {
+            extractStep.writeMapping(context, mapping);
+            extractResult = extractStage.result();
+        }
+        results.put(RunAllStep.EXTRACT, extractResult);
+        logStep(RunAllStep.EXTRACT, extractResult);
+
+        StepResult importsResult = extractResult.isFailed()
+                ? skipped()
+                : importsStep.execute(context);
+        results.put(RunAllStep.IMPORTS, importsResult);
+        logStep(RunAllStep.IMPORTS, importsResult);
+
+        StepResult reportsResult;
+        if (extractResult.isFailed()) {
+            reportsResult = skipped();
+        } else if (mapping.isEmpty()) {
+            reportsResult = new StepResult(
+                    StepStatus.FAILED,
+                    0L,
+                    "No student packages were extracted."
+            );
+            logger.log(reportsResult.message());
+        } else {
+            reportsStep.writeRunMetrics();
+            reportsResult = reportStage.result();
+        }
+        results.put(RunAllStep.REPORTS, reportsResult);
+        logStep(RunAllStep.REPORTS, reportsResult);
+
+        return new RunAllService.RunAllResult(results);
+    }
+
+    private void dispatch(WorkflowContext context,
+                          Path repoDir,
+                          Set<Path> dispatched,
+                          AtomicBoolean cancelled,
+                          List<Future<?>> futures,
+                          ExecutorService executor,
+                          StageTracker extractStage,
+                          StageTracker reportStage,
+                          Map<String, RepoMapping> mapping,
+                          CheckstyleBatch checkstyleBatch) {
+
+        Path key = repoDir.toAbsolutePath().normalize();
+        if (!dispatched.add(key)) {
+            return;
+        }
+        schedule(executor, futures, Double.POSITIVE_INFINITY, () -> extractStudent(
+                context, key, cancelled, futures, executor,
+                extractStage, reportStage, mapping, checkstyleBatch));
+    }
+
+    private void schedule(ExecutorService executor,
+                          List<Future<?>> futures,
+                          double priority,
+                          Runnable work) {
+        ScheduledJob job = new ScheduledJob(work, priority, submitted.getAndIncrement());
+        // Added before it can run, so awaitAll sees any job this one schedules.
+        futures.add(job);
+        executor.execute(job);
+    }
+
+    private void extractStudent(WorkflowContext context,
+                                Path repoDir,
+                                AtomicBoolean cancelled,
+                                List<Future<?>> futures,
+                                ExecutorService executor,
+                                StageTracker extractStage,
+                                StageTracker reportStage,
+                                Map<String, RepoMapping> mapping,
+                                CheckstyleBatch checkstyleBatch) {
+
+        long extractStart = System.currentTimeMillis();
+        MappingService.ExtractedPackage extracted;
+        boolean extractOk = true;
+        try {
+            extracted = extractStep.extractRepo(context, repoDir);
+        } catch (IOException | RuntimeException e) {
+            logger.log("Extract failed for " + repoDir.getFileName() + ": " + e.getMessage());
+            extracted = null;
+            extractOk = false;
+        }
+        // Folders that are not student repos are skipped, as in a full extract, and
+        // do not count as failures.
+        extractStage.record(extractStart, System.currentTimeMillis(), extractOk);
+
+        if (extracted == null || cancelled.get()) {
+            return;
+        }
+
+        RepoMapping repo = new RepoMapping();
+        repo.setRepoPath(extracted.repoDir().toAbsolutePath().toString());
+        mapping.put(extracted.packageName(), repo);
+
+        reportsStep.expectStudentReport(context, extracted.packageName());
+        if (checkstyleBatch.add(extracted)) {
+            scheduleCheckstyleBatch(context, cancelled, futures, executor,
+                    reportStage, checkstyleBatch);
+        }
+    }
+
+    private void scheduleCheckstyleBatch(WorkflowContext context,
+                                         AtomicBoolean cancelled,
+                                         List<Future<?>> futures,
+                                         ExecutorService executor,
+                                         StageTracker reportStage,
+                                         CheckstyleBatch checkstyleBatch) {
+        // Ahead of waiting reports, which need it, but behind extracts, which feed it.
+        schedule(executor, futures, Double.MAX_VALUE, () -> checkstyleStudents(
+                context, cancelled, futures, executor, reportStage, checkstyleBatch));
+    }
+
+    private void checkstyleStudents(WorkflowContext context,
+                                    AtomicBoolean cancelled,
+                                    List<Future<?>> futures,
+                                    ExecutorService executor,
+                                    StageTracker reportStage,
+                                    CheckstyleBatch checkstyleBatch) {
+        List<MappingService.ExtractedPackage> students = checkstyleBatch.drain();
+        if (!cancelled.get()) {
+            List<Path> repoDirs = new ArrayList<>();
+            for (MappingService.ExtractedPackage student : students) {
+                repoDirs.add(student.repoDir());
+            }
+            try {
+                reportsStep.prepareCheckstyleResults(context, repoDirs);
+            } catch (RuntimeException e) {
+                // Each report then runs checkstyle for its own student.
+                logger.log("Checkstyle batch failed: " + e.getMessage());
+            }
+        }
+
+        for (MappingService.ExtractedPackage student : students) {
+            schedule(
+                    executor,
+                    futures,
+                    reportsStep.expectedMillis(context, student.packageName()),
+                    () -> {
+                        if (!cancelled.get()) {
+                            reportStudent(context, student, reportStage);
+                        }
+                    }
+            );
+        }
+
+        if (checkstyleBatch.finish()) {
+            scheduleCheckstyleBatch(context, cancelled, futures, executor,
+                    reportStage, checkstyleBatch);
+        }
+    }
+
+    private void reportStudent(WorkflowContext context,
+                               MappingService.ExtractedPackage extracted,
+                               StageTracker reportStage) {
+        long reportStart = System.currentTimeMillis();
+        boolean reportOk;
+        try {
+            reportOk = !reportsStep.generateStudentReport(
+                    context,
+                    extracted.packageName(),
+                    extracted.repoDir()
+            ).hadFailures();
+        } catch (RuntimeException e) {
+            logger.log("FAIL " + extracted.packageName() + ": " + e.getMessage());
+            reportOk = false;
+        }
+        reportStage.record(reportStart, System.currentTimeMillis(), reportOk);
+    }
+
+    /*
+     * Stops every dispatched student and waits for running ones to wind down, so none
+     * of them writes after the run has returned.
+     */
+    private void cancelAll(AtomicBoolean cancelled,
+                           List<Future<?>> futures,
+                           ExecutorService executor) {
+        cancelled.set(true);
+        synchronized (futures) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.log("Run All: some students were still running after the pull failed.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitAll(List<Future<?>> futures) {
+        // Extracts add their report jobs while this loop runs.
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (ExecutionException e) {
+                logger.log("Pipeline worker failed: " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.log("Run All interrupted; remaining students were cancelled.");
+                return;
+            }
+        }
+    }
+
+    private static StepResult skipped() {
+        return new StepResult(
+                StepStatus.SKIPPED,
+                0L,
+                "Skipped due to previous failure."
+        );
+    }
+
+    private static ThreadFactory newWorkerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-worker-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /*
+     * Runs the highest priority first, and jobs of equal priority in submission order.
+     */
+    private static final class ScheduledJob extends FutureTask<Void>
+            implements Comparable<ScheduledJob> {
+
+        private final double priority;
+        private final long sequence;
+
+        private ScheduledJob(Runnable work, double priority, long sequence) {
+            super(work, null);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(ScheduledJob other) {
+            int byPriority = Double.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /*
+     * Students waiting for checkstyle. At most one batch job is queued or running at a
+     * time; students added meanwhile are picked up by the next one.
+     */
+    private static final class CheckstyleBatch {
+
+        private final List<MappingService.ExtractedPackage> pending = new ArrayList<>();
+        private boolean scheduled = false;
+
+        /** @return true if the caller must schedule a batch job for the student */
+        private synchronized boolean add(MappingService.ExtractedPackage student) {
+            pending.add(student);
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        private synchronized List<MappingService.ExtractedPackage> drain() {
+            List<MappingService.ExtractedPackage> students = new ArrayList<>(pending);
+            pending.clear();
+            return students;
+        }
+
+        /** @return true if students arrived during the batch and need another one */
+        private synchronized boolean finish() {
+            if (pending.isEmpty()) {
+                scheduled = false;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class StageTracker {
+
+        private long firstStart = Long.MAX_VALUE;
+        private long lastEnd = Long.MIN_VALUE;
+        private int students = 0;
+        private int failures = 0;
+
+        private synchronized void record(long start, long end, boolean success) {
+            firstStart = Math.min(firstStart, start);
+            lastEnd = Math.max(lastEnd, end);
+            students++;
+            if (!success) {
+                failures++;
+            }
+        }
+
+        private synchronized StepResult result() {
+            if (students == 0) {
+                return new StepResult(StepStatus.SUCCESS, 0L, "");
+            }
+            long duration = Math.max(0L, lastEnd - firstStart);
+            if (failures > 0) {
+                return new StepResult(
+                        StepStatus.FAILED,
+                        duration,
+                        failures + " of " + students + " student(s) failed."
+                );
+            }
+            return new StepResult(StepStatus.SUCCESS, duration, "");
+        }
+    }
+}
@@ -11,67 +11,98 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Runs external processes and captures output line-by-line.
+ * <p>
+ * {@link #runAsync} is the core: output is read on a background thread and handed to
+ * an optional line listener as it arrives, captured output is capped, and a wall-clock
+ * timeout kills the whole process tree. The blocking methods wait on it.
+ * </p>
+ * <p>
+ * Every command runs under the runner's default timeout unless the caller passes its
+ * own, so a hung git or checkstyle process cannot stall a run forever.
+ * </p>
  */
 public class ProcessRunner {
 
     private static final int FAILED_TO_START_EXIT_CODE = -1;
 
     /**
-     * Runs a command and returns all output lines plus the exit code.
-     *
-     * @param args argv list
-     * @param workingDir directory to run in
-     * @return a ProcessResult containing output lines and exit code
+     * Exit code reported when a process was killed because it ran past its timeout.
      */
-    public ProcessResult runCaptureLinesWithExitCode(List<String> args, Path workingDir) {
-
-        List<String> lines = new ArrayList<>();
-        int exitCode = FAILED_TO_START_EXIT_CODE;
+    public static final int TIMED_OUT_EXIT_CODE = -2;
 
-        if (args == null || args.isEmpty()) {
-            lines.add("ProcessRunner: command args are empty.");
-        } else if (workingDir == null) {
-            lines.add("ProcessRunner: working directory is null.");
-        } else {
+    /**
+     * Default cap on captured output, in characters. Further lines are still streamed
+     * to a listener but are not kept in the result.
+     */
+    public static final int DEFAULT_MAX_CAPTURED_CHARS = 4 * 1024 * 1024;
 
-            ProcessBuilder pb = new ProcessBuilder(args);
-            pb.directory(workingDir.toFile());
-            pb.redirectErrorStream(true);
+    /**
+     * Wall-clock limit for commands that do not set their own.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(15);
 
-            try {
-                Process p = pb.start();
+    private static final ScheduledExecutorService TIMEOUTS = createTimeoutScheduler();
 
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+    private final Duration defaultTimeout;
 
-                    String line = reader.readLine();
-                    while (line != null) {
-                        lines.add(line);
-                        line = reader.readLine();
-                    }
-                }
+    /**
+     * Creates a runner that applies {@link #DEFAULT_TIMEOUT} to every command.
+     */
+    public ProcessRunner() {
+        this(DEFAULT_TIMEOUT);
+    }
 
-                exitCode = p.waitFor();
+    /**
+     * @param defaultTimeout wall-clock limit for commands that do not set their own, or
+     *                       null for no limit
+     */
+    public ProcessRunner(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
 
-            } catch (IOException e) {
-                lines.add("ProcessRunner: failed to start process: " + e.getMessage());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                lines.add("ProcessRunner: interrupted while waiting for process.");
-            }
-        }
+    /**
+     * Runs a command under the default timeout and returns all output lines plus the
+     * exit code.
+     *
+     * @param args argv list
+     * @param workingDir directory to run in
+     * @return a ProcessResult containing output lines and exit code
+     */
+    public ProcessResult runCaptureLinesWithExitCode(List<String> args, Path workingDir) {
+        return await(runAsync(args, workingDir, RunOptions.defaults()));
+    }
 
-        return new ProcessResult(exitCode, lines);
+    /**
+     * Runs a command with a wall-clock limit and returns its output lines plus exit code.
+     *
+     * @param args argv list
+     * @param workingDir directory to run in
+     * @param timeout wall-clock limit; the process tree is killed when it expires
+     * @return a ProcessResult; the exit code is {@link #TIMED_OUT_EXIT_CODE} on timeout
+     */
+    public ProcessResult runCaptureLinesWithExitCode(List<String> args,
+                                                     Path workingDir,
+                                                     Duration timeout) {
+        return await(runAsync(args, workingDir, RunOptions.defaults().withTimeout(timeout)));
     }
 
     /**
-     * Runs a command and streams each output line into the provided logger.
+     * Runs a command and streams each output line into the provided logger as soon as
+     * the process prints it.
      *
      * @param args argv list
      * @param workingDir directory to run in
@@ -79,17 +110,208 @@ public class ProcessRunner {
      * @return exit code, or -1 if process failed to start
      */
     public int runAndLog(List<String> args, Path workingDir, LineLogger logger) {
+        return runAndLog(args, workingDir, logger, null);
+    }
+
+    /**
+     * Like {@link #runAndLog(List, Path, LineLogger)}, with a wall-clock limit of its own.
+     *
+     * @param args argv list
+     * @param workingDir directory to run in
+     * @param logger callback for output lines (must not be null)
+     * @param timeout wall-clock limit, or null for the runner's default
+     * @return exit code, -1 if process failed to start, or {@link #TIMED_OUT_EXIT_CODE}
+     */
+    public int runAndLog(List<String> args,
+                         Path workingDir,
+                         LineLogger logger,
+                         Duration timeout) {
         Objects.requireNonNull(logger);
 
-        ProcessResult result = runCaptureLinesWithExitCode(args, workingDir);
+        ProcessResult result = await(runAsync(
+                args,
+                workingDir,
+                RunOptions.defaults()
+                        .withTimeout(timeout)
+                        .withLineListener(logger)
+                        .withMaxCapturedChars(0)
+        ));
 
+        // Only ProcessRunner's own messages (start failure, timeout) are left to report.
         for (String line : result.outputLines()) {
-            logger.log(line);
+            if (line.startsWith("ProcessRunner:")) {
+                logger.log(line);
+            }
         }
 
         return result.exitCode();
     }
 
+    /**
+     * Starts a command and returns immediately. Stdout and stderr are merged.
+     * <p>
+     * Cancelling the returned future kills the process tree. A listener that throws
+     * also kills the process and completes the future exceptionally.
+     * </p>
+     *
+     * @param args argv list
+     * @param workingDir directory to run in
+     * @param options timeout (null for the runner's default), output cap and line listener
+     * @return future completed with the exit code and captured lines
+     */
+    public CompletableFuture<ProcessResult> runAsync(List<String> args,
+                                                     Path workingDir,
+                                                     RunOptions options) {
+        Objects.requireNonNull(options);
+        RunOptions effective = options.timeout() == null
+                ? options.withTimeout(defaultTimeout)
+                : options;
+
+        if (args == null || args.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    failedToStart("ProcessRunner: command args are empty."));
+        }
+        if (workingDir == null) {
+            return CompletableFuture.completedFuture(
+                    failedToStart("ProcessRunner: working directory is null."));
+        }
+
+        ProcessBuilder pb = new ProcessBuilder(args);
+        pb.directory(workingDir.toFile());
+        pb.redirectErrorStream(true);
+
+        Process p;
+        try {
+            p = pb.start();
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(
+                    failedToStart("ProcessRunner: failed to start process: " + e.getMessage()));
+        }
+
+        CompletableFuture<ProcessResult> future = new CompletableFuture<>();
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+
+        ScheduledFuture<?> timer = null;
+        if (effective.timeout() != null) {
+            timer = TIMEOUTS.schedule(
+                    () -> {
+                        timedOut.set(true);
+                        destroyTree(p);
+                    },
+                    effective.timeout().toMillis(),
+                    TimeUnit.MILLISECONDS
+            );
+        }
+
+        ScheduledFuture<?> pendingTimer = timer;
+        future.whenComplete((result, error) -> {
+            if (pendingTimer != null) {
+                pendingTimer.cancel(false);
+            }
+            if (future.isCancelled()) {
+                destroyTree(p);
+            }
+        });
+
+        Thread reader = new Thread(
+                () -> pumpOutput(p, effective, timedOut, future),
+                "process-output-" + p.pid()
+        );
+        reader.setDaemon(true);
+        reader.start();
+
+        return future;
+    }
+
+    private void pumpOutput(Process p,
+                            RunOptions options,
+                            AtomicBoolean timedOut,
+                            CompletableFuture<ProcessResult> future) {
+        List<String> lines = new ArrayList<>();
+        long capturedChars = 0;
+        boolean truncated = false;
+
+        try {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+
+                String line = reader.readLine();
+                while (line != null && !future.isDone()) {
+                    if (!truncated
+                            && capturedChars + line.length() <= options.maxCapturedChars()) {
+                        lines.add(line);
+                        capturedChars += line.length();
+                    } else {
+                        truncated = true;
+                    }
+                    if (options.lineListener() != null) {
+                        options.lineListener().log(line);
+                    }
+                    line = reader.readLine();
+                }
+            } catch (IOException e) {
+                // The stream closes under us when the process is killed.
+                if (!timedOut.get() && !future.isDone()) {
+                    lines.add("ProcessRunner: failed reading process output: " + e.getMessage());
+                }
+            }
+
+            int exitCode = p.waitFor();
+
+            if (truncated && options.maxCapturedChars() > 0) {
+                lines.add("ProcessRunner: output truncated after "
+                        + options.maxCapturedChars() + " characters.");
+            }
+            if (timedOut.get()) {
+                lines.add("ProcessRunner: timed out after "
+                        + options.timeout().toSeconds() + " seconds; process killed.");
+                exitCode = TIMED_OUT_EXIT_CODE;
+            }
+
+            future.complete(new ProcessResult(exitCode, lines));
+
+        } catch (InterruptedException e) {
+            destroyTree(p);
+            future.complete(new ProcessResult(FAILED_TO_START_EXIT_CODE, lines));
+        } catch (RuntimeException e) {
+            destroyTree(p);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static ProcessResult await(CompletableFuture<ProcessResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return failedToStart("ProcessRunner: interrupted while waiting for process.");
+        } catch (ExecutionException e) {
+            return failedToStart("ProcessRunner: " + e.getCause());
+        }
+    }
+
+    private static ProcessResult failedToStart(String message) {
+        List<String> lines = new ArrayList<>();
+        lines.add(message);
+        return new ProcessResult(FAILED_TO_START_EXIT_CODE, lines);
+    }
+
+    private static void destroyTree(Process p) {
+        p.descendants().forEach(ProcessHandle::destroyForcibly);
+        p.destroyForcibly();
+    }
+
+    private static ScheduledExecutorService createTimeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "process-timeouts");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
     /**
      * Tokenizes a command line into argv parts, supporting double-quotes.
      * <p>
@@ -136,6 +358,34 @@ public class ProcessRunner {
         return parts;
     }
 
+    /**
+     * Options for {@link #runAsync}.
+     *
+     * @param timeout wall-clock limit, or null for the runner's default
+     * @param maxCapturedChars cap on characters kept in the result
+     * @param lineListener receives every output line as it arrives, or null
+     */
+    public record RunOptions(Duration timeout,
+                             int maxCapturedChars,
+                             LineLogger lineListener) {
+
+        public static RunOptions defaults() {
+            return new RunOptions(null, DEFAULT_MAX_CAPTURED_CHARS, null);
+        }
+
+        public RunOptions withTimeout(Duration timeout) {
+            return new RunOptions(timeout, maxCapturedChars, lineListener);
+        }
+
+        public RunOptions withMaxCapturedChars(int maxCapturedChars) {
+            return new RunOptions(timeout, Math.max(0, maxCapturedChars), lineListener);
+        }
+
+        public RunOptions withLineListener(LineLogger lineListener) {
+            return new RunOptions(timeout, maxCapturedChars, lineListener);
+        }
+    }
+
     /**
      * Simple logger callback.
      */
@@ -0,0 +1,161 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Estimates how long the students of a report run still need, from their recorded
+ * durations in {@link JobDurationHistory}.
+ * <p>
+ * Students without history are expected to take as long as the students finished so
+ * far in this run took on average. Queued work is spread over the workers, but the
+ * estimate never drops below the longest single job still to do, since that job cannot
+ * be split.
+ * </p>
+ */
+public class RemainingTimeEstimator {
+
+    private final JobDurationHistory history;
+    private final int workers;
+    private final LongSupplier nanoTime;
+    private final Listener listener;
+    private final Map<String, Long> startedAtByStudent = new LinkedHashMap<>();
+    private final Set<String> queued = new LinkedHashSet<>();
+    private int finished = 0;
+    private double finishedMillis = 0.0;
+
+    /**
+     * @param history recorded durations
+     * @param workers students processed at the same time
+     * @param listener told after every change
+     */
+    public RemainingTimeEstimator(JobDurationHistory history, int workers, Listener listener) {
+        this(history, workers, listener, System::nanoTime);
+    }
+
+    RemainingTimeEstimator(JobDurationHistory history,
+                           int workers,
+                           Listener listener,
+                           LongSupplier nanoTime) {
+        this.history = Objects.requireNonNull(history);
+        this.workers = Math.max(1, workers);
+        this.listener = Objects.requireNonNull(listener);
+        this.nanoTime = Objects.requireNonNull(nanoTime);
+    }
+
+    /**
+     * Adds a student that will be processed later.
+     *
+     * @param student student package
+     */
+    public void expect(String student) {
+        Progress progress;
+        synchronized (this) {
+            if (startedAtByStudent.containsKey(student) || !queued.add(student)) {
+                return;
+            }
+            progress = progress();
+        }
+        listener.onProgress(progress);
+    }
+
+    /**
+     * @param student student package whose report is starting
+     */
+    public void started(String student) {
+        Progress progress;
+        synchronized (this) {
+            queued.remove(student);
+            startedAtByStudent.put(student, nanoTime.getAsLong());
+            progress = progress();
+        }
+        listener.onProgress(progress);
+    }
+
+    /**
+     * @param student student package whose report is done
+     */
+    public void finished(String student) {
+        Progress progress;
+        synchronized (this) {
+            queued.remove(student);
+            Long startedAt = startedAtByStudent.remove(student);
+            finished++;
+            if (startedAt != null) {
+                finishedMillis += (nanoTime.getAsLong() - startedAt) / 1_000_000.0;
+            }
+            progress = progress();
+        }
+        listener.onProgress(progress);
+    }
+
+    /**
+     * @return students done, students known so far, and the estimated time left
+     */
+    public synchronized Progress progress() {
+        int total = finished + startedAtByStudent.size() + queued.size();
+        if (total == finished) {
+            return new Progress(finished, total, Duration.ZERO);
+        }
+
+        double fallback = finished == 0 ? Double.NaN : finishedMillis / finished;
+        double work = 0.0;
+        double longest = 0.0;
+        long now = nanoTime.getAsLong();
+        for (Map.Entry<String, Long> running : startedAtByStudent.entrySet()) {
+            double expected = expectedMillis(running.getKey(), fallback);
+            if (Double.isNaN(expected)) {
+                return new Progress(finished, total, null);
+            }
+            // A student running past the estimate may finish at any moment.
+            double left = Math.max(0.0, expected - (now - running.getValue()) / 1_000_000.0);
+            work += left;
+            longest = Math.max(longest, left);
+        }
+        for (String student : queued) {
+            double expected = expectedMillis(student, fallback);
+            if (Double.isNaN(expected)) {
+                return new Progress(finished, total, null);
+            }
+            work += expected;
+            longest = Math.max(longest, expected);
+        }
+
+        long millis = Math.round(Math.max(work / workers, longest));
+        return new Progress(finished, total, Duration.ofMillis(millis));
+    }
+
+    private double expectedMillis(String student, double fallback) {
+        OptionalDouble recorded = history.estimateMillis(student);
+        return recorded.isPresent() ? recorded.getAsDouble() : fallback;
+    }
+
+    /**
+     * @param finished students done
+     * @param total students known so far
+     * @param remaining estimated time left, or null when it cannot be estimated yet
+     */
+    public record Progress(int finished, int total, Duration remaining) {
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called on the thread that changed the progress.
+         *
+         * @param progress current progress
+         */
+        void onProgress(Progress progress);
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Index of the repos and HTML reports under a course root, kept on disk so the grading
+ * window does not list every repo each time it has to rebuild a mappings file.
+ * <p>
+ * The index stores each directory's modification time next to its listing. A refresh
+ * only relists the root, a container or a repo whose modification time changed, which
+ * is exactly when a report or repo was added, removed or renamed. Repos are refreshed in
+ * parallel.
+ * </p>
+ */
+final class RepoReportIndex {
+
+    static final int DEFAULT_PARALLELISM = 8;
+
+    // Directory times this close to the listing may not show a change made right after.
+    private static final long RACY_WINDOW_MILLIS = 2_000L;
+    private static final String PACKAGES_DIR = "packages";
+    private static final String REPORT_EXTENSION = ".html";
+
+    private final Path indexDir;
+    private final int parallelism;
+    private final ObjectMapper mapper;
+    private final Map<Path, RootEntry> roots = new HashMap<>();
+
+    /**
+     * @param indexDir directory for the persisted index, or null to keep it in memory
+     */
+    RepoReportIndex(Path indexDir) {
+        this(indexDir, DEFAULT_PARALLELISM);
+    }
+
+    RepoReportIndex(Path indexDir, int parallelism) {
+        this.indexDir = indexDir;
+        this.parallelism = Math.max(1, parallelism);
+        this.mapper = new ObjectMapper();
+        this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Finds the repos holding a report for an assignment. As before the index existed,
+     * only the last container directory holding such a report is used, and a later repo
+     * wins when two hold a report for the same package.
+     *
+     * @param rootPath course root
+     * @param assignmentId report file name prefix
+     * @return repo directory by student package
+     * @throws IOException when the root cannot be listed
+     */
+    synchronized Map<String, Path> reposWithReports(Path rootPath, String assignmentId)
+            throws IOException {
+        Map<String, Path> repos = new LinkedHashMap<>();
+        if (rootPath == null || assignmentId == null || !Files.isDirectory(rootPath)) {
+            return repos;
+        }
+
+        Path root = rootPath.toAbsolutePath().normalize();
+        RootEntry index = refresh(root);
+
+        ContainerEntry selected = null;
+        for (ContainerEntry container : index.containers()) {
+            if (hasReport(container, assignmentId)) {
+                selected = container;
+            }
+        }
+        if (selected == null) {
+            return repos;
+        }
+
+        Path containerDir = root.resolve(selected.name());
+        for (RepoEntry repo : selected.repos()) {
+            for (String report : repo.reports()) {
+                if (report.startsWith(assignmentId)) {
+                    String studentPackage = report.substring(
+                            assignmentId.length(),
+                            report.length() - REPORT_EXTENSION.length()
+                    );
+                    repos.put(studentPackage, containerDir.resolve(repo.name()));
+                }
+            }
+        }
+        return repos;
+    }
+
+    private RootEntry refresh(Path root) throws IOException {
+        RootEntry previous = roots.get(root);
+        if (previous == null) {
+            previous = readIndex(root);
+        }
+
+        long now = System.currentTimeMillis();
+        long rootModified = Files.getLastModifiedTime(root).toMillis();
+        List<String> containerNames;
+        long rootListedAt;
+        if (previous != null && isCurrent(previous.modifiedMillis(),
+                previous.listedAt(), rootModified)) {
+            containerNames = new ArrayList<>();
+            for (ContainerEntry container : previous.containers()) {
+                containerNames.add(container.name());
+            }
+            rootListedAt = previous.listedAt();
+        } else {
+            containerNames = listDirectories(root, true);
+            rootListedAt = now;
+        }
+
+        Map<String, ContainerEntry> previousContainers = new HashMap<>();
+        if (previous != null) {
+            for (ContainerEntry container : previous.containers()) {
+                previousContainers.put(container.name(), container);
+            }
+        }
+
+        List<ContainerEntry> containers = new ArrayList<>();
+        List<Callable<RepoEntry>> repoTasks = new ArrayList<>();
+        List<Integer> repoCounts = new ArrayList<>();
+        for (String name : containerNames) {
+            Path containerDir = root.resolve(name);
+            if (!Files.isDirectory(containerDir)) {
+                continue;
+            }
+            ContainerEntry old = previousContainers.get(name);
+            long modified = Files.getLastModifiedTime(containerDir).toMillis();
+
+            List<String> repoNames;
+            long listedAt;
+            if (old != null && isCurrent(old.modifiedMillis(), old.listedAt(), modified)) {
+                repoNames = new ArrayList<>();
+                for (RepoEntry repo : old.repos()) {
+                    repoNames.add(repo.name());
+                }
+                listedAt = old.listedAt();
+            } else {
+                repoNames = listDirectories(containerDir, false);
+                listedAt = now;
+            }
+
+            Map<String, RepoEntry> oldRepos = new HashMap<>();
+            if (old != null) {
+                for (RepoEntry repo : old.repos()) {
+                    oldRepos.put(repo.name(), repo);
+                }
+            }
+            for (String repoName : repoNames) {
+                RepoEntry oldRepo = oldRepos.get(repoName);
+                repoTasks.add(() -> refreshRepo(containerDir.resolve(repoName), oldRepo, now));
+            }
+            repoCounts.add(repoNames.size());
+            containers.add(new ContainerEntry(name, modified, listedAt, List.of()));
+        }
+
+        List<RepoEntry> repos = runAll(repoTasks);
+        int offset = 0;
+        for (int i = 0; i < containers.size(); i++) {
+            ContainerEntry container = containers.get(i);
+            List<RepoEntry> containerRepos = new ArrayList<>();
+            for (RepoEntry repo : repos.subList(offset, offset + repoCounts.get(i))) {
+                if (repo != null) {
+                    containerRepos.add(repo);
+                }
+            }
+            offset += repoCounts.get(i);
+            containers.set(i, new ContainerEntry(container.name(), container.modifiedMillis(),
+                    container.listedAt(), containerRepos));
+        }
+
+        RootEntry refreshed = new RootEntry(
+                root.toString(), rootModified, rootListedAt, containers);
+        roots.put(root, refreshed);
+        if (!refreshed.equals(previous)) {
+            writeIndex(root, refreshed);
+        }
+        return refreshed;
+    }
+
+    /*
+     * Returns null when the repo directory is gone, so it drops out of the index.
+     */
+    private static RepoEntry refreshRepo(Path repoDir, RepoEntry previous, long now)
+            throws IOException {
+        long modified;
+        try {
+            modified = Files.getLastModifiedTime(repoDir).toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+        if (previous != null
+                && isCurrent(previous.modifiedMillis(), previous.listedAt(), modified)) {
+            return previous;
+        }
+
+        List<String> reports = new ArrayList<>();
+        try (Stream<Path> files = Files.list(repoDir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(REPORT_EXTENSION)) {
+                    reports.add(name);
+                }
+            }
+        }
+        return new RepoEntry(repoDir.getFileName().toString(), modified, now, reports);
+    }
+
+    private List<RepoEntry> runAll(List<Callable<RepoEntry>> tasks) throws IOException {
+        List<RepoEntry> results = new ArrayList<>();
+        if (tasks.size() <= 1) {
+            for (Callable<RepoEntry> task : tasks) {
+                results.add(call(task));
+            }
+            return results;
+        }
+
+        int workers = Math.min(parallelism, tasks.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workers, newIndexThreadFactory());
+        try {
+            for (Future<RepoEntry> future : executor.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException io) {
+                        throw io;
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Scan interrupted.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private static RepoEntry call(Callable<RepoEntry> task) throws IOException {
+        try {
+            return task.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static List<String> listDirectories(Path dir, boolean skipPackages)
+            throws IOException {
+        List<String> names = new ArrayList<>();
+        try (Stream<Path> children = Files.list(dir)) {
+            for (Path child : children.toList()) {
+                String name = child.getFileName().toString();
+                if (skipPackages && name.equalsIgnoreCase(PACKAGES_DIR)) {
+                    continue;
+                }
+                if (Files.isDirectory(child)) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    private static boolean hasReport(ContainerEntry container, String assignmentId) {
+        for (RepoEntry repo : container.repos()) {
+            for (String report : repo.reports()) {
+                if (report.startsWith(assignmentId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCurrent(long recordedModified, long listedAt, long modified) {
+        return modified == recordedModified
+                && recordedModified < listedAt - RACY_WINDOW_MILLIS;
+    }
+
+    private Path indexFile(Path root) {
+        if (indexDir == null) {
+            return null;
+        }
+        String key = ResultCache.keyBuilder().add(root.toString()).build();
+        return indexDir.resolve("root-index-" + key.substring(0, 16) + ".json");
+    }
+
+    private RootEntry readIndex(Path root) {
+        Path file = indexFile(root);
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            RootEntry entry = mapper.readValue(file.toFile(), RootEntry.class);
+            return entry != null && root.toString().equals(entry.root()) ? entry : null;
+        } catch (IOException e) {
+            // An unreadable index is rebuilt from a full scan.
+            return null;
+        }
+    }
+
+    private void writeIndex(Path root, RootEntry entry) {
+        Path file = indexFile(root);
+        if (file == null) {
+            return;
+        }
+
+        Path temp = null;
+        try {
+            Files.createDirectories(indexDir);
+            temp = Files.createTempFile(indexDir, "root-index-", ".tmp");
+            mapper.writeValue(temp.toFile(), entry);
+            try {
+                Files.move(temp, file,
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ignored) {
+            // The in-memory index is still current; the next refresh tries again.
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort.
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory newIndexThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread worker =
+                    new Thread(runnable, "report-index-worker-" + counter.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        };
+    }
+
+    record RootEntry(String root,
+                     long modifiedMillis,
+                     long listedAt,
+                     List<ContainerEntry> containers) {
+
+        RootEntry {
+            containers = containers == null ? List.of() : List.copyOf(containers);
+        }
+    }
+
+    record ContainerEntry(String name,
+                          long modifiedMillis,
+                          long listedAt,
+                          List<RepoEntry> repos) {
+
+        ContainerEntry {
+            repos = repos == null ? List.of() : List.copyOf(repos);
+        }
+    }
+
+    record RepoEntry(String name, long modifiedMillis, long listedAt, List<String> reports) {
+
+        RepoEntry {
+            reports = reports == null ? List.of() : List.copyOf(reports);
+        }
+    }
+}
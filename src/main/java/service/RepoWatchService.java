@@ -0,0 +1,402 @@
+/*
+ * Course: CSC-1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Watch mode for late submissions: watches the student repo folders and regrades only
+ * the students whose {@code src/} tree actually changed, instead of rerunning Run All.
+ * <p>
+ * File events only mark a repo as pending. Once the repo has been quiet for
+ * {@code quietPeriod}, so a pull has finished writing, its source tree is hashed through
+ * the shared {@link SourceSnapshotCache} and compared with the hash it was last graded
+ * at. Events that leave the sources as they were, such as git's own files or the report
+ * being rewritten, therefore never trigger a regrade. A regrade the {@link Regrader}
+ * defers stays pending and is retried after another quiet period.
+ * </p>
+ */
+public class RepoWatchService implements AutoCloseable {
+
+    public static final Duration DEFAULT_QUIET_PERIOD = Duration.ofSeconds(3);
+
+    private static final String GIT_DIR = ".git";
+
+    private final Supplier<List<Path>> repoLister;
+    private final Regrader regrader;
+    private final ServiceLogger logger;
+    private final SourceSnapshotCache snapshots;
+    private final Duration quietPeriod;
+    private final Clock clock;
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> repoByKey = new HashMap<>();
+    private final Set<WatchKey> scanRootKeys = new HashSet<>();
+    private final Map<Path, String> gradedHashByRepo = new LinkedHashMap<>();
+    private final Map<Path, Long> pendingSinceByRepo = new LinkedHashMap<>();
+    private Thread worker;
+    private volatile boolean closed = false;
+
+    /**
+     * @param repoLister lists the repo folders under the selected root
+     * @param regrader regrades one repo
+     * @param logger logger
+     */
+    public RepoWatchService(Supplier<List<Path>> repoLister,
+                            Regrader regrader,
+                            ServiceLogger logger) throws IOException {
+        this(
+                repoLister,
+                regrader,
+                logger,
+                SourceSnapshotCache.shared(),
+                DEFAULT_QUIET_PERIOD,
+                Clock.systemUTC(),
+                FileSystems.getDefault().newWatchService()
+        );
+    }
+
+    RepoWatchService(Supplier<List<Path>> repoLister,
+                     Regrader regrader,
+                     ServiceLogger logger,
+                     SourceSnapshotCache snapshots,
+                     Duration quietPeriod,
+                     Clock clock,
+                     WatchService watcher) {
+        this.repoLister = Objects.requireNonNull(repoLister);
+        this.regrader = Objects.requireNonNull(regrader);
+        this.logger = Objects.requireNonNull(logger);
+        this.snapshots = Objects.requireNonNull(snapshots);
+        this.quietPeriod = Objects.requireNonNull(quietPeriod);
+        this.clock = Objects.requireNonNull(clock);
+        this.watcher = Objects.requireNonNull(watcher);
+    }
+
+    /**
+     * Records the current sources of every repo as graded, registers the watches and
+     * starts the watch thread.
+     */
+    public synchronized void start() throws IOException {
+        if (worker != null) {
+            return;
+        }
+        watchRepos();
+        worker = new Thread(this::watchLoop, "repo-watch-worker-1");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Records the current sources of every repo as graded and registers the watches,
+     * without starting the watch thread.
+     */
+    synchronized void watchRepos() throws IOException {
+        Set<Path> scanRoots = new HashSet<>();
+        for (Path repo : repoLister.get()) {
+            Path repoDir = repo.toAbsolutePath().normalize();
+            addRepo(repoDir, snapshots.treeHash(sourceDir(repoDir)));
+            if (repoDir.getParent() != null) {
+                scanRoots.add(repoDir.getParent());
+            }
+        }
+        for (Path scanRoot : scanRoots) {
+            scanRootKeys.add(register(scanRoot));
+        }
+        logger.log("Watching " + gradedHashByRepo.size() + " repo(s) for changes.");
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watcher.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+        Thread running;
+        synchronized (this) {
+            running = worker;
+        }
+        if (running != null) {
+            running.interrupt();
+        }
+    }
+
+    /**
+     * Marks a repo as changed now. Its quiet period starts over.
+     *
+     * @param repoDir repo folder
+     */
+    synchronized void recordChange(Path repoDir) {
+        Path key = repoDir.toAbsolutePath().normalize();
+        pendingSinceByRepo.remove(key);
+        pendingSinceByRepo.put(key, clock.millis());
+    }
+
+    /**
+     * @return repos marked as changed that were not regraded yet
+     */
+    synchronized Set<Path> pendingRepos() {
+        return Set.copyOf(pendingSinceByRepo.keySet());
+    }
+
+    /**
+     * Regrades every pending repo that has been quiet for the quiet period and whose
+     * sources differ from the last graded ones. Regrades run one at a time on the
+     * calling thread.
+     *
+     * @return number of repos regraded
+     */
+    int regradeDue() {
+        int regraded = 0;
+        for (Path repoDir : dueRepos()) {
+            String hash;
+            try {
+                Path sourceDir = sourceDir(repoDir);
+                // Repos without sources (deleted, or not cloned yet) have nothing to grade.
+                hash = Files.isDirectory(sourceDir) ? snapshots.treeHash(sourceDir) : null;
+            } catch (IOException e) {
+                logger.log("Watch: could not read " + repoDir.getFileName() + ": "
+                        + e.getMessage());
+                hash = null;
+            }
+
+            String graded;
+            synchronized (this) {
+                graded = gradedHashByRepo.get(repoDir);
+            }
+            if (hash == null || hash.equals(graded)) {
+                clearPending(repoDir);
+                continue;
+            }
+
+            Outcome outcome;
+            try {
+                outcome = regrader.regrade(repoDir);
+            } catch (RuntimeException e) {
+                logger.log("Watch: regrade failed for " + repoDir.getFileName() + ": "
+                        + e.getMessage());
+                outcome = Outcome.FAILED;
+            }
+
+            synchronized (this) {
+                if (outcome == Outcome.DEFERRED) {
+                    if (pendingSinceByRepo.containsKey(repoDir)) {
+                        pendingSinceByRepo.put(repoDir, clock.millis());
+                    }
+                    continue;
+                }
+                // A failed regrade is not retried until the sources change again.
+                gradedHashByRepo.put(repoDir, hash);
+            }
+            clearPending(repoDir);
+            if (outcome == Outcome.REGRADED) {
+                regraded++;
+            }
+        }
+        return regraded;
+    }
+
+    private synchronized List<Path> dueRepos() {
+        long now = clock.millis();
+        List<Path> due = new ArrayList<>();
+        for (Map.Entry<Path, Long> entry : pendingSinceByRepo.entrySet()) {
+            if (now - entry.getValue() >= quietPeriod.toMillis()) {
+                due.add(entry.getKey());
+            }
+        }
+        return due;
+    }
+
+    /*
+     * Only clears the mark if no new event arrived while the repo was being regraded.
+     */
+    private synchronized void clearPending(Path repoDir) {
+        Long since = pendingSinceByRepo.get(repoDir);
+        if (since != null && clock.millis() - since >= quietPeriod.toMillis()) {
+            pendingSinceByRepo.remove(repoDir);
+        }
+    }
+
+    private void watchLoop() {
+        long pollMillis = Math.max(50L, Math.min(quietPeriod.toMillis() / 2, 1_000L));
+        try {
+            while (!closed) {
+                WatchKey key = watcher.poll(pollMillis, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    handleEvents(key);
+                    key = watcher.poll();
+                }
+                regradeDue();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed by close().
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        boolean scanRoot;
+        Path repoDir;
+        synchronized (this) {
+            scanRoot = scanRootKeys.contains(key);
+            repoDir = repoByKey.get(key);
+        }
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                markAllChanged();
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            try {
+                if (scanRoot) {
+                    handleScanRootEvent(child);
+                } else if (repoDir != null) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                            && Files.isDirectory(child)) {
+                        registerTree(child, repoDir);
+                    }
+                    recordChange(repoDir);
+                }
+            } catch (IOException e) {
+                logger.log("Watch: could not register " + child + ": " + e.getMessage());
+            }
+        }
+
+        if (!key.reset()) {
+            synchronized (this) {
+                repoByKey.remove(key);
+                scanRootKeys.remove(key);
+            }
+        }
+    }
+
+    private void handleScanRootEvent(Path child) throws IOException {
+        Path repoDir = child.toAbsolutePath().normalize();
+        boolean known;
+        synchronized (this) {
+            known = gradedHashByRepo.containsKey(repoDir);
+        }
+        if (known) {
+            recordChange(repoDir);
+            return;
+        }
+        for (Path repo : repoLister.get()) {
+            if (repo.toAbsolutePath().normalize().equals(repoDir)) {
+                logger.log("Watch: new repo " + repoDir.getFileName());
+                addRepo(repoDir, null);
+                recordChange(repoDir);
+                return;
+            }
+        }
+    }
+
+    private void markAllChanged() {
+        List<Path> repos;
+        synchronized (this) {
+            repos = new ArrayList<>(gradedHashByRepo.keySet());
+        }
+        for (Path repo : repos) {
+            recordChange(repo);
+        }
+    }
+
+    private void addRepo(Path repoDir, String gradedHash) throws IOException {
+        synchronized (this) {
+            gradedHashByRepo.put(repoDir, gradedHash);
+        }
+        registerTree(repoDir, repoDir);
+    }
+
+    private void registerTree(Path start, Path repoDir) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                    throws IOException {
+                if (dir.getFileName() != null && GIT_DIR.equals(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = register(dir);
+                synchronized (RepoWatchService.this) {
+                    repoByKey.put(key, repoDir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private WatchKey register(Path dir) throws IOException {
+        return dir.register(
+                watcher,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+        );
+    }
+
+    /*
+     * Same layout rule as MappingService.resolveRepoRoot: src/ directly in the repo, or
+     * in its first subfolder that has one.
+     */
+    private static Path sourceDir(Path repoDir) throws IOException {
+        Path directSrc = repoDir.resolve("src");
+        if (Files.isDirectory(directSrc) || !Files.isDirectory(repoDir)) {
+            return directSrc;
+        }
+        try (Stream<Path> children = Files.list(repoDir)) {
+            return children
+                    .filter(Files::isDirectory)
+                    .map(p -> p.resolve("src"))
+                    .filter(Files::isDirectory)
+                    .findFirst()
+                    .orElse(directSrc);
+        }
+    }
+
+    public enum Outcome {
+        REGRADED,
+        /** Not regraded now; the repo stays pending and is retried later. */
+        DEFERRED,
+        FAILED
+    }
+
+    @FunctionalInterface
+    public interface Regrader {
+
+        /**
+         * Regrades one repo. Called on the watch thread, one repo at a time.
+         *
+         * @param repoDir repo folder whose sources changed
+         * @return what happened
+         */
+        Outcome regrade(Path repoDir);
+    }
+}
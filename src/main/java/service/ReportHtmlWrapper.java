@@ -4,6 +4,8 @@
  */
 package service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Objects;
 
 public class ReportHtmlWrapper {
@@ -11,16 +13,47 @@ public class ReportHtmlWrapper {
     private static final String OPEN_XMP_TAG = "<xmp>";
     private static final String CLOSE_XMP_TAG = "</xmp>";
 
+    private static final String DOCUMENT_START =
+            "<!DOCTYPE html><html><head><meta charset=\"utf-8\"/><title>";
+    private static final String BODY_START = "</title></head><body><xmp>\n";
+    private static final String DOCUMENT_END = "\n</xmp><script type=\"text/javascript\" "
+            + "src=\"https://csse.msoe.us/gradedown.js\"></script></body></html>\n";
+
     public String wrapMarkdownAsHtml(String title, String markdown) {
 
         Objects.requireNonNull(title);
         Objects.requireNonNull(markdown);
 
-        return """
-                <!DOCTYPE html><html><head><meta charset="utf-8"/><title>%s</title></head><body><xmp>
-                %s
-                </xmp><script type="text/javascript" src="https://csse.msoe.us/gradedown.js"></script></body></html>
-                """.formatted(title, markdown);
+        StringBuilder html = new StringBuilder(
+                DOCUMENT_START.length() + title.length() + BODY_START.length()
+                        + markdown.length() + DOCUMENT_END.length()
+        );
+        try {
+            writeHtml(title, out -> out.append(markdown), html);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return html.toString();
+    }
+
+    /**
+     * Writes the same document as {@link #wrapMarkdownAsHtml}, with the markdown
+     * streamed into {@code out} instead of passed as one string.
+     *
+     * @param title page title
+     * @param markdown writes the report markdown
+     * @param out destination
+     */
+    public void writeHtml(String title,
+                          ReportService.ContentWriter markdown,
+                          Appendable out) throws IOException {
+
+        Objects.requireNonNull(title);
+        Objects.requireNonNull(markdown);
+
+        out.append(DOCUMENT_START).append(title).append(BODY_START);
+        markdown.writeTo(out);
+        out.append(DOCUMENT_END);
     }
 
     public String extractMarkdown(String html) {
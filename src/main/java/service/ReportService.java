@@ -10,34 +10,89 @@ import model.RepoMapping;
 import model.RubricTableBuilder;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ReportService {
 
     private static final String FEEDBACK_FOLDER_NAME = "feedback";
+    private static final String STAGE_WRITE = "write";
 
     private final AssignmentsFile assignmentsFile;
     private final ReportDependencies deps;
     private final ReportFileWriter reportFileWriter;
+    private final int parallelism;
+    private final Object logLock = new Object();
+    private volatile RunMetrics runMetrics = new RunMetrics();
+    private volatile RemainingTimeEstimator.Listener progressListener = _ -> { };
+    private RemainingTimeEstimator progress;
+    private JobDurationHistory durationHistory;
+    private String durationHistoryAssignmentId;
 
     public ReportService(AssignmentsFile assignmentsFile,
                          ReportDependencies deps) {
-        this(assignmentsFile, deps, null);
+        this(assignmentsFile, deps, null, 1);
+    }
+
+    /**
+     * Creates a report service that generates up to {@code parallelism} student
+     * reports at the same time. A value of 1 keeps the sequential behavior.
+     *
+     * @param assignmentsFile assignments and rubric library
+     * @param deps report dependencies (must be safe to call from worker threads)
+     * @param parallelism maximum number of students processed concurrently
+     */
+    public ReportService(AssignmentsFile assignmentsFile,
+                         ReportDependencies deps,
+                         int parallelism) {
+        this(assignmentsFile, deps, null, parallelism);
     }
 
     ReportService(AssignmentsFile assignmentsFile,
                   ReportDependencies deps,
                   ReportFileWriter reportFileWriter) {
+        this(assignmentsFile, deps, reportFileWriter, 1);
+    }
+
+    ReportService(AssignmentsFile assignmentsFile,
+                  ReportDependencies deps,
+                  ReportFileWriter reportFileWriter,
+                  int parallelism) {
 
         this.assignmentsFile = Objects.requireNonNull(assignmentsFile);
-        this.deps = Objects.requireNonNull(deps);
+        this.deps = new InstrumentedReportDependencies(Objects.requireNonNull(deps));
         this.reportFileWriter = reportFileWriter == null
                 ? this::writeReportFileAtomically
                 : reportFileWriter;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Worker count used for parallel report generation on this machine.
+     *
+     * @return number of available processors, at least 1
+     */
+    public static int defaultParallelism() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param listener told whenever a student is queued, starts or finishes, on the
+     *                 thread doing so
+     */
+    public void setProgressListener(RemainingTimeEstimator.Listener listener) {
+        this.progressListener = listener == null ? _ -> { } : listener;
     }
 
     public ReportGenerationResult generateReports(Assignment assignment,
@@ -60,9 +115,7 @@ public class ReportService {
             return new ReportGenerationResult(false, false);
         }
 
-        final String reportFilePrefix = assignment.getAssignmentCode();
         final String packagesFolderName = "packages";
-        final String reportExtension = ".html";
 
         Path packagesRoot = selectedRootPath.resolve(packagesFolderName);
 
@@ -88,71 +141,386 @@ public class ReportService {
         List<String> packageNames = new ArrayList<>(mapping.keySet());
         packageNames.sort(String::compareTo);
 
-        deps.log("Generating reports for " + packageNames.size() + " student package(s).");
+        beginRun();
+        try (RunMetrics.Scope _ = runMetrics.bind(RunMetrics.RUN_SCOPE)) {
+            deps.prepareCheckstyleResults(collectRepoRoots(packageNames, mapping));
+        }
 
-        for (String pkg : packageNames) {
+        int workers = Math.min(parallelism, packageNames.size());
+        JobDurationHistory history = durationHistory(assignment);
+        RemainingTimeEstimator estimator = resetProgress(history, workers);
+        packageNames.forEach(estimator::expect);
 
-            RepoMapping repo = mapping.get(pkg);
-            if (repo == null) {
-                deps.log("SKIP " + pkg + ": mapping missing.");
-                hadFailures = true;
-                continue;
-            }
+        if (workers <= 1) {
+            deps.log("Generating reports for " + packageNames.size() + " student package(s).");
 
-            String repoPathStr = repo.getRepoPath();
-            if (repoPathStr == null || repoPathStr.trim().isEmpty()) {
-                deps.log("SKIP " + pkg + ": repoPath missing in mapping.");
-                hadFailures = true;
-                continue;
+            for (String pkg : packageNames) {
+                ReportGenerationResult studentResult = generateStudentReport(
+                        assignment,
+                        selectedRootPath,
+                        pkg,
+                        mapping.get(pkg),
+                        deps::log
+                );
+                wroteAny |= studentResult.wroteAny();
+                hadFailures |= studentResult.hadFailures();
             }
+        } else {
+            deps.log("Generating reports for " + packageNames.size()
+                    + " student package(s) using " + workers + " worker(s).");
+
+            // Slow students go first so they do not hold up the end of the run.
+            ReportGenerationResult parallelResult = generateInParallel(
+                    assignment,
+                    selectedRootPath,
+                    history.longestFirst(packageNames),
+                    mapping,
+                    workers
+            );
+            wroteAny = parallelResult.wroteAny();
+            hadFailures = parallelResult.hadFailures();
+        }
 
-            Path mappedRepoPath = Path.of(repoPathStr);
+        writeRunMetrics();
+        deps.log("Generate Reports complete.");
 
-            if (!Files.exists(mappedRepoPath) || !Files.isDirectory(mappedRepoPath)) {
-                deps.log("SKIP " + pkg + ": repo path missing: " + mappedRepoPath);
-                hadFailures = true;
-                continue;
+        return new ReportGenerationResult(wroteAny, hadFailures);
+    }
+
+    private ReportGenerationResult generateInParallel(Assignment assignment,
+                                                      Path selectedRootPath,
+                                                      List<String> packageNames,
+                                                      Map<String, RepoMapping> mapping,
+                                                      int workers) {
+        boolean wroteAny = false;
+        boolean hadFailures = false;
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers, newWorkerThreadFactory());
+        Map<String, Future<ReportGenerationResult>> futures = new LinkedHashMap<>();
+
+        try {
+            for (String pkg : packageNames) {
+                RepoMapping repo = mapping.get(pkg);
+                futures.put(pkg, executor.submit(() -> generateStudentReport(
+                        assignment,
+                        selectedRootPath,
+                        pkg,
+                        repo
+                )));
             }
 
-            Path repoRoot = deps.resolveRepoRoot(mappedRepoPath);
+            for (Map.Entry<String, Future<ReportGenerationResult>> entry : futures.entrySet()) {
+                try {
+                    ReportGenerationResult studentResult = entry.getValue().get();
+                    wroteAny |= studentResult.wroteAny();
+                    hadFailures |= studentResult.hadFailures();
+                } catch (ExecutionException e) {
+                    deps.log("FAIL " + entry.getKey() + ": " + e.getCause());
+                    hadFailures = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deps.log("Generate Reports interrupted; remaining students were cancelled.");
+            hadFailures = true;
+        } finally {
+            executor.shutdownNow();
+        }
 
-            if (repoRoot == null || !Files.isDirectory(repoRoot)) {
-                deps.log("SKIP " + pkg + ": could not resolve repo root from: " + mappedRepoPath);
-                hadFailures = true;
-                continue;
+        return new ReportGenerationResult(wroteAny, hadFailures);
+    }
+
+    /**
+     * Generates one student's report, for callers that schedule students themselves.
+     * Safe to call from worker threads; the student's log lines, including those the
+     * tool services log through a {@link StudentLog#routing} logger, are written as
+     * one block.
+     *
+     * @param assignment assignment being graded
+     * @param selectedRootPath selected course root
+     * @param pkg student package
+     * @param repo mapping entry for the student's repo
+     * @return the result for this student
+     */
+    public ReportGenerationResult generateStudentReport(Assignment assignment,
+                                                        Path selectedRootPath,
+                                                        String pkg,
+                                                        RepoMapping repo) {
+        List<String> studentLog = new ArrayList<>();
+        try (StudentLog.Scope _ = StudentLog.bind(studentLog)) {
+            return generateStudentReport(
+                    assignment,
+                    selectedRootPath,
+                    pkg,
+                    repo,
+                    studentLog::add
+            );
+        } catch (RuntimeException e) {
+            studentLog.add("FAIL " + pkg + ": " + e.getMessage());
+            return new ReportGenerationResult(false, true);
+        } finally {
+            flushStudentLog(studentLog);
+        }
+    }
+
+    /**
+     * Starts recording timings for a new run, dropping those of the previous one.
+     * Callers that schedule students themselves call this before their first student.
+     */
+    public void beginRun() {
+        runMetrics = new RunMetrics();
+    }
+
+    /**
+     * Runs checkstyle over a group of students at once, for callers that schedule
+     * students themselves. Their later reports are answered from these results.
+     *
+     * @param repoDirs the students' repo folders
+     */
+    public void prepareCheckstyleResults(Collection<Path> repoDirs) {
+        List<Path> repoRoots = resolveRepoRoots(repoDirs);
+        if (repoRoots.isEmpty()) {
+            return;
+        }
+        try (RunMetrics.Scope _ = runMetrics.bind(RunMetrics.RUN_SCOPE)) {
+            deps.prepareCheckstyleResults(repoRoots);
+        }
+    }
+
+    /**
+     * Adds a student whose report will be generated later through
+     * {@link #generateStudentReport(Assignment, Path, String, RepoMapping)}, so the
+     * remaining time includes it.
+     *
+     * @param assignment assignment being graded
+     * @param pkg student package
+     */
+    public void expectStudentReport(Assignment assignment, String pkg) {
+        progress(assignment).expect(pkg);
+    }
+
+    /**
+     * @param assignment assignment being graded
+     * @param pkg student package
+     * @return how long the student's report is expected to take, from earlier runs
+     */
+    public double expectedMillis(Assignment assignment, String pkg) {
+        return durationHistory(assignment).expectedMillis(pkg);
+    }
+
+    private ReportGenerationResult generateStudentReport(Assignment assignment,
+                                                         Path selectedRootPath,
+                                                         String pkg,
+                                                         RepoMapping repo,
+                                                         ServiceLogger log) {
+        RemainingTimeEstimator estimator = progress(assignment);
+        estimator.started(pkg);
+        try {
+            return writeStudentReport(assignment, selectedRootPath, pkg, repo, log);
+        } finally {
+            estimator.finished(pkg);
+        }
+    }
+
+    private ReportGenerationResult writeStudentReport(Assignment assignment,
+                                                      Path selectedRootPath,
+                                                      String pkg,
+                                                      RepoMapping repo,
+                                                      ServiceLogger log) {
+        final String reportFilePrefix = assignment.getAssignmentCode();
+        final String reportExtension = ".html";
+
+        if (repo == null) {
+            log.log("SKIP " + pkg + ": mapping missing.");
+            return new ReportGenerationResult(false, true);
+        }
+
+        String repoPathStr = repo.getRepoPath();
+        if (repoPathStr == null || repoPathStr.trim().isEmpty()) {
+            log.log("SKIP " + pkg + ": repoPath missing in mapping.");
+            return new ReportGenerationResult(false, true);
+        }
+
+        Path mappedRepoPath = Path.of(repoPathStr);
+
+        if (!Files.exists(mappedRepoPath) || !Files.isDirectory(mappedRepoPath)) {
+            log.log("SKIP " + pkg + ": repo path missing: " + mappedRepoPath);
+            return new ReportGenerationResult(false, true);
+        }
+
+        Path repoRoot = deps.resolveRepoRoot(mappedRepoPath);
+
+        if (repoRoot == null || !Files.isDirectory(repoRoot)) {
+            log.log("SKIP " + pkg + ": could not resolve repo root from: " + mappedRepoPath);
+            return new ReportGenerationResult(false, true);
+        }
+
+        String reportFileName = reportFilePrefix + pkg + reportExtension;
+        Path reportPath = repoRoot.resolve(reportFileName);
+        RunMetrics metrics = runMetrics;
+
+        try (RunMetrics.Scope _ = metrics.bind(pkg)) {
+            ReportSections sections = collectReportSections(
+                    assignment,
+                    pkg,
+                    repoRoot,
+                    reportFilePrefix
+            );
+            ContentWriter html = out -> deps.writeHtmlDocument(
+                    pkg,
+                    markdown -> writeReportMarkdown(assignment, pkg, repoRoot, sections, markdown),
+                    out
+            );
+
+            long writeStart = System.nanoTime();
+            reportFileWriter.write(reportPath, html);
+            long reportBytes = Files.size(reportPath);
+            long copyBytes = writeFeedbackCopy(selectedRootPath, reportFileName, reportPath);
+            metrics.recordStage(pkg, STAGE_WRITE, System.nanoTime() - writeStart);
+            metrics.recordBytesWritten(reportBytes + copyBytes);
+
+            log.log("OK " + pkg + ": wrote report " + reportFileName);
+            return new ReportGenerationResult(true, false);
+
+        } catch (IOException e) {
+            log.log("FAIL " + pkg + ": could not write report: " + e.getMessage());
+            return new ReportGenerationResult(false, true);
+        }
+    }
+
+    /**
+     * Writes the timings recorded since the last {@link #beginRun} (which
+     * {@link #generateReports} calls itself) into a new run artifacts folder, and adds
+     * them to the duration history the next run is scheduled from.
+     *
+     * @return the folder written, or null when no artifacts location is available
+     */
+    public Path writeRunMetrics() {
+        saveDurationHistory();
+        ToolArtifactService artifacts = deps.toolArtifactService();
+        if (artifacts == null) {
+            return null;
+        }
+        try {
+            Path runRoot = artifacts.createRunArtifactsRoot();
+            runMetrics.writeTo(runRoot);
+            deps.log("Wrote run metrics to " + runRoot.resolve(RunMetrics.METRICS_FILE_NAME));
+            return runRoot;
+        } catch (IOException e) {
+            deps.log("Failed to write run metrics: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return timings recorded for the current run
+     */
+    public RunMetrics runMetrics() {
+        return runMetrics;
+    }
+
+    private synchronized JobDurationHistory durationHistory(Assignment assignment) {
+        String assignmentId = assignment.getCourseCode() + assignment.getAssignmentCode();
+        if (durationHistory == null || !assignmentId.equals(durationHistoryAssignmentId)) {
+            ToolArtifactService artifacts = deps.toolArtifactService();
+            Path file = null;
+            if (artifacts != null) {
+                String key = ResultCache.keyBuilder().add(assignmentId).build();
+                file = artifacts.jobHistoryRoot()
+                        .resolve("durations-" + key.substring(0, 16) + ".json");
             }
+            durationHistory = new JobDurationHistory(file);
+            durationHistoryAssignmentId = assignmentId;
+            progress = null;
+        }
+        return durationHistory;
+    }
 
-            String reportFileName = reportFilePrefix + pkg + reportExtension;
-            Path reportPath = repoRoot.resolve(reportFileName);
+    private synchronized RemainingTimeEstimator progress(Assignment assignment) {
+        JobDurationHistory history = durationHistory(assignment);
+        if (progress == null) {
+            progress = resetProgress(history, parallelism);
+        }
+        return progress;
+    }
 
-            try {
-                String markdown = buildReportMarkdown(
-                        assignment,
-                        pkg,
-                        repoRoot,
-                        reportFilePrefix
-                );
-                String html = deps.wrapMarkdownAsHtml(pkg, markdown);
+    private synchronized RemainingTimeEstimator resetProgress(JobDurationHistory history,
+                                                              int workers) {
+        progress = new RemainingTimeEstimator(
+                history,
+                workers,
+                update -> progressListener.onProgress(update)
+        );
+        return progress;
+    }
 
-                reportFileWriter.write(reportPath, html);
-                writeFeedbackCopy(selectedRootPath, reportFileName, html);
+    private void saveDurationHistory() {
+        JobDurationHistory history;
+        synchronized (this) {
+            history = durationHistory;
+        }
+        if (history == null) {
+            return;
+        }
+        history.record(runMetrics.snapshot());
+        try {
+            history.save();
+        } catch (IOException e) {
+            deps.log("Failed to save report durations: " + e.getMessage());
+        }
+    }
 
-                wroteAny = true;
-                deps.log("OK " + pkg + ": wrote report " + reportFileName);
+    private List<Path> collectRepoRoots(List<String> packageNames,
+                                        Map<String, RepoMapping> mapping) {
+        List<Path> mappedRepoPaths = new ArrayList<>();
+        for (String pkg : packageNames) {
+            RepoMapping repo = mapping.get(pkg);
+            String repoPathStr = repo == null ? null : repo.getRepoPath();
+            if (repoPathStr == null || repoPathStr.trim().isEmpty()) {
+                continue;
+            }
+            mappedRepoPaths.add(Path.of(repoPathStr));
+        }
+        return resolveRepoRoots(mappedRepoPaths);
+    }
 
-            } catch (IOException e) {
-                deps.log("FAIL " + pkg + ": could not write report: " + e.getMessage());
-                hadFailures = true;
+    private List<Path> resolveRepoRoots(Collection<Path> mappedRepoPaths) {
+        List<Path> repoRoots = new ArrayList<>();
+        for (Path mappedRepoPath : mappedRepoPaths) {
+            if (mappedRepoPath == null || !Files.isDirectory(mappedRepoPath)) {
+                continue;
+            }
+            Path repoRoot = deps.resolveRepoRoot(mappedRepoPath);
+            if (repoRoot != null && Files.isDirectory(repoRoot)) {
+                repoRoots.add(repoRoot);
             }
         }
+        return repoRoots;
+    }
 
-        deps.log("Generate Reports complete.");
+    private void flushStudentLog(List<String> studentLog) {
+        synchronized (logLock) {
+            for (String line : studentLog) {
+                deps.log(line);
+            }
+        }
+    }
 
-        return new ReportGenerationResult(wroteAny, hadFailures);
+    private static ThreadFactory newWorkerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread worker = new Thread(runnable, "report-worker-" + counter.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        };
     }
 
+    /*
+     * The report is streamed into a temp file next to its target and moved into place,
+     * so readers never see a partial report and a failed write leaves the old one.
+     */
     private void writeReportFileAtomically(Path reportPath,
-                                           String html) throws IOException {
+                                           ContentWriter html) throws IOException {
         Path parent = reportPath.getParent();
         if (parent != null) {
             Files.createDirectories(parent);
@@ -163,17 +531,10 @@ public class ReportService {
         boolean moved = false;
 
         try {
-            Files.writeString(tempFile, html);
-            try {
-                Files.move(
-                        tempFile,
-                        reportPath,
-                        StandardCopyOption.ATOMIC_MOVE,
-                        StandardCopyOption.REPLACE_EXISTING
-                );
-            } catch (AtomicMoveNotSupportedException e) {
-                Files.move(tempFile, reportPath, StandardCopyOption.REPLACE_EXISTING);
+            try (Writer out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                html.writeTo(out);
             }
+            moveIntoPlace(tempFile, reportPath);
             moved = true;
         } finally {
             if (!moved) {
@@ -182,20 +543,55 @@ public class ReportService {
         }
     }
 
-    private void writeFeedbackCopy(Path selectedRootPath,
+    /*
+     * Returns the bytes written for the copy.
+     */
+    private long writeFeedbackCopy(Path selectedRootPath,
                                    String reportFileName,
-                                   String html) throws IOException {
+                                   Path reportPath) throws IOException {
         Path feedbackDir = selectedRootPath.resolve(FEEDBACK_FOLDER_NAME);
         Path feedbackReportPath = feedbackDir.resolve(reportFileName);
-        writeReportFileAtomically(feedbackReportPath, html);
+        Files.createDirectories(feedbackDir);
+
+        Path tempFile = Files.createTempFile(feedbackDir, reportFileName, ".tmp");
+        boolean moved = false;
+
+        try {
+            Files.copy(reportPath, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            long copied = Files.size(tempFile);
+            moveIntoPlace(tempFile, feedbackReportPath);
+            moved = true;
+            return copied;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
     }
 
-    private String buildReportMarkdown(Assignment assignment,
-                                       String studentPackage,
-                                       Path repoPath,
-                                       String reportFilePrefix) {
+    private static void moveIntoPlace(Path tempFile, Path target) throws IOException {
+        try {
+            Files.move(
+                    tempFile,
+                    target,
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+            );
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /*
+     * Runs the tools up front, since the rubric table at the top of the report needs
+     * their results. Source code and commit history are written later, while the
+     * report streams to disk.
+     */
+    private ReportSections collectReportSections(Assignment assignment,
+                                                 String studentPackage,
+                                                 Path repoPath,
+                                                 String reportFilePrefix) {
 
-        final String newline = System.lineSeparator();
         CheckstyleService.CheckstyleResult cs = deps.buildCheckstyleResult(repoPath);
 
         UnitTestService.UnitTestResult ut =
@@ -230,21 +626,33 @@ public class ReportService {
                 );
         rubricTableMarkdown = removeTotalRowFromRubricTable(rubricTableMarkdown);
 
-        return
-                "# " + assignment.getAssignmentName() + newline + newline +
-                        rubricTableMarkdown + newline +
-                        ">" + newline +
-                        ">" + newline +
-                        "> # Feedback" + newline +
-                        feedbackMarkdown + newline + newline +
-                        "## Source Code" + newline + newline +
-                        deps.buildSourceCodeMarkdown(assignment, studentPackage, repoPath) + newline + newline +
-                        "## Checkstyle Violations" + newline + newline +
-                        cs.markdown() + newline + newline +
-                        "## Failed Unit Tests" + newline + newline +
-                        wrapInCodeFence(ut.markdown()) + newline + newline +
-                        "## Commit History (Last 10)" + newline + newline +
-                        deps.buildCommitHistoryMarkdown(repoPath) + newline;
+        return new ReportSections(rubricTableMarkdown, feedbackMarkdown, cs.markdown(),
+                wrapInCodeFence(ut.markdown()));
+    }
+
+    private void writeReportMarkdown(Assignment assignment,
+                                     String studentPackage,
+                                     Path repoPath,
+                                     ReportSections sections,
+                                     Appendable out) throws IOException {
+
+        final String newline = System.lineSeparator();
+
+        out.append("# ").append(assignment.getAssignmentName()).append(newline).append(newline)
+                .append(sections.rubricTable()).append(newline)
+                .append(">").append(newline)
+                .append(">").append(newline)
+                .append("> # Feedback").append(newline)
+                .append(sections.feedback()).append(newline).append(newline)
+                .append("## Source Code").append(newline).append(newline);
+        deps.writeSourceCodeMarkdown(assignment, studentPackage, repoPath, out);
+        out.append(newline).append(newline)
+                .append("## Checkstyle Violations").append(newline).append(newline)
+                .append(sections.checkstyle()).append(newline).append(newline)
+                .append("## Failed Unit Tests").append(newline).append(newline)
+                .append(sections.unitTests()).append(newline).append(newline)
+                .append("## Commit History (Last 10)").append(newline).append(newline)
+                .append(deps.buildCommitHistoryMarkdown(repoPath)).append(newline);
     }
 
     private String wrapInCodeFence(String text) {
@@ -273,6 +681,12 @@ public class ReportService {
         return out.toString().replaceFirst("(?s)\\R\\z", "");
     }
 
+    private record ReportSections(String rubricTable,
+                                  String feedback,
+                                  String checkstyle,
+                                  String unitTests) {
+    }
+
     public record ReportGenerationResult(boolean wroteAny, boolean hadFailures) {
 
         public boolean isSuccess() {
@@ -290,6 +704,16 @@ public class ReportService {
 
         CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath);
 
+        /**
+         * Called once before any student is processed so checkstyle can run over the
+         * whole section at once. Later {@link #buildCheckstyleResult(Path)} calls may
+         * then be answered from the precomputed results.
+         *
+         * @param repoRoots resolved repo roots for every mapped student
+         */
+        default void prepareCheckstyleResults(Collection<Path> repoRoots) {
+        }
+
         UnitTestService.UnitTestResult buildUnitTestResultMarkdown(
                 String studentPackage,
                 Path repoPath);
@@ -309,17 +733,49 @@ public class ReportService {
                 String studentPackage,
                 Path repoPath);
 
+        /**
+         * Streams the source code section into {@code out}. The default writes the
+         * result of {@link #buildSourceCodeMarkdown} in one piece.
+         */
+        default void writeSourceCodeMarkdown(Assignment assignment,
+                                             String studentPackage,
+                                             Path repoPath,
+                                             Appendable out) throws IOException {
+            out.append(buildSourceCodeMarkdown(assignment, studentPackage, repoPath));
+        }
+
         String buildCommitHistoryMarkdown(Path repoPath);
 
         String wrapMarkdownAsHtml(String title, String markdown);
 
+        /**
+         * Streams the HTML report into {@code out}. The default collects the markdown
+         * and passes it to {@link #wrapMarkdownAsHtml}; implementations backed by
+         * {@link ReportHtmlWrapper#writeHtml} never hold the whole report in memory.
+         */
+        default void writeHtmlDocument(String title,
+                                       ContentWriter markdown,
+                                       Appendable out) throws IOException {
+            StringBuilder collected = new StringBuilder();
+            markdown.writeTo(collected);
+            out.append(wrapMarkdownAsHtml(title, collected.toString()));
+        }
+
         default ToolArtifactService toolArtifactService() {
             return null;
         }
     }
 
+    /**
+     * Writes one piece of report content, such as the markdown or the whole HTML page.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(Appendable out) throws IOException;
+    }
+
     @FunctionalInterface
     interface ReportFileWriter {
-        void write(Path reportPath, String html) throws IOException;
+        void write(Path reportPath, ContentWriter html) throws IOException;
     }
 }
@@ -0,0 +1,287 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of tool results (checkstyle, unit tests) keyed by a content hash of
+ * everything that can change the result. Entries live as small JSON files under
+ * {@code <cacheRoot>/<kind>/<key>.json}. Reading an entry refreshes its timestamp, and
+ * the least recently used entries are evicted once the cache grows past its size limit.
+ */
+public class ResultCache {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+
+    private final Path cacheRoot;
+    private final long maxBytes;
+    private final ServiceLogger logger;
+    private final ObjectMapper mapper;
+
+    public ResultCache(Path cacheRoot, long maxBytes, ServiceLogger logger) {
+        this.cacheRoot = Objects.requireNonNull(cacheRoot);
+        this.maxBytes = Math.max(0L, maxBytes);
+        this.logger = Objects.requireNonNull(logger);
+        this.mapper = new ObjectMapper();
+        this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Looks up an entry.
+     *
+     * @param kind result kind, e.g. {@code checkstyle}
+     * @param key content-hash key from {@link #keyBuilder()}
+     * @param type type to read
+     * @return the cached value, or empty on a miss or an unreadable entry
+     */
+    public <T> Optional<T> get(String kind, String key, Class<T> type) {
+        Path entry = entryPath(kind, key);
+        if (!Files.isRegularFile(entry)) {
+            return Optional.empty();
+        }
+
+        try {
+            T value = mapper.readValue(entry.toFile(), type);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.ofNullable(value);
+        } catch (IOException e) {
+            logger.log("Discarding unreadable cache entry " + entry + ": " + e.getMessage());
+            deleteQuietly(entry);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores an entry, then evicts old entries if the cache is over its size limit.
+     *
+     * @param kind result kind
+     * @param key content-hash key
+     * @param value value to store
+     */
+    public void put(String kind, String key, Object value) {
+        Path entry = entryPath(kind, key);
+        Path tempFile = null;
+
+        try {
+            Files.createDirectories(entry.getParent());
+            tempFile = Files.createTempFile(entry.getParent(), key, ".tmp");
+            mapper.writeValue(tempFile.toFile(), value);
+            try {
+                Files.move(
+                        tempFile,
+                        entry,
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING
+                );
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+        } catch (IOException e) {
+            logger.log("Failed to write cache entry " + entry + ": " + e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                deleteQuietly(tempFile);
+            }
+        }
+
+        evictIfOversized();
+    }
+
+    /**
+     * Removes one entry.
+     *
+     * @param kind result kind
+     * @param key content-hash key
+     */
+    public void invalidate(String kind, String key) {
+        deleteQuietly(entryPath(kind, key));
+    }
+
+    /**
+     * Removes every cached result.
+     *
+     * @return number of entries removed
+     */
+    public synchronized int invalidateAll() {
+        List<Path> entries = listEntries();
+        for (Path entry : entries) {
+            deleteQuietly(entry);
+        }
+        return entries.size();
+    }
+
+    /**
+     * @return a builder for content-hash keys
+     */
+    public static KeyBuilder keyBuilder() {
+        return new KeyBuilder();
+    }
+
+    private Path entryPath(String kind, String key) {
+        return cacheRoot.resolve(kind).resolve(key + ".json");
+    }
+
+    private synchronized void evictIfOversized() {
+        List<Path> entries = listEntries();
+        long total = 0L;
+        List<CacheEntry> sized = new ArrayList<>();
+
+        for (Path entry : entries) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+                sized.add(new CacheEntry(entry, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                total += attrs.size();
+            } catch (IOException ignored) {
+                // Entry vanished while listing; nothing to count.
+            }
+        }
+
+        if (total <= maxBytes) {
+            return;
+        }
+
+        sized.sort(Comparator.comparingLong(CacheEntry::lastUsedMillis));
+        for (CacheEntry entry : sized) {
+            if (total <= maxBytes) {
+                break;
+            }
+            deleteQuietly(entry.path());
+            total -= entry.size();
+        }
+    }
+
+    private List<Path> listEntries() {
+        if (!Files.isDirectory(cacheRoot)) {
+            return List.of();
+        }
+        try (Stream<Path> stream = Files.walk(cacheRoot)) {
+            return stream
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().endsWith(".json"))
+                    .toList();
+        } catch (IOException e) {
+            logger.log("Failed to list result cache: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.log("Failed to delete cache entry " + path + ": " + e.getMessage());
+        }
+    }
+
+    private record CacheEntry(Path path, long size, long lastUsedMillis) {
+    }
+
+    /**
+     * Builds a SHA-256 key from strings, single files and whole directory trees.
+     * Trees are hashed by sorted relative path and content, so the key only changes
+     * when a file is added, removed, renamed or edited.
+     */
+    public static final class KeyBuilder {
+
+        private final MessageDigest digest;
+
+        private KeyBuilder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        public KeyBuilder add(String value) {
+            byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+            addLength(bytes.length);
+            digest.update(bytes);
+            return this;
+        }
+
+        public KeyBuilder addFile(Path file) throws IOException {
+            if (file == null || !Files.isRegularFile(file)) {
+                return add("<missing>");
+            }
+            addLength(Files.size(file));
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] buffer = new byte[8192];
+                int read = in.read(buffer);
+                while (read >= 0) {
+                    digest.update(buffer, 0, read);
+                    read = in.read(buffer);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds a file by name, size and modification time only. Used for large tool
+         * jars, where a content hash would cost more than it saves.
+         */
+        public KeyBuilder addFileIdentity(Path file) throws IOException {
+            if (file == null || !Files.isRegularFile(file)) {
+                return add("<missing>");
+            }
+            return add(file.getFileName().toString())
+                    .add(String.valueOf(Files.size(file)))
+                    .add(String.valueOf(Files.getLastModifiedTime(file).toMillis()));
+        }
+
+        public KeyBuilder addTree(Path root) throws IOException {
+            if (root == null || !Files.isDirectory(root)) {
+                return add("<no-tree>");
+            }
+
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(root)) {
+                files = stream
+                        .filter(Files::isRegularFile)
+                        .sorted(Comparator.comparing(p -> root.relativize(p).toString()))
+                        .toList();
+            }
+
+            add(String.valueOf(files.size()));
+            for (Path file : files) {
+                add(root.relativize(file).toString().replace('\\', '/'));
+                addFile(file);
+            }
+            return this;
+        }
+
+        public String build() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        private void addLength(long length) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                digest.update((byte) (length >>> shift));
+            }
+        }
+    }
+}
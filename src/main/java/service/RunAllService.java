@@ -1,12 +1,17 @@
 package service;
 
 import model.Assignment;
+import service.steps.ExtractStep;
+import service.steps.ReportsStep;
 import service.steps.RunAllStep;
 import service.steps.StepResult;
 import service.steps.WorkflowStep;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RunAllService {
 
@@ -16,7 +21,13 @@ public class RunAllService {
     public RunAllService(List<WorkflowStep> steps,
                          ServiceLogger logger) {
 
-        this.engine = new WorkflowEngine(steps, logger);
+        this(new WorkflowEngine(steps, logger), logger);
+    }
+
+    public RunAllService(WorkflowEngine engine,
+                         ServiceLogger logger) {
+
+        this.engine = engine;
         this.logger = logger;
     }
 
@@ -46,6 +57,99 @@ public class RunAllService {
         return result;
     }
 
+    /**
+     * Starts watch mode after a run. A student whose sources change is re-extracted and
+     * gets a new report, which reruns checkstyle and the unit tests for that student
+     * only. Students whose grading draft has unsaved edits are held back until the draft
+     * is saved, so the report under the draft is not replaced while it is being
+     * edited; the regenerated report keeps the saved feedback and deductions.
+     *
+     * @param assignment assignment being graded
+     * @param root selected course root
+     * @param mappingsPath mappings file of the run
+     * @param extractStep extracts one repo
+     * @param reportsStep generates one student's report
+     * @param drafts tells which drafts are open and hears about replaced reports
+     * @return the running watcher; close it to stop watching
+     * @throws IOException when the watches cannot be registered
+     */
+    public RepoWatchService watchForChanges(Assignment assignment,
+                                            Path root,
+                                            Path mappingsPath,
+                                            ExtractStep extractStep,
+                                            ReportsStep reportsStep,
+                                            DraftGuard drafts)
+            throws IOException {
+
+        WorkflowContext context = new WorkflowContext(null, assignment, root, mappingsPath);
+        Set<String> heldBack = ConcurrentHashMap.newKeySet();
+
+        RepoWatchService.Regrader regrader = repoDir -> {
+            MappingService.ExtractedPackage extracted;
+            try {
+                extracted = extractStep.extractRepo(context, repoDir);
+            } catch (IOException e) {
+                logger.log("Extract failed for " + repoDir.getFileName() + ": " + e.getMessage());
+                return RepoWatchService.Outcome.FAILED;
+            }
+            if (extracted == null) {
+                return RepoWatchService.Outcome.FAILED;
+            }
+
+            String pkg = extracted.packageName();
+            if (drafts.isInProgress(pkg)) {
+                if (heldBack.add(pkg)) {
+                    logger.log("Watch: " + pkg + " changed; regrading once its draft is saved.");
+                }
+                return RepoWatchService.Outcome.DEFERRED;
+            }
+            heldBack.remove(pkg);
+
+            logger.log("Watch: regrading " + pkg + ".");
+            // Each regrade is a run of its own, so timings do not pile up while watching.
+            reportsStep.beginRun();
+            ReportService.ReportGenerationResult result = reportsStep.generateStudentReport(
+                    context,
+                    pkg,
+                    extracted.repoDir()
+            );
+            if (result.wroteAny()) {
+                drafts.reportReplaced(pkg);
+            }
+            return result.hadFailures()
+                    ? RepoWatchService.Outcome.FAILED
+                    : RepoWatchService.Outcome.REGRADED;
+        };
+
+        RepoWatchService watcher = new RepoWatchService(
+                () -> extractStep.listRepos(context),
+                regrader,
+                logger
+        );
+        watcher.start();
+        return watcher;
+    }
+
+    /**
+     * What watch mode needs to know about the grading window.
+     */
+    public interface DraftGuard {
+
+        /**
+         * @param studentPackage student package
+         * @return true while the student's grading draft has unsaved edits
+         */
+        boolean isInProgress(String studentPackage);
+
+        /**
+         * Called after a student's report was regenerated.
+         *
+         * @param studentPackage student package
+         */
+        default void reportReplaced(String studentPackage) {
+        }
+    }
+
     public record RunAllResult(
             java.util.Map<RunAllStep, StepResult> results) {
 
@@ -0,0 +1,268 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-student, per-stage timings for one report run.
+ * <p>
+ * Work is attributed to whichever student is {@link #bind bound} to the calling
+ * thread, so report workers only need to bind once and every dependency call and
+ * process they make is counted for that student. Work outside a student binding is
+ * attributed to {@link #RUN_SCOPE}.
+ * </p>
+ */
+public class RunMetrics {
+
+    public static final String RUN_SCOPE = "(run)";
+    public static final String METRICS_FILE_NAME = "metrics.json";
+    public static final String SUMMARY_FILE_NAME = "metrics-summary.txt";
+
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+
+    private final Instant startedAt = Instant.now();
+    private final Map<String, StudentMetrics> students = new LinkedHashMap<>();
+    private final Map<String, List<Long>> stageNanos = new TreeMap<>();
+    private final List<ProcessMetrics> processes = new ArrayList<>();
+
+    /**
+     * Binds this run and a student to the calling thread until the scope is closed.
+     * Closing the scope records the student's total time.
+     *
+     * @param student student package, or {@link #RUN_SCOPE}
+     * @return scope that restores the previous binding
+     */
+    public Scope bind(String student) {
+        String name = student == null || student.isBlank() ? RUN_SCOPE : student;
+        Binding previous = CURRENT.get();
+        CURRENT.set(new Binding(this, name));
+        long start = System.nanoTime();
+        return () -> {
+            recordStudentTotal(name, System.nanoTime() - start);
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the run and student bound to this thread, or null outside a report run
+     */
+    public static Binding current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs {@code work} and records its latency under {@code stage} for the bound student.
+     */
+    public <T> T time(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordStage(currentStudent(), stage, System.nanoTime() - start);
+        }
+    }
+
+    public synchronized void recordStage(String student, String stage, long nanos) {
+        student(student).stageNanos.merge(stage, nanos, Long::sum);
+        stageNanos.computeIfAbsent(stage, _ -> new ArrayList<>()).add(nanos);
+    }
+
+    public synchronized void recordProcess(String student,
+                                           String command,
+                                           long nanos,
+                                           long outputChars,
+                                           int exitCode) {
+        StudentMetrics s = student(student);
+        s.processCount++;
+        s.processNanos += nanos;
+        s.peakOutputChars = Math.max(s.peakOutputChars, outputChars);
+        processes.add(new ProcessMetrics(student, command, nanos / 1_000_000.0, outputChars, exitCode));
+        stageNanos.computeIfAbsent("process:" + command, _ -> new ArrayList<>()).add(nanos);
+    }
+
+    public synchronized void recordBytesWritten(long bytes) {
+        student(currentStudent()).bytesWritten += bytes;
+    }
+
+    /**
+     * Writes {@value #METRICS_FILE_NAME} and {@value #SUMMARY_FILE_NAME} into {@code dir}.
+     *
+     * @param dir run artifacts folder
+     */
+    public synchronized void writeTo(Path dir) throws IOException {
+        Files.createDirectories(dir);
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(dir.resolve(METRICS_FILE_NAME).toFile(), snapshot());
+
+        Files.writeString(dir.resolve(SUMMARY_FILE_NAME), summary());
+    }
+
+    /**
+     * @return a copy of everything recorded so far
+     */
+    public synchronized Snapshot snapshot() {
+        List<StudentSnapshot> studentRows = new ArrayList<>();
+        for (Map.Entry<String, StudentMetrics> e : students.entrySet()) {
+            StudentMetrics s = e.getValue();
+            Map<String, Double> stages = new TreeMap<>();
+            s.stageNanos.forEach((stage, nanos) -> stages.put(stage, nanos / 1_000_000.0));
+            studentRows.add(new StudentSnapshot(
+                    e.getKey(),
+                    s.totalNanos / 1_000_000.0,
+                    stages,
+                    s.processCount,
+                    s.processNanos / 1_000_000.0,
+                    s.bytesWritten,
+                    s.peakOutputChars
+            ));
+        }
+
+        Map<String, StageSummary> stages = new TreeMap<>();
+        stageNanos.forEach((stage, samples) -> stages.put(stage, StageSummary.of(samples)));
+
+        return new Snapshot(startedAt.toString(), studentRows, stages, List.copyOf(processes));
+    }
+
+    /**
+     * @return human-readable percentile table plus the slowest students
+     */
+    public synchronized String summary() {
+        Snapshot snapshot = snapshot();
+        String nl = System.lineSeparator();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("Report run started ").append(snapshot.startedAt()).append(nl).append(nl);
+        sb.append(String.format(Locale.ROOT, "%-28s %6s %10s %10s %10s %10s %12s%n",
+                "Stage", "Count", "p50 ms", "p90 ms", "p99 ms", "max ms", "total ms"));
+        snapshot.stages().forEach((stage, s) -> sb.append(String.format(Locale.ROOT,
+                "%-28s %6d %10.1f %10.1f %10.1f %10.1f %12.1f%n",
+                stage, s.count(), s.p50Millis(), s.p90Millis(), s.p99Millis(),
+                s.maxMillis(), s.totalMillis())));
+
+        List<StudentSnapshot> slowest = snapshot.students().stream()
+                .filter(s -> !RUN_SCOPE.equals(s.student()))
+                .sorted(Comparator.comparingDouble(StudentSnapshot::totalMillis).reversed())
+                .limit(5)
+                .toList();
+        if (!slowest.isEmpty()) {
+            sb.append(nl).append("Slowest students:").append(nl);
+            for (StudentSnapshot s : slowest) {
+                sb.append(String.format(Locale.ROOT,
+                        "  %-24s %10.1f ms  (%d process(es), %d bytes written)%n",
+                        s.student(), s.totalMillis(), s.processCount(), s.bytesWritten()));
+            }
+        }
+        return sb.toString();
+    }
+
+    private String currentStudent() {
+        Binding binding = CURRENT.get();
+        return binding != null && binding.metrics() == this ? binding.student() : RUN_SCOPE;
+    }
+
+    private synchronized void recordStudentTotal(String student, long nanos) {
+        student(student).totalNanos += nanos;
+    }
+
+    private StudentMetrics student(String name) {
+        return students.computeIfAbsent(Objects.requireNonNullElse(name, RUN_SCOPE),
+                _ -> new StudentMetrics());
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public record Binding(RunMetrics metrics, String student) {
+    }
+
+    private static final class StudentMetrics {
+        private final Map<String, Long> stageNanos = new TreeMap<>();
+        private long totalNanos;
+        private int processCount;
+        private long processNanos;
+        private long bytesWritten;
+        private long peakOutputChars;
+    }
+
+    public record Snapshot(String startedAt,
+                           List<StudentSnapshot> students,
+                           Map<String, StageSummary> stages,
+                           List<ProcessMetrics> processes) {
+    }
+
+    public record StudentSnapshot(String student,
+                                  double totalMillis,
+                                  Map<String, Double> stageMillis,
+                                  int processCount,
+                                  double processMillis,
+                                  long bytesWritten,
+                                  long peakOutputChars) {
+    }
+
+    public record ProcessMetrics(String student,
+                                 String command,
+                                 double millis,
+                                 long outputChars,
+                                 int exitCode) {
+    }
+
+    public record StageSummary(int count,
+                               double p50Millis,
+                               double p90Millis,
+                               double p99Millis,
+                               double maxMillis,
+                               double totalMillis) {
+
+        static StageSummary of(List<Long> nanos) {
+            long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            long total = 0L;
+            for (long n : sorted) {
+                total += n;
+            }
+            return new StageSummary(
+                    sorted.length,
+                    percentile(sorted, 50),
+                    percentile(sorted, 90),
+                    percentile(sorted, 99),
+                    sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0,
+                    total / 1_000_000.0
+            );
+        }
+
+        // Nearest-rank percentile.
+        private static double percentile(long[] sorted, int p) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+        }
+    }
+}
@@ -10,24 +10,60 @@ package service;
 import model.Assignment;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 public class SourceCodeService {
     private static final String STUDENT_PACKAGE_PLACEHOLDER = "{studentPackage}";
 
+    private final SourceSnapshotCache snapshots;
+
+    public SourceCodeService() {
+        this(SourceSnapshotCache.shared());
+    }
+
+    /**
+     * @param snapshots source snapshot cache shared with checkstyle and the test runner
+     */
+    public SourceCodeService(SourceSnapshotCache snapshots) {
+        this.snapshots = Objects.requireNonNull(snapshots);
+    }
+
     public String buildSourceCodeMarkdown(Assignment assignment,
                                           String studentPackage,
                                           Path repoPath) {
         StringBuilder sb = new StringBuilder();
+        try {
+            writeSourceCodeMarkdown(assignment, studentPackage, repoPath, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
 
+    /**
+     * Writes the same markdown as {@link #buildSourceCodeMarkdown} into {@code out}, one
+     * file at a time, so only the file being written is held in memory.
+     *
+     * @param assignment assignment listing the expected files
+     * @param studentPackage student package
+     * @param repoPath student repo root
+     * @param out destination
+     * @throws IOException when writing to {@code out} fails
+     */
+    public void writeSourceCodeMarkdown(Assignment assignment,
+                                        String studentPackage,
+                                        Path repoPath,
+                                        Appendable out) throws IOException {
         List<String> expected = assignment.getExpectedFiles();
         if (expected == null || expected.isEmpty()) {
-            sb.append("_No expected files configured._").append(System.lineSeparator());
+            out.append("_No expected files configured._").append(System.lineSeparator());
         } else {
             Set<Path> emittedPaths = new LinkedHashSet<>();
             for (String rel : expected) {
@@ -37,44 +73,42 @@ public class SourceCodeService {
 
                 boolean alreadyEmitted = Files.exists(filePath) && emittedPaths.contains(dedupeKey);
                 if (!alreadyEmitted) {
-                    sb.append("### ").append(filename).append(System.lineSeparator());
+                    out.append("### ").append(filename).append(System.lineSeparator());
 
-                    sb.append(System.lineSeparator());
+                    out.append(System.lineSeparator());
 
                     if (!Files.exists(filePath)) {
-                        sb.append("_Missing file._").append(System.lineSeparator());
-                        sb.append(System.lineSeparator());
+                        out.append("_Missing file._").append(System.lineSeparator());
+                        out.append(System.lineSeparator());
                     } else {
                         String lang = languageForFile(filePath);
                         String code = "";
                         String readError = null;
                         try {
-                            code = Files.readString(filePath);
+                            code = snapshots.readString(filePath);
                         } catch (IOException e) {
                             readError = e.getMessage();
                         }
 
                         if (readError != null) {
-                            sb.append("// Failed to read file: ")
+                            out.append("// Failed to read file: ")
                                     .append(readError)
                                     .append(System.lineSeparator());
-                            sb.append(System.lineSeparator());
+                            out.append(System.lineSeparator());
                         } else {
                             emittedPaths.add(dedupeKey);
                             String fence = buildFenceForContent(code);
-                            sb.append(fence).append(lang).append(System.lineSeparator());
+                            out.append(fence).append(lang).append(System.lineSeparator());
 
-                            sb.append(code).append(System.lineSeparator());
+                            out.append(code).append(System.lineSeparator());
 
-                            sb.append(fence).append(System.lineSeparator());
-                            sb.append(System.lineSeparator());
+                            out.append(fence).append(System.lineSeparator());
+                            out.append(System.lineSeparator());
                         }
                     }
                 }
             }
         }
-
-        return sb.toString();
     }
 
     private String languageForFile(Path file) {
@@ -0,0 +1,406 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One view of the student source trees shared by report generation, checkstyle and the
+ * unit test runner, so a repo is walked and each file read once instead of once per tool.
+ * <p>
+ * {@link #snapshot} lists a tree and remembers every directory's modification time; the
+ * listing is reused until a directory changes, which is how files being added, removed
+ * or renamed show up. File contents and content hashes are remembered by size and
+ * modification time, so an unchanged file is never read twice. This also makes
+ * {@link #treeHash} a cheap change detector for the result caches of incremental runs.
+ * </p>
+ * <p>
+ * Cached contents are bounded by {@code maxCachedChars}, and listings and hashes by
+ * {@code maxEntries} each, least recently used first. Files of at least
+ * {@code uncachedThreshold} bytes are hashed as a stream and their contents are never
+ * cached. Files are always read through streams rather than memory-mapped, since a
+ * mapping keeps the file locked on Windows until it is garbage collected, which would
+ * block students' edits and git checkouts during watch mode.
+ * </p>
+ */
+public class SourceSnapshotCache {
+
+    public static final long DEFAULT_MAX_CACHED_CHARS = 32L * 1024L * 1024L;
+    public static final long DEFAULT_UNCACHED_THRESHOLD = 1024L * 1024L;
+    public static final int DEFAULT_MAX_ENTRIES = 50_000;
+
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    // File systems with coarse timestamps can hide an edit made right after a read.
+    private static final long RACY_WINDOW_MILLIS = 2_000L;
+
+    private static final SourceSnapshotCache SHARED = new SourceSnapshotCache();
+
+    private final long maxCachedChars;
+    private final long uncachedThreshold;
+    private final Map<Path, SourceTree> trees;
+    private final Map<Path, HashEntry> hashes;
+    private final LinkedHashMap<Path, ContentEntry> contents =
+            new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedChars = 0L;
+
+    public SourceSnapshotCache() {
+        this(DEFAULT_MAX_CACHED_CHARS, DEFAULT_UNCACHED_THRESHOLD);
+    }
+
+    /**
+     * @param maxCachedChars upper bound for file contents kept in memory
+     * @param uncachedThreshold size from which files are streamed and not cached
+     */
+    public SourceSnapshotCache(long maxCachedChars, long uncachedThreshold) {
+        this(maxCachedChars, uncachedThreshold, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxCachedChars upper bound for file contents kept in memory
+     * @param uncachedThreshold size from which files are streamed and not cached
+     * @param maxEntries upper bound for remembered listings, and for remembered hashes
+     */
+    public SourceSnapshotCache(long maxCachedChars, long uncachedThreshold, int maxEntries) {
+        this.maxCachedChars = Math.max(0L, maxCachedChars);
+        this.uncachedThreshold = Math.max(1L, uncachedThreshold);
+        this.trees = lruMap(Math.max(1, maxEntries));
+        this.hashes = lruMap(Math.max(1, maxEntries));
+    }
+
+    /**
+     * @return the cache shared by services that were not given one of their own
+     */
+    public static SourceSnapshotCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Lists every regular file under {@code root}, reusing the previous listing when no
+     * directory in the tree has changed since.
+     *
+     * @param root tree root
+     * @return the files, sorted by relative path; empty when {@code root} is not a
+     *         directory
+     */
+    public SourceTree snapshot(Path root) throws IOException {
+        Path key = root.toAbsolutePath().normalize();
+        SourceTree cached;
+        synchronized (this) {
+            cached = trees.get(key);
+        }
+        if (cached != null && cached.isCurrent()) {
+            return cached;
+        }
+
+        SourceTree fresh = walk(root);
+        synchronized (this) {
+            trees.put(key, fresh);
+        }
+        return fresh;
+    }
+
+    /**
+     * @param root tree root
+     * @return source files under {@code root} ending in {@code .java}, ignoring case
+     */
+    public List<Path> javaFiles(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (SourceFile file : snapshot(root).files()) {
+            if (file.relativePath().toLowerCase().endsWith(".java")) {
+                files.add(file.path());
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Hash of the tree's relative paths and contents. Equal hashes mean nothing in the
+     * tree changed, without rereading files whose size and modification time are
+     * unchanged.
+     *
+     * @param root tree root
+     * @return SHA-256 hex, or a fixed value when {@code root} is not a directory
+     */
+    public String treeHash(Path root) throws IOException {
+        if (root == null || !Files.isDirectory(root)) {
+            return ResultCache.keyBuilder().add("<no-tree>").build();
+        }
+        SourceTree tree = snapshot(root);
+        ResultCache.KeyBuilder key = ResultCache.keyBuilder()
+                .add(String.valueOf(tree.files().size()));
+        for (SourceFile file : tree.files()) {
+            key.add(file.relativePath()).add(hash(file.path()));
+        }
+        return key.build();
+    }
+
+    /**
+     * @param file file to hash
+     * @return SHA-256 hex of the file's bytes
+     */
+    public String hash(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        Stamp stamp = Stamp.of(attrs);
+
+        synchronized (this) {
+            HashEntry entry = hashes.get(key);
+            if (entry != null && entry.stamp().equals(stamp) && !entry.isRacy()) {
+                return entry.hash();
+            }
+        }
+
+        String hash = attrs.size() >= uncachedThreshold
+                ? digestStream(file)
+                : digest(Files.readAllBytes(file));
+        synchronized (this) {
+            hashes.put(key, new HashEntry(stamp, hash, System.currentTimeMillis()));
+        }
+        return hash;
+    }
+
+    /**
+     * Reads a file as UTF-8 with the same failure behavior as {@link Files#readString}.
+     *
+     * @param file file to read
+     * @return the file's text
+     */
+    public String readString(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        Stamp stamp = Stamp.of(attrs);
+
+        synchronized (this) {
+            ContentEntry entry = contents.get(key);
+            if (entry != null && entry.stamp().equals(stamp) && !entry.isRacy()) {
+                return entry.text();
+            }
+        }
+
+        String text = decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+        if (attrs.size() >= uncachedThreshold) {
+            return text;
+        }
+
+        synchronized (this) {
+            ContentEntry previous = contents.put(
+                    key, new ContentEntry(stamp, text, System.currentTimeMillis()));
+            if (previous != null) {
+                cachedChars -= previous.text().length();
+            }
+            cachedChars += text.length();
+            trimContents();
+        }
+        return text;
+    }
+
+    /**
+     * Forgets every listing, hash and cached content.
+     */
+    public synchronized void invalidateAll() {
+        trees.clear();
+        hashes.clear();
+        contents.clear();
+        cachedChars = 0L;
+    }
+
+    /**
+     * @return characters of file content currently held in memory
+     */
+    public synchronized long cachedChars() {
+        return cachedChars;
+    }
+
+    synchronized int cachedTreeCount() {
+        return trees.size();
+    }
+
+    synchronized int cachedHashCount() {
+        return hashes.size();
+    }
+
+    private static <V> Map<Path, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private void trimContents() {
+        var iterator = contents.values().iterator();
+        while (cachedChars > maxCachedChars && iterator.hasNext()) {
+            cachedChars -= iterator.next().text().length();
+            iterator.remove();
+        }
+    }
+
+    private static SourceTree walk(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return new SourceTree(root, List.of(), List.of(), System.currentTimeMillis());
+        }
+
+        long walkedAt = System.currentTimeMillis();
+        List<SourceFile> files = new ArrayList<>();
+        List<DirectoryStamp> directories = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                directories.add(new DirectoryStamp(dir, attrs.lastModifiedTime().toMillis()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    String relative = root.relativize(file).toString().replace('\\', '/');
+                    files.add(new SourceFile(file, relative, attrs.size(),
+                            attrs.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        files.sort(Comparator.comparing(SourceFile::relativePath));
+        return new SourceTree(root, files, directories, walkedAt);
+    }
+
+
+    private static String decode(ByteBuffer bytes) throws IOException {
+        // The decoder reports malformed input, as Files.readString does.
+        return StandardCharsets.UTF_8.newDecoder().decode(bytes).toString();
+    }
+
+    private static String digest(byte[] bytes) {
+        MessageDigest digest = sha256();
+        digest.update(bytes);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String digestStream(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[STREAM_BUFFER_BYTES];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Listing of one tree.
+     *
+     * @param root tree root
+     * @param files regular files, sorted by relative path
+     * @param directories every directory in the tree with its modification time
+     * @param walkedAt when the listing was taken
+     */
+    public record SourceTree(Path root,
+                             List<SourceFile> files,
+                             List<DirectoryStamp> directories,
+                             long walkedAt) {
+
+        public SourceTree {
+            Objects.requireNonNull(root);
+            files = List.copyOf(files);
+            directories = List.copyOf(directories);
+        }
+
+        /**
+         * @return every file path, in listing order
+         */
+        public List<Path> paths() {
+            List<Path> paths = new ArrayList<>(files.size());
+            for (SourceFile file : files) {
+                paths.add(file.path());
+            }
+            return paths;
+        }
+
+        boolean isCurrent() {
+            if (directories.isEmpty()) {
+                return !Files.isDirectory(root);
+            }
+            for (DirectoryStamp directory : directories) {
+                if (directory.modifiedMillis() >= walkedAt - RACY_WINDOW_MILLIS) {
+                    return false;
+                }
+                try {
+                    long modified = Files.getLastModifiedTime(directory.path()).toMillis();
+                    if (modified != directory.modifiedMillis()) {
+                        return false;
+                    }
+                } catch (NoSuchFileException e) {
+                    return false;
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @param path file path
+     * @param relativePath path relative to the tree root, with {@code /} separators
+     * @param size size in bytes when listed
+     * @param modifiedMillis modification time when listed
+     */
+    public record SourceFile(Path path, String relativePath, long size, long modifiedMillis) {
+    }
+
+    public record DirectoryStamp(Path path, long modifiedMillis) {
+    }
+
+    private record Stamp(long size, long modifiedMillis) {
+
+        static Stamp of(BasicFileAttributes attrs) {
+            return new Stamp(attrs.size(), attrs.lastModifiedTime().toMillis());
+        }
+    }
+
+    private record HashEntry(Stamp stamp, String hash, long recordedAt) {
+
+        boolean isRacy() {
+            return stamp.modifiedMillis() >= recordedAt - RACY_WINDOW_MILLIS;
+        }
+    }
+
+    private record ContentEntry(Stamp stamp, String text, long recordedAt) {
+
+        boolean isRacy() {
+            return stamp.modifiedMillis() >= recordedAt - RACY_WINDOW_MILLIS;
+        }
+    }
+}
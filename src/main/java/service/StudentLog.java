@@ -0,0 +1,67 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package service;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Log buffer of the student report being generated on the calling thread.
+ * <p>
+ * {@link ReportService} binds a buffer while it works on a student and writes it to the
+ * shared log as one block when the student is done. The tool services log through the
+ * shared logger, so it is wrapped with {@link #routing(ServiceLogger)}: lines logged
+ * on a thread with a bound buffer go into that buffer, and all other lines pass
+ * straight through. Lines logged from threads a tool starts itself are not captured.
+ * </p>
+ */
+public final class StudentLog {
+
+    private static final ThreadLocal<List<String>> CURRENT = new ThreadLocal<>();
+
+    private StudentLog() {
+    }
+
+    /**
+     * Binds {@code buffer} to the calling thread until the scope is closed.
+     *
+     * @param buffer receives the student's log lines
+     * @return scope that restores the previous binding
+     */
+    public static Scope bind(List<String> buffer) {
+        Objects.requireNonNull(buffer);
+        List<String> previous = CURRENT.get();
+        CURRENT.set(buffer);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * @param shared logger used when no student buffer is bound
+     * @return logger that writes into the calling thread's student buffer, if any
+     */
+    public static ServiceLogger routing(ServiceLogger shared) {
+        Objects.requireNonNull(shared);
+        return message -> {
+            List<String> buffer = CURRENT.get();
+            if (buffer == null) {
+                shared.log(message);
+            } else {
+                buffer.add(message);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
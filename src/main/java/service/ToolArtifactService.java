@@ -27,6 +27,18 @@ public class ToolArtifactService {
         return cacheRoot;
     }
 
+    public Path resultCacheRoot() {
+        return appDataRoot
+                .resolve("tool-artifacts")
+                .resolve("result-cache");
+    }
+
+    public Path jobHistoryRoot() {
+        return appDataRoot
+                .resolve("tool-artifacts")
+                .resolve("job-history");
+    }
+
     public Path createRunArtifactsRoot() throws IOException {
         Path runsRoot = appDataRoot
                 .resolve("tool-artifacts")
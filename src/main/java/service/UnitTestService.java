@@ -21,18 +21,55 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import util.AppDataUtil;
 
 public class UnitTestService {
+    private static final String CACHE_KIND = "unit-tests";
+    private static final String RUN_FAILED_TITLE = "Unit Test Run Failed";
+    private static final Duration TEST_RUN_TIMEOUT = Duration.ofMinutes(5);
+    private static final int MAX_RUNS_PER_WARM_RUNNER = 25;
+    private static final List<String> WORKING_DIR_SENSITIVE_TOKENS = List.of(
+            "new File(",
+            "Path.of(",
+            "Paths.get(",
+            "FileReader(",
+            "FileInputStream(",
+            "FileWriter(",
+            "FileOutputStream("
+    );
+
+    // JVM-wide state that outlives a student's class loader in the warm runner.
+    private static final List<String> JVM_STATE_SENSITIVE_TOKENS = List.of(
+            "System.setProperty(",
+            "System.clearProperty(",
+            "System.setProperties(",
+            "Locale.setDefault(",
+            "TimeZone.setDefault(",
+            "Thread.setDefaultUncaughtExceptionHandler(",
+            "addShutdownHook(",
+            "Platform.exit(",
+            "Platform.setImplicitExit("
+    );
+
     private final ProcessRunner processRunner;
     private final ServiceLogger logger;
     private final ToolArtifactService toolArtifactService;
+    private final JavaCompileEngine compileEngine;
+    private final ResultCache resultCache;
+    private final SourceSnapshotCache snapshots;
+    private final CompiledTestSuiteCache compiledSuites = new CompiledTestSuiteCache();
+    private boolean warmRunnerEnabled;
+    private JUnitRunnerPool warmRunnerPool;
 
     public UnitTestService(ProcessRunner processRunner,
                            ServiceLogger logger) {
@@ -43,12 +80,84 @@ public class UnitTestService {
         );
     }
 
+    /**
+     * Creates a service that reuses results for repos whose sources, tests and bundled
+     * jars are unchanged since the last run.
+     *
+     * @param processRunner process runner
+     * @param logger logger
+     * @param resultCache persistent result cache
+     */
+    public UnitTestService(ProcessRunner processRunner,
+                           ServiceLogger logger,
+                           ResultCache resultCache) {
+        this(
+                processRunner,
+                logger,
+                new ToolArtifactService(AppDataUtil.appDataDir()),
+                new JavaCompileEngine(),
+                true,
+                Objects.requireNonNull(resultCache)
+        );
+    }
+
     UnitTestService(ProcessRunner processRunner,
                     ServiceLogger logger,
                     ToolArtifactService toolArtifactService) {
+        this(processRunner, logger, toolArtifactService, new JavaCompileEngine());
+    }
+
+    UnitTestService(ProcessRunner processRunner,
+                    ServiceLogger logger,
+                    ToolArtifactService toolArtifactService,
+                    JavaCompileEngine compileEngine) {
+        this(processRunner, logger, toolArtifactService, compileEngine, true);
+    }
+
+    UnitTestService(ProcessRunner processRunner,
+                    ServiceLogger logger,
+                    ToolArtifactService toolArtifactService,
+                    JavaCompileEngine compileEngine,
+                    boolean warmRunnerEnabled) {
+        this(processRunner, logger, toolArtifactService, compileEngine, warmRunnerEnabled, null);
+    }
+
+    UnitTestService(ProcessRunner processRunner,
+                    ServiceLogger logger,
+                    ToolArtifactService toolArtifactService,
+                    JavaCompileEngine compileEngine,
+                    boolean warmRunnerEnabled,
+                    ResultCache resultCache) {
+        this(processRunner, logger, toolArtifactService, compileEngine, warmRunnerEnabled,
+                resultCache, SourceSnapshotCache.shared());
+    }
+
+    UnitTestService(ProcessRunner processRunner,
+                    ServiceLogger logger,
+                    ToolArtifactService toolArtifactService,
+                    JavaCompileEngine compileEngine,
+                    boolean warmRunnerEnabled,
+                    ResultCache resultCache,
+                    SourceSnapshotCache snapshots) {
         this.processRunner = Objects.requireNonNull(processRunner);
         this.logger = Objects.requireNonNull(logger);
         this.toolArtifactService = Objects.requireNonNull(toolArtifactService);
+        this.compileEngine = Objects.requireNonNull(compileEngine);
+        this.warmRunnerEnabled = warmRunnerEnabled;
+        this.resultCache = resultCache;
+        this.snapshots = Objects.requireNonNull(snapshots);
+    }
+
+    /**
+     * Stops any warm test runner JVMs and closes the compiler's pooled file managers.
+     * The runners also exit on their own when this JVM exits.
+     */
+    public synchronized void shutdown() {
+        if (warmRunnerPool != null) {
+            warmRunnerPool.close();
+            warmRunnerPool = null;
+        }
+        compileEngine.close();
     }
 
     public UnitTestResult buildUnitTestResultMarkdown(String studentPackage, Path repoPath)
@@ -60,15 +169,25 @@ public class UnitTestService {
             if (!ctx.isValid()) {
                 return ctx.failureResult();
             }
-            UnitTestResult compileResult = compileSourceFiles(ctx);
-            if (compileResult != null) {
-                return compileResult;
+
+            String cacheKey = cacheKey(ctx);
+            if (cacheKey != null) {
+                UnitTestResult cached = resultCache
+                        .get(CACHE_KIND, cacheKey, UnitTestResult.class)
+                        .orElse(null);
+                if (cached != null) {
+                    logger.log("Reusing cached unit test results for " + studentPackage + ".");
+                    return cached;
+                }
             }
-            UnitTestResult testCompileResult = compilePatchedTestSuite(ctx);
-            if (testCompileResult != null) {
-                return testCompileResult;
+
+            UnitTestResult result = compileAndRunTests(ctx);
+
+            // Timeouts and runner crashes can be transient, so only settled results are kept.
+            if (cacheKey != null && !result.markdown().startsWith("### " + RUN_FAILED_TITLE)) {
+                resultCache.put(CACHE_KIND, cacheKey, result);
             }
-            return runTestsAndBuildResult(ctx);
+            return result;
         } finally {
             if (runArtifactsRoot != null) {
                 toolArtifactService.cleanupTree(runArtifactsRoot, logger);
@@ -77,6 +196,66 @@ public class UnitTestService {
 
     }
 
+    private UnitTestResult compileAndRunTests(UnitTestContext ctx) throws IOException {
+        UnitTestResult compileResult = compileSourceFiles(ctx);
+        if (compileResult != null) {
+            return compileResult;
+        }
+        UnitTestResult testCompileResult = compilePatchedTestSuite(ctx);
+        if (testCompileResult != null) {
+            return testCompileResult;
+        }
+        return runTestsAndBuildResult(ctx);
+    }
+
+    /**
+     * Key covering everything that affects a student's unit test result: the package
+     * name the test suite is patched to, the repo location (compiler output names
+     * files), the src/ and test trees, and the bundled jars.
+     */
+    private String cacheKey(UnitTestContext ctx) {
+        if (resultCache == null) {
+            return null;
+        }
+
+        try {
+            ResultCache.KeyBuilder key = ResultCache.keyBuilder()
+                    .add(CACHE_KIND)
+                    .add(ctx.getStudentPackage())
+                    .add(ctx.getRepoPath().toAbsolutePath().normalize().toString())
+                    .add(snapshots.treeHash(ctx.getSrcDir()))
+                    .add(snapshots.treeHash(ctx.getTestDir()));
+            for (Path jar : bundledJars()) {
+                key.addFileIdentity(jar);
+            }
+            return key.build();
+        } catch (IOException e) {
+            logger.log("Unit test result cache skipped: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Path> bundledJars() throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        dirs.add(Path.of("lib"));
+        if (getBundledJavaFxLibDir() != null) {
+            dirs.add(getBundledJavaFxLibDir());
+        }
+
+        List<Path> jars = new ArrayList<>();
+        for (Path dir : dirs) {
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            try (Stream<Path> stream = Files.list(dir)) {
+                stream.filter(p -> p.toString().toLowerCase().endsWith(".jar"))
+                        .sorted()
+                        .forEach(jars::add);
+            }
+        }
+        return jars;
+    }
+
     private Path preparePatchedTestSuite(Path testSuiteFile, Path buildDir, String studentPackage)
             throws IOException {
 
@@ -85,7 +264,7 @@ public class UnitTestService {
 
         Path patched = patchedDir.resolve("TestSuite.java");
 
-        String src = Files.readString(testSuiteFile);
+        String src = snapshots.readString(testSuiteFile);
 
         // Replace ANY import username.*
         src = src.replaceAll(
@@ -246,34 +425,28 @@ public class UnitTestService {
             return new UnitTestResult("_No Java files found under src/._", 0, 0);
         }
 
-        List<String> javacArgs = new ArrayList<>();
-        javacArgs.add("javac");
-        javacArgs.add("-d");
-        javacArgs.add(ctx.getClassesDir().toAbsolutePath().toString());
-        javacArgs.add("-cp");
-        javacArgs.add(buildLibClasspath());
-
-        for (Path f : srcFiles) {
-            javacArgs.add(f.toAbsolutePath().toString());
-        }
+        List<String> javacOptions = new ArrayList<>();
+        javacOptions.add("-d");
+        javacOptions.add(ctx.getClassesDir().toAbsolutePath().toString());
+        javacOptions.add("-cp");
+        javacOptions.add(buildLibClasspath());
 
         Path javafxLib = getBundledJavaFxLibDir();
         if (javafxLib != null) {
-            javacArgs.add("--module-path");
-            javacArgs.add(javafxLib.toAbsolutePath().toString());
-            javacArgs.add("--add-modules");
-            javacArgs.add("javafx.controls,javafx.fxml");
+            javacOptions.add("--module-path");
+            javacOptions.add(javafxLib.toAbsolutePath().toString());
+            javacOptions.add("--add-modules");
+            javacOptions.add("javafx.controls,javafx.fxml");
         }
 
-        ProcessResult srcCompile = processRunner.runCaptureLinesWithExitCode(javacArgs,
-                ctx.getRepoPath());
-        if (srcCompile.exitCode() != 0) {
-            logger.log("JUnit process exited with code: " + srcCompile.exitCode());
-        }
+        JavaCompileEngine.CompileOutcome srcCompile =
+                compile(javacOptions, srcFiles, ctx.getRepoPath());
 
-        if (srcCompile.exitCode() != 0) {
+        if (!srcCompile.success()) {
+            logger.log("Source compilation failed with "
+                    + srcCompile.errorCount() + " error(s).");
             return new UnitTestResult(
-                    formatCompileFailure("Source Compilation Failed", srcCompile),
+                    formatCompileFailure("Source Compilation Failed", srcCompile.outputLines()),
                     0,
                     0
             );
@@ -296,13 +469,22 @@ public class UnitTestService {
             );
         }
 
+        List<Path> testFiles = findJavaFiles(ctx.getTestDir());
+        if (testFiles.isEmpty()) {
+            return new UnitTestResult("_No Java files found under test directory._", 0, 0);
+        }
+
+        String suiteKey = compiledSuiteKey(ctx);
+        if (suiteKey != null && bindCompiledSuite(ctx, compiledSuites.get(suiteKey))) {
+            return null;
+        }
+
         Path patchedTestSuite = preparePatchedTestSuite(
                 testSuiteOriginal,
                 ctx.getBuildDir(),
                 ctx.getStudentPackage()
         );
 
-        List<Path> testFiles = findJavaFiles(ctx.getTestDir());
         List<Path> compileFiles = new ArrayList<>();
 
         for (Path p : testFiles) {
@@ -317,49 +499,142 @@ public class UnitTestService {
             }
         }
 
-        if (compileFiles.isEmpty()) {
-            return new UnitTestResult("_No Java files found under test directory._", 0, 0);
+        // Test classes get their own output directory so they can be kept for reuse.
+        Path testClassesDir = ctx.getBuildDir().resolve("test-classes");
+        if (Files.exists(testClassesDir)) {
+            deleteDirectoryRecursively(testClassesDir);
         }
+        ensureDirectoryExists(testClassesDir);
 
         String testCp = ctx.getClassesDir().toAbsolutePath()
                 + File.pathSeparator
                 + buildLibClasspath();
 
-        List<String> javacTests = new ArrayList<>();
-        javacTests.add("javac");
-        javacTests.add("-encoding");
-        javacTests.add("UTF-8");
-        javacTests.add("-d");
-        javacTests.add(ctx.getClassesDir().toAbsolutePath().toString());
-        javacTests.add("-cp");
-        javacTests.add(testCp);
-
-        for (Path f : compileFiles) {
-            javacTests.add(f.toAbsolutePath().toString());
-        }
+        List<String> javacOptions = new ArrayList<>();
+        javacOptions.add("-encoding");
+        javacOptions.add("UTF-8");
+        javacOptions.add("-d");
+        javacOptions.add(testClassesDir.toAbsolutePath().toString());
+        javacOptions.add("-cp");
+        javacOptions.add(testCp);
 
         Path javafxLib = getBundledJavaFxLibDir();
         if (javafxLib != null) {
-            javacTests.add("--module-path");
-            javacTests.add(javafxLib.toAbsolutePath().toString());
-            javacTests.add("--add-modules");
-            javacTests.add("javafx.controls,javafx.fxml,javafx.graphics,javafx.base,javafx.swing");
+            javacOptions.add("--module-path");
+            javacOptions.add(javafxLib.toAbsolutePath().toString());
+            javacOptions.add("--add-modules");
+            javacOptions.add("javafx.controls,javafx.fxml,javafx.graphics,javafx.base,javafx.swing");
         }
 
-        ProcessResult testCompile = processRunner.runCaptureLinesWithExitCode(javacTests, ctx.getRepoPath());
+        JavaCompileEngine.CompileOutcome testCompile =
+                compile(javacOptions, compileFiles, ctx.getRepoPath());
 
-        if (testCompile.exitCode() != 0) {
-            logger.log("JUnit process exited with code: " + testCompile.exitCode());
+        if (!testCompile.success()) {
+            logger.log("Test compilation failed with "
+                    + testCompile.errorCount() + " error(s).");
             return new UnitTestResult(
-                    formatCompileFailure("Test Compilation Failed", testCompile),
+                    formatCompileFailure("Test Compilation Failed", testCompile.outputLines()),
                     0,
                     0
             );
         }
 
+        CompiledTestSuiteCache.CompiledSuite suite =
+                CompiledTestSuiteCache.CompiledSuite.read(testClassesDir, ctx.getStudentPackage());
+        suite.writeTo(ctx.getClassesDir(), ctx.getStudentPackage());
+        if (suiteKey != null && !mentionsPackage(testFiles, ctx.getStudentPackage())) {
+            compiledSuites.put(suiteKey, suite);
+        }
+
         return null;
     }
 
+    /**
+     * Key for sharing a compiled test suite between students: the unpatched test tree,
+     * the bundled jars and the API of the student's compiled classes, with the
+     * student's package name factored out.
+     */
+    private String compiledSuiteKey(UnitTestContext ctx) {
+        try {
+            ResultCache.KeyBuilder key = ResultCache.keyBuilder()
+                    .add("compiled-test-suite")
+                    .add(snapshots.treeHash(ctx.getTestDir()))
+                    .add(buildLibClasspath())
+                    .add(String.valueOf(getBundledJavaFxLibDir()))
+                    .add(ClassFileRelocator.describeApi(
+                            ctx.getClassesDir(),
+                            ctx.getStudentPackage()
+                    ));
+            for (Path jar : bundledJars()) {
+                key.addFileIdentity(jar);
+            }
+            return key.build();
+        } catch (IOException e) {
+            logger.log("Compiled test suite reuse skipped: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return true when a suite compiled for another student was bound to this one
+     */
+    private boolean bindCompiledSuite(UnitTestContext ctx,
+                                      CompiledTestSuiteCache.CompiledSuite suite) {
+        if (suite == null) {
+            return false;
+        }
+        try {
+            suite.writeTo(ctx.getClassesDir(), ctx.getStudentPackage());
+            logger.log("Reusing the test suite compiled for " + suite.boundPackage()
+                    + " for " + ctx.getStudentPackage() + ".");
+            return true;
+        } catch (IOException e) {
+            logger.log("Could not reuse the compiled test suite for "
+                    + ctx.getStudentPackage() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /*
+     * Relocation rewrites every qualified use of the package the suite was compiled
+     * against. A suite whose own sources already name that package cannot be told
+     * apart from the patched references, so it is never shared.
+     */
+    private boolean mentionsPackage(List<Path> testFiles, String studentPackage)
+            throws IOException {
+        Pattern word = Pattern.compile(
+                "(?<![\\w$./])" + Pattern.quote(studentPackage) + "(?![\\w$])"
+        );
+        for (Path testFile : testFiles) {
+            if (word.matcher(snapshots.readString(testFile)).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private JavaCompileEngine.CompileOutcome compile(List<String> javacOptions,
+                                                     List<Path> sourceFiles,
+                                                     Path workingDir) {
+        if (compileEngine.isAvailable()) {
+            return compileEngine.compile(javacOptions, sourceFiles);
+        }
+
+        List<String> javacArgs = new ArrayList<>();
+        javacArgs.add("javac");
+        javacArgs.addAll(javacOptions);
+        for (Path f : sourceFiles) {
+            javacArgs.add(f.toAbsolutePath().toString());
+        }
+
+        ProcessResult result = processRunner.runCaptureLinesWithExitCode(javacArgs, workingDir);
+        List<JavaCompileEngine.CompileDiagnostic> diagnostics = new ArrayList<>();
+        for (String line : result.outputLines()) {
+            diagnostics.add(JavaCompileEngine.CompileDiagnostic.plain(line));
+        }
+        return new JavaCompileEngine.CompileOutcome(result.exitCode() == 0, diagnostics);
+    }
+
     private @NonNull List<String> getArgs(UnitTestContext ctx, String testCp, Path patchedTestSuite) {
         List<String> javacTests = new ArrayList<>();
         javacTests.add("javac");
@@ -383,6 +658,42 @@ public class UnitTestService {
 
     private UnitTestResult runTestsAndBuildResult(UnitTestContext ctx) throws IOException {
 
+        JUnitRunnerPool pool = needsForkedJvm(ctx) ? null : warmRunnerPool();
+        if (pool != null) {
+            JUnitRunnerPool.RunOutcome outcome = pool.run(ctx.getClassesDir(), TEST_RUN_TIMEOUT);
+
+            if (outcome.status() == JUnitRunnerPool.RunStatus.COMPLETED) {
+                JUnitFailureSummary summary = new JUnitFailureSummary();
+                for (int i = 0; i < outcome.totalTests(); i++) {
+                    summary.incrementTotalTests();
+                }
+                for (JUnitRunnerPool.TestFailure failure : outcome.failures()) {
+                    summary.addFailure(
+                            simplifyClassName(failure.className()) + "." + failure.testName(),
+                            failure.message() == null ? "" : failure.message().trim()
+                    );
+                }
+                return buildResultFromSummary(summary);
+            }
+
+            if (outcome.status() == JUnitRunnerPool.RunStatus.TIMED_OUT) {
+                logger.log("Unit tests for " + ctx.getStudentPackage() + " timed out.");
+                return new UnitTestResult(
+                        formatCompileFailure(RUN_FAILED_TITLE, List.of(outcome.message())),
+                        0,
+                        0
+                );
+            }
+
+            logger.log("Warm test runner failed for " + ctx.getStudentPackage() + ": "
+                    + outcome.message() + "; retrying in a fresh JVM.");
+        }
+
+        return runTestsInForkedJvm(ctx);
+    }
+
+    private UnitTestResult runTestsInForkedJvm(UnitTestContext ctx) throws IOException {
+
         final String reportsFolderName = "test-reports";
         final String xmlExtension = ".xml";
 
@@ -396,8 +707,16 @@ public class UnitTestService {
 
         List<String> runArgs = buildJUnitRunArgs(ctx, reportsDir);
 
-        ProcessResult runResult =
-                processRunner.runCaptureLinesWithExitCode(runArgs, ctx.getRepoPath());
+        ProcessResult runResult = processRunner.runCaptureLinesWithExitCode(
+                runArgs,
+                ctx.getRepoPath(),
+                TEST_RUN_TIMEOUT
+        );
+
+        if (runResult.exitCode() == ProcessRunner.TIMED_OUT_EXIT_CODE) {
+            logger.log("Unit tests for " + ctx.getStudentPackage() + " timed out.");
+            return new UnitTestResult(formatCompileFailure(RUN_FAILED_TITLE, runResult), 0, 0);
+        }
 
         boolean junitExitedOk = runResult.exitCode() == 0;
 
@@ -412,12 +731,16 @@ public class UnitTestService {
 
         if (!junitExitedOk && (!anyXmlReports || noTestsReported)) {
             return new UnitTestResult(
-                    formatCompileFailure("Unit Test Run Failed", runResult),
+                    formatCompileFailure(RUN_FAILED_TITLE, runResult),
                     0,
                     0
             );
         }
 
+        return buildResultFromSummary(summary);
+    }
+
+    private UnitTestResult buildResultFromSummary(JUnitFailureSummary summary) {
         if (summary.getFailureCount() == 0) {
             return new UnitTestResult(
                     "_No failed unit tests._",
@@ -448,10 +771,102 @@ public class UnitTestService {
         );
     }
 
+    private synchronized JUnitRunnerPool warmRunnerPool() {
+        if (warmRunnerPool == null && warmRunnerEnabled) {
+            Path ownCode = resolveOwnCodeLocation();
+            if (ownCode == null) {
+                logger.log("Warm test runner unavailable; using a JVM per student.");
+                warmRunnerEnabled = false;
+                return null;
+            }
+
+            List<String> command = new ArrayList<>();
+            command.add("java");
+            command.addAll(buildJavaFxJvmArgs());
+            command.add("-cp");
+            command.add(ownCode.toAbsolutePath()
+                    + File.pathSeparator
+                    + buildLibClasspath());
+            command.add(JUnitRunnerDaemon.class.getName());
+
+            warmRunnerPool = new JUnitRunnerPool(
+                    command,
+                    Path.of("").toAbsolutePath(),
+                    MAX_RUNS_PER_WARM_RUNNER
+            );
+        }
+        return warmRunnerPool;
+    }
+
+    private Path resolveOwnCodeLocation() {
+        try {
+            var codeSource = JUnitRunnerDaemon.class.getProtectionDomain().getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null) {
+                return null;
+            }
+            return Path.of(codeSource.getLocation().toURI());
+        } catch (java.net.URISyntaxException | IllegalArgumentException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /*
+     * The warm runner cannot change its working directory per student, and JVM-wide
+     * settings changed by one student would leak into the next student's run. Code under
+     * test runs inside the tests, so both the main and the test sources must be free of
+     * relative file access and global state changes before a run may use the warm JVM.
+     */
+    private boolean needsForkedJvm(UnitTestContext ctx) throws IOException {
+        Set<Path> sources = new LinkedHashSet<>(findJavaFiles(ctx.getSrcDir()));
+        sources.addAll(findJavaFiles(ctx.getTestDir()));
+        for (Path sourceFile : sources) {
+            String src = snapshots.readString(sourceFile);
+            if (containsAny(src, WORKING_DIR_SENSITIVE_TOKENS)
+                    || containsAny(src, JVM_STATE_SENSITIVE_TOKENS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(String src, List<String> tokens) {
+        for (String token : tokens) {
+            if (src.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private List<String> buildJUnitRunArgs(UnitTestContext ctx, Path reportsDir) {
 
         List<String> runArgs = new ArrayList<>();
         runArgs.add("java");
+        runArgs.addAll(buildJavaFxJvmArgs());
+
+        runArgs.add("-jar");
+        runArgs.add(ctx.getJunitJar().toAbsolutePath().toString());
+        runArgs.add("execute");
+
+        runArgs.add("--class-path");
+        runArgs.add(ctx.getClassesDir().toAbsolutePath()
+                + File.pathSeparator
+                + buildLibClasspath());
+
+        runArgs.add("--scan-class-path");
+
+        runArgs.add("--reports-dir");
+        runArgs.add(reportsDir.toAbsolutePath().toString());
+
+        runArgs.add("--disable-ansi-colors");
+        runArgs.add("--details=none");
+
+        return runArgs;
+    }
+
+    private List<String> buildJavaFxJvmArgs() {
+
+        List<String> runArgs = new ArrayList<>();
 
         Path javafxLib = getBundledJavaFxLibDir();
         if (javafxLib != null) {
@@ -483,23 +898,6 @@ public class UnitTestService {
             runArgs.add("javafx.controls,javafx.fxml,javafx.graphics,javafx.base,javafx.swing");
         }
 
-        runArgs.add("-jar");
-        runArgs.add(ctx.getJunitJar().toAbsolutePath().toString());
-        runArgs.add("execute");
-
-        runArgs.add("--class-path");
-        runArgs.add(ctx.getClassesDir().toAbsolutePath()
-                + File.pathSeparator
-                + buildLibClasspath());
-
-        runArgs.add("--scan-class-path");
-
-        runArgs.add("--reports-dir");
-        runArgs.add(reportsDir.toAbsolutePath().toString());
-
-        runArgs.add("--disable-ansi-colors");
-        runArgs.add("--details=none");
-
         return runArgs;
     }
 
@@ -520,11 +918,15 @@ public class UnitTestService {
     }
 
     private String formatCompileFailure(String title, ProcessResult result) {
+        return formatCompileFailure(title, result.outputLines());
+    }
+
+    private String formatCompileFailure(String title, List<String> outputLines) {
         StringBuilder sb = new StringBuilder();
         sb.append("### ").append(title).append(System.lineSeparator());
         sb.append(System.lineSeparator());
         sb.append("```").append(System.lineSeparator());
-        for (String line : result.outputLines()) {
+        for (String line : outputLines) {
             sb.append(line).append(System.lineSeparator());
         }
         sb.append("```").append(System.lineSeparator());
@@ -584,15 +986,10 @@ public class UnitTestService {
     }
 
     private List<Path> findJavaFiles(Path root) throws IOException {
-        if (root == null || !Files.exists(root)) {
+        if (root == null) {
             return List.of();
         }
-
-        try (Stream<Path> stream = Files.walk(root)) {
-            return stream
-                    .filter(p -> p.toString().toLowerCase().endsWith(".java"))
-                    .toList();
-        }
+        return snapshots.javaFiles(root);
     }
 
     private static String getString(Node node) {
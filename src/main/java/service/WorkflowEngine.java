@@ -44,13 +44,7 @@ public class WorkflowEngine {
 
             results.put(step.stepType(), result);
 
-            logger.log("STEP "
-                    + step.stepType()
-                    + " → "
-                    + result.status()
-                    + " ("
-                    + result.durationMillis()
-                    + " ms)");
+            logStep(step.stepType(), result);
 
             if (result.isFailed()) {
                 previousFailed = true;
@@ -59,4 +53,14 @@ public class WorkflowEngine {
 
         return new RunAllService.RunAllResult(results);
     }
-}
\ No newline at end of file
+
+    protected void logStep(RunAllStep step, StepResult result) {
+        logger.log("STEP "
+                + step
+                + " → "
+                + result.status()
+                + " ("
+                + result.durationMillis()
+                + " ms)");
+    }
+}
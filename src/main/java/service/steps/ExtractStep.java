@@ -1,10 +1,14 @@
 package service.steps;
 
+import model.RepoMapping;
 import service.MappingService;
 import service.ServiceLogger;
 import service.WorkflowContext;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 public class ExtractStep implements WorkflowStep {
 
@@ -51,4 +55,33 @@ public class ExtractStep implements WorkflowStep {
                 message
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Extracts one repo as soon as it is available.
+     *
+     * @param context workflow context
+     * @param repoDir cloned repo folder
+     * @return the extracted package, or null if the repo was skipped
+     * @throws IOException when the packages folder cannot be prepared
+     */
+    public MappingService.ExtractedPackage extractRepo(WorkflowContext context, Path repoDir)
+            throws IOException {
+        return mappingService.extractRepo(
+                repoDir,
+                mappingService.packagesRoot(context.root())
+        );
+    }
+
+    /**
+     * @param context workflow context
+     * @return repo folders found under the clone's scan root
+     */
+    public List<Path> listRepos(WorkflowContext context) {
+        return mappingService.listRepos(context.root());
+    }
+
+    public void writeMapping(WorkflowContext context, Map<String, RepoMapping> mapping) {
+        mappingService.saveMapping(context.mappingsPath(), mapping);
+        logger.log("Wrote " + mapping.size() + " mapping(s).");
+    }
+}
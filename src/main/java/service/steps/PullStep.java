@@ -4,10 +4,25 @@ import service.ProcessRunner;
 import service.ServiceLogger;
 import service.WorkflowContext;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class PullStep implements WorkflowStep {
 
+    /**
+     * Wall-clock limit for the clone command, which fetches a whole section at once and
+     * so gets longer than {@link ProcessRunner#DEFAULT_TIMEOUT}.
+     */
+    public static final Duration CLONE_TIMEOUT = Duration.ofHours(2);
+
+    // git prints "Cloning into 'dir'..." once per repo, in clone order.
+    private static final Pattern CLONING_INTO =
+            Pattern.compile("Cloning into:?\\s+'?([^']+?)'?(?:\\.\\.\\.)?\\s*$");
+
     private final ProcessRunner processRunner;
     private final ServiceLogger logger;
 
@@ -25,6 +40,19 @@ public class PullStep implements WorkflowStep {
 
     @Override
     public StepResult execute(WorkflowContext context) {
+        return execute(context, _ -> { });
+    }
+
+    /**
+     * Runs the clone command and reports each repo as soon as git has finished with it.
+     * A repo counts as done when git starts cloning the next one, and the last repo
+     * when the command exits.
+     *
+     * @param context workflow context
+     * @param repoReady called on this thread with each cloned repo folder
+     * @return the pull result
+     */
+    public StepResult execute(WorkflowContext context, Consumer<Path> repoReady) {
 
         final long start = System.currentTimeMillis();
 
@@ -35,12 +63,18 @@ public class PullStep implements WorkflowStep {
         if (cmd != null) {
             List<String> args = processRunner.tokenizeCommand(cmd.trim());
             if (!args.isEmpty()) {
+                CloneTracker tracker = new CloneTracker(context.root(), repoReady);
                 int exit =
                         processRunner.runAndLog(
                                 args,
                                 context.root(),
-                                logger::log
+                                line -> {
+                                    logger.log(line);
+                                    tracker.onLine(line);
+                                },
+                                CLONE_TIMEOUT
                         );
+                tracker.finish();
                 success = exit == 0;
             }
         }
@@ -54,4 +88,45 @@ public class PullStep implements WorkflowStep {
                 ""
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * @param line one line of clone output
+     * @return the folder named by a {@code Cloning into ...} line, or null
+     */
+    static String parseCloneTarget(String line) {
+        if (line == null) {
+            return null;
+        }
+        Matcher m = CLONING_INTO.matcher(line.trim());
+        return m.find() ? m.group(1).trim() : null;
+    }
+
+    private static final class CloneTracker {
+
+        private final Path root;
+        private final Consumer<Path> repoReady;
+        private Path current;
+
+        private CloneTracker(Path root, Consumer<Path> repoReady) {
+            this.root = root;
+            this.repoReady = repoReady;
+        }
+
+        private void onLine(String line) {
+            String target = parseCloneTarget(line);
+            if (target == null || target.isEmpty()) {
+                return;
+            }
+            finish();
+            current = root.resolve(target).normalize();
+        }
+
+        private void finish() {
+            if (current != null) {
+                Path ready = current;
+                current = null;
+                repoReady.accept(ready);
+            }
+        }
+    }
+}
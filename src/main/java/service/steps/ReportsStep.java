@@ -1,9 +1,13 @@
 package service.steps;
 
+import model.RepoMapping;
 import service.ReportService;
 import service.ServiceLogger;
 import service.WorkflowContext;
 
+import java.nio.file.Path;
+import java.util.Collection;
+
 public class ReportsStep implements WorkflowStep {
 
     private final ReportService reportService;
@@ -52,4 +56,82 @@ public class ReportsStep implements WorkflowStep {
                 message
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Generates one student's report as soon as their package is extracted.
+     *
+     * @param context workflow context
+     * @param pkg student package
+     * @param repoDir the student's repo folder
+     * @return the result for this student
+     */
+    public ReportService.ReportGenerationResult generateStudentReport(WorkflowContext context,
+                                                                      String pkg,
+                                                                      Path repoDir) {
+        if (context.assignment() == null) {
+            logger.log("Generate Reports failed: assignment is null.");
+            return new ReportService.ReportGenerationResult(false, true);
+        }
+
+        RepoMapping repo = new RepoMapping();
+        repo.setRepoPath(repoDir.toAbsolutePath().toString());
+
+        return reportService.generateStudentReport(
+                context.assignment(),
+                context.root(),
+                pkg,
+                repo
+        );
+    }
+
+    /**
+     * Runs checkstyle once over a group of extracted students before their reports.
+     *
+     * @param context workflow context
+     * @param repoDirs the students' repo folders
+     */
+    public void prepareCheckstyleResults(WorkflowContext context, Collection<Path> repoDirs) {
+        if (context.assignment() != null) {
+            reportService.prepareCheckstyleResults(repoDirs);
+        }
+    }
+
+    /**
+     * Counts a student whose report is queued but not started yet.
+     *
+     * @param context workflow context
+     * @param pkg student package
+     */
+    public void expectStudentReport(WorkflowContext context, String pkg) {
+        if (context.assignment() != null) {
+            reportService.expectStudentReport(context.assignment(), pkg);
+        }
+    }
+
+    /**
+     * @param context workflow context
+     * @param pkg student package
+     * @return how long the student's report took in earlier runs, or 0 when unknown
+     */
+    public double expectedMillis(WorkflowContext context, String pkg) {
+        if (context.assignment() == null) {
+            return 0.0;
+        }
+        return reportService.expectedMillis(context.assignment(), pkg);
+    }
+
+    /**
+     * Starts a new run's timings, so students of an earlier run are not counted again.
+     */
+    public void beginRun() {
+        reportService.beginRun();
+    }
+
+    /**
+     * Writes the per-student timings collected by {@link #generateStudentReport} since
+     * {@link #beginRun}.
+     */
+    public void writeRunMetrics() {
+        reportService.writeRunMetrics();
+    }
+}
@@ -32,12 +32,13 @@ import model.AssignmentsFile;
 import model.Comments;
 import model.RubricItemRef;
 import org.fxmisc.richtext.CodeArea;
-import org.fxmisc.richtext.model.StyleSpans;
-import org.fxmisc.richtext.model.StyleSpansBuilder;
 import model.Comments.CommentDef;
 import model.Comments.CommentsLibrary;
 import model.Comments.CommentsStore;
 import model.Comments.ParsedComment;
+import persistence.SettingsStore;
+import service.DraftAutosaver;
+import service.DraftPrefetcher;
 import service.GradingDraftService;
 import service.GradingDraftSessionService;
 import service.GradingMarkdownSections;
@@ -52,10 +53,11 @@ import java.awt.Desktop;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -63,6 +65,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
@@ -85,38 +88,6 @@ public class GradingWindowController {
     private static final String RUBRIC_TABLE_END = "<!-- RUBRIC_TABLE_END -->";
     private static final String FEEDBACK_HEADER = "> # Feedback";
     private static final int MAX_LEGACY_NORMALIZE_PASSES = 5;
-    // --- Syntax highlighting (Java) ---
-    private static final String[] KEYWORDS = new String[] {
-            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
-            "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
-            "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int",
-            "interface", "long", "native", "new", "package", "private", "protected", "public",
-            "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
-            "throw", "throws", "transient", "try", "void", "volatile", "while", "var", "record",
-            "sealed", "permits", "non-sealed"
-    };
-
-    private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
-    private static final String PAREN_PATTERN = "[()]";
-    private static final String BRACE_PATTERN = "[{}]";
-    private static final String BRACKET_PATTERN = "[\\[\\]]";
-    private static final String SEMICOLON_PATTERN = ";";
-    private static final String STRING_PATTERN = "\"([^\"\\\\]|\\\\.)*\"";
-    private static final String CHAR_PATTERN = "'([^'\\\\]|\\\\.)*'";
-    private static final String COMMENT_PATTERN = "//[^\n]*" + "|" + "/\\*(.|\\R)*?\\*/";
-
-    private static final Pattern JAVA_PATTERN = Pattern.compile(
-            "(?<COMMENT>" + COMMENT_PATTERN + ")"
-                    + "|(?<STRING>" + STRING_PATTERN + ")"
-                    + "|(?<CHAR>" + CHAR_PATTERN + ")"
-                    + "|(?<KEYWORD>" + KEYWORD_PATTERN + ")"
-                    + "|(?<PAREN>" + PAREN_PATTERN + ")"
-                    + "|(?<BRACE>" + BRACE_PATTERN + ")"
-                    + "|(?<BRACKET>" + BRACKET_PATTERN + ")"
-                    + "|(?<SEMICOLON>" + SEMICOLON_PATTERN + ")"
-    );
-
-
     private final ExecutorService highlightExecutor = Executors.newSingleThreadExecutor(r -> {
         Thread t = new Thread(r, "syntax-highlighter");
         t.setDaemon(true);
@@ -137,15 +108,28 @@ public class GradingWindowController {
     private final CommentsStore commentsStore = new CommentsStore();
     private CommentsLibrary commentLibrary;
     private final Path commentsPath = appDataDir().resolve("comments").resolve("comments.json");
+    private final Path settingsPath = appDataDir().resolve("settings").resolve("settings.json");
     private final ReportHtmlWrapper reportHtmlWrapper = new ReportHtmlWrapper();
     private final GradingDraftService gradingDraftService =
             new GradingDraftService(reportHtmlWrapper);
     private final GradingMappingsService gradingMappingsService =
             new GradingMappingsService(this::status);
     private GradingReportEditorService gradingReportEditorService;
-    private final GradingSyncService gradingSyncService = new GradingSyncService();
+    private final GradingSyncService gradingSyncService =
+            new GradingSyncService(configuredPushParallelism(settingsPath));
     private final GradingDraftSessionService draftSessionService =
-            new GradingDraftSessionService();
+            new GradingDraftSessionService(
+                    appDataDir().resolve("drafts"),
+                    GradingDraftSessionService.DEFAULT_MAX_RESIDENT_CHARS,
+                    this::status
+            );
+    private final DraftPrefetcher<PreparedDraft> draftPrefetcher =
+            new DraftPrefetcher<>(this::prepareDraft);
+    private final Duration autosaveDelay = configuredAutosaveDelay(settingsPath);
+    private final DraftAutosaver draftAutosaver =
+            new DraftAutosaver(this::autosaveDraft, autosaveDelay == null
+                    ? DraftAutosaver.DEFAULT_DELAY
+                    : autosaveDelay);
     private final Set<String> reportLoadFailureStudents = Collections.synchronizedSet(
             new HashSet<>()
     );
@@ -167,7 +151,10 @@ public class GradingWindowController {
     private boolean suppressTextListener = false;
     private boolean isLoadingStudent = false;
     private boolean applyingHighlight = false;
-    private boolean saveInProgress = false;
+    private JavaSyntaxHighlighter.State highlightState = JavaSyntaxHighlighter.State.EMPTY;
+    private volatile boolean saveInProgress = false;
+    // Held while drafts are written, so an autosave never overlaps Save or Save All.
+    private final Object draftSaveLock = new Object();
     private SaveDraftWorker saveDraftWorker = this::saveDraftsWorker;
     private PushAllWorker pushAllWorker = this::pushAllRepos;
 
@@ -206,6 +193,24 @@ public class GradingWindowController {
 
     }
 
+    /**
+     * @param studentPackage student package
+     * @return true when the student's draft was edited in this window since it was
+     *         last saved; drafts that were only viewed do not count
+     */
+    public boolean hasDraftInProgress(String studentPackage) {
+        return draftSessionService.hasUnsavedEdits(studentPackage);
+    }
+
+    /**
+     * Drops any prefetched copy of a report that was regenerated on disk.
+     *
+     * @param studentPackage student package
+     */
+    public void reportReplaced(String studentPackage) {
+        draftPrefetcher.invalidate(studentPackage);
+    }
+
     private void setupUi() {
         studentList.setItems(studentPackages);
         studentList.getSelectionModel().selectedItemProperty()
@@ -228,13 +233,24 @@ public class GradingWindowController {
             if (!suppressTextListener && currentStudent != null) {
                 draftSessionService.updateMarkdownIfPresent(currentStudent, newText);
             }
+            if (!isLoadingStudent && currentStudent != null) {
+                draftSessionService.markEdited(currentStudent);
+                if (autosaveDelay != null) {
+                    draftAutosaver.draftChanged(currentStudent);
+                }
+            }
         });
         status("");
         installUndoRedoShortcuts();
         installJavaSyntaxHighlighting();
         Platform.runLater(() -> {
             Stage stage = (Stage) studentList.getScene().getWindow();
-            stage.setOnHidden(_ -> highlightExecutor.shutdownNow());
+            stage.setOnHidden(_ -> {
+                highlightExecutor.shutdownNow();
+                draftPrefetcher.close();
+                draftAutosaver.close();
+                draftSessionService.close();
+            });
         });
     }
 
@@ -436,19 +452,30 @@ public class GradingWindowController {
         }
 
         final String text = reportEditor.getText() == null ? "" : reportEditor.getText();
+        final JavaSyntaxHighlighter.State base = highlightState;
 
         try {
             CompletableFuture
-                    .supplyAsync(() -> computeJavaHighlighting(text), highlightExecutor)
-                    .thenAccept(spans -> Platform.runLater(() -> {
+                    .supplyAsync(() -> JavaSyntaxHighlighter.update(base, text), highlightExecutor)
+                    .thenAccept(update -> Platform.runLater(() -> {
 
                         if (!text.equals(reportEditor.getText())) {
                             return;
                         }
+                        if (base != highlightState) {
+                            // Another pass was applied meanwhile; diff against that one.
+                            runHighlightNow();
+                            return;
+                        }
+
+                        highlightState = update.state();
+                        if (!update.hasChanges()) {
+                            return;
+                        }
 
                         applyingHighlight = true;
                         try {
-                            reportEditor.setStyleSpans(0, spans);
+                            reportEditor.setStyleSpans(update.offset(), update.spans());
                         } finally {
                             applyingHighlight = false;
                         }
@@ -458,63 +485,6 @@ public class GradingWindowController {
         }
     }
 
-    private StyleSpans<Collection<String>> computeJavaHighlighting(String text) {
-        StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
-        if (text == null || text.isEmpty()) {
-            spans.add(Collections.emptyList(), 0);
-            return spans.create();
-        }
-        String[] lines = text.split("\\R", -1);
-        boolean insideJavaFence = false;
-        for (String line : lines) {
-            String trimmed = line.trim();
-            // Detect fence start
-            if (trimmed.startsWith("```")) {
-                insideJavaFence = !insideJavaFence;
-                spans.add(Collections.emptyList(), line.length() + 1);
-                continue;
-            }
-            if (!insideJavaFence) {
-                // Outside code block → no styling
-                spans.add(Collections.emptyList(), line.length() + 1);
-            } else {
-                // Inside code block → apply Java regex
-                Matcher matcher = JAVA_PATTERN.matcher(line);
-                int lastEnd = 0;
-
-                while (matcher.find()) {
-                    spans.add(Collections.emptyList(), matcher.start() - lastEnd);
-
-                    String styleClass =
-                            matcher.group("KEYWORD") != null ? "kw" :
-                                    matcher.group("PAREN") != null ? "paren" :
-                                            matcher.group("BRACE") != null ? "brace" :
-                                                    matcher.group("BRACKET") != null ? "bracket" :
-                                                            matcher.group("SEMICOLON") != null ? "semi" :
-                                                                    matcher.group("STRING") != null ? "str" :
-                                                                            matcher.group("CHAR") != null ? "chr" :
-                                                                                    matcher.group("COMMENT") != null ? "cmt" :
-                                                                                            null;
-
-                    spans.add(
-                            styleClass == null
-                                    ? Collections.emptyList()
-                                    : Collections.singleton(styleClass),
-                            matcher.end() - matcher.start()
-                    );
-
-                    lastEnd = matcher.end();
-                }
-
-                spans.add(Collections.emptyList(), line.length() - lastEnd);
-
-                // Add newline
-                spans.add(Collections.emptyList(), 1);
-            }
-        }
-        return spans.create();
-    }
-
     private void saveCurrentEditorToDraft(String studentPackage) {
         int liveSelectionStart = reportEditor.getSelection().getStart();
         int liveSelectionEnd = reportEditor.getSelection().getEnd();
@@ -600,7 +570,13 @@ public class GradingWindowController {
     private void loadDraftIntoEditor(String studentPackage) {
         currentStudent = studentPackage;
         boolean needsReload = draftSessionService.needsReload(studentPackage);
-        if (needsReload) {
+        PreparedDraft prepared = needsReload ? takePrefetchedDraft(studentPackage) : null;
+        if (prepared != null) {
+            reportLoadFailureStudents.remove(studentPackage);
+            draftSessionService.setMarkdown(studentPackage, prepared.editorText());
+            draftSessionService.setLoadedFromDisk(studentPackage, true);
+            draftSessionService.setCaretPosition(studentPackage, 0);
+        } else if (needsReload) {
             String md = loadInitialMarkdownForStudent(studentPackage);
             md = normalizeForLegacyEditorView(md);
             draftSessionService.setMarkdown(studentPackage, md);
@@ -620,9 +596,88 @@ public class GradingWindowController {
                 true
         );
 
-        // rebuild modifies text; it must also restore caret again AFTER it finishes
-        rebuildRubricAndSummaryInEditor(desiredCaret, true);
+        if (prepared != null) {
+            // Already rebuilt and highlighted on the prefetch thread.
+            applyPrefetchedHighlighting(prepared);
+        } else {
+            // rebuild modifies text; it must also restore caret again AFTER it finishes
+            rebuildRubricAndSummaryInEditor(desiredCaret, true);
+        }
         status("Editing: " + studentPackage);
+        draftPrefetcher.prefetchAround(
+                new ArrayList<>(studentPackages),
+                studentPackage,
+                student -> !draftSessionService.hasDraft(student)
+                        && !reportLoadFailureStudents.contains(student)
+        );
+    }
+
+    /**
+     * Runs on the prefetch thread: the same load, rebuild and highlighting the editor
+     * does on first selection, without touching the editor or the status line. Reports
+     * that fail to read are left to the normal load so the failure is reported there.
+     */
+    private PreparedDraft prepareDraft(String studentPackage) {
+        Path repoDir = findRepoDirForStudentPackage(studentPackage);
+        String md = null;
+        if (repoDir != null) {
+            GradingDraftService.LoadReportResult loadResult =
+                    loadExistingReportWithFallbacks(studentPackage, repoDir);
+            if (!loadResult.readOk()) {
+                return null;
+            }
+            if (!loadResult.markdown().isBlank()) {
+                md = ensurePatchCSectionsExist(loadResult.markdown(), studentPackage);
+            }
+        }
+        if (md == null) {
+            md = buildFreshReportSkeleton(studentPackage);
+        }
+        md = normalizeForLegacyEditorView(md);
+
+        String canonical = normalizeRubricAndSummaryBlocks(md, studentPackage);
+        String editorText = normalizeForLegacyEditorViewToFixedPoint(rebuildRubricAndSummaryText(
+                canonical,
+                Comments.parseInjectedComments(md),
+                gradingReportEditorService
+        ));
+        return new PreparedDraft(
+                repoDir,
+                editorText,
+                JavaSyntaxHighlighter.update(JavaSyntaxHighlighter.State.EMPTY, editorText)
+        );
+    }
+
+    private PreparedDraft takePrefetchedDraft(String studentPackage) {
+        PreparedDraft prepared = draftPrefetcher.take(studentPackage);
+        if (prepared == null) {
+            return null;
+        }
+        // The mapping may have been reconstructed since the draft was prepared.
+        if (!Objects.equals(prepared.repoDir(), findRepoDirForStudentPackage(studentPackage))) {
+            return null;
+        }
+        return prepared;
+    }
+
+    private void applyPrefetchedHighlighting(PreparedDraft prepared) {
+        String text = reportEditor.getText() == null ? "" : reportEditor.getText();
+        if (!text.equals(prepared.editorText())) {
+            return;
+        }
+        highlightState = prepared.highlighting().state();
+        if (!prepared.highlighting().hasChanges()) {
+            return;
+        }
+        applyingHighlight = true;
+        try {
+            reportEditor.setStyleSpans(
+                    prepared.highlighting().offset(),
+                    prepared.highlighting().spans()
+            );
+        } finally {
+            applyingHighlight = false;
+        }
     }
 
     private String normalizeRubricAndSummaryBlocks(String md, String studentPackage) {
@@ -1270,7 +1325,14 @@ public class GradingWindowController {
         }
 
         saveInProgress = true;
+        // Reports on disk are about to be rewritten.
+        draftPrefetcher.invalidateAll();
+        draftAutosaver.cancelPending();
         prepareCurrentDraftForSave();
+        Map<String, Long> editCounts = new HashMap<>();
+        for (String studentPackage : studentPackages) {
+            editCounts.put(studentPackage, draftSessionService.editCount(studentPackage));
+        }
         setSaveUiDisabled(true);
 
         ExecutorService exec = Executors.newSingleThreadExecutor(r -> {
@@ -1285,6 +1347,9 @@ public class GradingWindowController {
                     if (throwable != null) {
                         handleSaveDraftFailure(throwable);
                     } else {
+                        if (result.success()) {
+                            editCounts.forEach(draftSessionService::markSaved);
+                        }
                         handleSaveDraftResult(result, onComplete);
                     }
                 }))
@@ -1337,16 +1402,19 @@ public class GradingWindowController {
         }
         int skippedForLoadFailure = allStudents.size() - studentsToSave.size();
 
-        GradingSyncService.SaveDraftResult result = gradingSyncService.saveDrafts(
-                studentsToSave,
-                buildDraftAccess(),
-                currentStudent,
-                this::loadInitialMarkdownForStudent,
-                this::findRepoDirForStudentPackage,
-                gradingDraftService,
-                effectiveReportFilePrefix(),
-                rootPath
-        );
+        GradingSyncService.SaveDraftResult result;
+        synchronized (draftSaveLock) {
+            result = gradingSyncService.saveDrafts(
+                    studentsToSave,
+                    buildDraftAccess(),
+                    currentStudent,
+                    this::loadInitialMarkdownForStudent,
+                    this::findRepoDirForStudentPackage,
+                    gradingDraftService,
+                    effectiveReportFilePrefix(),
+                    rootPath
+            );
+        }
         String message = result.message();
         if (skippedForLoadFailure > 0) {
             String skippedMessage = "Skipped " + skippedForLoadFailure
@@ -1462,6 +1530,7 @@ public class GradingWindowController {
 
     private void beginPushAllRepos() {
         setSaveUiDisabled(true);
+        draftPrefetcher.invalidateAll();
 
         ExecutorService exec = Executors.newSingleThreadExecutor(r -> {
             Thread t = new Thread(r, "push-feedback");
@@ -1501,10 +1570,17 @@ public class GradingWindowController {
     }
 
     private PushResult pushAllRepos() {
+        int total = studentPackages.size();
         GradingSyncService.PushResult result = gradingSyncService.pushAllRepos(
                 new ArrayList<>(studentPackages),
                 this::findRepoDirForStudentPackage,
-                effectiveReportFilePrefix()
+                effectiveReportFilePrefix(),
+                progress -> status(formatPushProgressMessage(
+                        progress.pushed(),
+                        progress.skipped(),
+                        progress.failed(),
+                        total
+                ))
         );
         return new PushResult(
                 result.pushed(),
@@ -1514,6 +1590,103 @@ public class GradingWindowController {
         );
     }
 
+    static String formatPushProgressMessage(int pushed,
+                                            int skipped,
+                                            int failed,
+                                            int total) {
+        int done = pushed + skipped + failed;
+        return "Pushing feedback: " + done + "/" + total + " done (pushed " + pushed
+                + ", skipped " + skipped + ", failed " + failed + ")...";
+    }
+
+    /**
+     * Autosave is opt-in: it only runs when the settings give a positive delay.
+     *
+     * @return autosave quiet period, or null when autosave is turned off
+     */
+    static Duration configuredAutosaveDelay(Path settingsPath) {
+        int configured;
+        try {
+            configured = new SettingsStore().load(settingsPath).getAutosaveDelaySeconds();
+        } catch (IOException e) {
+            configured = 0;
+        }
+        return configured > 0 ? Duration.ofSeconds(configured) : null;
+    }
+
+    /**
+     * Runs on the autosave thread. Only drafts already in the session are written, and
+     * the save tracker skips the write when nothing changed since the last save.
+     * <p>
+     * The draft open in the editor first gets the same rubric and summary rebuild as
+     * Save, on the FX thread, so an autosaved report never has stale totals. The write
+     * itself holds the same lock as Save, and is dropped while a Save is running since
+     * that Save writes this draft too.
+     * </p>
+     */
+    private void autosaveDraft(String studentPackage) {
+        if (saveInProgress
+                || reportLoadFailureStudents.contains(studentPackage)
+                || !draftSessionService.hasDraft(studentPackage)) {
+            return;
+        }
+
+        // Edits counted once the editor is in the session; later ones stay unsaved.
+        CompletableFuture<Long> prepared = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                if (!saveInProgress && studentPackage.equals(currentStudent)) {
+                    prepareCurrentDraftForSave();
+                }
+                prepared.complete(draftSessionService.editCount(studentPackage));
+            } catch (RuntimeException e) {
+                prepared.completeExceptionally(e);
+            }
+        });
+        long editCount;
+        try {
+            editCount = prepared.get();
+        } catch (InterruptedException e) {
+            // The window is closing.
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            status("Autosave failed: " + rootCauseMessage(e.getCause()));
+            return;
+        }
+
+        GradingSyncService.SaveDraftResult result;
+        synchronized (draftSaveLock) {
+            if (saveInProgress) {
+                return;
+            }
+            result = gradingSyncService.saveDrafts(
+                    List.of(studentPackage),
+                    buildDraftAccess(),
+                    studentPackage,
+                    this::loadInitialMarkdownForStudent,
+                    this::findRepoDirForStudentPackage,
+                    gradingDraftService,
+                    effectiveReportFilePrefix(),
+                    rootPath
+            );
+        }
+        if (result.success()) {
+            draftSessionService.markSaved(studentPackage, editCount);
+        } else {
+            status("Autosave failed: " + result.message());
+        }
+    }
+
+    static int configuredPushParallelism(Path settingsPath) {
+        try {
+            int configured = new SettingsStore().load(settingsPath).getPushParallelism();
+            return configured > 0 ? configured : GradingSyncService.DEFAULT_PUSH_PARALLELISM;
+        } catch (IOException e) {
+            return GradingSyncService.DEFAULT_PUSH_PARALLELISM;
+        }
+    }
+
     private PreflightResult preflightPush(Path repoDir,
                                           String reportFileName)
             throws IOException, InterruptedException {
@@ -1581,6 +1754,11 @@ public class GradingWindowController {
                                    String message) {
     }
 
+    private record PreparedDraft(Path repoDir,
+                                 String editorText,
+                                 JavaSyntaxHighlighter.Update highlighting) {
+    }
+
     private GradingSyncService.DraftAccess buildDraftAccess() {
         return new GradingSyncService.DraftAccess() {
             @Override
@@ -1617,6 +1795,7 @@ public class GradingWindowController {
     private void onCloseAndSaveAll() {
         beginSaveDrafts(() -> {
             highlightExecutor.shutdownNow();
+            draftPrefetcher.close();
             Stage stage = (Stage) studentList.getScene().getWindow();
             stage.close();
         });
@@ -1718,7 +1897,7 @@ public class GradingWindowController {
         suppressHighlighting = true;
         suppressTextListener = true;
 
-        reportEditor.replaceText(safeText);
+        replaceChangedRegion(safeText);
 
         suppressTextListener = false;
         suppressHighlighting = false;
@@ -1738,6 +1917,35 @@ public class GradingWindowController {
         );
     }
 
+    /**
+     * Replaces only the span of text that differs, so the highlighting of the untouched
+     * paragraphs survives and the next highlight pass only restyles what changed.
+     */
+    private void replaceChangedRegion(String newText) {
+        String oldText = reportEditor.getText() == null ? "" : reportEditor.getText();
+        int shared = Math.min(oldText.length(), newText.length());
+
+        int prefix = 0;
+        while (prefix < shared && oldText.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shared - prefix
+                && oldText.charAt(oldText.length() - 1 - suffix)
+                == newText.charAt(newText.length() - 1 - suffix)) {
+            suffix++;
+        }
+
+        if (prefix == oldText.length() && prefix == newText.length()) {
+            return;
+        }
+        reportEditor.replaceText(
+                prefix,
+                oldText.length() - suffix,
+                newText.substring(prefix, newText.length() - suffix)
+        );
+    }
+
     @FXML
     private void onPreviewDraft() {
         if (currentStudent == null) {
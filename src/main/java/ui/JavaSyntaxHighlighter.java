@@ -0,0 +1,271 @@
+package ui;
+
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Java highlighting for the code fences of a grading report, computed incrementally.
+ * <p>
+ * Each paragraph's tokens are cached together with whether it sits inside a fence.
+ * {@link #update} diffs the new text against the cached paragraphs, re-tokenises only
+ * the paragraphs that changed, follows fence toggles forward until the fence state
+ * matches the cache again, and returns style spans for just that range.
+ * </p>
+ */
+public final class JavaSyntaxHighlighter {
+
+    private static final String[] KEYWORDS = new String[] {
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+            "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
+            "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int",
+            "interface", "long", "native", "new", "package", "private", "protected", "public",
+            "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+            "throw", "throws", "transient", "try", "void", "volatile", "while", "var", "record",
+            "sealed", "permits", "non-sealed"
+    };
+
+    private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
+    private static final String PAREN_PATTERN = "[()]";
+    private static final String BRACE_PATTERN = "[{}]";
+    private static final String BRACKET_PATTERN = "[\\[\\]]";
+    private static final String SEMICOLON_PATTERN = ";";
+    private static final String STRING_PATTERN = "\"([^\"\\\\]|\\\\.)*\"";
+    private static final String CHAR_PATTERN = "'([^'\\\\]|\\\\.)*'";
+    private static final String COMMENT_PATTERN = "//[^\n]*" + "|" + "/\\*(.|\\R)*?\\*/";
+
+    private static final Pattern JAVA_PATTERN = Pattern.compile(
+            "(?<COMMENT>" + COMMENT_PATTERN + ")"
+                    + "|(?<STRING>" + STRING_PATTERN + ")"
+                    + "|(?<CHAR>" + CHAR_PATTERN + ")"
+                    + "|(?<KEYWORD>" + KEYWORD_PATTERN + ")"
+                    + "|(?<PAREN>" + PAREN_PATTERN + ")"
+                    + "|(?<BRACE>" + BRACE_PATTERN + ")"
+                    + "|(?<BRACKET>" + BRACKET_PATTERN + ")"
+                    + "|(?<SEMICOLON>" + SEMICOLON_PATTERN + ")"
+    );
+
+    private JavaSyntaxHighlighter() {
+    }
+
+    /**
+     * Computes the spans for the paragraphs of {@code text} that differ from
+     * {@code previous}. The returned state must only be kept once the spans are applied.
+     *
+     * @param previous state matching the styles currently shown in the editor
+     * @param text current editor text
+     * @return new state plus the spans to apply, if any
+     */
+    public static Update update(State previous, String text) {
+        String[] paragraphs = splitParagraphs(text == null ? "" : text);
+        List<Line> old = previous.lines;
+        int oldCount = old.size();
+        int newCount = paragraphs.length;
+        int shared = Math.min(oldCount, newCount);
+
+        int prefix = 0;
+        while (prefix < shared && old.get(prefix).text.equals(paragraphs[prefix])) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shared - prefix
+                && old.get(oldCount - 1 - suffix).text.equals(paragraphs[newCount - 1 - suffix])) {
+            suffix++;
+        }
+
+        List<Line> lines = new ArrayList<>(newCount);
+        lines.addAll(old.subList(0, prefix));
+        boolean inside = prefix > 0 && old.get(prefix - 1).insideAfter();
+        int lastChanged = -1;
+
+        for (int i = prefix; i < newCount; i++) {
+            int oldIndex = i - newCount + oldCount;
+            Line cached = i >= newCount - suffix ? old.get(oldIndex) : null;
+
+            if (cached != null && cached.inside == inside) {
+                // Same text, same fence state: this and every later paragraph is unchanged.
+                lines.addAll(old.subList(oldIndex, oldCount));
+                break;
+            }
+
+            Line line = cached != null
+                    ? cached.withInside(inside)
+                    : Line.of(paragraphs[i], inside);
+            lines.add(line);
+            lastChanged = i;
+            inside = line.insideAfter();
+        }
+
+        State state = new State(lines);
+        if (lastChanged < 0) {
+            return new Update(state, 0, null);
+        }
+
+        int offset = 0;
+        for (int i = 0; i < prefix; i++) {
+            offset += paragraphs[i].length() + 1;
+        }
+
+        StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
+        if (prefix > 0) {
+            // The break before the first changed paragraph may itself be newly typed.
+            offset--;
+            spans.add(Collections.emptyList(), 1);
+        }
+        for (int i = prefix; i <= lastChanged; i++) {
+            lines.get(i).appendSpans(spans);
+            if (i < newCount - 1) {
+                spans.add(Collections.emptyList(), 1);
+            }
+        }
+        spans.add(Collections.emptyList(), 0);
+        return new Update(state, offset, spans.create());
+    }
+
+    /**
+     * @param text full text
+     * @return spans for the whole text, as a first pass from an empty state produces
+     */
+    public static StyleSpans<Collection<String>> computeAll(String text) {
+        Update update = update(State.EMPTY, text);
+        if (update.spans() != null) {
+            return update.spans();
+        }
+        StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
+        spans.add(Collections.emptyList(), 0);
+        return spans.create();
+    }
+
+    // The editor only ever contains '\n' breaks, so offsets stay exact.
+    private static String[] splitParagraphs(String text) {
+        return text.split("\n", -1);
+    }
+
+    private static String styleClassOf(Matcher matcher) {
+        return matcher.group("KEYWORD") != null ? "kw" :
+                matcher.group("PAREN") != null ? "paren" :
+                        matcher.group("BRACE") != null ? "brace" :
+                                matcher.group("BRACKET") != null ? "bracket" :
+                                        matcher.group("SEMICOLON") != null ? "semi" :
+                                                matcher.group("STRING") != null ? "str" :
+                                                        matcher.group("CHAR") != null ? "chr" :
+                                                                matcher.group("COMMENT") != null ? "cmt" :
+                                                                        null;
+    }
+
+    /**
+     * Cached paragraphs matching the styles last applied to the editor. Immutable.
+     */
+    public static final class State {
+
+        public static final State EMPTY = new State(List.of());
+
+        private final List<Line> lines;
+
+        private State(List<Line> lines) {
+            this.lines = lines;
+        }
+
+        public int paragraphCount() {
+            return lines.size();
+        }
+    }
+
+    /**
+     * @param state state to keep once the spans are applied
+     * @param offset character offset of the line break before the first changed paragraph,
+     *               or 0 when the first paragraph changed
+     * @param spans spans to apply at {@code offset}, or null when no style changed
+     */
+    public record Update(State state,
+                         int offset,
+                         StyleSpans<Collection<String>> spans) {
+
+        public boolean hasChanges() {
+            return spans != null;
+        }
+    }
+
+    private static final class Line {
+
+        private final String text;
+        private final boolean fence;
+        private final boolean inside;
+        // Java tokens as (style or null, length) pairs; only kept for fenced code lines.
+        private final String[] styles;
+        private final int[] lengths;
+
+        private Line(String text, boolean fence, boolean inside, String[] styles, int[] lengths) {
+            this.text = text;
+            this.fence = fence;
+            this.inside = inside;
+            this.styles = styles;
+            this.lengths = lengths;
+        }
+
+        private static Line of(String text, boolean inside) {
+            boolean fence = text.trim().startsWith("```");
+            Line line = new Line(text, fence, inside, null, null);
+            return line.needsTokens() ? line.tokenized() : line;
+        }
+
+        private Line withInside(boolean newInside) {
+            Line line = new Line(text, fence, newInside, styles, lengths);
+            return line.needsTokens() && styles == null ? line.tokenized() : line;
+        }
+
+        private boolean needsTokens() {
+            return inside && !fence;
+        }
+
+        private boolean insideAfter() {
+            return fence != inside;
+        }
+
+        private Line tokenized() {
+            List<String> styleList = new ArrayList<>();
+            List<Integer> lengthList = new ArrayList<>();
+            Matcher matcher = JAVA_PATTERN.matcher(text);
+            int lastEnd = 0;
+            while (matcher.find()) {
+                if (matcher.start() > lastEnd) {
+                    styleList.add(null);
+                    lengthList.add(matcher.start() - lastEnd);
+                }
+                styleList.add(styleClassOf(matcher));
+                lengthList.add(matcher.end() - matcher.start());
+                lastEnd = matcher.end();
+            }
+            if (text.length() > lastEnd) {
+                styleList.add(null);
+                lengthList.add(text.length() - lastEnd);
+            }
+            int[] lengthArray = new int[lengthList.size()];
+            for (int i = 0; i < lengthArray.length; i++) {
+                lengthArray[i] = lengthList.get(i);
+            }
+            return new Line(text, fence, inside, styleList.toArray(new String[0]), lengthArray);
+        }
+
+        private void appendSpans(StyleSpansBuilder<Collection<String>> spans) {
+            if (!needsTokens()) {
+                spans.add(Collections.emptyList(), text.length());
+                return;
+            }
+            for (int i = 0; i < styles.length; i++) {
+                spans.add(
+                        styles[i] == null
+                                ? Collections.emptyList()
+                                : Collections.singleton(styles[i]),
+                        lengths[i]
+                );
+            }
+        }
+    }
+}
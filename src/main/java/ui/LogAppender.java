@@ -9,19 +9,149 @@ package ui;
 
 import javafx.application.Platform;
 import javafx.scene.control.TextArea;
+import util.RotatingLogFile;
 
-public class LogAppender {
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Log sink for the main window. Lines from any thread go into a lock-free queue and
+ * reach the {@link TextArea} in batches, at most one FX update per frame, so a noisy
+ * run cannot flood the event queue. Only the last {@code maxLines} lines stay on
+ * screen; the full log goes to an optional {@link RotatingLogFile}.
+ */
+public class LogAppender implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_LINES = 5000;
+
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16);
+    private static final ScheduledExecutorService FRAME_TIMER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "log-frame-timer");
+                t.setDaemon(true);
+                return t;
+            });
 
     private final TextArea output;
+    private final int maxLines;
+    private final RotatingLogFile logFile;
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private volatile long lastDrainNanos;
+
+    // FX thread only: ring of the character lengths of the lines on screen.
+    private final int[] lineLengths;
+    private int oldestLine = 0;
+    private int lineCount = 0;
 
     public LogAppender(TextArea output) {
+        this(output, DEFAULT_MAX_LINES, null);
+    }
+
+    /**
+     * @param output text area to append to
+     * @param maxLines lines kept on screen; older ones are trimmed from the top
+     * @param logFile file receiving every line, or null for screen only
+     */
+    public LogAppender(TextArea output, int maxLines, RotatingLogFile logFile) {
         this.output = output;
+        this.maxLines = Math.max(1, maxLines);
+        this.logFile = logFile;
+        this.lineLengths = new int[this.maxLines];
+        this.lastDrainNanos = System.nanoTime() - FRAME_NANOS;
     }
 
     public void log(String message) {
         if (message == null) {
             return;
         }
-        Platform.runLater(() -> output.appendText(message + System.lineSeparator()));
+        pending.add(message);
+        if (logFile != null) {
+            logFile.append(message);
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Flushes the log file, if any.
+     */
+    @Override
+    public void close() {
+        if (logFile != null) {
+            logFile.close();
+        }
+    }
+
+    private void scheduleDrain() {
+        long wait = lastDrainNanos + FRAME_NANOS - System.nanoTime();
+        if (wait <= 0) {
+            Platform.runLater(this::drain);
+        } else {
+            FRAME_TIMER.schedule(() -> Platform.runLater(this::drain), wait, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void drain() {
+        lastDrainNanos = System.nanoTime();
+        // Cleared before polling, so a line added after the last poll schedules a new drain.
+        drainScheduled.set(false);
+
+        StringBuilder batch = new StringBuilder();
+        int linesOnScreen = lineCount;
+        int trimChars = 0;
+        int batchStart = 0;
+
+        String line = pending.poll();
+        while (line != null) {
+            if (lineCount == maxLines) {
+                int evicted = lineLengths[oldestLine];
+                oldestLine = (oldestLine + 1) % maxLines;
+                lineCount--;
+                if (linesOnScreen > 0) {
+                    linesOnScreen--;
+                    trimChars += evicted;
+                } else {
+                    // The evicted line is from this batch and never reaches the screen.
+                    batchStart += evicted;
+                }
+            }
+            // Counted as inserted: the text area drops '\r' and other control characters.
+            String text = screenText(line);
+            lineLengths[(oldestLine + lineCount) % maxLines] = text.length() + 1;
+            lineCount++;
+            batch.append(text).append('\n');
+            line = pending.poll();
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (trimChars > 0) {
+            output.deleteText(0, Math.min(trimChars, output.getLength()));
+        }
+        output.appendText(batch.substring(batchStart));
+    }
+
+    /*
+     * The line as TextInputControl stores it: control characters other than newline and
+     * tab, and DEL, are filtered out on insert.
+     */
+    static String screenText(String line) {
+        StringBuilder text = null;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            boolean kept = c == '\n' || c == '\t' || (c >= 0x20 && c != 0x7F);
+            if (!kept && text == null) {
+                text = new StringBuilder(line.length()).append(line, 0, i);
+            } else if (kept && text != null) {
+                text.append(c);
+            }
+        }
+        return text == null ? line : text.toString();
     }
 }
@@ -16,6 +16,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
@@ -29,6 +30,7 @@ import javafx.stage.FileChooser;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.Window;
+import javafx.stage.WindowEvent;
 import model.Assignment;
 import model.AssignmentsFile;
 import model.Comments.CommentsLibrary;
@@ -45,19 +47,28 @@ import service.steps.ExtractStep;
 import service.GitService;
 import service.GradingDraftService;
 import service.ImportsService;
+import service.InstrumentedProcessRunner;
 import service.steps.ImportsStep;
 import service.MappingService;
+import service.PipelinedWorkflowEngine;
 import service.ProcessRunner;
 import service.steps.PullStep;
 import service.ReportHtmlWrapper;
+import service.RemainingTimeEstimator;
+import service.RepoWatchService;
 import service.ReportService;
+import service.ResultCache;
 import service.steps.ReportsStep;
 import service.RunAllService;
 import service.ServiceLogger;
 import service.SourceCodeService;
+import service.StudentLog;
+import service.ToolArtifactService;
 import service.UnitTestService;
+import service.WorkflowEngine;
 import service.steps.WorkflowStep;
 import util.AppDataUtil;
+import util.RotatingLogFile;
 
 import java.io.File;
 import java.io.IOException;
@@ -66,6 +77,7 @@ import java.net.URL;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -73,6 +85,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 /**
@@ -115,6 +128,8 @@ public class MainWindowController implements Initializable {
     @FXML
     private MenuItem runAllMenuItem;
     @FXML
+    private CheckMenuItem watchMenuItem;
+    @FXML
     private MenuItem editAssignmentMenuItem;
     @FXML
     private MenuItem deleteAssignmentMenuItem;
@@ -124,6 +139,8 @@ public class MainWindowController implements Initializable {
     private MenuItem exportAssignmentsMenuItem;
     @FXML
     private VBox assignmentSummaryBox;
+    @FXML
+    private Label remainingTimeLabel;
 
     // ============================================================
     // STORES + FILE PATHS
@@ -154,8 +171,9 @@ public class MainWindowController implements Initializable {
     private Path selectedRootPath;
     private CommentsLibrary commentsLibrary;
     private LogAppender logger;
-    private final ProcessRunner processRunner = new ProcessRunner();
+    private final ProcessRunner processRunner = new InstrumentedProcessRunner();
     private UnitTestService unitTestService;
+    private ResultCache resultCache;
     private MappingService mappingService;
     private CheckstyleService checkstyleService;
     private GradingDraftService gradingDraftService;
@@ -163,6 +181,8 @@ public class MainWindowController implements Initializable {
     private GitService gitService;
     private ReportHtmlWrapper reportHtmlWrapper;
     private ImportsService importsService;
+    private RepoWatchService repoWatchService;
+    private final List<GradingWindowController> gradingWindows = new CopyOnWriteArrayList<>();
     private GradeWindowOpener gradeWindowOpener = this::openGradingWindow;
     private ExitInvoker exitInvoker = Platform::exit;
     private DirectoryDialogOpener directoryDialogOpener = DirectoryChooser::showDialog;
@@ -180,10 +200,25 @@ public class MainWindowController implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle) {
         // 1) Initial control state
         checkstyleUrlField.setDisable(true);
-        logger = new LogAppender(logTextArea);
-        ServiceLogger serviceLogger = logger::log;
-        unitTestService = new UnitTestService(processRunner, serviceLogger);
-        checkstyleService = new CheckstyleService(processRunner, serviceLogger, checkstyleJar);
+        logger = new LogAppender(
+                logTextArea,
+                LogAppender.DEFAULT_MAX_LINES,
+                new RotatingLogFile(appDataDir().resolve("logs").resolve("ghcu.log"))
+        );
+        // Tool services log into the per-student block while a report is generated.
+        ServiceLogger serviceLogger = StudentLog.routing(logger::log);
+        resultCache = new ResultCache(
+                new ToolArtifactService(appDataDir()).resultCacheRoot(),
+                ResultCache.DEFAULT_MAX_BYTES,
+                serviceLogger
+        );
+        unitTestService = new UnitTestService(processRunner, serviceLogger, resultCache);
+        checkstyleService = new CheckstyleService(
+                processRunner,
+                serviceLogger,
+                checkstyleJar,
+                resultCache
+        );
         mappingService = new MappingService(serviceLogger);
         reportHtmlWrapper = new ReportHtmlWrapper();
         gradingDraftService = new GradingDraftService(reportHtmlWrapper);
@@ -397,7 +432,7 @@ public class MainWindowController implements Initializable {
     }
 
     private void logInfo(String msg) {
-        logTextArea.appendText(msg + System.lineSeparator());
+        logger.log(msg);
     }
 
     // ============================================================
@@ -412,6 +447,7 @@ public class MainWindowController implements Initializable {
         File selectedDir = directoryDialogOpener.open(chooser, windowOf(rootPathField));
         Path selectedPath = selectedFilePath(selectedDir);
         if (selectedPath != null) {
+            stopWatching();
             selectedRootPath = selectedPath;
             rootPathField.setText(selectedPath.toString());
             logInfo(browseRootSetMessage(selectedPath));
@@ -428,6 +464,12 @@ public class MainWindowController implements Initializable {
 
     @FXML
     private void onExit() {
+        if (unitTestService != null) {
+            unitTestService.shutdown();
+        }
+        if (logger != null) {
+            logger.close();
+        }
         invokeExit(exitInvoker);
     }
 
@@ -719,6 +761,15 @@ public class MainWindowController implements Initializable {
         }
     }
 
+    @FXML
+    private void onClearResultCache() {
+        if (resultCache == null) {
+            return;
+        }
+        int removed = resultCache.invalidateAll();
+        logInfo("Cleared " + removed + " cached checkstyle/unit test result(s).");
+    }
+
     @FXML
     private void onRunAll() {
         String cloneCmd = cloneCommandField.getText();
@@ -738,6 +789,88 @@ public class MainWindowController implements Initializable {
         }
     }
 
+    @FXML
+    private void onToggleWatch() {
+        if (!watchMenuItem.isSelected()) {
+            stopWatching();
+            return;
+        }
+        Assignment assignment = assignmentCombo.getValue();
+        String abortReason = null;
+        if (selectedRootPath == null) {
+            abortReason = "Watch aborted: Repository root is not set.";
+        } else if (assignment == null) {
+            abortReason = "Watch aborted: No assignment selected.";
+        } else if (!isSelectedAssignmentRubricValid()) {
+            abortReason = "Watch aborted: Rubric total must be exactly 100 points.";
+        }
+        if (abortReason != null) {
+            watchMenuItem.setSelected(false);
+            logInfo(abortReason);
+            return;
+        }
+
+        Path root = selectedRootPath;
+        startDaemonThread("watch-start-worker", () -> startWatching(assignment, root));
+    }
+
+    private void startWatching(Assignment assignment, Path root) {
+        ServiceLogger serviceLogger = logger::log;
+        ReportService reportService = new ReportService(
+                assignmentsFile,
+                buildReportDependencies(
+                        serviceLogger,
+                        checkstyleCheckBox.isSelected(),
+                        selectedAssignmentMissingCheckstyleRubricItem()
+                ),
+                ReportService.defaultParallelism()
+        );
+        RunAllService.DraftGuard drafts = new RunAllService.DraftGuard() {
+            @Override
+            public boolean isInProgress(String studentPackage) {
+                return gradingWindows.stream()
+                        .anyMatch(window -> window.hasDraftInProgress(studentPackage));
+            }
+
+            @Override
+            public void reportReplaced(String studentPackage) {
+                gradingWindows.forEach(window -> window.reportReplaced(studentPackage));
+            }
+        };
+        try {
+            RepoWatchService watcher = new RunAllService(List.of(), serviceLogger)
+                    .watchForChanges(
+                            assignment,
+                            root,
+                            mappingsPath,
+                            new ExtractStep(mappingService, serviceLogger),
+                            new ReportsStep(reportService, serviceLogger),
+                            drafts
+                    );
+            Platform.runLater(() -> {
+                if (watchMenuItem.isSelected() && repoWatchService == null) {
+                    repoWatchService = watcher;
+                } else {
+                    watcher.close();
+                }
+            });
+        } catch (IOException e) {
+            logger.log("Watch failed: " + e.getMessage());
+            Platform.runLater(() -> watchMenuItem.setSelected(false));
+        }
+    }
+
+    private void stopWatching() {
+        if (repoWatchService != null) {
+            repoWatchService.close();
+            repoWatchService = null;
+            logInfo("Stopped watching for changes.");
+        }
+        if (watchMenuItem != null) {
+            watchMenuItem.setSelected(false);
+        }
+    }
+
     private void runAllWorker(String cloneCmd,
                               Assignment assignment,
                               Path root) {
@@ -754,21 +887,26 @@ public class MainWindowController implements Initializable {
                         missingRubricItem
                 );
 
-        ReportService reportService =
-                new ReportService(assignmentsFile, reportDeps);
-        List<WorkflowStep> steps = buildRunAllSteps(
+        ReportService reportService = new ReportService(
+                assignmentsFile,
+                reportDeps,
+                ReportService.defaultParallelism()
+        );
+        reportService.setProgressListener(this::showReportProgress);
+        WorkflowEngine engine = buildPipelinedEngine(
                 processRunner,
                 serviceLogger,
                 mappingService,
                 importsService,
-                reportService
+                reportService,
+                ReportService.defaultParallelism()
         );
         executeRunAllWorkflow(
                 cloneCmd,
                 assignment,
                 root,
                 mappingsPath,
-                steps,
+                engine,
                 serviceLogger,
                 this::updateUiState,
                 Platform::runLater
@@ -787,6 +925,26 @@ public class MainWindowController implements Initializable {
         return List.of(pullStep, extractStep, importsStep, reportsStep);
     }
 
+    /**
+     * Builds the Run All engine that extracts and reports each student as soon as
+     * their repo has been cloned.
+     */
+    static WorkflowEngine buildPipelinedEngine(ProcessRunner processRunner,
+                                               ServiceLogger serviceLogger,
+                                               MappingService mappingService,
+                                               ImportsService importsService,
+                                               ReportService reportService,
+                                               int workers) {
+        return new PipelinedWorkflowEngine(
+                new PullStep(processRunner, serviceLogger),
+                new ExtractStep(mappingService, serviceLogger),
+                new ImportsStep(importsService, serviceLogger),
+                new ReportsStep(reportService, serviceLogger),
+                serviceLogger,
+                workers
+        );
+    }
+
     static void executeRunAllWorkflow(String cloneCmd,
                                       Assignment assignment,
                                       Path root,
@@ -795,7 +953,27 @@ public class MainWindowController implements Initializable {
                                       ServiceLogger serviceLogger,
                                       Runnable uiUpdateAction,
                                       UiScheduler uiScheduler) {
-        RunAllService service = new RunAllService(steps, serviceLogger);
+        executeRunAllWorkflow(
+                cloneCmd,
+                assignment,
+                root,
+                mappingsPath,
+                new WorkflowEngine(steps, serviceLogger),
+                serviceLogger,
+                uiUpdateAction,
+                uiScheduler
+        );
+    }
+
+    static void executeRunAllWorkflow(String cloneCmd,
+                                      Assignment assignment,
+                                      Path root,
+                                      Path mappingsPath,
+                                      WorkflowEngine engine,
+                                      ServiceLogger serviceLogger,
+                                      Runnable uiUpdateAction,
+                                      UiScheduler uiScheduler) {
+        RunAllService service = new RunAllService(engine, serviceLogger);
         service.runAll(cloneCmd, assignment, root, mappingsPath);
         uiScheduler.runLater(uiUpdateAction);
     }
@@ -898,6 +1076,8 @@ public class MainWindowController implements Initializable {
         GradingWindowController controller = loader.getController();
         controller.init(assignmentsFile, selected, selectedRootPath, mappingsPath);
         Stage stage = new Stage();
+        gradingWindows.add(controller);
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, _ -> gradingWindows.remove(controller));
         stage.setTitle("Grade: " + selected.getCourseCode() + " "
                 + selected.getAssignmentCode());
         assignmentCombo.getScene().getStylesheets().add(
@@ -1069,7 +1249,12 @@ public class MainWindowController implements Initializable {
         MainWindowReportDependencies deps = buildReportDependencies(serviceLogger, enabled,
                 missingRubricItem);
 
-        ReportService service = new ReportService(assignmentsFile, deps);
+        ReportService service = new ReportService(
+                assignmentsFile,
+                deps,
+                ReportService.defaultParallelism()
+        );
+        service.setProgressListener(this::showReportProgress);
 
         ReportService.ReportGenerationResult result =
                 service.generateReports(assignment, selectedRootPath, mappingsPath);
@@ -1077,6 +1262,15 @@ public class MainWindowController implements Initializable {
         return result.isSuccess();
     }
 
+    private void showReportProgress(RemainingTimeEstimator.Progress progress) {
+        String message = remainingTimeMessage(progress);
+        Platform.runLater(() -> {
+            if (remainingTimeLabel != null) {
+                remainingTimeLabel.setText(message);
+            }
+        });
+    }
+
     private void generateImportsWorker() throws IOException {
         importsService.generateImports(selectedRootPath, mappingsPath);
     }
@@ -1238,7 +1432,12 @@ public class MainWindowController implements Initializable {
                                           ServiceLogger outputLogger,
                                           PullExitHandler exitHandler) {
         return () -> {
-            int exitCode = processRunner.runAndLog(args, rootPath, outputLogger::log);
+            int exitCode = processRunner.runAndLog(
+                    args,
+                    rootPath,
+                    outputLogger::log,
+                    PullStep.CLONE_TIMEOUT
+            );
             exitHandler.onExit(exitCode);
         };
     }
@@ -1382,6 +1581,32 @@ public class MainWindowController implements Initializable {
         return file.toPath();
     }
 
+    static String remainingTimeMessage(RemainingTimeEstimator.Progress progress) {
+        if (progress == null || progress.total() == 0) {
+            return "";
+        }
+        String done = "Reports: " + progress.finished() + " of " + progress.total() + " done";
+        if (progress.finished() == progress.total()) {
+            return done + ".";
+        }
+        if (progress.remaining() == null) {
+            return done + ", estimating time remaining...";
+        }
+        return done + ", about " + formatDuration(progress.remaining()) + " remaining.";
+    }
+
+    static String formatDuration(Duration duration) {
+        long seconds = Math.max(0L, (duration.toMillis() + 999L) / 1_000L);
+        if (seconds < 60L) {
+            return seconds + " s";
+        }
+        long minutes = seconds / 60L;
+        if (minutes < 60L) {
+            return minutes + " min " + (seconds % 60L) + " s";
+        }
+        return (minutes / 60L) + " h " + (minutes % 60L) + " min";
+    }
+
     static String browseRootSetMessage(Path selectedPath) {
         return "Repository root set to: " + selectedPath;
     }
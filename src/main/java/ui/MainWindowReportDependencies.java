@@ -10,13 +10,17 @@ import service.ReportHtmlWrapper;
 import service.ReportService;
 import service.ServiceLogger;
 import service.SourceCodeService;
+import service.StudentLog;
 import service.ToolArtifactService;
 import service.UnitTestService;
 import util.AppDataUtil;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MainWindowReportDependencies implements ReportService.ReportDependencies {
 
@@ -34,6 +38,8 @@ public class MainWindowReportDependencies implements ReportService.ReportDepende
     private final boolean missingCheckstyleRubricItem;
     private final String checkstyleUrl;
     private final ToolArtifactService toolArtifactService;
+    private final Map<Path, CheckstyleService.CheckstyleResult> batchCheckstyleResults =
+            new ConcurrentHashMap<>();
 
     public MainWindowReportDependencies(ServiceLogger logger,
                                         MappingService mappingService,
@@ -48,7 +54,8 @@ public class MainWindowReportDependencies implements ReportService.ReportDepende
                                         boolean missingCheckstyleRubricItem,
                                         String checkstyleUrl) {
 
-        this.logger = Objects.requireNonNull(logger);
+        // Lines logged while a student's report is generated stay in that student's block.
+        this.logger = StudentLog.routing(Objects.requireNonNull(logger));
         this.mappingService = Objects.requireNonNull(mappingService);
         this.checkstyleService = Objects.requireNonNull(checkstyleService);
         this.unitTestService = Objects.requireNonNull(unitTestService);
@@ -79,8 +86,30 @@ public class MainWindowReportDependencies implements ReportService.ReportDepende
         return mappingService.resolveRepoRoot(mappedRepoPath);
     }
 
+    /*
+     * Batches may be prepared for groups of students while earlier groups are still
+     * being reported, so results are added to, and each is used by one report.
+     */
+    @Override
+    public void prepareCheckstyleResults(Collection<Path> repoRoots) {
+        batchCheckstyleResults.putAll(checkstyleService.buildCheckstyleResults(
+                repoRoots,
+                selectedRootPath,
+                checkstyleEnabled,
+                missingCheckstyleRubricItem,
+                checkstyleUrl
+        ));
+    }
+
     @Override
     public CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath) {
+        if (repoPath != null) {
+            CheckstyleService.CheckstyleResult batched =
+                    batchCheckstyleResults.remove(CheckstyleService.repoKey(repoPath));
+            if (batched != null) {
+                return batched;
+            }
+        }
         return checkstyleService.buildCheckstyleResult(
                 repoPath,
                 selectedRootPath,
@@ -130,6 +159,14 @@ public class MainWindowReportDependencies implements ReportService.ReportDepende
         return sourceCodeService.buildSourceCodeMarkdown(assignment, studentPackage, repoPath);
     }
 
+    @Override
+    public void writeSourceCodeMarkdown(Assignment assignment,
+                                        String studentPackage,
+                                        Path repoPath,
+                                        Appendable out) throws IOException {
+        sourceCodeService.writeSourceCodeMarkdown(assignment, studentPackage, repoPath, out);
+    }
+
     @Override
     public String buildCommitHistoryMarkdown(Path repoPath) {
         return gitService.buildCommitHistoryMarkdown(repoPath);
@@ -140,6 +177,13 @@ public class MainWindowReportDependencies implements ReportService.ReportDepende
         return reportHtmlWrapper.wrapMarkdownAsHtml(title, markdown);
     }
 
+    @Override
+    public void writeHtmlDocument(String title,
+                                  ReportService.ContentWriter markdown,
+                                  Appendable out) throws IOException {
+        reportHtmlWrapper.writeHtml(title, markdown, out);
+    }
+
     @Override
     public ToolArtifactService toolArtifactService() {
         return toolArtifactService;
@@ -0,0 +1,195 @@
+/*
+ * Course: CSC-1110/1120
+ * GitHub Classroom Utilities
+ */
+package util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Append-only log file written on a background thread. Callers only enqueue lines;
+ * the writer drains whatever has queued up in one pass. Once the file passes
+ * {@code maxBytes} it is renamed to {@code <name>.1} (older archives shift up) and a
+ * fresh file is started, keeping at most {@code maxArchives} old files.
+ */
+public class RotatingLogFile implements AutoCloseable {
+
+    public static final long DEFAULT_MAX_BYTES = 5L * 1024L * 1024L;
+    public static final int DEFAULT_MAX_ARCHIVES = 3;
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxArchives;
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final ExecutorService writerThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "log-file-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Writer thread only.
+    private BufferedWriter writer;
+    private long bytesWritten;
+    private boolean failed = false;
+
+    public RotatingLogFile(Path file) {
+        this(file, DEFAULT_MAX_BYTES, DEFAULT_MAX_ARCHIVES);
+    }
+
+    public RotatingLogFile(Path file, long maxBytes, int maxArchives) {
+        this.file = Objects.requireNonNull(file);
+        this.maxBytes = Math.max(1L, maxBytes);
+        this.maxArchives = Math.max(0, maxArchives);
+    }
+
+    /**
+     * @return the live log file
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Queues one line; never blocks on disk.
+     *
+     * @param line line without a trailing separator
+     */
+    public void append(String line) {
+        if (line == null) {
+            return;
+        }
+        pending.add(LocalDateTime.now().format(TIMESTAMP) + "  " + line);
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                writerThread.execute(this::drain);
+            } catch (RejectedExecutionException ignored) {
+                // Closed; late lines are dropped.
+            }
+        }
+    }
+
+    /**
+     * Waits until every line queued so far is on disk.
+     */
+    public void flush() {
+        try {
+            writerThread.submit(this::drain).get(5, TimeUnit.SECONDS);
+        } catch (Exception ignored) {
+            // Best effort; the writer keeps draining on its own.
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        writerThread.shutdown();
+        try {
+            writerThread.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeWriter();
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        String line = pending.poll();
+        if (line == null) {
+            return;
+        }
+
+        try {
+            while (line != null) {
+                if (!failed) {
+                    write(line);
+                }
+                line = pending.poll();
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            // The on-screen log still works; stop touching the disk.
+            failed = true;
+            closeWriter();
+            pending.clear();
+        }
+    }
+
+    private void write(String line) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        String entry = line + System.lineSeparator();
+        writer.write(entry);
+        bytesWritten += entry.getBytes(StandardCharsets.UTF_8).length;
+        if (bytesWritten >= maxBytes) {
+            rotate();
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        writer = Files.newBufferedWriter(
+                file,
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND
+        );
+        bytesWritten = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        closeWriter();
+        if (maxArchives == 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(archive(maxArchives));
+        for (int i = maxArchives - 1; i >= 1; i--) {
+            Path from = archive(i);
+            if (Files.exists(from)) {
+                Files.move(from, archive(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, archive(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path archive(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+            // Nothing more can be done for a log file.
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,137 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for model.GradingReportDocument.
+ */
+final class GradingReportDocumentTest {
+
+    private static final String REPORT = String.join("\n",
+            "# Lab 1",
+            "",
+            "<!-- RUBRIC_TABLE_BEGIN -->",
+            ">> | Earned | Possible | Criteria |",
+            "<!-- RUBRIC_TABLE_END -->",
+            "",
+            "<!-- COMMENTS_SUMMARY_BEGIN -->",
+            ">> # Comments",
+            "<!-- COMMENTS_SUMMARY_END -->",
+            "",
+            "> # Feedback",
+            "",
+            "## Source Code",
+            "```",
+            "int x = 1;",
+            "<a id=\"cmt_one\"></a>",
+            "<!-- cmt-meta rubric:ri_impl -->",
+            "```",
+            "> #### -2 First comment",
+            "",
+            "```",
+            "List<a> list;",
+            "<a id=\"cmt_two\"></a>",
+            "> #### Second comment",
+            "> * -3 points (ri_style)",
+            "```"
+    );
+
+    @Test
+    void parse_splitsPreambleAtFirstMajorSection() {
+        GradingReportDocument document = GradingReportDocument.parse(REPORT);
+
+        assertTrue(document.preamble().endsWith("> # Feedback\n\n"));
+        assertTrue(document.body().startsWith("## Source Code"));
+        assertEquals(REPORT, document.preamble() + document.body());
+        assertTrue(document.markersOnlyInPreamble());
+    }
+
+    @Test
+    void parse_locatesBlocksByFirstMarkers() {
+        GradingReportDocument document = GradingReportDocument.parse(REPORT);
+
+        assertEquals(">> | Earned | Possible | Criteria |", document.rubricContents());
+        assertEquals(">> # Comments", document.summaryContents());
+    }
+
+    @Test
+    void parse_endMarkerBeforeBegin_blockIsNotPresent() {
+        GradingReportDocument document = GradingReportDocument.parse(
+                "<!-- RUBRIC_TABLE_END -->\n<!-- RUBRIC_TABLE_BEGIN -->\n"
+        );
+
+        assertFalse(document.rubric().isPresent());
+        assertTrue(document.rubric().hasBothMarkers());
+        assertNull(document.rubricContents());
+        assertFalse(document.summary().hasBothMarkers());
+    }
+
+    @Test
+    void anchors_skipsLinesWithoutAnchorId() {
+        GradingReportDocument document = GradingReportDocument.parse(REPORT);
+
+        List<GradingReportDocument.Anchor> anchors = document.anchors();
+
+        assertEquals(List.of("cmt_one", "cmt_two"), anchors.stream()
+                .map(GradingReportDocument.Anchor::id)
+                .toList());
+        assertEquals(REPORT.indexOf("<a id=\"cmt_one\""), anchors.get(0).lineStart());
+    }
+
+    @Test
+    void comments_matchesLineByLineParse() {
+        GradingReportDocument document = GradingReportDocument.parse(REPORT);
+
+        List<Comments.ParsedComment> comments = document.comments();
+
+        assertEquals(2, comments.size());
+        assertEquals(new Comments.ParsedComment("cmt_one", "ri_impl", 2, "First comment"),
+                comments.get(0));
+        assertEquals(new Comments.ParsedComment("cmt_two", "ri_style", 3, "Second comment"),
+                comments.get(1));
+    }
+
+    @Test
+    void withBlockContents_shiftsLaterOffsetsWithoutReparse() {
+        GradingReportDocument document = GradingReportDocument.parse(REPORT);
+        document.anchors();
+
+        GradingReportDocument updated = document.withBlockContents(
+                document.summary(),
+                ">> # Comments\n>>\n>> * [First](#cmt_one) (-2 ri_impl)"
+        );
+
+        GradingReportDocument reparsed = GradingReportDocument.parse(updated.text());
+        assertEquals(reparsed.bodyStart(), updated.bodyStart());
+        assertEquals(reparsed.summary(), updated.summary());
+        assertEquals(reparsed.rubric(), updated.rubric());
+        assertEquals(reparsed.anchors(), updated.anchors());
+        assertEquals(reparsed.comments(), updated.comments());
+    }
+
+    @Test
+    void withBlockContents_sameTrimmedContents_returnsSameDocument() {
+        GradingReportDocument document = GradingReportDocument.parse(REPORT);
+
+        assertSame(document, document.withBlockContents(document.rubric(),
+                "  >> | Earned | Possible | Criteria |  "));
+    }
+
+    @Test
+    void withBlockContents_contentsWithMarkers_reparses() {
+        GradingReportDocument document = GradingReportDocument.parse(REPORT);
+
+        GradingReportDocument updated = document.withBlockContents(
+                document.rubric(),
+                "<!-- COMMENTS_SUMMARY_BEGIN -->\nmoved"
+        );
+
+        assertEquals(GradingReportDocument.parse(updated.text()).summary(), updated.summary());
+        assertTrue(updated.summary().begin() < updated.rubric().end());
+        assertTrue(updated.summaryContents().startsWith("moved"));
+    }
+}
@@ -12,6 +12,8 @@ import static org.junit.jupiter.api.Assertions.*;
  * - public void setSchemaVersion(int schemaVersion)
  * - public String getCheckstyleConfigUrl()
  * - public void setCheckstyleConfigUrl(String checkstyleConfigUrl)
+ * - public int getPushParallelism()
+ * - public void setPushParallelism(int pushParallelism)
  */
 final class SettingsTest {
 
@@ -20,6 +22,7 @@ final class SettingsTest {
         Settings s = new Settings();
         assertEquals(0, s.getSchemaVersion());
         assertNull(s.getCheckstyleConfigUrl());
+        assertEquals(0, s.getPushParallelism());
     }
 
     @Test
@@ -27,8 +30,10 @@ final class SettingsTest {
         Settings s = new Settings();
         s.setSchemaVersion(2);
         s.setCheckstyleConfigUrl("http://example.com/checkstyle.xml");
+        s.setPushParallelism(6);
 
         assertEquals(2, s.getSchemaVersion());
         assertEquals("http://example.com/checkstyle.xml", s.getCheckstyleConfigUrl());
+        assertEquals(6, s.getPushParallelism());
     }
 }
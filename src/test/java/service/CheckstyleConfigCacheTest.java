@@ -0,0 +1,170 @@
+package service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CheckstyleConfigCacheTest {
+
+    private HttpServer server;
+    private final Map<String, String> bodies = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void configFor_keepsOneEntryPerUrl(@TempDir Path tmp) throws IOException {
+        bodies.put("/1110.xml", "<module name=\"A\"/>");
+        bodies.put("/1120.xml", "<module name=\"B\"/>");
+        CheckstyleConfigCache cache = cache(tmp, Duration.ofHours(1), new StringBuilder());
+
+        Path first = cache.configFor(url("/1110.xml"));
+        Path second = cache.configFor(url("/1120.xml"));
+        Path firstAgain = cache.configFor(url("/1110.xml"));
+
+        assertNotEquals(first, second);
+        assertEquals(first, firstAgain);
+        assertEquals("<module name=\"A\"/>", Files.readString(first));
+        assertEquals("<module name=\"B\"/>", Files.readString(second));
+        assertEquals(List.of("GET /1110.xml -", "GET /1120.xml -"), requests);
+    }
+
+    @Test
+    public void configFor_revalidatesWithEtagAndReplacesChangedConfig(@TempDir Path tmp)
+            throws IOException {
+        bodies.put("/1120.xml", "version one");
+        CheckstyleConfigCache cache = cache(tmp, Duration.ZERO, new StringBuilder());
+
+        Path config = cache.configFor(url("/1120.xml"));
+        cache.configFor(url("/1120.xml"));
+        bodies.put("/1120.xml", "version two");
+        Path refreshed = cache.configFor(url("/1120.xml"));
+
+        assertEquals(config, refreshed);
+        assertEquals("version two", Files.readString(refreshed));
+        assertEquals(List.of(
+                "GET /1120.xml -",
+                "GET /1120.xml " + etag("version one"),
+                "GET /1120.xml " + etag("version one")
+        ), requests);
+    }
+
+    @Test
+    public void configFor_fallsBackToLastGoodCopyWhenOffline(@TempDir Path tmp)
+            throws IOException {
+        bodies.put("/1120.xml", "cached");
+        StringBuilder log = new StringBuilder();
+        CheckstyleConfigCache cache = cache(tmp, Duration.ZERO, log);
+        String url = url("/1120.xml");
+        cache.configFor(url);
+        server.stop(0);
+
+        Path config = cache.configFor(url);
+
+        assertEquals("cached", Files.readString(config));
+        assertTrue(log.toString().contains("refresh failed"), log.toString());
+    }
+
+    @Test
+    public void configFor_failsWhenNothingIsCachedAndServerIsDown(@TempDir Path tmp) {
+        String url = url("/1120.xml");
+        server.stop(0);
+        CheckstyleConfigCache cache = cache(tmp, Duration.ZERO, new StringBuilder());
+
+        assertThrows(IOException.class, () -> cache.configFor(url));
+    }
+
+    @Test
+    public void configFor_adoptsConfigFromSingleFileCache(@TempDir Path tmp)
+            throws IOException {
+        String url = url("/1120.xml");
+        server.stop(0);
+        Files.writeString(tmp.resolve("checkstyle.xml"), "legacy");
+        Files.writeString(tmp.resolve("checkstyle-url.txt"), url + System.lineSeparator());
+        CheckstyleConfigCache cache = cache(tmp, Duration.ZERO, new StringBuilder());
+
+        Path config = cache.configFor(url);
+
+        assertEquals("legacy", Files.readString(config));
+        assertTrue(Files.notExists(tmp.resolve("checkstyle-url.txt")));
+    }
+
+    private CheckstyleConfigCache cache(Path root, Duration refreshInterval, StringBuilder log) {
+        return new CheckstyleConfigCache(
+                root,
+                HttpClient.newHttpClient(),
+                refreshInterval,
+                Runnable::run,
+                Clock.systemUTC(),
+                log::append
+        );
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static String etag(String body) {
+        return "\"" + Integer.toHexString(body.hashCode()) + "\"";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        requests.add(exchange.getRequestMethod() + " " + path + " "
+                + (ifNoneMatch == null ? "-" : ifNoneMatch));
+
+        String body = bodies.get(path);
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        String etag = etag(body);
+        if (etag.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("ETag", etag);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
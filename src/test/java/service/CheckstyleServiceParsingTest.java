@@ -7,7 +7,9 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -226,6 +228,264 @@ public class CheckstyleServiceParsingTest {
         assertTrue(result.markdown().contains("### demo/Student.java"));
     }
 
+    @Test
+    public void buildCheckstyleResults_singleRun_splitsViolationsPerRepo(@TempDir Path tmp)
+            throws Exception {
+        Path root = tmp.resolve("root");
+        Path repoA = tmp.resolve("repo");
+        Path repoB = tmp.resolve("repo-2");
+        Path repoEmpty = tmp.resolve("repo-empty");
+        Files.createDirectories(repoA.resolve("src").resolve("alice"));
+        Files.createDirectories(repoB.resolve("src").resolve("bob"));
+        Files.createDirectories(repoEmpty.resolve("src"));
+        Path aliceFile = repoA.resolve("src").resolve("alice").resolve("Main.java");
+        Path bobFile = repoB.resolve("src").resolve("bob").resolve("Main.java");
+        Files.writeString(aliceFile, "class Main {}");
+        Files.writeString(bobFile, "class Main {}");
+        Path jar = createJarFile(tmp.resolve("checkstyle.jar"));
+
+        String url = "https://example.com/checkstyle.xml";
+        seedCachedConfig(tmp, url);
+
+        List<List<String>> invocations = new ArrayList<>();
+        ProcessRunner runner = new ProcessRunner() {
+            @Override
+            public ProcessResult runCaptureLinesWithExitCode(List<String> args, Path workingDir) {
+                invocations.add(args);
+                return new ProcessResult(3, List.of(
+                        "Starting audit...",
+                        "[ERROR] " + aliceFile + ":1:1: Missing javadoc",
+                        "[ERROR] " + bobFile + ":1:1: Missing javadoc",
+                        "[WARN] " + bobFile + ":2:1: Line too long",
+                        "Audit done.",
+                        "Checkstyle ends with 3 errors."
+                ));
+            }
+        };
+        CheckstyleService service = createService(runner, jar, tmp);
+
+        Map<Path, CheckstyleService.CheckstyleResult> results = service.buildCheckstyleResults(
+                List.of(repoA, repoB, repoEmpty),
+                root,
+                true,
+                false,
+                url
+        );
+
+        assertEquals(1, invocations.size());
+        assertEquals(List.of(aliceFile.toAbsolutePath().toString(),
+                bobFile.toAbsolutePath().toString()), checkedFiles(invocations.getFirst()));
+
+        CheckstyleService.CheckstyleResult alice = results.get(CheckstyleService.repoKey(repoA));
+        CheckstyleService.CheckstyleResult bob = results.get(CheckstyleService.repoKey(repoB));
+        CheckstyleService.CheckstyleResult empty = results.get(CheckstyleService.repoKey(repoEmpty));
+
+        assertEquals(1, alice.totalViolations());
+        assertTrue(alice.markdown().contains("### alice/Main.java"));
+        assertEquals(2, bob.totalViolations());
+        assertTrue(bob.markdown().contains("### bob/Main.java"));
+        assertEquals("_No Java files found under src/._", empty.markdown());
+    }
+
+    @Test
+    public void buildCheckstyleResults_abortedRun_fallsBackToPerRepoRuns(@TempDir Path tmp)
+            throws Exception {
+        Path root = tmp.resolve("root");
+        Path repoA = tmp.resolve("repo-a");
+        Path repoB = tmp.resolve("repo-b");
+        Files.createDirectories(repoA.resolve("src"));
+        Files.createDirectories(repoB.resolve("src"));
+        Files.writeString(repoA.resolve("src").resolve("A.java"), "class A {}");
+        Files.writeString(repoB.resolve("src").resolve("B.java"), "class B {");
+        Path jar = createJarFile(tmp.resolve("checkstyle.jar"));
+
+        String url = "https://example.com/checkstyle.xml";
+        seedCachedConfig(tmp, url);
+
+        List<Path> workingDirs = new ArrayList<>();
+        ProcessRunner runner = new ProcessRunner() {
+            @Override
+            public ProcessResult runCaptureLinesWithExitCode(List<String> args, Path workingDir) {
+                workingDirs.add(workingDir);
+                if (workingDir.equals(root)) {
+                    return new ProcessResult(1, List.of(
+                            "Starting audit...",
+                            "com.puppycrawl.tools.checkstyle.api.CheckstyleException: "
+                                    + "Exception was thrown while processing B.java"
+                    ));
+                }
+                return new ProcessResult(0, List.of("Starting audit...", "Audit done."));
+            }
+        };
+        CheckstyleService service = createService(runner, jar, tmp);
+
+        Map<Path, CheckstyleService.CheckstyleResult> results = service.buildCheckstyleResults(
+                List.of(repoA, repoB),
+                root,
+                true,
+                false,
+                url
+        );
+
+        assertEquals(List.of(root, CheckstyleService.repoKey(repoA),
+                CheckstyleService.repoKey(repoB)), workingDirs);
+        assertEquals("_No checkstyle violations._",
+                results.get(CheckstyleService.repoKey(repoA)).markdown());
+        assertEquals("_No checkstyle violations._",
+                results.get(CheckstyleService.repoKey(repoB)).markdown());
+    }
+
+    @Test
+    public void buildCheckstyleResults_disabled_returnsSameResultForEveryRepo(@TempDir Path tmp) {
+        CheckstyleService service = createService(
+                new ProcessRunner() { },
+                tmp.resolve("checkstyle.jar"),
+                tmp
+        );
+
+        Map<Path, CheckstyleService.CheckstyleResult> results = service.buildCheckstyleResults(
+                List.of(tmp.resolve("a"), tmp.resolve("b")),
+                tmp.resolve("root"),
+                false,
+                false,
+                "https://example.com/checkstyle.xml"
+        );
+
+        assertEquals(2, results.size());
+        for (CheckstyleService.CheckstyleResult result : results.values()) {
+            assertEquals("_Checkstyle disabled._", result.markdown());
+        }
+    }
+
+    @Test
+    public void buildCheckstyleResults_withResultCache_skipsUnchangedRepos(@TempDir Path tmp)
+            throws Exception {
+        Path root = tmp.resolve("root");
+        Path repoA = tmp.resolve("repo-a");
+        Path repoB = tmp.resolve("repo-b");
+        Files.createDirectories(repoA.resolve("src"));
+        Files.createDirectories(repoB.resolve("src"));
+        Path fileA = repoA.resolve("src").resolve("A.java");
+        Path fileB = repoB.resolve("src").resolve("B.java");
+        Files.writeString(fileA, "class A {}");
+        Files.writeString(fileB, "class B {}");
+        Path jar = createJarFile(tmp.resolve("checkstyle.jar"));
+
+        String url = "https://example.com/checkstyle.xml";
+        seedCachedConfig(tmp, url);
+
+        List<List<String>> checkedFiles = new ArrayList<>();
+        ProcessRunner runner = new ProcessRunner() {
+            @Override
+            public ProcessResult runCaptureLinesWithExitCode(List<String> args, Path workingDir) {
+                List<String> files = checkedFiles(args);
+                checkedFiles.add(files);
+
+                List<String> lines = new ArrayList<>();
+                lines.add("Starting audit...");
+                for (String file : files) {
+                    lines.add("[WARN] " + file + ":1:1: Missing javadoc");
+                }
+                lines.add("Audit done.");
+                return new ProcessResult(0, lines);
+            }
+        };
+        ToolArtifactService artifactService = new ToolArtifactService(tmp);
+        ResultCache cache = new ResultCache(
+                artifactService.resultCacheRoot(),
+                ResultCache.DEFAULT_MAX_BYTES,
+                msg -> { }
+        );
+        CheckstyleService service =
+                new CheckstyleService(runner, msg -> { }, jar, artifactService, cache);
+
+        service.buildCheckstyleResults(List.of(repoA, repoB), root, true, false, url);
+        Files.writeString(fileB, "class B { int x; }");
+        Map<Path, CheckstyleService.CheckstyleResult> second =
+                service.buildCheckstyleResults(List.of(repoA, repoB), root, true, false, url);
+
+        assertEquals(2, checkedFiles.size());
+        assertEquals(2, checkedFiles.get(0).size());
+        assertEquals(1, checkedFiles.get(1).size());
+        assertTrue(checkedFiles.get(1).getFirst().contains("B.java"));
+        assertEquals(1, second.get(CheckstyleService.repoKey(repoA)).totalViolations());
+        assertEquals(1, second.get(CheckstyleService.repoKey(repoB)).totalViolations());
+    }
+
+    @Test
+    public void buildCheckstyleResults_longFileList_splitsIntoRunsBelowCommandLineLimit(
+            @TempDir Path tmp
+    ) throws Exception {
+        Path root = tmp.resolve("root");
+        Path repoA = tmp.resolve("repo-a");
+        Path repoB = tmp.resolve("repo-b");
+        String padding = "X".repeat(100);
+        for (Path repo : List.of(repoA, repoB)) {
+            Path src = Files.createDirectories(repo.resolve("src"));
+            for (int i = 0; i < 150; i++) {
+                Files.writeString(src.resolve("C" + i + padding + ".java"), "class C {}");
+            }
+        }
+        Path jar = createJarFile(tmp.resolve("checkstyle.jar"));
+
+        String url = "https://example.com/checkstyle.xml";
+        seedCachedConfig(tmp, url);
+
+        List<List<String>> invocations = new ArrayList<>();
+        ProcessRunner runner = new ProcessRunner() {
+            @Override
+            public ProcessResult runCaptureLinesWithExitCode(List<String> args, Path workingDir) {
+                invocations.add(args);
+                List<String> lines = new ArrayList<>();
+                lines.add("Starting audit...");
+                for (String file : checkedFiles(args)) {
+                    lines.add("[WARN] " + file + ":1:1: Missing javadoc");
+                }
+                lines.add("Audit done.");
+                return new ProcessResult(0, lines);
+            }
+        };
+        CheckstyleService service = createService(runner, jar, tmp);
+
+        Map<Path, CheckstyleService.CheckstyleResult> results = service.buildCheckstyleResults(
+                List.of(repoA, repoB), root, true, false, url);
+
+        assertTrue(invocations.size() > 1, "expected several runs, got " + invocations.size());
+        int files = 0;
+        for (List<String> args : invocations) {
+            assertTrue(String.join(" ", args).length()
+                    < CheckstyleService.MAX_COMMAND_LINE_CHARS);
+            files += checkedFiles(args).size();
+        }
+        assertEquals(300, files);
+        assertEquals(150, results.get(CheckstyleService.repoKey(repoA)).totalViolations());
+        assertEquals(150, results.get(CheckstyleService.repoKey(repoB)).totalViolations());
+    }
+
+    @Test
+    public void chunkForCommandLine_keepsOrderAndStaysWithinBudget() {
+        List<Path> files = List.of(
+                Path.of("/a/One.java"),
+                Path.of("/a/Two.java"),
+                Path.of("/a/Three.java"),
+                Path.of("/a/" + "L".repeat(50) + ".java")
+        );
+
+        List<List<Path>> chunks = CheckstyleService.chunkForCommandLine(files, 10, 40);
+
+        List<Path> flattened = new ArrayList<>();
+        chunks.forEach(flattened::addAll);
+        assertEquals(files.stream().map(Path::toAbsolutePath).toList(),
+                flattened.stream().map(Path::toAbsolutePath).toList());
+        assertEquals(3, chunks.size());
+        assertEquals(1, chunks.getLast().size());
+    }
+
+    // Files passed to checkstyle follow the "-c <config>" pair.
+    private static List<String> checkedFiles(List<String> args) {
+        return args.subList(args.indexOf("-c") + 2, args.size());
+    }
+
     private CheckstyleService createService(ProcessRunner runner,
                                             Path jarPath,
                                             Path appDataRoot) {
@@ -0,0 +1,49 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DraftAutosaverTest {
+
+    @Test
+    public void burstOfEdits_savesEachStudentOnceAfterQuietPeriod() throws Exception {
+        List<String> saved = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        try (DraftAutosaver autosaver = new DraftAutosaver(student -> {
+            saved.add(student);
+            done.countDown();
+        }, Duration.ofMillis(150))) {
+            for (int i = 0; i < 20; i++) {
+                autosaver.draftChanged("ann");
+            }
+            autosaver.draftChanged("bob");
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            Thread.sleep(300);
+            assertEquals(2, saved.size());
+            assertTrue(saved.containsAll(List.of("ann", "bob")));
+            assertEquals(0, autosaver.pendingCount());
+        }
+    }
+
+    @Test
+    public void cancelPending_dropsScheduledSaves() throws Exception {
+        List<String> saved = new CopyOnWriteArrayList<>();
+        try (DraftAutosaver autosaver =
+                     new DraftAutosaver(saved::add, Duration.ofMillis(100))) {
+            autosaver.draftChanged("ann");
+            autosaver.cancelPending();
+
+            Thread.sleep(300);
+            assertTrue(saved.isEmpty());
+        }
+    }
+}
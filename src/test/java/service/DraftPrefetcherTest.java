@@ -0,0 +1,224 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DraftPrefetcherTest {
+
+    private static final List<String> ROSTER = List.of("a", "b", "c", "d", "e", "f", "g");
+
+    @Test
+    public void prefetchAround_loadsNearestNeighboursFirst() {
+        QueuedExecutor executor = new QueuedExecutor();
+        List<String> loaded = new ArrayList<>();
+        DraftPrefetcher<String> prefetcher = new DraftPrefetcher<>(
+                student -> {
+                    loaded.add(student);
+                    return "draft-" + student;
+                },
+                2,
+                8,
+                executor
+        );
+
+        prefetcher.prefetchAround(ROSTER, "d", _ -> true);
+        executor.runAll();
+
+        assertEquals(List.of("e", "c", "f", "b"), loaded);
+        assertEquals("draft-e", prefetcher.take("e"));
+        assertNull(prefetcher.take("e"));
+        assertNull(prefetcher.take("a"));
+    }
+
+    @Test
+    public void prefetchAround_skipsUnwantedStudentsAndRosterEnds() {
+        QueuedExecutor executor = new QueuedExecutor();
+        List<String> loaded = new ArrayList<>();
+        DraftPrefetcher<String> prefetcher = new DraftPrefetcher<>(
+                student -> {
+                    loaded.add(student);
+                    return student;
+                },
+                2,
+                8,
+                executor
+        );
+
+        prefetcher.prefetchAround(ROSTER, "a", student -> !student.equals("b"));
+        executor.runAll();
+
+        assertEquals(List.of("c"), loaded);
+    }
+
+    @Test
+    public void queuedWorkForStudentsLeftBehind_isSkipped() {
+        QueuedExecutor executor = new QueuedExecutor();
+        List<String> loaded = new ArrayList<>();
+        DraftPrefetcher<String> prefetcher = new DraftPrefetcher<>(
+                student -> {
+                    loaded.add(student);
+                    return student;
+                },
+                1,
+                8,
+                executor
+        );
+
+        prefetcher.prefetchAround(ROSTER, "b", _ -> true);
+        prefetcher.prefetchAround(ROSTER, "f", _ -> true);
+        executor.runAll();
+
+        assertEquals(List.of("g", "e"), loaded);
+        assertNull(prefetcher.take("a"));
+        assertEquals("e", prefetcher.take("e"));
+    }
+
+    @Test
+    public void take_dropsDraftThatIsOnlyQueued() {
+        QueuedExecutor executor = new QueuedExecutor();
+        DraftPrefetcher<String> prefetcher =
+                new DraftPrefetcher<>(student -> student, 1, 8, executor);
+
+        prefetcher.prefetchAround(ROSTER, "c", _ -> true);
+
+        assertNull(prefetcher.take("d"));
+        executor.runAll();
+        assertNull(prefetcher.take("d"));
+        assertEquals("b", prefetcher.take("b"));
+    }
+
+    @Test
+    public void cache_isBoundedAndEvictsStudentsOutsideTheWindowFirst() {
+        QueuedExecutor executor = new QueuedExecutor();
+        DraftPrefetcher<String> prefetcher =
+                new DraftPrefetcher<>(student -> student, 1, 3, executor);
+
+        prefetcher.prefetchAround(ROSTER, "b", _ -> true);
+        executor.runAll();
+        prefetcher.prefetchAround(ROSTER, "e", _ -> true);
+        executor.runAll();
+
+        assertEquals(3, prefetcher.size());
+        assertEquals("d", prefetcher.take("d"));
+        assertEquals("f", prefetcher.take("f"));
+        assertEquals("a", prefetcher.take("a"));
+        assertNull(prefetcher.take("c"));
+    }
+
+    @Test
+    public void nullOrFailingLoads_areNotCached() {
+        QueuedExecutor executor = new QueuedExecutor();
+        DraftPrefetcher<String> prefetcher = new DraftPrefetcher<>(
+                student -> {
+                    if (student.equals("a")) {
+                        throw new IllegalStateException("unreadable");
+                    }
+                    return null;
+                },
+                1,
+                8,
+                executor
+        );
+
+        prefetcher.prefetchAround(ROSTER, "b", _ -> true);
+        executor.runAll();
+
+        assertEquals(0, prefetcher.size());
+        assertNull(prefetcher.take("a"));
+        assertNull(prefetcher.take("c"));
+    }
+
+    @Test
+    public void invalidate_dropsPreparedDrafts() {
+        QueuedExecutor executor = new QueuedExecutor();
+        DraftPrefetcher<String> prefetcher =
+                new DraftPrefetcher<>(student -> student, 1, 8, executor);
+
+        prefetcher.prefetchAround(ROSTER, "c", _ -> true);
+        executor.runAll();
+        prefetcher.invalidate("b");
+
+        assertNull(prefetcher.take("b"));
+        assertEquals(1, prefetcher.size());
+
+        prefetcher.invalidateAll();
+        assertNull(prefetcher.take("d"));
+    }
+
+    @Test
+    public void realWorker_preparesDraftsInBackground() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(4);
+        try (DraftPrefetcher<String> prefetcher = new DraftPrefetcher<>(student -> {
+            loaded.countDown();
+            return "draft-" + student;
+        })) {
+            prefetcher.prefetchAround(ROSTER, "c", _ -> true);
+
+            assertTrue(loaded.await(5, TimeUnit.SECONDS));
+            assertEquals("draft-e", prefetcher.take("e"));
+            assertEquals("draft-a", prefetcher.take("a"));
+        }
+    }
+
+    /**
+     * Runs submitted tasks only when asked, so tests control the interleaving.
+     */
+    private static final class QueuedExecutor extends AbstractExecutorService {
+
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private boolean shutdown = false;
+
+        void runAll() {
+            Runnable task = tasks.poll();
+            while (task != null) {
+                task.run();
+                task = tasks.poll();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            return Collections.unmodifiableList(pending);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && tasks.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares {@link GitObjectReader#log} with the output of {@code git log} on real
+ * repositories built by the tests.
+ */
+public class GitObjectReaderTest {
+
+    private static final String[] AUTHORS = {"Ada Lovelace", "Grace Hopper", "Alan  Turing"};
+    private static final String[] ZONES = {"+0000", "-0800", "+0530", "+1300"};
+
+    @Test
+    public void log_matchesGitLog_forLooseObjects(@TempDir Path tmp) throws Exception {
+        Path repo = initRepo(tmp);
+        commitSeries(repo, 14);
+
+        assertMatchesGit(repo);
+    }
+
+    @Test
+    public void log_matchesGitLog_afterRepackIntoDeltifiedPack(@TempDir Path tmp)
+            throws Exception {
+        Path repo = initRepo(tmp);
+        commitSeries(repo, 30);
+        git(repo, Map.of(), "repack", "-adf", "--window=250", "--depth=50");
+        git(repo, Map.of(), "pack-refs", "--all");
+        git(repo, Map.of(), "prune-packed");
+
+        assertTrue(Files.exists(repo.resolve(".git").resolve("packed-refs")));
+        assertMatchesGit(repo);
+    }
+
+    @Test
+    public void log_matchesGitLog_forMergesAndEqualTimestamps(@TempDir Path tmp)
+            throws Exception {
+        Path repo = initRepo(tmp);
+        commit(repo, "base", "Ada Lovelace", "1700000000 +0000");
+        git(repo, Map.of(), "checkout", "-b", "feature");
+        commit(repo, "feature one", "Grace Hopper", "1700000100 +0000");
+        commit(repo, "feature two", "Grace Hopper", "1700000300 +0000");
+        git(repo, Map.of(), "checkout", "main");
+        commit(repo, "main one", "Ada Lovelace", "1700000100 +0000");
+        commit(repo, "main two", "Ada Lovelace", "1700000200 +0000");
+        Map<String, String> mergeDates = dates("1700000400 +0000");
+        git(repo, mergeDates, "merge", "--no-ff", "-m", "Merge feature", "feature");
+        commit(repo, "after merge", "Alan Turing", "1700000500 +0000");
+
+        assertMatchesGit(repo);
+    }
+
+    @Test
+    public void log_followsDetachedHead(@TempDir Path tmp) throws Exception {
+        Path repo = initRepo(tmp);
+        commitSeries(repo, 4);
+        git(repo, Map.of(), "checkout", "--detach", "HEAD~1");
+
+        assertMatchesGit(repo);
+    }
+
+    @Test
+    public void log_isEmptyForUnbornBranch(@TempDir Path tmp) throws Exception {
+        Path repo = initRepo(tmp);
+
+        assertEquals(List.of(), GitObjectReader.open(repo).log(10));
+    }
+
+    @Test
+    public void open_rejectsDirectoryWithoutRepository(@TempDir Path tmp) {
+        assertThrows(
+                GitObjectReader.UnsupportedRepositoryException.class,
+                () -> GitObjectReader.open(tmp)
+        );
+    }
+
+    @Test
+    public void subjectOf_joinsFirstParagraphLikeGit() {
+        assertEquals(
+                "First line continued here",
+                GitObjectReader.subjectOf("\n\nFirst line  \ncontinued here\n\nBody text\n")
+        );
+    }
+
+    @Test
+    public void applyDelta_copiesAndInsertsIntoResult() throws IOException {
+        byte[] base = "hello world".getBytes(StandardCharsets.US_ASCII);
+        byte[] delta = {
+                11, 12,                      // base size, result size
+                (byte) 0x91, 0, 6,           // copy offset 0, size 6: "hello "
+                6, 'g', 'i', 't', 't', 'e', 'r'
+        };
+
+        assertEquals("hello gitter",
+                new String(GitObjectReader.applyDelta(base, delta), StandardCharsets.US_ASCII));
+    }
+
+    private static void assertMatchesGit(Path repo) throws Exception {
+        List<String> expected = git(repo, Map.of(), "log", "-n", "10",
+                "--pretty=format:%h %ad %an - %s", "--date=short");
+
+        assertEquals(expected, GitObjectReader.open(repo).log(10));
+    }
+
+    private static Path initRepo(Path tmp) throws Exception {
+        Path repo = tmp.resolve("repo");
+        Files.createDirectories(repo);
+        git(repo, Map.of(), "init", "-b", "main");
+        git(repo, Map.of(), "config", "user.name", "Test Runner");
+        git(repo, Map.of(), "config", "user.email", "runner@example.com");
+        git(repo, Map.of(), "config", "commit.gpgsign", "false");
+        return repo;
+    }
+
+    private static void commitSeries(Path repo, int count) throws Exception {
+        long time = 1_600_000_000L;
+        for (int i = 0; i < count; i++) {
+            time += 3_600L * (i % 5 + 1) + 17L * i;
+            String message = i % 3 == 0
+                    ? "Update Driver.java for step " + i + "  \nwith a wrapped subject\n\n"
+                            + "Longer body text that is the same for every commit. ".repeat(8)
+                    : "Step " + i + " of the lab";
+            commit(repo, message, AUTHORS[i % AUTHORS.length],
+                    time + " " + ZONES[i % ZONES.length]);
+        }
+    }
+
+    private static void commit(Path repo, String message, String author, String date)
+            throws Exception {
+        // One file per author keeps the merge test free of conflicts.
+        String fileName = author.replace(" ", "") + ".java";
+        Path file = repo.resolve(fileName);
+        String previous = Files.exists(file) ? Files.readString(file) : "";
+        Files.writeString(file, previous + "// " + message.lines().findFirst().orElse("")
+                + System.lineSeparator());
+        git(repo, Map.of(), "add", fileName);
+
+        Map<String, String> env = new HashMap<>(dates(date));
+        env.put("GIT_AUTHOR_NAME", author);
+        env.put("GIT_AUTHOR_EMAIL", "student@example.com");
+        Path messageFile = repo.resolve(".git").resolve("TEST_MSG");
+        Files.writeString(messageFile, message);
+        git(repo, env, "commit", "--cleanup=verbatim", "-F", messageFile.toString());
+    }
+
+    private static Map<String, String> dates(String date) {
+        return Map.of("GIT_AUTHOR_DATE", date, "GIT_COMMITTER_DATE", date);
+    }
+
+    private static List<String> git(Path repo, Map<String, String> env, String... args)
+            throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(args));
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(repo.toFile());
+        pb.redirectErrorStream(true);
+        pb.environment().putAll(env);
+
+        Process process = pb.start();
+        String output = new String(process.getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8);
+        int exitCode = process.waitFor();
+        assertEquals(0, exitCode, output);
+        return output.lines().toList();
+    }
+}
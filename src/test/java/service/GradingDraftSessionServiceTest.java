@@ -1,6 +1,15 @@
 package service;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -70,6 +79,36 @@ public class GradingDraftSessionServiceTest {
         assertFalse(service.needsReload("pkg1"));
     }
 
+    @Test
+    public void hasUnsavedEdits_falseForViewedDraft_untilTheGraderEditsIt() {
+        GradingDraftSessionService service = new GradingDraftSessionService();
+        service.setMarkdown("pkg1", "# Report");
+        service.setLoadedFromDisk("pkg1", true);
+
+        assertTrue(service.hasDraft("pkg1"));
+        assertFalse(service.hasUnsavedEdits("pkg1"));
+
+        service.markEdited("pkg1");
+        assertTrue(service.hasUnsavedEdits("pkg1"));
+
+        service.markSaved("pkg1", service.editCount("pkg1"));
+        assertFalse(service.hasUnsavedEdits("pkg1"));
+        assertFalse(service.hasUnsavedEdits("missing"));
+    }
+
+    @Test
+    public void markSaved_keepsEditsMadeWhileTheSaveRan() {
+        GradingDraftSessionService service = new GradingDraftSessionService();
+        service.saveEditorState("pkg1", "# Report", 0);
+        service.markEdited("pkg1");
+        long savedAt = service.editCount("pkg1");
+
+        service.markEdited("pkg1");
+        service.markSaved("pkg1", savedAt);
+
+        assertTrue(service.hasUnsavedEdits("pkg1"));
+    }
+
     @Test
     public void caretPosition_isClampedToZeroWhenNegative() {
         GradingDraftSessionService service = new GradingDraftSessionService();
@@ -78,4 +117,104 @@ public class GradingDraftSessionServiceTest {
 
         assertEquals(0, service.getCaretPosition("pkg1"));
     }
+
+    @Test
+    public void coldDrafts_spillToJournal_andReadBackWithCaretAndSelection(@TempDir Path dir) {
+        List<String> log = new ArrayList<>();
+        GradingDraftSessionService service = new GradingDraftSessionService(dir, 100, log::add);
+        String first = "# First\n" + "a".repeat(80);
+        String second = "# Second\n" + "b".repeat(80);
+
+        service.saveEditorState("pkg1", first, 4, 9);
+        service.saveEditorState("pkg2", second, 2);
+
+        assertEquals(1, service.spilledDraftCount());
+        assertEquals(second.length(), service.residentChars());
+        assertFalse(service.needsReload("pkg1"));
+        assertTrue(service.hasDraft("pkg1"));
+        assertEquals(4, service.getSelectionStart("pkg1"));
+        assertEquals(9, service.getSelectionEnd("pkg1"));
+
+        assertEquals(first, service.getMarkdown("pkg1"));
+        assertEquals(1, service.spilledDraftCount());
+        assertEquals(first.length(), service.residentChars());
+        assertEquals(second, service.getMarkdown("pkg2"));
+        assertEquals(9, service.getCaretPosition("pkg1"));
+        assertTrue(log.isEmpty());
+    }
+
+    @Test
+    public void editingSpilledDraft_replacesJournalCopy(@TempDir Path dir) {
+        GradingDraftSessionService service = new GradingDraftSessionService(dir, 10, _ -> {
+        });
+        service.saveEditorState("pkg1", "first draft", 0);
+        service.saveEditorState("pkg2", "second draft", 0);
+
+        service.updateMarkdownIfPresent("pkg1", "first draft, edited");
+        service.updateMarkdownIfPresent("pkg3", "ignored");
+
+        assertEquals("first draft, edited", service.getMarkdown("pkg1"));
+        assertEquals("second draft", service.getMarkdown("pkg2"));
+        assertFalse(service.hasDraft("pkg3"));
+    }
+
+    @Test
+    public void manyRoundTrips_keepEveryDraftIntact(@TempDir Path dir) throws IOException {
+        GradingDraftSessionService service = new GradingDraftSessionService(dir, 5_000, _ -> {
+        });
+        List<String> students = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            students.add("pkg" + i);
+            service.saveEditorState("pkg" + i, draftText(i, 0), i);
+        }
+
+        for (int round = 1; round <= 30; round++) {
+            for (String student : students) {
+                int i = Integer.parseInt(student.substring(3));
+                assertEquals(draftText(i, round - 1), service.getMarkdown(student));
+                service.setMarkdown(student, draftText(i, round));
+            }
+        }
+
+        assertTrue(service.residentChars() <= 5_000 + draftText(39, 30).length());
+        assertEquals(1, countFiles(dir));
+        try (Stream<Path> files = Files.list(dir)) {
+            // About 2.5 MB was spilled in total; released records were compacted away.
+            assertTrue(Files.size(files.findFirst().orElseThrow()) < 1_500_000);
+        }
+        for (String student : students) {
+            int i = Integer.parseInt(student.substring(3));
+            assertEquals(draftText(i, 30), service.getMarkdown(student));
+            assertEquals(i, service.getCaretPosition(student));
+        }
+    }
+
+    @Test
+    public void close_deletesJournal(@TempDir Path dir) throws IOException {
+        GradingDraftSessionService service = new GradingDraftSessionService(dir, 1, _ -> {
+        });
+        service.saveEditorState("pkg1", "first", 0);
+        service.saveEditorState("pkg2", "second", 0);
+        assertEquals(1, countFiles(dir));
+
+        service.close();
+
+        assertEquals(0, countFiles(dir));
+    }
+
+    // Random letters so the journal cannot deflate them away and has to compact.
+    private static String draftText(int student, int revision) {
+        Random random = new Random(student * 1_000L + revision);
+        StringBuilder text = new StringBuilder("# Report " + student + " rev " + revision);
+        for (int i = 0; i < 2_000 + student; i++) {
+            text.append(i % 80 == 0 ? '\n' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    private static long countFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
 }
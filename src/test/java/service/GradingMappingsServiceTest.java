@@ -1,5 +1,6 @@
 package service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -7,8 +8,15 @@ import org.junit.jupiter.api.io.TempDir;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -371,6 +379,73 @@ public class GradingMappingsServiceTest {
         assertEquals(mappings, secondRead);
     }
 
+    @Test
+    public void loadMappingsForUse_reconstruction_keepsRootIndexInAppData(@TempDir Path tmp)
+            throws Exception {
+        Path root = tmp.resolve("root-indexed");
+        Path repo = root.resolve("submissions").resolve("repo-a");
+        Files.createDirectories(repo);
+        Files.writeString(repo.resolve("A1pkgA.html"), "report");
+        Path appData = tmp.resolve("app-data");
+
+        Map<String, String> first = new GradingMappingsService(_ -> {
+            // no-op
+        }).loadMappingsForUse(tmp.resolve("first.json"), "A1", root, appData);
+        Map<String, String> second = new GradingMappingsService(_ -> {
+            // no-op
+        }).loadMappingsForUse(tmp.resolve("second.json"), "A1", root, appData);
+
+        assertEquals(Map.of("pkgA", repo.toString()), first);
+        assertEquals(first, second);
+        try (var files = Files.list(appData.resolve("mappings"))) {
+            assertEquals(1, files.filter(p -> p.getFileName().toString()
+                    .startsWith("root-index-")).count());
+        }
+    }
+
+    @Test
+    public void loadMappingsForUse_concurrentCallersSeeOneConsistentMapping(@TempDir Path tmp)
+            throws Exception {
+        GradingMappingsService service = new GradingMappingsService(_ -> {
+            // no-op
+        });
+        Path root = tmp.resolve("root");
+        Path container = root.resolve("submissions");
+        Map<String, String> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            Path repo = Files.createDirectories(container.resolve("repo-" + i));
+            Files.writeString(repo.resolve("A1pkg" + i + ".html"), "report");
+            expected.put("pkg" + i, repo.toString());
+        }
+        Path mappingFile = tmp.resolve("mappings").resolve("mappings.json");
+        Path appData = tmp.resolve("app-data");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Map<String, String>>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.loadMappingsForUse(mappingFile, "A1", root, appData);
+                }));
+            }
+            start.countDown();
+            for (Future<Map<String, String>> result : results) {
+                assertEquals(expected, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Map<String, String>> written = new ObjectMapper().readValue(
+                mappingFile.toFile(),
+                new TypeReference<>() {
+                }
+        );
+        assertEquals(expected.keySet(), written.keySet());
+    }
+
     private void writeMappingFile(Path mappingFile,
                                   Map<String, String> mappings) throws Exception {
         Map<String, Map<String, String>> json = new LinkedHashMap<>();
@@ -6,7 +6,11 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -64,6 +68,70 @@ public class GradingSyncServiceTest {
         assertTrue(Files.exists(repoDir.resolve("A1smith.html")));
     }
 
+    @Test
+    public void saveDrafts_skipsDraftsUnchangedSinceLastSave(@TempDir Path tmp)
+            throws IOException {
+        GradingSyncService service = new GradingSyncService();
+        TestDraftAccess draftAccess = new TestDraftAccess();
+        GradingDraftService gradingDraftService =
+                new GradingDraftService(new ReportHtmlWrapper());
+        Path feedbackRoot = tmp.resolve("feedback-root");
+        Map<String, Path> repos = new HashMap<>();
+        for (String pkg : List.of("ann", "bob", "cat")) {
+            repos.put(pkg, tmp.resolve("repo-" + pkg));
+            createDirectories(repos.get(pkg));
+            draftAccess.setMarkdown(pkg, "# Feedback for " + pkg);
+            draftAccess.setLoadedFromDisk(pkg, true);
+        }
+        List<String> students = List.of("ann", "bob", "cat");
+
+        GradingSyncService.SaveDraftResult first = service.saveDrafts(
+                students, draftAccess, "ann", ignored -> "", repos::get,
+                gradingDraftService, "A1", feedbackRoot
+        );
+        draftAccess.setMarkdown("bob", "# Feedback for bob, edited");
+        GradingSyncService.SaveDraftResult second = service.saveDrafts(
+                students, draftAccess, "ann", ignored -> "", repos::get,
+                gradingDraftService, "A1", feedbackRoot
+        );
+
+        assertEquals("Saved 3 HTML report(s) to student repositories.", first.message());
+        assertTrue(second.success());
+        assertEquals(
+                "Saved 1 HTML report(s) to student repositories. "
+                        + "2 unchanged report(s) skipped.",
+                second.message()
+        );
+        assertTrue(Files.readString(repos.get("bob").resolve("A1bob.html"))
+                .contains("edited"));
+    }
+
+    @Test
+    public void saveDrafts_rewritesUnchangedDraftWhenReportChangedOnDisk(@TempDir Path tmp)
+            throws IOException {
+        GradingSyncService service = new GradingSyncService();
+        TestDraftAccess draftAccess = new TestDraftAccess();
+        GradingDraftService gradingDraftService =
+                new GradingDraftService(new ReportHtmlWrapper());
+        Path repoDir = tmp.resolve("repo");
+        Path feedbackRoot = tmp.resolve("feedback-root");
+        createDirectories(repoDir);
+        draftAccess.setMarkdown("smith", "# Feedback");
+        draftAccess.setLoadedFromDisk("smith", true);
+
+        service.saveDrafts(List.of("smith"), draftAccess, "smith", ignored -> "",
+                ignored -> repoDir, gradingDraftService, "A1", feedbackRoot);
+        Path feedbackCopy = feedbackRoot.resolve("feedback").resolve("A1smith.html");
+        Files.delete(feedbackCopy);
+        GradingSyncService.SaveDraftResult result = service.saveDrafts(
+                List.of("smith"), draftAccess, "smith", ignored -> "",
+                ignored -> repoDir, gradingDraftService, "A1", feedbackRoot
+        );
+
+        assertEquals("Saved 1 HTML report(s) to student repositories.", result.message());
+        assertTrue(Files.exists(feedbackCopy));
+    }
+
     @Test
     public void saveDrafts_collectsAndLimitsFailureDetails() {
         GradingSyncService service = new GradingSyncService();
@@ -290,6 +358,121 @@ public class GradingSyncServiceTest {
         );
     }
 
+    @Test
+    public void pushAllRepos_parallel_pushesEveryRepoAndReportsProgress(@TempDir Path tmp)
+            throws Exception {
+        GradingSyncService service = new GradingSyncService(3);
+        Map<String, Path> repos = new LinkedHashMap<>();
+        for (int i = 1; i <= 5; i++) {
+            Path repo = createRepoWithUpstream(
+                    tmp.resolve("repo-" + i),
+                    tmp.resolve("remote-" + i + ".git")
+            );
+            Files.writeString(repo.resolve("A1pkg" + i + ".html"), "feedback " + i);
+            repos.put("pkg" + i, repo);
+        }
+        repos.put("pkg6", tmp.resolve("repo-missing-report"));
+        Files.createDirectories(repos.get("pkg6"));
+
+        List<GradingSyncService.PushResult> progress =
+                Collections.synchronizedList(new ArrayList<>());
+        GradingSyncService.PushResult result = service.pushAllRepos(
+                List.copyOf(repos.keySet()),
+                repos::get,
+                "A1",
+                progress::add
+        );
+
+        assertEquals(5, result.pushed());
+        assertEquals(1, result.skipped());
+        assertEquals(0, result.failed());
+        assertEquals("pkg6: report file missing", result.detailSummary());
+
+        assertEquals(6, progress.size());
+        for (int i = 1; i <= 5; i++) {
+            String remoteLog = gitOutput(tmp.resolve("remote-" + i + ".git"),
+                    "log", "-1", "--pretty=%s", "main");
+            assertEquals("Add feedback for A1", remoteLog.trim());
+        }
+    }
+
+    @Test
+    public void pushAllRepos_transientPushFailure_isRetried(@TempDir Path tmp)
+            throws Exception {
+        GradingSyncService service = new GradingSyncService(1, 3, Duration.ZERO);
+        Path remoteDir = tmp.resolve("remote-flaky.git");
+        Path localRepo = createRepoWithUpstream(tmp.resolve("repo-flaky"), remoteDir);
+
+        // Reject the first push the way a dropped HTTPS connection would look.
+        Path marker = tmp.resolve("rejected-once");
+        Path hook = remoteDir.resolve("hooks").resolve("pre-receive");
+        Files.writeString(hook, "#!/bin/sh\n"
+                + "if [ ! -f '" + marker.toString().replace('\\', '/') + "' ]; then\n"
+                + "  touch '" + marker.toString().replace('\\', '/') + "'\n"
+                + "  echo 'error: RPC failed; HTTP 502'\n"
+                + "  exit 1\n"
+                + "fi\n"
+                + "exit 0\n");
+        assertTrue(hook.toFile().setExecutable(true));
+
+        Files.writeString(localRepo.resolve("A1pkg1.html"), "feedback");
+        Map<String, Path> repos = Map.of("pkg1", localRepo);
+
+        GradingSyncService.PushResult result = service.pushAllRepos(
+                List.of("pkg1"),
+                repos::get,
+                "A1"
+        );
+
+        assertTrue(Files.exists(marker));
+        assertEquals(1, result.pushed());
+        assertEquals(0, result.failed());
+        assertEquals("", result.detailSummary());
+    }
+
+    @Test
+    public void pushAllRepos_forbiddenPush_isNotRetried(@TempDir Path tmp)
+            throws Exception {
+        GradingSyncService service = new GradingSyncService(1, 3, Duration.ZERO);
+        Path remoteDir = tmp.resolve("remote-forbidden.git");
+        Path localRepo = createRepoWithUpstream(tmp.resolve("repo-forbidden"), remoteDir);
+
+        // Reject every push the way GitHub answers a token without write access.
+        Path attempts = tmp.resolve("attempts");
+        Path hook = remoteDir.resolve("hooks").resolve("pre-receive");
+        Files.writeString(hook, "#!/bin/sh\n"
+                + "echo attempt >> '" + attempts.toString().replace('\\', '/') + "'\n"
+                + "echo \"fatal: unable to access 'https://github.com/org/repo.git/': "
+                + "The requested URL returned error: 403\"\n"
+                + "exit 1\n");
+        assertTrue(hook.toFile().setExecutable(true));
+
+        Files.writeString(localRepo.resolve("A1pkg1.html"), "feedback");
+        Map<String, Path> repos = Map.of("pkg1", localRepo);
+
+        GradingSyncService.PushResult result = service.pushAllRepos(
+                List.of("pkg1"),
+                repos::get,
+                "A1"
+        );
+
+        assertEquals(0, result.pushed());
+        assertEquals(1, result.failed());
+        assertEquals(1, Files.readAllLines(attempts).size());
+    }
+
+    private String gitOutput(Path workingDir,
+                             String... args) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(buildCommand(args));
+        pb.directory(workingDir.toFile());
+        pb.redirectErrorStream(true);
+
+        Process process = pb.start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor(), output);
+        return output;
+    }
+
     private Path createRepoWithCommit(Path repoDir) throws Exception {
         Files.createDirectories(repoDir);
         runGit(repoDir, "init");
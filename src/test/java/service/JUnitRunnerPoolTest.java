@@ -0,0 +1,124 @@
+package service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JUnitRunnerPoolTest {
+
+    private static final Path JUNIT_JAR =
+            Path.of("lib", "junit-platform-console-standalone-6.0.1.jar");
+
+    private JUnitRunnerPool pool;
+
+    @AfterEach
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void run_reportsTotalsAndFailures_andReusesWarmWorker(@TempDir Path tmp)
+            throws Exception {
+        Path classes = compileTestClass(tmp, """
+                package demo;
+                import org.junit.jupiter.api.Test;
+                import static org.junit.jupiter.api.Assertions.*;
+                public class SampleTest {
+                    @Test void passes() { System.out.println("noise\\tthat must not break"); }
+                    @Test void fails() { fail("boom\\nsecond line"); }
+                }
+                """);
+        pool = newPool(tmp);
+
+        JUnitRunnerPool.RunOutcome first = pool.run(classes, Duration.ofSeconds(60));
+
+        assertEquals(JUnitRunnerPool.RunStatus.COMPLETED, first.status(), first.message());
+        assertEquals(2, first.totalTests());
+        assertEquals(1, first.failures().size());
+        JUnitRunnerPool.TestFailure failure = first.failures().getFirst();
+        assertEquals("demo.SampleTest", failure.className());
+        assertEquals("fails()", failure.testName());
+        assertEquals("boom second line", failure.message());
+        assertEquals(1, pool.idleWorkerCount());
+
+        JUnitRunnerPool.RunOutcome second = pool.run(classes, Duration.ofSeconds(60));
+        assertEquals(JUnitRunnerPool.RunStatus.COMPLETED, second.status());
+        assertEquals(2, second.totalTests());
+        assertEquals(1, pool.idleWorkerCount());
+    }
+
+    @Test
+    public void run_neverEndingTest_timesOutAndDiscardsWorker(@TempDir Path tmp) throws Exception {
+        Path classes = compileTestClass(tmp, """
+                package demo;
+                import org.junit.jupiter.api.Test;
+                public class LoopTest {
+                    @Test void spins() { while (true) { Thread.onSpinWait(); } }
+                }
+                """);
+        pool = newPool(tmp);
+
+        JUnitRunnerPool.RunOutcome outcome = pool.run(classes, Duration.ofSeconds(3));
+
+        assertEquals(JUnitRunnerPool.RunStatus.TIMED_OUT, outcome.status());
+        assertEquals(0, pool.idleWorkerCount());
+    }
+
+    @Test
+    public void run_testCallingSystemExit_reportsFailure(@TempDir Path tmp) throws Exception {
+        Path classes = compileTestClass(tmp, """
+                package demo;
+                import org.junit.jupiter.api.Test;
+                public class ExitTest {
+                    @Test void exits() { System.exit(3); }
+                }
+                """);
+        pool = newPool(tmp);
+
+        JUnitRunnerPool.RunOutcome outcome = pool.run(classes, Duration.ofSeconds(60));
+
+        assertEquals(JUnitRunnerPool.RunStatus.FAILED, outcome.status());
+        assertTrue(outcome.message().contains("exited unexpectedly"));
+        assertEquals(0, pool.idleWorkerCount());
+    }
+
+    private JUnitRunnerPool newPool(Path workingDir) throws Exception {
+        Path ownCode = Path.of(JUnitRunnerDaemon.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+            command.add("--enable-preview");
+        }
+        command.add("-cp");
+        command.add(ownCode + File.pathSeparator + JUNIT_JAR.toAbsolutePath());
+        command.add(JUnitRunnerDaemon.class.getName());
+        return new JUnitRunnerPool(command, workingDir, 10);
+    }
+
+    private Path compileTestClass(Path tmp, String source) throws Exception {
+        String className = source.replaceAll("(?s).*public class (\\w+).*", "$1");
+        Path srcDir = Files.createDirectories(tmp.resolve("src").resolve("demo"));
+        Path file = Files.writeString(srcDir.resolve(className + ".java"), source);
+        Path classes = Files.createDirectories(tmp.resolve("classes"));
+
+        JavaCompileEngine.CompileOutcome outcome = new JavaCompileEngine().compile(
+                List.of("-d", classes.toString(), "-cp", JUNIT_JAR.toAbsolutePath().toString()),
+                List.of(file)
+        );
+        assertTrue(outcome.success(), String.join("\n", outcome.outputLines()));
+        return classes;
+    }
+}
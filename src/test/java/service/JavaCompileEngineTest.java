@@ -0,0 +1,122 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JavaCompileEngineTest {
+
+    @Test
+    public void compile_validSource_writesClassFile(@TempDir Path tmp) throws Exception {
+        Path src = tmp.resolve("src").resolve("demo");
+        Files.createDirectories(src);
+        Path file = Files.writeString(src.resolve("Hello.java"),
+                "package demo; public class Hello { }");
+        Path classes = Files.createDirectories(tmp.resolve("classes"));
+
+        JavaCompileEngine engine = new JavaCompileEngine();
+        JavaCompileEngine.CompileOutcome outcome = engine.compile(
+                List.of("-d", classes.toString()),
+                List.of(file)
+        );
+
+        assertTrue(outcome.success());
+        assertEquals(0, outcome.errorCount());
+        assertTrue(Files.exists(classes.resolve("demo").resolve("Hello.class")));
+    }
+
+    @Test
+    public void compile_brokenSource_reportsStructuredDiagnostics(@TempDir Path tmp)
+            throws Exception {
+        Path file = Files.writeString(tmp.resolve("Broken.java"),
+                "public class Broken {\n    int x = \n}\n");
+        Path classes = Files.createDirectories(tmp.resolve("classes"));
+
+        JavaCompileEngine engine = new JavaCompileEngine();
+        JavaCompileEngine.CompileOutcome outcome = engine.compile(
+                List.of("-d", classes.toString()),
+                List.of(file)
+        );
+
+        assertFalse(outcome.success());
+        JavaCompileEngine.CompileDiagnostic first = outcome.diagnostics().getFirst();
+        assertEquals(Diagnostic.Kind.ERROR, first.kind());
+        assertTrue(first.file().endsWith("Broken.java"));
+        assertEquals(3, first.line());
+        assertTrue(first.format().contains("Broken.java:3: error: "));
+
+        List<String> lines = outcome.outputLines();
+        assertEquals(outcome.errorCount() == 1 ? "1 error" : outcome.errorCount() + " errors",
+                lines.getLast());
+    }
+
+    @Test
+    public void outputLines_matchForkedJavac(@TempDir Path tmp) throws Exception {
+        Path file = Files.writeString(tmp.resolve("Broken.java"),
+                "public class Broken {\n\tvoid run() {\n\t\tmissing();\n\t\tint x = \n\t}\n}\n");
+        Path classes = Files.createDirectories(tmp.resolve("classes"));
+        List<String> options = List.of("-d", classes.toString(), "-encoding", "UTF-8");
+
+        List<String> inProcess;
+        try (JavaCompileEngine engine = new JavaCompileEngine()) {
+            inProcess = engine.compile(options, List.of(file.toAbsolutePath())).outputLines();
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "javac").toString());
+        command.addAll(options);
+        command.add(file.toAbsolutePath().toString());
+        Process javac = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> forked = new String(javac.getInputStream().readAllBytes())
+                .lines()
+                .toList();
+        javac.waitFor();
+
+        assertEquals(forked, inProcess);
+        assertTrue(inProcess.contains("\t^"), inProcess.toString());
+    }
+
+    @Test
+    public void close_closesPooledFileManagersAndKeepsCompiling(@TempDir Path tmp)
+            throws Exception {
+        Path classes = Files.createDirectories(tmp.resolve("classes"));
+        Path file = Files.writeString(tmp.resolve("C.java"), "public class C { }");
+        JavaCompileEngine engine = new JavaCompileEngine();
+        assertTrue(engine.compile(List.of("-d", classes.toString()), List.of(file)).success());
+
+        engine.close();
+
+        assertTrue(engine.compile(List.of("-d", classes.toString()), List.of(file)).success());
+    }
+
+    @Test
+    public void compile_reusesFileManagerAcrossCalls(@TempDir Path tmp) throws Exception {
+        Path classes = Files.createDirectories(tmp.resolve("classes"));
+        JavaCompileEngine engine = new JavaCompileEngine();
+
+        for (int i = 0; i < 3; i++) {
+            Path file = Files.writeString(tmp.resolve("C" + i + ".java"),
+                    "public class C" + i + " { }");
+            assertTrue(engine.compile(List.of("-d", classes.toString()), List.of(file)).success());
+        }
+
+        assertTrue(Files.exists(classes.resolve("C2.class")));
+    }
+
+    @Test
+    public void compile_withoutSystemCompiler_reportsFailure() {
+        JavaCompileEngine engine = new JavaCompileEngine(null);
+
+        assertFalse(engine.isAvailable());
+        JavaCompileEngine.CompileOutcome outcome = engine.compile(List.of(), List.of());
+        assertFalse(outcome.success());
+        assertEquals(List.of("No system Java compiler is available."), outcome.outputLines());
+    }
+}
@@ -0,0 +1,65 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JobDurationHistoryTest {
+
+    @Test
+    public void longestFirst_ordersByRecordedDurationAndUsesMedianForNewStudents() {
+        JobDurationHistory history = new JobDurationHistory(null);
+        history.record("fast", 2_000.0, Map.of());
+        history.record("slow", 30_000.0, Map.of());
+        history.record("medium", 5_000.0, Map.of());
+
+        assertEquals(List.of("slow", "medium", "newcomer", "fast"),
+                history.longestFirst(List.of("fast", "medium", "newcomer", "slow")));
+        assertEquals(5_000.0, history.expectedMillis("newcomer"));
+        assertEquals(OptionalDouble.empty(), history.estimateMillis("newcomer"));
+    }
+
+    @Test
+    public void longestFirst_keepsNameOrderWithoutHistory() {
+        JobDurationHistory history = new JobDurationHistory(null);
+
+        assertEquals(List.of("alice", "bob", "carol"),
+                history.longestFirst(List.of("carol", "alice", "bob")));
+        assertEquals(0.0, history.expectedMillis("alice"));
+    }
+
+    @Test
+    public void record_blendsRunsAndSurvivesReload(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("history").resolve("durations.json");
+        JobDurationHistory history = new JobDurationHistory(file);
+        history.record("alice", 10_000.0, Map.of("unit-tests", 8_000.0));
+        history.record("alice", 2_000.0, Map.of("unit-tests", 1_000.0, "write", 10.0));
+        history.save();
+
+        JobDurationHistory reloaded = new JobDurationHistory(file);
+        JobDurationHistory.StudentHistory alice = reloaded.students().get("alice");
+
+        assertEquals(6_000.0, alice.totalMillis());
+        assertEquals(Map.of("unit-tests", 4_500.0, "write", 10.0), alice.stageMillis());
+        assertEquals(2, alice.runs());
+    }
+
+    @Test
+    public void record_skipsTheRunScope() {
+        RunMetrics metrics = new RunMetrics();
+        metrics.recordStage("alice", "write", 1_000_000L);
+        metrics.recordStage(RunMetrics.RUN_SCOPE, "checkstyle-batch", 1_000_000L);
+        JobDurationHistory history = new JobDurationHistory(null);
+
+        history.record(metrics.snapshot());
+
+        assertEquals(List.of("alice"), List.copyOf(history.students().keySet()));
+    }
+}
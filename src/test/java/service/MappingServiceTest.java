@@ -7,6 +7,10 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +21,7 @@ public class MappingServiceTest {
     // - service.MappingService#saveMapping(java.nio.file.Path, java.util.Map)
     // - service.MappingService#loadMapping(java.nio.file.Path)
     // - service.MappingService#resolveRepoRoot(java.nio.file.Path)
+    // - service.MappingService#extractPackages(java.nio.file.Path, java.nio.file.Path)
     // Also use model.RepoMapping#getRepoPath() and setRepoPath(...)
 
     private final MappingService svc = new MappingService(msg -> { /* no-op logger */ });
@@ -65,4 +70,92 @@ public class MappingServiceTest {
         // null input returns null
         assertNull(svc.resolveRepoRoot(null));
     }
+
+    @Test
+    public void extractPackages_parallel_extractsEveryRepoAndWritesMapping(@TempDir Path tmp)
+            throws IOException {
+        Path root = tmp.resolve("root");
+        for (int i = 1; i <= 4; i++) {
+            Path repo = createRepo(root.resolve("hw-student" + i), "student" + i);
+            Files.writeString(repo.resolve("src/student" + i + "/Main.java"), "class Main {}");
+        }
+        Files.createDirectories(root.resolve("not-a-repo").resolve("src"));
+
+        MappingService parallel = new MappingService(msg -> { }, 3, true);
+        Path mappingFile = tmp.resolve("mappings.json");
+        parallel.extractPackages(root, mappingFile);
+
+        Map<String, RepoMapping> mapping = parallel.loadMapping(mappingFile);
+        assertEquals(4, mapping.size());
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(
+                    root.resolve("hw-student" + i).toAbsolutePath().toString(),
+                    mapping.get("student" + i).getRepoPath()
+            );
+            assertEquals("class Main {}", Files.readString(
+                    root.resolve("packages/student" + i + "/Main.java")));
+        }
+    }
+
+    @Test
+    public void extractPackages_rerun_skipsUnchangedFilesAndSyncsChanges(@TempDir Path tmp)
+            throws IOException {
+        Path root = tmp.resolve("root");
+        Path repo = createRepo(root.resolve("hw-alice"), "alice");
+        Path keep = Files.writeString(repo.resolve("src/alice/Keep.java"), "class Keep {}");
+        Path edit = Files.writeString(repo.resolve("src/alice/Edit.java"), "class Edit {}");
+        Path gone = Files.writeString(repo.resolve("src/alice/Gone.java"), "class Gone {}");
+
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        MappingService copying = new MappingService(log::add, 2, false);
+        Path mappingFile = tmp.resolve("mappings.json");
+        copying.extractPackages(root, mappingFile);
+
+        Path extracted = root.resolve("packages").resolve("alice");
+        assertFalse(Files.isSameFile(keep, extracted.resolve("Keep.java")));
+        assertEquals(
+                Files.getLastModifiedTime(keep).toMillis(),
+                Files.getLastModifiedTime(extracted.resolve("Keep.java")).toMillis()
+        );
+
+        Files.writeString(edit, "class Edit { int changed; }");
+        Files.setLastModifiedTime(edit, FileTime.fromMillis(
+                Files.getLastModifiedTime(edit).toMillis() + 5_000L));
+        Files.delete(gone);
+        log.clear();
+
+        copying.extractPackages(root, mappingFile);
+
+        assertEquals("class Edit { int changed; }",
+                Files.readString(extracted.resolve("Edit.java")));
+        assertFalse(Files.exists(extracted.resolve("Gone.java")));
+        assertTrue(log.contains(
+                "Extract file summary: 0 linked, 1 copied, 1 unchanged, 1 removed."));
+    }
+
+    @Test
+    public void extractPackages_linkMode_hardLinksFilesWhenSupported(@TempDir Path tmp)
+            throws IOException {
+        Path root = tmp.resolve("root");
+        Path repo = createRepo(root.resolve("hw-bob"), "bob");
+        Path source = Files.writeString(repo.resolve("src/bob/Main.java"), "class Main {}");
+
+        MappingService linking = new MappingService(msg -> { }, 2, true);
+        linking.extractPackages(root, tmp.resolve("mappings.json"));
+
+        Path extracted = root.resolve("packages").resolve("bob").resolve("Main.java");
+        assertEquals("class Main {}", Files.readString(extracted));
+        assertTrue(Files.isSameFile(source, extracted), "expected a hard link, not a copy");
+        assertEquals(
+                Files.getLastModifiedTime(source).toMillis(),
+                Files.getLastModifiedTime(extracted).toMillis()
+        );
+    }
+
+    private Path createRepo(Path repoDir, String packageName) throws IOException {
+        Files.createDirectories(repoDir.resolve(".git"));
+        Files.createDirectories(repoDir.resolve("src").resolve(packageName));
+        Files.createDirectories(repoDir.resolve("src").resolve("test"));
+        return repoDir;
+    }
 }
@@ -0,0 +1,430 @@
+package service;
+
+import model.Assignment;
+import model.AssignmentsFile;
+import model.RepoMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.steps.ExtractStep;
+import service.steps.ImportsStep;
+import service.steps.PullStep;
+import service.steps.ReportsStep;
+import service.steps.RunAllStep;
+import service.steps.StepResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelinedWorkflowEngineTest {
+
+    @Test
+    public void run_reportsFirstStudentWhileLaterReposAreStillCloning(@TempDir Path tmp)
+            throws IOException {
+        Path root = tmp.resolve("root");
+        Files.createDirectories(root);
+        CountDownLatch firstReportWritten = new CountDownLatch(1);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        ProcessRunner cloner = new ProcessRunner() {
+            @Override
+            public int runAndLog(List<String> args,
+                                 Path workingDir,
+                                 LineLogger logger,
+                                 Duration timeout) {
+                try {
+                    for (String name : List.of("alice", "bob", "carol")) {
+                        logger.log("Cloning into 'hw-" + name + "'...");
+                        createRepo(root.resolve("hw-" + name), name);
+                        if (name.equals("carol")) {
+                            // bob's clone finishing made alice ready long ago.
+                            assertTrue(firstReportWritten.await(10, TimeUnit.SECONDS),
+                                    "alice should be reported before the pull finishes");
+                        }
+                    }
+                } catch (IOException | InterruptedException e) {
+                    return 1;
+                }
+                return 0;
+            }
+        };
+
+        ReportService.ReportDependencies deps = stubDependencies(log, pkg -> {
+            if (pkg.equals("alice")) {
+                firstReportWritten.countDown();
+            }
+        });
+
+        RunAllService.RunAllResult result = newEngine(cloner, deps, log, 2)
+                .run(new WorkflowContext("gh clone", assignment(), root, tmp.resolve("m.json")));
+
+        assertTrue(result.overallSuccess(), "log: " + log);
+        assertEquals(
+                List.of(RunAllStep.PULL, RunAllStep.EXTRACT, RunAllStep.IMPORTS, RunAllStep.REPORTS),
+                new ArrayList<>(result.results().keySet())
+        );
+        for (String name : List.of("alice", "bob", "carol")) {
+            assertTrue(Files.exists(root.resolve("hw-" + name).resolve("A1" + name + ".html")));
+            assertTrue(Files.isDirectory(root.resolve("packages").resolve(name)));
+        }
+
+        Map<String, RepoMapping> mapping =
+                new MappingService(_ -> { }).loadMapping(tmp.resolve("m.json"));
+        assertEquals(List.of("alice", "bob", "carol"), new ArrayList<>(mapping.keySet()));
+        assertTrue(Files.exists(root.resolve("imports.txt")));
+        assertTrue(log.stream().anyMatch(l -> l.startsWith("STEP REPORTS → SUCCESS")));
+    }
+
+    @Test
+    public void run_failedStudentDoesNotStopOthers_andUnannouncedReposAreStillProcessed(
+            @TempDir Path tmp) throws IOException {
+        Path root = tmp.resolve("root");
+        createRepo(root.resolve("hw-alice"), "alice");
+        createRepo(root.resolve("hw-bob"), "bob");
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        // Repos were cloned by an earlier run, so git announces nothing.
+        ProcessRunner cloner = new ProcessRunner() {
+            @Override
+            public int runAndLog(List<String> args,
+                                 Path workingDir,
+                                 LineLogger logger,
+                                 Duration timeout) {
+                logger.log("Skipping existing repositories.");
+                return 0;
+            }
+        };
+
+        ReportService.ReportDependencies deps = stubDependencies(log, pkg -> {
+            if (pkg.equals("bob")) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        RunAllService.RunAllResult result = newEngine(cloner, deps, log, 2)
+                .run(new WorkflowContext("gh clone", assignment(), root, tmp.resolve("m.json")));
+
+        assertFalse(result.overallSuccess());
+        assertTrue(result.results().get(RunAllStep.PULL).isSuccess());
+        assertTrue(result.results().get(RunAllStep.EXTRACT).isSuccess());
+        assertTrue(result.results().get(RunAllStep.IMPORTS).isSuccess());
+
+        StepResult reports = result.results().get(RunAllStep.REPORTS);
+        assertTrue(reports.isFailed());
+        assertEquals("1 of 2 student(s) failed.", reports.message());
+        assertTrue(Files.exists(root.resolve("hw-alice").resolve("A1alice.html")));
+        assertFalse(Files.exists(root.resolve("hw-bob").resolve("A1bob.html")));
+    }
+
+    @Test
+    public void run_folderThatIsNotARepoIsSkippedWithoutFailingExtract(@TempDir Path tmp)
+            throws IOException {
+        Path root = tmp.resolve("root");
+        createRepo(root.resolve("hw-alice"), "alice");
+        Files.createDirectories(root.resolve("notes"));
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        RunAllService.RunAllResult result =
+                newEngine(quietCloner(), stubDependencies(log, _ -> { }), log, 2).run(
+                        new WorkflowContext("gh clone", assignment(), root, tmp.resolve("m.json")));
+
+        assertTrue(result.overallSuccess(), "log: " + log);
+        assertTrue(Files.exists(root.resolve("hw-alice").resolve("A1alice.html")));
+    }
+
+    @Test
+    public void run_extractErrorFailsExtract(@TempDir Path tmp) throws IOException {
+        Path root = tmp.resolve("root");
+        createRepo(root.resolve("hw-alice"), "alice");
+        createRepo(root.resolve("hw-bob"), "bob");
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        ServiceLogger logger = log::add;
+        ExtractStep extractStep = new ExtractStep(new MappingService(logger, 2, false), logger) {
+            @Override
+            public MappingService.ExtractedPackage extractRepo(WorkflowContext context,
+                                                               Path repoDir)
+                    throws IOException {
+                if (repoDir.endsWith("hw-bob")) {
+                    throw new IOException("disk full");
+                }
+                return super.extractRepo(context, repoDir);
+            }
+        };
+        PipelinedWorkflowEngine engine = new PipelinedWorkflowEngine(
+                new PullStep(quietCloner(), logger),
+                extractStep,
+                new ImportsStep(new ImportsService(logger), logger),
+                new ReportsStep(new ReportService(
+                        new AssignmentsFile(), stubDependencies(log, _ -> { })), logger),
+                logger,
+                2
+        );
+
+        RunAllService.RunAllResult result = engine.run(
+                new WorkflowContext("gh clone", assignment(), root, tmp.resolve("m.json")));
+
+        StepResult extract = result.results().get(RunAllStep.EXTRACT);
+        assertTrue(extract.isFailed());
+        assertEquals("1 of 2 student(s) failed.", extract.message());
+        assertTrue(log.contains("Extract failed for hw-bob: disk full"), "log: " + log);
+    }
+
+    @Test
+    public void run_recordsMetricsOfTheCurrentRunOnly(@TempDir Path tmp) throws IOException {
+        Path root = tmp.resolve("root");
+        createRepo(root.resolve("hw-alice"), "alice");
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        ReportService reportService =
+                new ReportService(new AssignmentsFile(), stubDependencies(log, _ -> { }));
+        PipelinedWorkflowEngine engine = newEngine(quietCloner(), reportService, log, 2);
+        WorkflowContext context =
+                new WorkflowContext("gh clone", assignment(), root, tmp.resolve("m.json"));
+
+        assertTrue(engine.run(context).overallSuccess(), "log: " + log);
+        long firstRunBytes = bytesWritten(reportService, "alice");
+        assertTrue(engine.run(context).overallSuccess(), "log: " + log);
+
+        // The report and its copy in the feedback folder, once.
+        long reportBytes = Files.size(root.resolve("hw-alice").resolve("A1alice.html"));
+        assertEquals(2 * reportBytes, firstRunBytes);
+        assertEquals(firstRunBytes, bytesWritten(reportService, "alice"));
+    }
+
+    @Test
+    public void run_noRepos_failsExtractAndSkipsLaterSteps(@TempDir Path tmp) {
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        ProcessRunner cloner = new ProcessRunner() {
+            @Override
+            public int runAndLog(List<String> args,
+                                 Path workingDir,
+                                 LineLogger logger,
+                                 Duration timeout) {
+                return 0;
+            }
+        };
+
+        RunAllService.RunAllResult result = newEngine(cloner, stubDependencies(log, _ -> { }), log, 2)
+                .run(new WorkflowContext("gh clone", assignment(), tmp, tmp.resolve("m.json")));
+
+        assertTrue(result.results().get(RunAllStep.EXTRACT).isFailed());
+        assertTrue(result.results().get(RunAllStep.IMPORTS).isSkipped());
+        assertTrue(result.results().get(RunAllStep.REPORTS).isSkipped());
+    }
+
+    @Test
+    public void run_pullFailureSkipsLaterSteps(@TempDir Path tmp) throws IOException {
+        Path root = tmp.resolve("root");
+        createRepo(root.resolve("hw-alice"), "alice");
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        ProcessRunner cloner = new ProcessRunner() {
+            @Override
+            public int runAndLog(List<String> args,
+                                 Path workingDir,
+                                 LineLogger logger,
+                                 Duration timeout) {
+                logger.log("fatal: could not read from remote repository.");
+                return 128;
+            }
+        };
+
+        RunAllService.RunAllResult result = newEngine(cloner, stubDependencies(log, _ -> { }), log, 2)
+                .run(new WorkflowContext("gh clone", assignment(), root, tmp.resolve("m.json")));
+
+        assertTrue(result.results().get(RunAllStep.PULL).isFailed());
+        assertTrue(result.results().get(RunAllStep.EXTRACT).isSkipped());
+        assertTrue(result.results().get(RunAllStep.IMPORTS).isSkipped());
+        assertTrue(result.results().get(RunAllStep.REPORTS).isSkipped());
+        assertFalse(Files.exists(root.resolve("hw-alice").resolve("A1alice.html")));
+        assertFalse(Files.exists(tmp.resolve("m.json")));
+    }
+
+    @Test
+    public void run_checksStyleOfExtractedStudentsInOneBatch(@TempDir Path tmp)
+            throws IOException {
+        Path root = tmp.resolve("root");
+        List<String> students = List.of("alice", "bob", "carol", "dave", "erin", "frank");
+        for (String name : students) {
+            createRepo(root.resolve("hw-" + name), name);
+        }
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        ProcessRunner cloner = new ProcessRunner() {
+            @Override
+            public int runAndLog(List<String> args,
+                                 Path workingDir,
+                                 LineLogger logger,
+                                 Duration timeout) {
+                return 0;
+            }
+        };
+        CheckstyleRuns checkstyle = new CheckstyleRuns();
+
+        RunAllService.RunAllResult result =
+                newEngine(cloner, stubDependencies(log, _ -> { }, checkstyle), log, 1)
+                        .run(new WorkflowContext(
+                                "gh clone", assignment(), root, tmp.resolve("m.json")));
+
+        assertTrue(result.overallSuccess(), "log: " + log);
+        assertEquals(1, checkstyle.batches.size());
+        assertEquals(students.size(), checkstyle.batches.get(0).size());
+        assertEquals(List.of(), checkstyle.singleRuns);
+    }
+
+    private static ProcessRunner quietCloner() {
+        return new ProcessRunner() {
+            @Override
+            public int runAndLog(List<String> args,
+                                 Path workingDir,
+                                 LineLogger logger,
+                                 Duration timeout) {
+                return 0;
+            }
+        };
+    }
+
+    private static PipelinedWorkflowEngine newEngine(ProcessRunner cloner,
+                                                     ReportService.ReportDependencies deps,
+                                                     List<String> log,
+                                                     int workers) {
+        return newEngine(cloner, new ReportService(new AssignmentsFile(), deps), log, workers);
+    }
+
+    private static PipelinedWorkflowEngine newEngine(ProcessRunner cloner,
+                                                     ReportService reportService,
+                                                     List<String> log,
+                                                     int workers) {
+        ServiceLogger logger = log::add;
+        MappingService mappingService = new MappingService(logger, 2, false);
+        return new PipelinedWorkflowEngine(
+                new PullStep(cloner, logger),
+                new ExtractStep(mappingService, logger),
+                new ImportsStep(new ImportsService(logger), logger),
+                new ReportsStep(reportService, logger),
+                logger,
+                workers
+        );
+    }
+
+    private static long bytesWritten(ReportService reportService, String student) {
+        return reportService.runMetrics().snapshot().students().stream()
+                .filter(s -> s.student().equals(student))
+                .mapToLong(RunMetrics.StudentSnapshot::bytesWritten)
+                .sum();
+    }
+
+    private static Assignment assignment() {
+        Assignment a = new Assignment();
+        a.setCourseCode("CSC1120");
+        a.setAssignmentCode("A1");
+        a.setAssignmentName("Pipeline");
+        return a;
+    }
+
+    private static void createRepo(Path repoDir, String packageName) throws IOException {
+        Files.createDirectories(repoDir.resolve(".git"));
+        Path pkg = Files.createDirectories(repoDir.resolve("src").resolve(packageName));
+        Files.writeString(pkg.resolve("Main.java"), "package " + packageName + "; class Main {}");
+    }
+
+    /*
+     * Checkstyle JVMs the stub would have started: one per batch, plus one per report
+     * whose repo was not in a batch.
+     */
+    private static final class CheckstyleRuns {
+        private final List<List<Path>> batches =
+                Collections.synchronizedList(new ArrayList<>());
+        private final List<Path> singleRuns = Collections.synchronizedList(new ArrayList<>());
+        private final Set<Path> prepared = ConcurrentHashMap.newKeySet();
+    }
+
+    private static ReportService.ReportDependencies stubDependencies(
+            List<String> log,
+            java.util.function.Consumer<String> onWrap) {
+        return stubDependencies(log, onWrap, new CheckstyleRuns());
+    }
+
+    private static ReportService.ReportDependencies stubDependencies(
+            List<String> log,
+            java.util.function.Consumer<String> onWrap,
+            CheckstyleRuns checkstyle) {
+        return new ReportService.ReportDependencies() {
+            @Override
+            public void log(String msg) {
+                log.add(msg);
+            }
+
+            @Override
+            public Map<String, RepoMapping> loadMapping(Path mappingsPath) {
+                return Map.of();
+            }
+
+            @Override
+            public Path resolveRepoRoot(Path mappedRepoPath) {
+                return mappedRepoPath;
+            }
+
+            @Override
+            public void prepareCheckstyleResults(Collection<Path> repoRoots) {
+                checkstyle.batches.add(List.copyOf(repoRoots));
+                checkstyle.prepared.addAll(repoRoots);
+            }
+
+            @Override
+            public CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath) {
+                if (!checkstyle.prepared.remove(repoPath)) {
+                    checkstyle.singleRuns.add(repoPath);
+                }
+                return new CheckstyleService.CheckstyleResult("_No checkstyle violations._", 0);
+            }
+
+            @Override
+            public UnitTestService.UnitTestResult buildUnitTestResultMarkdown(String studentPackage,
+                                                                              Path repoPath) {
+                return new UnitTestService.UnitTestResult("_No failed unit tests._", 0, 0);
+            }
+
+            @Override
+            public Map<String, Integer> loadManualDeductionsFromGradingDraft(String assignmentId,
+                                                                             String studentPackage,
+                                                                             Path rootPath) {
+                return Map.of();
+            }
+
+            @Override
+            public String loadFeedbackSectionMarkdown(String assignmentId,
+                                                      String studentPackage,
+                                                      Path rootPath) {
+                return "> * No feedback provided";
+            }
+
+            @Override
+            public String buildSourceCodeMarkdown(Assignment assignment,
+                                                  String studentPackage,
+                                                  Path repoPath) {
+                return "// source code";
+            }
+
+            @Override
+            public String buildCommitHistoryMarkdown(Path repoPath) {
+                return "- commit history";
+            }
+
+            @Override
+            public String wrapMarkdownAsHtml(String title, String markdown) {
+                onWrap.accept(title);
+                return "<html><body>" + title + "</body></html>";
+            }
+        };
+    }
+}
@@ -1,9 +1,17 @@
 package service;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,4 +42,119 @@ public class ProcessRunnerTest {
         // runAndLog requires a non-null logger; verify it throws NPE when null
         assertThrows(NullPointerException.class, () -> pr.runAndLog(List.of("echo", "hi"), Path.of("."), null));
     }
+
+    @Test
+    public void runAsync_streamsLinesBeforeExit_andKillsOnTimeout(@TempDir Path tmp)
+            throws Exception {
+        Path program = writeProgram(tmp, """
+                System.out.println("first");
+                System.out.flush();
+                Thread.sleep(60_000);
+                System.out.println("never");
+                """);
+
+        CountDownLatch firstLine = new CountDownLatch(1);
+        ProcessRunner pr = new ProcessRunner();
+        CompletableFuture<ProcessResult> future = pr.runAsync(
+                javaCommand(program),
+                tmp,
+                ProcessRunner.RunOptions.defaults()
+                        .withTimeout(Duration.ofSeconds(8))
+                        .withLineListener(line -> firstLine.countDown())
+        );
+
+        assertTrue(firstLine.await(8, TimeUnit.SECONDS));
+        assertFalse(future.isDone(), "the line should arrive while the process still runs");
+
+        ProcessResult result = future.get(30, TimeUnit.SECONDS);
+        assertEquals(ProcessRunner.TIMED_OUT_EXIT_CODE, result.exitCode());
+        assertEquals("first", result.outputLines().getFirst());
+        assertTrue(result.outputLines().getLast().contains("timed out"));
+    }
+
+    @Test
+    public void runAsync_capsCapturedOutput_butStreamsEveryLine(@TempDir Path tmp)
+            throws Exception {
+        Path program = writeProgram(tmp, """
+                for (int i = 0; i < 1000; i++) {
+                    System.out.println("line-" + i);
+                }
+                """);
+
+        List<String> streamed = Collections.synchronizedList(new ArrayList<>());
+        ProcessRunner pr = new ProcessRunner();
+        ProcessResult result = pr.runAsync(
+                javaCommand(program),
+                tmp,
+                ProcessRunner.RunOptions.defaults()
+                        .withMaxCapturedChars(60)
+                        .withLineListener(streamed::add)
+        ).get(30, TimeUnit.SECONDS);
+
+        assertEquals(0, result.exitCode());
+        assertEquals(1000, streamed.size());
+        assertEquals(11, result.outputLines().size());
+        assertEquals("line-0", result.outputLines().getFirst());
+        assertTrue(result.outputLines().getLast().contains("truncated"));
+    }
+
+    @Test
+    public void runAsync_missingExecutable_completesWithStartFailure(@TempDir Path tmp)
+            throws Exception {
+        ProcessRunner pr = new ProcessRunner();
+
+        ProcessResult result = pr.runAsync(
+                List.of("definitely-not-a-real-command-xyz"),
+                tmp,
+                ProcessRunner.RunOptions.defaults()
+        ).get(5, TimeUnit.SECONDS);
+
+        assertEquals(-1, result.exitCode());
+        assertTrue(result.outputLines().getFirst().contains("failed to start"));
+    }
+
+    @Test
+    public void runCaptureLinesWithExitCode_appliesTheRunnersDefaultTimeout(@TempDir Path tmp)
+            throws Exception {
+        Path program = writeProgram(tmp, """
+                Thread.sleep(60_000);
+                """);
+        ProcessRunner pr = new ProcessRunner(Duration.ofSeconds(5));
+
+        ProcessResult result = pr.runCaptureLinesWithExitCode(javaCommand(program), tmp);
+
+        assertEquals(ProcessRunner.TIMED_OUT_EXIT_CODE, result.exitCode());
+        assertTrue(result.outputLines().getLast().contains("timed out after 5 seconds"));
+    }
+
+    @Test
+    public void runAndLog_timeoutOverridesTheRunnersDefault(@TempDir Path tmp)
+            throws Exception {
+        Path program = writeProgram(tmp, """
+                Thread.sleep(2_000);
+                System.out.println("done");
+                """);
+        ProcessRunner pr = new ProcessRunner(Duration.ofMillis(1));
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+
+        int exitCode = pr.runAndLog(javaCommand(program), tmp, lines::add,
+                Duration.ofSeconds(60));
+
+        assertEquals(0, exitCode);
+        assertEquals(List.of("done"), lines);
+    }
+
+    private static Path writeProgram(Path dir, String body) throws Exception {
+        String source = "public class Program {\n"
+                + "    public static void main(String[] args) throws Exception {\n"
+                + body
+                + "    }\n"
+                + "}\n";
+        return Files.writeString(dir.resolve("Program.java"), source);
+    }
+
+    private static List<String> javaCommand(Path program) {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        return List.of(java, program.toString());
+    }
 }
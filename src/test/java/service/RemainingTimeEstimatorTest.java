@@ -0,0 +1,67 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RemainingTimeEstimatorTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void progress_spreadsRecordedWorkOverWorkers() {
+        JobDurationHistory history = new JobDurationHistory(null);
+        history.record("alice", 4_000.0, Map.of());
+        history.record("bob", 2_000.0, Map.of());
+        history.record("carol", 2_000.0, Map.of());
+        AtomicLong now = new AtomicLong();
+        List<RemainingTimeEstimator.Progress> updates = new ArrayList<>();
+        RemainingTimeEstimator estimator =
+                new RemainingTimeEstimator(history, 2, updates::add, now::get);
+
+        List.of("alice", "bob", "carol").forEach(estimator::expect);
+        assertEquals(new RemainingTimeEstimator.Progress(0, 3, Duration.ofMillis(4_000)),
+                estimator.progress());
+
+        estimator.started("alice");
+        estimator.started("bob");
+        now.addAndGet(1_000 * MILLIS);
+        // alice has 3 s left, bob 1 s and carol 2 s still queued.
+        assertEquals(Duration.ofMillis(3_000), estimator.progress().remaining());
+
+        now.addAndGet(1_000 * MILLIS);
+        estimator.finished("bob");
+        estimator.started("carol");
+        now.addAndGet(2_000 * MILLIS);
+        estimator.finished("alice");
+        estimator.finished("carol");
+
+        assertEquals(new RemainingTimeEstimator.Progress(3, 3, Duration.ZERO),
+                updates.getLast());
+    }
+
+    @Test
+    public void progress_usesThisRunsAverageForStudentsWithoutHistory() {
+        AtomicLong now = new AtomicLong();
+        RemainingTimeEstimator estimator = new RemainingTimeEstimator(
+                new JobDurationHistory(null), 1, _ -> { }, now::get);
+        estimator.expect("alice");
+        estimator.expect("bob");
+
+        assertNull(estimator.progress().remaining());
+
+        estimator.started("alice");
+        now.addAndGet(5_000 * MILLIS);
+        estimator.finished("alice");
+
+        assertEquals(new RemainingTimeEstimator.Progress(1, 2, Duration.ofMillis(5_000)),
+                estimator.progress());
+    }
+}
@@ -0,0 +1,90 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RepoReportIndexTest {
+
+    private static final FileTime OLD = FileTime.from(Instant.parse("2024-01-01T00:00:00Z"));
+
+    @Test
+    public void reposWithReports_reusesPersistedListingsOfUnchangedDirectories(
+            @TempDir Path tmp) throws IOException {
+        Path root = tmp.resolve("root");
+        Path repoA = report(root.resolve("submissions/repo-a"), "A1pkgA.html");
+        Path repoB = report(root.resolve("submissions/repo-b"), "A1pkgB.html");
+        ageTree(root);
+        Path indexDir = tmp.resolve("index");
+
+        Map<String, Path> first = new RepoReportIndex(indexDir).reposWithReports(root, "A1");
+
+        // A listing is only redone when the directory's modification time moves.
+        Files.writeString(repoA.resolve("A1pkgHidden.html"), "hidden");
+        Files.setLastModifiedTime(repoA, OLD);
+        Map<String, Path> reused = new RepoReportIndex(indexDir).reposWithReports(root, "A1");
+
+        Files.setLastModifiedTime(repoA, FileTime.from(Instant.parse("2024-02-01T00:00:00Z")));
+        Map<String, Path> refreshed =
+                new RepoReportIndex(indexDir).reposWithReports(root, "A1");
+
+        assertEquals(Map.of("pkgA", repoA, "pkgB", repoB), first);
+        assertEquals(first, reused);
+        assertEquals(Map.of("pkgA", repoA, "pkgB", repoB, "pkgHidden", repoA), refreshed);
+    }
+
+    @Test
+    public void reposWithReports_followsAddedAndRemovedRepos(@TempDir Path tmp)
+            throws IOException {
+        Path root = tmp.resolve("root");
+        Path container = root.resolve("submissions");
+        Path repoA = report(container.resolve("repo-a"), "A1pkgA.html");
+        Path repoB = report(container.resolve("repo-b"), "A1pkgB.html");
+        ageTree(root);
+        RepoReportIndex index = new RepoReportIndex(tmp.resolve("index"), 2);
+        index.reposWithReports(root, "A1");
+
+        Files.delete(repoB.resolve("A1pkgB.html"));
+        Files.delete(repoB);
+        Path repoC = report(container.resolve("repo-c"), "A1pkgC.html");
+
+        assertEquals(Map.of("pkgA", repoA, "pkgC", repoC), index.reposWithReports(root, "A1"));
+    }
+
+    @Test
+    public void reposWithReports_servesOtherAssignmentsFromTheSameIndex(@TempDir Path tmp)
+            throws IOException {
+        Path root = tmp.resolve("root");
+        Path repo = report(root.resolve("submissions/repo-a"), "A1pkgA.html");
+        Files.writeString(repo.resolve("A2pkgA.html"), "a2");
+        report(root.resolve("packages/pkgA"), "A1pkgA.html");
+        RepoReportIndex index = new RepoReportIndex(null);
+
+        assertEquals(Map.of("pkgA", repo), index.reposWithReports(root, "A1"));
+        assertEquals(Map.of("pkgA", repo), index.reposWithReports(root, "A2"));
+        assertEquals(Map.of(), index.reposWithReports(root, "A3"));
+        assertEquals(Map.of(), index.reposWithReports(tmp.resolve("missing"), "A1"));
+    }
+
+    private static Path report(Path repo, String name) throws IOException {
+        Files.createDirectories(repo);
+        Files.writeString(repo.resolve(name), "report");
+        return repo;
+    }
+
+    private static void ageTree(Path root) throws IOException {
+        try (var paths = Files.walk(root)) {
+            for (Path path : paths.toList()) {
+                Files.setLastModifiedTime(path, OLD);
+            }
+        }
+    }
+}
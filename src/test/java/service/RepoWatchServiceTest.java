@@ -0,0 +1,180 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RepoWatchServiceTest {
+
+    private static final Duration QUIET = Duration.ofSeconds(3);
+
+    @Test
+    public void regradeDue_regradesOnlyReposWhoseSourcesChanged(@TempDir Path tmp)
+            throws IOException {
+        Path repoA = repo(tmp, "repo-a");
+        Path repoB = repo(tmp, "repo-b");
+        MutableClock clock = new MutableClock();
+        List<Path> regraded = new ArrayList<>();
+        try (RepoWatchService service = service(List.of(repoA, repoB), clock,
+                repoDir -> {
+                    regraded.add(repoDir);
+                    return RepoWatchService.Outcome.REGRADED;
+                })) {
+            service.watchRepos();
+
+            Files.writeString(repoA.resolve("src/Main.java"), "class Main { int x; }");
+            Files.writeString(repoB.resolve("notes.txt"), "not a source");
+            service.recordChange(repoA);
+            service.recordChange(repoB);
+            clock.advance(QUIET);
+
+            assertEquals(1, service.regradeDue());
+            assertEquals(List.of(abs(repoA)), regraded);
+            assertEquals(0, service.regradeDue());
+            assertTrue(service.pendingRepos().isEmpty());
+        }
+    }
+
+    @Test
+    public void regradeDue_waitsForTheQuietPeriod(@TempDir Path tmp) throws IOException {
+        Path repo = repo(tmp, "repo-a");
+        MutableClock clock = new MutableClock();
+        List<Path> regraded = new ArrayList<>();
+        try (RepoWatchService service = service(List.of(repo), clock,
+                repoDir -> {
+                    regraded.add(repoDir);
+                    return RepoWatchService.Outcome.REGRADED;
+                })) {
+            service.watchRepos();
+            Files.writeString(repo.resolve("src/Main.java"), "class Main { int x; }");
+            service.recordChange(repo);
+
+            clock.advance(Duration.ofSeconds(2));
+            service.recordChange(repo);
+            clock.advance(Duration.ofSeconds(2));
+            assertEquals(0, service.regradeDue());
+
+            clock.advance(Duration.ofSeconds(1));
+            assertEquals(1, service.regradeDue());
+            assertEquals(List.of(abs(repo)), regraded);
+        }
+    }
+
+    @Test
+    public void regradeDue_retriesDeferredRegrades(@TempDir Path tmp) throws IOException {
+        Path repo = repo(tmp, "repo-a");
+        MutableClock clock = new MutableClock();
+        List<RepoWatchService.Outcome> outcomes = new ArrayList<>(List.of(
+                RepoWatchService.Outcome.DEFERRED,
+                RepoWatchService.Outcome.REGRADED
+        ));
+        try (RepoWatchService service = service(List.of(repo), clock,
+                _ -> outcomes.removeFirst())) {
+            service.watchRepos();
+            Files.writeString(repo.resolve("src/Main.java"), "class Main { int x; }");
+            service.recordChange(repo);
+            clock.advance(QUIET);
+
+            assertEquals(0, service.regradeDue());
+            assertEquals(Set.of(abs(repo)), service.pendingRepos());
+            assertEquals(0, service.regradeDue());
+
+            clock.advance(QUIET);
+            assertEquals(1, service.regradeDue());
+            assertTrue(service.pendingRepos().isEmpty());
+        }
+    }
+
+    @Test
+    public void start_regradesAfterAFileChangeOnDisk(@TempDir Path tmp) throws Exception {
+        Path repo = repo(tmp, "repo-a");
+        CountDownLatch regraded = new CountDownLatch(1);
+        List<String> log = new CopyOnWriteArrayList<>();
+        try (RepoWatchService service = new RepoWatchService(
+                () -> List.of(repo),
+                _ -> {
+                    regraded.countDown();
+                    return RepoWatchService.Outcome.REGRADED;
+                },
+                log::add,
+                new SourceSnapshotCache(),
+                Duration.ofMillis(100),
+                Clock.systemUTC(),
+                FileSystems.getDefault().newWatchService()
+        )) {
+            service.start();
+            Files.writeString(repo.resolve("src/Helper.java"), "class Helper { }");
+
+            assertTrue(regraded.await(20, TimeUnit.SECONDS));
+            assertEquals("Watching 1 repo(s) for changes.", log.getFirst());
+        }
+    }
+
+    private static RepoWatchService service(List<Path> repos,
+                                            Clock clock,
+                                            RepoWatchService.Regrader regrader)
+            throws IOException {
+        return new RepoWatchService(
+                () -> repos,
+                regrader,
+                _ -> { },
+                new SourceSnapshotCache(),
+                QUIET,
+                clock,
+                FileSystems.getDefault().newWatchService()
+        );
+    }
+
+    private static Path repo(Path tmp, String name) throws IOException {
+        Path src = Files.createDirectories(tmp.resolve("submissions").resolve(name)
+                .resolve("src"));
+        Files.writeString(src.resolve("Main.java"), "class Main { }");
+        return src.getParent();
+    }
+
+    private static Path abs(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
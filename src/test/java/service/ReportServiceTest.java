@@ -7,8 +7,13 @@ import org.junit.jupiter.api.Test;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -352,7 +357,9 @@ public class ReportServiceTest {
                         Files.createDirectories(parent);
                     }
                     Path staged = Files.createTempFile(parent, "report-stage-", ".tmp");
-                    Files.writeString(staged, html);
+                    try (java.io.Writer out = Files.newBufferedWriter(staged)) {
+                        html.writeTo(out);
+                    }
                     throw new java.io.IOException("simulated write failure");
                 }
         );
@@ -365,4 +372,484 @@ public class ReportServiceTest {
         assertFalse(result.isSuccess());
         assertEquals(existingHtml, Files.readString(reportPath));
     }
+
+    @Test
+    public void generateReports_parallel_writesEveryReport_andRunsStudentsConcurrently()
+            throws Exception {
+        AssignmentsFile af = new AssignmentsFile();
+
+        Assignment a = new Assignment();
+        a.setCourseCode("CSC101");
+        a.setAssignmentCode("A1");
+        a.setAssignmentName("Intro Assignment");
+
+        Path root = Files.createTempDirectory("rs-root-parallel");
+        Files.createDirectories(root.resolve("packages"));
+        Path mappingsPath = Files.createTempFile("mapping-parallel", ".json");
+
+        Map<String, RepoMapping> mapping = new HashMap<>();
+        Map<String, Path> repos = new HashMap<>();
+        for (int i = 1; i <= 6; i++) {
+            Path studentRepo = Files.createTempDirectory("student-repo-parallel");
+            RepoMapping rm = new RepoMapping();
+            rm.setRepoPath(studentRepo.toString());
+            mapping.put("student" + i, rm);
+            repos.put("student" + i, studentRepo);
+        }
+
+        CountDownLatch overlap = new CountDownLatch(2);
+        List<Boolean> sawOverlap = Collections.synchronizedList(new ArrayList<>());
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        ReportService.ReportDependencies deps = new ReportService.ReportDependencies() {
+            @Override public void log(String msg) { log.add(msg); }
+            @Override public Map<String, RepoMapping> loadMapping(Path path) { return mapping; }
+            @Override public Path resolveRepoRoot(Path mappedRepoPath) { return mappedRepoPath; }
+            @Override
+            public CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath) {
+                overlap.countDown();
+                try {
+                    sawOverlap.add(overlap.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new CheckstyleService.CheckstyleResult("_No checkstyle violations._", 0);
+            }
+            @Override
+            public UnitTestService.UnitTestResult buildUnitTestResultMarkdown(
+                    String studentPackage,
+                    Path repoPath
+            ) {
+                return new UnitTestService.UnitTestResult("_No failed unit tests._", 0, 0);
+            }
+            @Override
+            public Map<String, Integer> loadManualDeductionsFromGradingDraft(
+                    String assignmentId,
+                    String studentPackage,
+                    Path rootPath
+            ) {
+                return Map.of();
+            }
+            @Override
+            public String loadFeedbackSectionMarkdown(String assignmentId,
+                                                     String studentPackage,
+                                                     Path rootPath) {
+                return "> * No feedback provided";
+            }
+            @Override
+            public String buildSourceCodeMarkdown(Assignment assignment,
+                                                  String studentPackage,
+                                                  Path repoPath) {
+                return "// source code";
+            }
+            @Override
+            public String buildCommitHistoryMarkdown(Path repoPath) {
+                return "- commit history";
+            }
+            @Override
+            public String wrapMarkdownAsHtml(String title, String markdown) {
+                return "<html><body>" + title + "</body></html>";
+            }
+        };
+
+        ReportService svc = new ReportService(af, deps, 4);
+        ReportService.ReportGenerationResult result = svc.generateReports(a, root, mappingsPath);
+
+        assertTrue(result.isSuccess());
+        assertTrue(sawOverlap.contains(true), "Expected at least two students to run at once");
+
+        for (Map.Entry<String, Path> entry : repos.entrySet()) {
+            String fileName = "A1" + entry.getKey() + ".html";
+            assertTrue(Files.exists(entry.getValue().resolve(fileName)));
+            assertTrue(Files.exists(root.resolve("feedback").resolve(fileName)));
+            assertEquals(1, log.stream()
+                    .filter(line -> line.equals("OK " + entry.getKey() + ": wrote report " + fileName))
+                    .count());
+        }
+        assertTrue(log.getFirst().contains("using 4 worker(s)"));
+        assertEquals("Generate Reports complete.", log.getLast());
+    }
+
+    @Test
+    public void generateReports_parallel_keepsToolLogLinesInTheStudentsBlock()
+            throws Exception {
+        AssignmentsFile af = new AssignmentsFile();
+
+        Assignment a = new Assignment();
+        a.setCourseCode("CSC101");
+        a.setAssignmentCode("A1");
+        a.setAssignmentName("Intro Assignment");
+
+        Path root = Files.createTempDirectory("rs-root-parallel-log");
+        Files.createDirectories(root.resolve("packages"));
+        Path mappingsPath = Files.createTempFile("mapping-parallel-log", ".json");
+
+        Map<String, RepoMapping> mapping = new HashMap<>();
+        Map<Path, String> studentByRepo = new HashMap<>();
+        for (int i = 1; i <= 6; i++) {
+            Path studentRepo = Files.createTempDirectory("student-repo-parallel-log");
+            RepoMapping rm = new RepoMapping();
+            rm.setRepoPath(studentRepo.toString());
+            mapping.put("student" + i, rm);
+            studentByRepo.put(studentRepo, "student" + i);
+        }
+
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        ServiceLogger toolLogger = StudentLog.routing(log::add);
+        CountDownLatch overlap = new CountDownLatch(2);
+
+        ReportService.ReportDependencies deps = new ReportService.ReportDependencies() {
+            @Override public void log(String msg) { log.add(msg); }
+            @Override public Map<String, RepoMapping> loadMapping(Path path) { return mapping; }
+            @Override public Path resolveRepoRoot(Path mappedRepoPath) { return mappedRepoPath; }
+            @Override
+            public CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath) {
+                toolLogger.log("checkstyle " + studentByRepo.get(repoPath));
+                overlap.countDown();
+                try {
+                    overlap.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new CheckstyleService.CheckstyleResult("_No checkstyle violations._", 0);
+            }
+            @Override
+            public UnitTestService.UnitTestResult buildUnitTestResultMarkdown(
+                    String studentPackage,
+                    Path repoPath
+            ) {
+                toolLogger.log("unit tests " + studentPackage);
+                return new UnitTestService.UnitTestResult("_No failed unit tests._", 0, 0);
+            }
+            @Override
+            public Map<String, Integer> loadManualDeductionsFromGradingDraft(
+                    String assignmentId,
+                    String studentPackage,
+                    Path rootPath
+            ) {
+                return Map.of();
+            }
+            @Override
+            public String loadFeedbackSectionMarkdown(String assignmentId,
+                                                     String studentPackage,
+                                                     Path rootPath) {
+                return "";
+            }
+            @Override
+            public String buildSourceCodeMarkdown(Assignment assignment,
+                                                  String studentPackage,
+                                                  Path repoPath) {
+                return "";
+            }
+            @Override
+            public String buildCommitHistoryMarkdown(Path repoPath) {
+                return "";
+            }
+            @Override
+            public String wrapMarkdownAsHtml(String title, String markdown) {
+                return "<html><body>" + title + "</body></html>";
+            }
+        };
+
+        ReportService svc = new ReportService(af, deps, 3);
+        assertTrue(svc.generateReports(a, root, mappingsPath).isSuccess());
+
+        for (String student : mapping.keySet()) {
+            int checkstyle = log.indexOf("checkstyle " + student);
+            assertTrue(checkstyle >= 0, log.toString());
+            assertEquals("unit tests " + student, log.get(checkstyle + 1), log.toString());
+            assertEquals("OK " + student + ": wrote report A1" + student + ".html",
+                    log.get(checkstyle + 2), log.toString());
+        }
+        toolLogger.log("after the run");
+        assertEquals("after the run", log.getLast());
+    }
+
+    @Test
+    public void generateReports_parallel_aggregatesPerStudentFailures() throws Exception {
+        AssignmentsFile af = new AssignmentsFile();
+
+        Assignment a = new Assignment();
+        a.setCourseCode("CSC101");
+        a.setAssignmentCode("A1");
+        a.setAssignmentName("Intro Assignment");
+
+        Path root = Files.createTempDirectory("rs-root-parallel-fail");
+        Files.createDirectories(root.resolve("packages"));
+        Path mappingsPath = Files.createTempFile("mapping-parallel-fail", ".json");
+        Path goodRepo = Files.createTempDirectory("student-repo-parallel-good");
+
+        Map<String, RepoMapping> mapping = new HashMap<>();
+        RepoMapping good = new RepoMapping();
+        good.setRepoPath(goodRepo.toString());
+        mapping.put("good", good);
+        RepoMapping missing = new RepoMapping();
+        missing.setRepoPath(goodRepo.resolve("does-not-exist").toString());
+        mapping.put("missing", missing);
+
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        ReportService.ReportDependencies deps = new ReportService.ReportDependencies() {
+            @Override public void log(String msg) { log.add(msg); }
+            @Override public Map<String, RepoMapping> loadMapping(Path path) { return mapping; }
+            @Override public Path resolveRepoRoot(Path mappedRepoPath) { return mappedRepoPath; }
+            @Override public CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath) {
+                return new CheckstyleService.CheckstyleResult("_No checkstyle violations._", 0);
+            }
+            @Override
+            public UnitTestService.UnitTestResult buildUnitTestResultMarkdown(
+                    String studentPackage,
+                    Path repoPath
+            ) {
+                return new UnitTestService.UnitTestResult("_No failed unit tests._", 0, 0);
+            }
+            @Override
+            public Map<String, Integer> loadManualDeductionsFromGradingDraft(
+                    String assignmentId,
+                    String studentPackage,
+                    Path rootPath
+            ) {
+                return Map.of();
+            }
+            @Override
+            public String loadFeedbackSectionMarkdown(String assignmentId,
+                                                     String studentPackage,
+                                                     Path rootPath) {
+                return "";
+            }
+            @Override
+            public String buildSourceCodeMarkdown(Assignment assignment,
+                                                  String studentPackage,
+                                                  Path repoPath) {
+                return "";
+            }
+            @Override
+            public String buildCommitHistoryMarkdown(Path repoPath) {
+                return "";
+            }
+            @Override
+            public String wrapMarkdownAsHtml(String title, String markdown) {
+                return "<html><body>" + title + "</body></html>";
+            }
+        };
+
+        ReportService svc = new ReportService(af, deps, 2);
+        ReportService.ReportGenerationResult result = svc.generateReports(a, root, mappingsPath);
+
+        assertTrue(result.wroteAny());
+        assertTrue(result.hadFailures());
+        assertTrue(Files.exists(goodRepo.resolve("A1good.html")));
+        assertTrue(log.stream().anyMatch(line -> line.startsWith("SKIP missing: repo path missing")));
+    }
+
+    @Test
+    public void generateReports_writesPerStudentMetricsIntoRunArtifacts() throws Exception {
+        AssignmentsFile af = new AssignmentsFile();
+
+        Assignment a = new Assignment();
+        a.setCourseCode("CSC101");
+        a.setAssignmentCode("A1");
+        a.setAssignmentName("Intro Assignment");
+
+        Path root = Files.createTempDirectory("rs-root-metrics");
+        Files.createDirectories(root.resolve("packages"));
+        Path mappingsPath = Files.createTempFile("mapping-metrics", ".json");
+        Path appData = Files.createTempDirectory("rs-appdata-metrics");
+
+        Map<String, RepoMapping> mapping = new HashMap<>();
+        for (String pkg : List.of("alice", "bob")) {
+            RepoMapping rm = new RepoMapping();
+            rm.setRepoPath(Files.createTempDirectory("student-repo-metrics").toString());
+            mapping.put(pkg, rm);
+        }
+
+        ReportService.ReportDependencies deps = new ReportService.ReportDependencies() {
+            @Override public void log(String msg) { }
+            @Override public Map<String, RepoMapping> loadMapping(Path path) { return mapping; }
+            @Override public Path resolveRepoRoot(Path mappedRepoPath) { return mappedRepoPath; }
+            @Override public CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath) {
+                return new CheckstyleService.CheckstyleResult("_No checkstyle violations._", 0);
+            }
+            @Override
+            public UnitTestService.UnitTestResult buildUnitTestResultMarkdown(
+                    String studentPackage,
+                    Path repoPath
+            ) {
+                return new UnitTestService.UnitTestResult("_No failed unit tests._", 0, 0);
+            }
+            @Override
+            public Map<String, Integer> loadManualDeductionsFromGradingDraft(
+                    String assignmentId,
+                    String studentPackage,
+                    Path rootPath
+            ) {
+                return Map.of();
+            }
+            @Override
+            public String loadFeedbackSectionMarkdown(String assignmentId,
+                                                     String studentPackage,
+                                                     Path rootPath) {
+                return "";
+            }
+            @Override
+            public String buildSourceCodeMarkdown(Assignment assignment,
+                                                  String studentPackage,
+                                                  Path repoPath) {
+                return "";
+            }
+            @Override
+            public String buildCommitHistoryMarkdown(Path repoPath) {
+                return "";
+            }
+            @Override
+            public String wrapMarkdownAsHtml(String title, String markdown) {
+                return "<html><body>" + title + "</body></html>";
+            }
+            @Override
+            public ToolArtifactService toolArtifactService() {
+                return new ToolArtifactService(appData);
+            }
+        };
+
+        ReportService svc = new ReportService(af, deps, 2);
+        assertTrue(svc.generateReports(a, root, mappingsPath).isSuccess());
+
+        RunMetrics.Snapshot snapshot = svc.runMetrics().snapshot();
+        List<String> students = snapshot.students().stream()
+                .map(RunMetrics.StudentSnapshot::student)
+                .toList();
+        assertTrue(students.containsAll(List.of("alice", "bob", RunMetrics.RUN_SCOPE)));
+        for (RunMetrics.StudentSnapshot student : snapshot.students()) {
+            if (!student.student().equals(RunMetrics.RUN_SCOPE)) {
+                assertTrue(student.stageMillis().keySet().containsAll(List.of(
+                        "checkstyle", "unit-tests", "source-code", "git-log", "html-wrap", "write")));
+                assertEquals(2L * ("<html><body>" + student.student() + "</body></html>").length(),
+                        student.bytesWritten());
+            }
+        }
+        assertEquals(2, snapshot.stages().get("checkstyle").count());
+        assertEquals(1, snapshot.stages().get("checkstyle-batch").count());
+
+        Path runs = appData.resolve("tool-artifacts").resolve("runs");
+        try (var dirs = Files.list(runs)) {
+            Path run = dirs.findFirst().orElseThrow();
+            assertTrue(Files.readString(run.resolve(RunMetrics.METRICS_FILE_NAME)).contains("\"alice\""));
+            assertTrue(Files.readString(run.resolve(RunMetrics.SUMMARY_FILE_NAME)).contains("p90 ms"));
+        }
+
+        // The next run is scheduled from the durations recorded by this one.
+        assertTrue(Files.isDirectory(appData.resolve("tool-artifacts").resolve("job-history")));
+        assertTrue(new ReportService(af, deps, 2).expectedMillis(a, "alice") > 0.0);
+    }
+
+    @Test
+    public void generateReports_streamedReportMatchesWrappedMarkdown() throws Exception {
+        Assignment a = new Assignment();
+        a.setCourseCode("CSC1120");
+        a.setAssignmentCode("L2");
+        a.setAssignmentName("Lab 2");
+
+        Path root = Files.createTempDirectory("rs-root-stream");
+        Files.createDirectories(root.resolve("packages"));
+        Path mappingsPath = Files.createTempFile("mapping-stream", ".json");
+        Path studentRepo = Files.createTempDirectory("student-repo-stream");
+
+        Map<String, RepoMapping> mapping = new HashMap<>();
+        RepoMapping rm = new RepoMapping();
+        rm.setRepoPath(studentRepo.toString());
+        mapping.put("smithj", rm);
+
+        String source = "### Big.java\n\n```java\n" + "int x = 1; // \u00e9\n".repeat(5_000) + "```\n";
+        List<String> streamed = Collections.synchronizedList(new ArrayList<>());
+        ReportHtmlWrapper wrapper = new ReportHtmlWrapper();
+
+        ReportService.ReportDependencies deps = new ReportService.ReportDependencies() {
+            @Override
+            public void log(String msg) { }
+
+            @Override
+            public Map<String, RepoMapping> loadMapping(Path ignored) {
+                return mapping;
+            }
+
+            @Override
+            public Path resolveRepoRoot(Path mappedRepoPath) {
+                return mappedRepoPath;
+            }
+
+            @Override
+            public CheckstyleService.CheckstyleResult buildCheckstyleResult(Path repoPath) {
+                return new CheckstyleService.CheckstyleResult("_No checkstyle violations._", 0);
+            }
+
+            @Override
+            public UnitTestService.UnitTestResult buildUnitTestResultMarkdown(
+                    String studentPackage,
+                    Path repoPath
+            ) {
+                return new UnitTestService.UnitTestResult("_No failed unit tests._", 0, 0);
+            }
+
+            @Override
+            public Map<String, Integer> loadManualDeductionsFromGradingDraft(
+                    String assignmentId,
+                    String studentPackage,
+                    Path rootPath
+            ) {
+                return Map.of();
+            }
+
+            @Override
+            public String loadFeedbackSectionMarkdown(String assignmentId,
+                                                     String studentPackage,
+                                                     Path rootPath) {
+                return "> * Nice work!";
+            }
+
+            @Override
+            public String buildSourceCodeMarkdown(Assignment assignment,
+                                                  String studentPackage,
+                                                  Path repoPath) {
+                return source;
+            }
+
+            @Override
+            public void writeSourceCodeMarkdown(Assignment assignment,
+                                                String studentPackage,
+                                                Path repoPath,
+                                                Appendable out) throws java.io.IOException {
+                streamed.add("source");
+                out.append(source);
+            }
+
+            @Override
+            public String buildCommitHistoryMarkdown(Path repoPath) {
+                return "- commit history";
+            }
+
+            @Override
+            public String wrapMarkdownAsHtml(String title, String markdown) {
+                return wrapper.wrapMarkdownAsHtml(title, markdown);
+            }
+
+            @Override
+            public void writeHtmlDocument(String title,
+                                          ReportService.ContentWriter markdown,
+                                          Appendable out) throws java.io.IOException {
+                streamed.add("html");
+                wrapper.writeHtml(title, markdown, out);
+            }
+        };
+
+        assertTrue(new ReportService(new AssignmentsFile(), deps)
+                .generateReports(a, root, mappingsPath).isSuccess());
+
+        String html = Files.readString(studentRepo.resolve("L2smithj.html"));
+        String markdown = wrapper.extractMarkdown(html);
+        assertEquals(List.of("html", "source"), streamed);
+        assertEquals(wrapper.wrapMarkdownAsHtml("smithj", markdown + System.lineSeparator()), html);
+        assertTrue(markdown.contains(source));
+        assertEquals(html, Files.readString(root.resolve("feedback").resolve("L2smithj.html")));
+        assertTrue(Files.list(studentRepo).noneMatch(p -> p.toString().endsWith(".tmp")));
+    }
 }
@@ -0,0 +1,105 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultCacheTest {
+
+    @Test
+    public void putThenGet_roundTripsRecord(@TempDir Path tmp) {
+        ResultCache cache = new ResultCache(tmp, ResultCache.DEFAULT_MAX_BYTES, msg -> { });
+        UnitTestService.UnitTestResult result =
+                new UnitTestService.UnitTestResult("### Unit Test Results", 5, 1);
+
+        cache.put("unit-tests", "abc", result);
+
+        assertEquals(
+                Optional.of(result),
+                cache.get("unit-tests", "abc", UnitTestService.UnitTestResult.class)
+        );
+        assertTrue(cache.get("unit-tests", "missing", UnitTestService.UnitTestResult.class)
+                .isEmpty());
+    }
+
+    @Test
+    public void invalidate_removesEntries(@TempDir Path tmp) {
+        ResultCache cache = new ResultCache(tmp, ResultCache.DEFAULT_MAX_BYTES, msg -> { });
+        CheckstyleService.CheckstyleResult result =
+                new CheckstyleService.CheckstyleResult("_No checkstyle violations._", 0);
+        cache.put("checkstyle", "a", result);
+        cache.put("checkstyle", "b", result);
+        cache.put("unit-tests", "c", new UnitTestService.UnitTestResult("x", 1, 0));
+
+        cache.invalidate("checkstyle", "a");
+        assertTrue(cache.get("checkstyle", "a", CheckstyleService.CheckstyleResult.class)
+                .isEmpty());
+        assertTrue(cache.get("checkstyle", "b", CheckstyleService.CheckstyleResult.class)
+                .isPresent());
+
+        assertEquals(2, cache.invalidateAll());
+        assertTrue(cache.get("checkstyle", "b", CheckstyleService.CheckstyleResult.class)
+                .isEmpty());
+    }
+
+    @Test
+    public void put_overSizeLimit_evictsLeastRecentlyUsed(@TempDir Path tmp) throws Exception {
+        String payload = "x".repeat(400);
+        ResultCache cache = new ResultCache(tmp, 1000, msg -> { });
+
+        cache.put("checkstyle", "old", new CheckstyleService.CheckstyleResult(payload, 0));
+        cache.put("checkstyle", "used", new CheckstyleService.CheckstyleResult(payload, 0));
+        Files.setLastModifiedTime(
+                tmp.resolve("checkstyle").resolve("old.json"),
+                FileTime.fromMillis(1_000L)
+        );
+        Files.setLastModifiedTime(
+                tmp.resolve("checkstyle").resolve("used.json"),
+                FileTime.fromMillis(2_000L)
+        );
+        cache.get("checkstyle", "used", CheckstyleService.CheckstyleResult.class);
+
+        cache.put("checkstyle", "new", new CheckstyleService.CheckstyleResult(payload, 0));
+
+        assertFalse(Files.exists(tmp.resolve("checkstyle").resolve("old.json")));
+        assertTrue(Files.exists(tmp.resolve("checkstyle").resolve("used.json")));
+        assertTrue(Files.exists(tmp.resolve("checkstyle").resolve("new.json")));
+    }
+
+    @Test
+    public void get_corruptEntry_isDiscarded(@TempDir Path tmp) throws Exception {
+        ResultCache cache = new ResultCache(tmp, ResultCache.DEFAULT_MAX_BYTES, msg -> { });
+        Files.createDirectories(tmp.resolve("checkstyle"));
+        Path entry = Files.writeString(tmp.resolve("checkstyle").resolve("bad.json"), "{not json");
+
+        assertTrue(cache.get("checkstyle", "bad", CheckstyleService.CheckstyleResult.class)
+                .isEmpty());
+        assertFalse(Files.exists(entry));
+    }
+
+    @Test
+    public void keyBuilder_treeKeyChangesOnlyWhenContentChanges(@TempDir Path tmp)
+            throws Exception {
+        Path src = Files.createDirectories(tmp.resolve("src").resolve("pkg"));
+        Files.writeString(src.resolve("A.java"), "class A {}");
+        Files.writeString(src.resolve("B.java"), "class B {}");
+
+        String first = ResultCache.keyBuilder().addTree(tmp.resolve("src")).build();
+        String same = ResultCache.keyBuilder().addTree(tmp.resolve("src")).build();
+        Files.writeString(src.resolve("B.java"), "class B { }");
+        String edited = ResultCache.keyBuilder().addTree(tmp.resolve("src")).build();
+
+        assertEquals(first, same);
+        assertNotEquals(first, edited);
+        assertNotEquals(
+                ResultCache.keyBuilder().add("ab").add("c").build(),
+                ResultCache.keyBuilder().add("a").add("bc").build()
+        );
+    }
+}
@@ -0,0 +1,116 @@
+package service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunMetricsTest {
+
+    @Test
+    public void recordStage_computesNearestRankPercentiles() {
+        RunMetrics metrics = new RunMetrics();
+        for (int ms = 1; ms <= 10; ms++) {
+            metrics.recordStage("s" + ms, "checkstyle", ms * 1_000_000L);
+        }
+
+        RunMetrics.StageSummary summary = metrics.snapshot().stages().get("checkstyle");
+
+        assertEquals(10, summary.count());
+        assertEquals(5.0, summary.p50Millis());
+        assertEquals(9.0, summary.p90Millis());
+        assertEquals(10.0, summary.p99Millis());
+        assertEquals(10.0, summary.maxMillis());
+        assertEquals(55.0, summary.totalMillis());
+    }
+
+    @Test
+    public void bind_attributesTimedWorkToStudent_andRestoresPreviousBinding() {
+        RunMetrics metrics = new RunMetrics();
+
+        try (RunMetrics.Scope _ = metrics.bind(RunMetrics.RUN_SCOPE)) {
+            try (RunMetrics.Scope _ = metrics.bind("alice")) {
+                assertEquals("alice", RunMetrics.current().student());
+                assertEquals("ok", metrics.time("git-log", () -> "ok"));
+                metrics.recordBytesWritten(42L);
+            }
+            assertEquals(RunMetrics.RUN_SCOPE, RunMetrics.current().student());
+        }
+        assertNull(RunMetrics.current());
+
+        RunMetrics.StudentSnapshot alice = metrics.snapshot().students().stream()
+                .filter(s -> s.student().equals("alice"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(alice.stageMillis().containsKey("git-log"));
+        assertEquals(42L, alice.bytesWritten());
+    }
+
+    @Test
+    public void instrumentedProcessRunner_recordsProcessesForBoundStudent(@TempDir Path tmp)
+            throws Exception {
+        Path program = Files.writeString(tmp.resolve("Program.java"), """
+                public class Program {
+                    public static void main(String[] args) {
+                        System.out.println("0123456789");
+                        System.out.println("abc");
+                    }
+                }
+                """);
+        String java = ProcessHandle.current().info().command().orElse("java");
+        RunMetrics metrics = new RunMetrics();
+        ProcessRunner runner = new InstrumentedProcessRunner();
+
+        ProcessResult result;
+        try (RunMetrics.Scope _ = metrics.bind("bob")) {
+            result = runner.runCaptureLinesWithExitCode(List.of(java, program.toString()), tmp);
+        }
+        // Outside a binding nothing is recorded.
+        runner.runCaptureLinesWithExitCode(List.of(java, program.toString()), tmp);
+
+        assertEquals(0, result.exitCode());
+        assertEquals(List.of("0123456789", "abc"), result.outputLines());
+
+        RunMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.processes().size());
+        RunMetrics.ProcessMetrics process = snapshot.processes().getFirst();
+        assertEquals("bob", process.student());
+        assertEquals(13L, process.outputChars());
+        assertEquals(0, process.exitCode());
+
+        RunMetrics.StudentSnapshot bob = snapshot.students().getFirst();
+        assertEquals(1, bob.processCount());
+        assertEquals(13L, bob.peakOutputChars());
+    }
+
+    @Test
+    public void commandName_includesJarForJavaDashJar() {
+        assertEquals("java checkstyle-10.jar", InstrumentedProcessRunner.commandName(
+                List.of("/usr/bin/java", "-jar", "/tools/checkstyle-10.jar", "-c", "x.xml")));
+        assertEquals("git", InstrumentedProcessRunner.commandName(List.of("C:\\Git\\git.exe", "log")));
+        assertEquals("unknown", InstrumentedProcessRunner.commandName(List.of()));
+    }
+
+    @Test
+    public void writeTo_writesJsonAndSummary(@TempDir Path tmp) throws Exception {
+        RunMetrics metrics = new RunMetrics();
+        try (RunMetrics.Scope _ = metrics.bind("carol")) {
+            metrics.time("unit-tests", () -> 1);
+        }
+
+        metrics.writeTo(tmp);
+
+        JsonNode json = new ObjectMapper().readTree(tmp.resolve(RunMetrics.METRICS_FILE_NAME).toFile());
+        assertEquals("carol", json.get("students").get(0).get("student").asText());
+        assertEquals(1, json.get("stages").get("unit-tests").get("count").asInt());
+        String summary = Files.readString(tmp.resolve(RunMetrics.SUMMARY_FILE_NAME));
+        assertTrue(summary.contains("unit-tests"));
+        assertTrue(summary.contains("Slowest students:"));
+    }
+}
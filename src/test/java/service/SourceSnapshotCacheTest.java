@@ -0,0 +1,152 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SourceSnapshotCacheTest {
+
+    private static final FileTime OLD = FileTime.from(Instant.parse("2024-01-01T00:00:00Z"));
+
+    @Test
+    public void snapshot_reusesListingUntilTreeChanges(@TempDir Path tmp) throws IOException {
+        Path src = tmp.resolve("src");
+        Path pkg = Files.createDirectories(src.resolve("alpha"));
+        write(pkg.resolve("Main.java"), "class Main { }");
+        age(pkg);
+        age(src);
+        SourceSnapshotCache cache = new SourceSnapshotCache();
+
+        SourceSnapshotCache.SourceTree first = cache.snapshot(src);
+        SourceSnapshotCache.SourceTree second = cache.snapshot(src);
+        Files.writeString(pkg.resolve("Helper.java"), "class Helper { }");
+        SourceSnapshotCache.SourceTree third = cache.snapshot(src);
+
+        assertSame(first, second);
+        assertEquals(List.of("alpha/Main.java"), relativePaths(first));
+        assertEquals(List.of("alpha/Helper.java", "alpha/Main.java"), relativePaths(third));
+    }
+
+    @Test
+    public void javaFiles_listsOnlyJavaSources(@TempDir Path tmp) throws IOException {
+        Path src = Files.createDirectories(tmp.resolve("src"));
+        write(src.resolve("B.java"), "class B { }");
+        write(src.resolve("A.JAVA"), "class A { }");
+        write(src.resolve("notes.txt"), "notes");
+        SourceSnapshotCache cache = new SourceSnapshotCache();
+
+        assertEquals(List.of(src.resolve("A.JAVA"), src.resolve("B.java")),
+                cache.javaFiles(src));
+        assertEquals(List.of(), cache.javaFiles(tmp.resolve("missing")));
+    }
+
+    @Test
+    public void readString_servesUnchangedFilesFromMemory(@TempDir Path tmp) throws IOException {
+        Path file = tmp.resolve("Main.java");
+        write(file, "class Main { }");
+        SourceSnapshotCache cache = new SourceSnapshotCache();
+
+        assertEquals("class Main { }", cache.readString(file));
+        assertEquals("class Main { }".length(), cache.cachedChars());
+
+        // Same size and time: the cached copy is trusted without reading the file.
+        write(file, "class Mine { }");
+        assertEquals("class Main { }", cache.readString(file));
+
+        Files.writeString(file, "class Main { int x; }");
+        assertEquals("class Main { int x; }", cache.readString(file));
+    }
+
+    @Test
+    public void readString_evictsLeastRecentlyUsedContents(@TempDir Path tmp) throws IOException {
+        Path a = tmp.resolve("A.java");
+        Path b = tmp.resolve("B.java");
+        write(a, "a".repeat(60));
+        write(b, "b".repeat(60));
+        SourceSnapshotCache cache = new SourceSnapshotCache(100, 1024);
+
+        cache.readString(a);
+        cache.readString(b);
+
+        assertEquals(60, cache.cachedChars());
+    }
+
+    @Test
+    public void readString_streamsLargeFilesWithoutCachingThem(@TempDir Path tmp)
+            throws IOException {
+        Path file = tmp.resolve("Big.java");
+        String text = "// été\n".repeat(200);
+        write(file, text);
+        SourceSnapshotCache cache = new SourceSnapshotCache(1_000_000, 64);
+
+        assertEquals(text, cache.readString(file));
+        assertEquals(0, cache.cachedChars());
+        assertEquals(new SourceSnapshotCache().hash(file), cache.hash(file));
+    }
+
+    @Test
+    public void listingsAndHashes_evictLeastRecentlyUsedEntries(@TempDir Path tmp)
+            throws IOException {
+        SourceSnapshotCache cache = new SourceSnapshotCache(1_000_000, 1024, 2);
+        for (String name : List.of("a", "b", "c")) {
+            Path src = Files.createDirectories(tmp.resolve(name).resolve("src"));
+            write(src.resolve("Main.java"), "class Main { }");
+            cache.treeHash(src);
+        }
+
+        assertEquals(2, cache.cachedTreeCount());
+        assertEquals(2, cache.cachedHashCount());
+    }
+
+    @Test
+    public void readString_rejectsMalformedUtf8LikeFilesReadString(@TempDir Path tmp)
+            throws IOException {
+        Path file = tmp.resolve("Bad.java");
+        Files.write(file, new byte[] {'a', (byte) 0xC3, '(', 'b'});
+        SourceSnapshotCache cache = new SourceSnapshotCache();
+
+        assertThrows(CharacterCodingException.class, () -> Files.readString(file));
+        assertThrows(CharacterCodingException.class, () -> cache.readString(file));
+    }
+
+    @Test
+    public void treeHash_followsContentNotLocation(@TempDir Path tmp) throws IOException {
+        Path first = Files.createDirectories(tmp.resolve("first/src"));
+        Path second = Files.createDirectories(tmp.resolve("second/src"));
+        write(first.resolve("Main.java"), "class Main { }");
+        write(second.resolve("Main.java"), "class Main { }");
+        SourceSnapshotCache cache = new SourceSnapshotCache();
+
+        String before = cache.treeHash(first);
+        assertEquals(before, cache.treeHash(second));
+
+        Files.writeString(first.resolve("Main.java"), "class Main { int x; }");
+        assertNotEquals(before, cache.treeHash(first));
+        assertEquals(cache.treeHash(tmp.resolve("none")), cache.treeHash(null));
+    }
+
+    private static void write(Path file, String text) throws IOException {
+        Files.writeString(file, text);
+        age(file);
+    }
+
+    private static void age(Path path) throws IOException {
+        Files.setLastModifiedTime(path, OLD);
+    }
+
+    private static List<String> relativePaths(SourceSnapshotCache.SourceTree tree) {
+        return tree.files().stream().map(SourceSnapshotCache.SourceFile::relativePath).toList();
+    }
+}
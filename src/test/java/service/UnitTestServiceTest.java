@@ -3,10 +3,16 @@ package service;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,4 +67,186 @@ public class UnitTestServiceTest {
         assertEquals(0, res.failedTests());
         assertFalse(Files.exists(repo.resolve("build")));
     }
+
+    @Test
+    public void buildUnitTestResultMarkdown_brokenSource_reportsSourceCompilationFailure(
+            @TempDir Path tmp
+    ) throws IOException {
+        Path repo = tmp.resolve("repo");
+        Path pkg = repo.resolve("src").resolve("username");
+        Files.createDirectories(pkg);
+        Files.createDirectories(repo.resolve("src").resolve("test"));
+        Files.writeString(pkg.resolve("Main.java"), "package username;\npublic class Main {\n");
+        Files.writeString(repo.resolve("src").resolve("test").resolve("TestSuite.java"),
+                "package test;\npublic class TestSuite {}\n");
+
+        List<List<String>> forked = new java.util.ArrayList<>();
+        ProcessRunner pr = new ProcessRunner() {
+            @Override
+            public ProcessResult runCaptureLinesWithExitCode(List<String> args, Path workingDir) {
+                forked.add(args);
+                return new ProcessResult(0, List.of());
+            }
+        };
+
+        UnitTestService svc = new UnitTestService(pr, msg -> { }, new ToolArtifactService(tmp));
+        UnitTestService.UnitTestResult res = svc.buildUnitTestResultMarkdown("username", repo);
+
+        assertTrue(res.markdown().startsWith("### Source Compilation Failed"));
+        assertTrue(res.markdown().contains("error"));
+        assertTrue(forked.isEmpty(), "javac should run in-process, not through ProcessRunner");
+    }
+
+    @Test
+    public void buildUnitTestResultMarkdown_reusesCompiledSuiteForSameApi(@TempDir Path tmp)
+            throws Exception {
+        String suite = "package test;\n"
+                + "import username.Calc;\n"
+                + "public class TestSuite {\n"
+                + "    public static String check() {\n"
+                + "        return String.valueOf(new Calc().add(2, 2));\n"
+                + "    }\n"
+                + "}\n";
+        Path alpha = studentRepo(tmp, "alpha", suite,
+                "public int add(int a, int b) { return a + b; }");
+        Path bravo = studentRepo(tmp, "bravo", suite,
+                "public int add(int a, int b) { return a + b + 1; }\n"
+                        + "    private int unused() { return 0; }");
+        Path charlie = studentRepo(tmp, "charlie", suite,
+                "public long add(long a, long b) { return a + b; }");
+
+        List<String> results = new ArrayList<>();
+        ProcessRunner pr = new ProcessRunner() {
+            @Override
+            public ProcessResult runCaptureLinesWithExitCode(List<String> args,
+                                                             Path workingDir,
+                                                             Duration timeout) {
+                results.add(runCheck(args));
+                return new ProcessResult(0, List.of());
+            }
+        };
+        AtomicInteger compiles = new AtomicInteger();
+        JavaCompileEngine engine = new JavaCompileEngine() {
+            @Override
+            public CompileOutcome compile(List<String> options, List<Path> sourceFiles) {
+                compiles.incrementAndGet();
+                return super.compile(options, sourceFiles);
+            }
+        };
+        StringBuilder log = new StringBuilder();
+        UnitTestService svc = new UnitTestService(
+                pr, log::append, new ToolArtifactService(tmp), engine, false);
+
+        svc.buildUnitTestResultMarkdown("alpha", alpha);
+        svc.buildUnitTestResultMarkdown("bravo", bravo);
+        svc.buildUnitTestResultMarkdown("charlie", charlie);
+
+        assertEquals(List.of("4", "5", "4"), results);
+        assertEquals(5, compiles.get(), "bravo should reuse alpha's compiled suite");
+        assertTrue(log.toString().contains("compiled for alpha for bravo"), log.toString());
+    }
+
+    @Test
+    public void buildUnitTestResultMarkdown_doesNotShareSuiteNamingTheStudentPackage(
+            @TempDir Path tmp
+    ) throws Exception {
+        String suite = "package test;\n"
+                + "import username.Calc;\n"
+                + "public class TestSuite {\n"
+                + "    public static String check() {\n"
+                + "        return \"alpha.\" + new Calc().add(2, 2);\n"
+                + "    }\n"
+                + "}\n";
+        Path alpha = studentRepo(tmp, "alpha", suite,
+                "public int add(int a, int b) { return a + b; }");
+        Path bravo = studentRepo(tmp, "bravo", suite,
+                "public int add(int a, int b) { return a + b; }");
+
+        List<String> results = new ArrayList<>();
+        ProcessRunner pr = new ProcessRunner() {
+            @Override
+            public ProcessResult runCaptureLinesWithExitCode(List<String> args,
+                                                             Path workingDir,
+                                                             Duration timeout) {
+                results.add(runCheck(args));
+                return new ProcessResult(0, List.of());
+            }
+        };
+        UnitTestService svc = new UnitTestService(
+                pr, msg -> { }, new ToolArtifactService(tmp), new JavaCompileEngine(), false);
+
+        svc.buildUnitTestResultMarkdown("alpha", alpha);
+        svc.buildUnitTestResultMarkdown("bravo", bravo);
+
+        assertEquals(List.of("alpha.4", "alpha.4"), results);
+    }
+
+    @Test
+    public void buildUnitTestResultMarkdown_forksWhenMainSourcesNeedAFreshJvm(@TempDir Path tmp)
+            throws Exception {
+        String suite = "package test;\n"
+                + "import username.Calc;\n"
+                + "public class TestSuite {\n"
+                + "    public static String check() {\n"
+                + "        return String.valueOf(new Calc().add(2, 2));\n"
+                + "    }\n"
+                + "}\n";
+        Path alpha = studentRepo(tmp, "alpha", suite,
+                "public int add(int a, int b) {\n"
+                        + "        java.nio.file.Path.of(\"data.txt\");\n"
+                        + "        return a + b;\n    }");
+        Path bravo = studentRepo(tmp, "bravo", suite,
+                "public int add(int a, int b) {\n"
+                        + "        java.util.Locale.setDefault(java.util.Locale.FRANCE);\n"
+                        + "        return a + b;\n    }");
+
+        List<String> results = new ArrayList<>();
+        ProcessRunner pr = new ProcessRunner() {
+            @Override
+            public ProcessResult runCaptureLinesWithExitCode(List<String> args,
+                                                             Path workingDir,
+                                                             Duration timeout) {
+                results.add(runCheck(args));
+                return new ProcessResult(0, List.of());
+            }
+        };
+        StringBuilder log = new StringBuilder();
+        UnitTestService svc = new UnitTestService(
+                pr, log::append, new ToolArtifactService(tmp), new JavaCompileEngine(), true);
+        try {
+            svc.buildUnitTestResultMarkdown("alpha", alpha);
+            svc.buildUnitTestResultMarkdown("bravo", bravo);
+        } finally {
+            svc.shutdown();
+        }
+
+        assertEquals(List.of("4", "4"), results);
+        assertFalse(log.toString().contains("Warm test runner"), log.toString());
+    }
+
+    private static Path studentRepo(Path tmp, String studentPackage, String suite, String body)
+            throws IOException {
+        Path repo = tmp.resolve(studentPackage + "-repo");
+        Path pkg = repo.resolve("src").resolve(studentPackage);
+        Path test = repo.resolve("src").resolve("test");
+        Files.createDirectories(pkg);
+        Files.createDirectories(test);
+        Files.writeString(pkg.resolve("Calc.java"), "package " + studentPackage + ";\n"
+                + "public class Calc {\n    " + body + "\n}\n");
+        Files.writeString(test.resolve("TestSuite.java"), suite);
+        return repo;
+    }
+
+    // Stands in for the forked JUnit run: loads the suite from the run classpath.
+    private static String runCheck(List<String> args) {
+        String classPath = args.get(args.indexOf("--class-path") + 1);
+        Path classesDir = Path.of(classPath.split(File.pathSeparator)[0]);
+        try (URLClassLoader loader = new URLClassLoader(
+                new URL[] {classesDir.toUri().toURL()},
+                UnitTestServiceTest.class.getClassLoader())) {
+            return (String) loader.loadClass("test.TestSuite").getMethod("check").invoke(null);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
 }
@@ -7,6 +7,8 @@ import service.ServiceLogger;
 import service.WorkflowContext;
 
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -21,7 +23,8 @@ import static org.junit.jupiter.api.Assertions.*;
  *     public RunAllStep stepType()
  * - src/main/java/service/ProcessRunner.java
  *     public List<String> tokenizeCommand(String command)
- *     public int runAndLog(List<String> args, Path workingDir, LineLogger logger)
+ *     public int runAndLog(List<String> args, Path workingDir, LineLogger logger,
+ *                          Duration timeout)
  * - src/main/java/service/WorkflowContext.java
  */
 public class PullStepTest {
@@ -78,7 +81,10 @@ public class PullStepTest {
         // stub runner to capture the LineLogger calls and return success
         ProcessRunner runner = new ProcessRunner() {
             @Override
-            public int runAndLog(List<String> args, Path workingDir, LineLogger logger) {
+            public int runAndLog(List<String> args,
+                                 Path workingDir,
+                                 LineLogger logger,
+                                 Duration timeout) {
                 // simulate process output lines
                 logger.log("line1");
                 logger.log("line2");
@@ -99,4 +105,43 @@ public class PullStepTest {
         // last logged line should be from our stubbed runner
         assertEquals("line2", lastLog.get());
     }
+
+    @Test
+    public void parseCloneTarget_readsGitCloneLines() {
+        assertEquals("hw-alice", PullStep.parseCloneTarget("Cloning into 'hw-alice'..."));
+        assertEquals("a1-submissions/hw-bob",
+                PullStep.parseCloneTarget("  Cloning into 'a1-submissions/hw-bob'...  "));
+        assertNull(PullStep.parseCloneTarget("remote: Counting objects: 100% (3/3), done."));
+        assertNull(PullStep.parseCloneTarget(null));
+    }
+
+    @Test
+    public void execute_reportsEachRepoWhenTheNextCloneStarts(@TempDir Path tmp) {
+        List<Path> ready = new ArrayList<>();
+        List<Path> readyWhenBobStarted = new ArrayList<>();
+
+        ProcessRunner runner = new ProcessRunner() {
+            @Override
+            public int runAndLog(List<String> args,
+                                 Path workingDir,
+                                 LineLogger logger,
+                                 Duration timeout) {
+                logger.log("Cloning into 'hw-alice'...");
+                logger.log("Receiving objects: 100% (3/3), done.");
+                logger.log("Cloning into 'hw-bob'...");
+                readyWhenBobStarted.addAll(ready);
+                return 0;
+            }
+        };
+
+        PullStep step = new PullStep(runner, s -> {});
+        StepResult result = step.execute(
+                new WorkflowContext("gh classroom clone", null, tmp, tmp.resolve("m.json")),
+                ready::add
+        );
+
+        assertTrue(result.isSuccess());
+        assertEquals(List.of(tmp.resolve("hw-alice")), readyWhenBobStarted);
+        assertEquals(List.of(tmp.resolve("hw-alice"), tmp.resolve("hw-bob")), ready);
+    }
 }
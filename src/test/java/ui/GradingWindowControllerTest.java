@@ -6,10 +6,13 @@ import model.Assignment;
 import model.AssignmentsFile;
 import model.RubricItemDef;
 import model.RubricItemRef;
+import model.Settings;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import persistence.SettingsStore;
 import service.GradingReportEditorService;
 import service.GradingDraftService;
+import service.GradingDraftSessionService;
 import service.ReportHtmlWrapper;
 
 import java.io.IOException;
@@ -18,6 +21,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -27,6 +31,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class GradingWindowControllerTest {
@@ -410,6 +415,14 @@ public class GradingWindowControllerTest {
         assertEquals("Save/push complete: pushed 1, skipped 0, failed 0.", withoutDetails);
     }
 
+    @Test
+    public void formatPushProgressMessage_countsFinishedRepos() {
+        assertEquals(
+                "Pushing feedback: 4/10 done (pushed 2, skipped 1, failed 1)...",
+                GradingWindowController.formatPushProgressMessage(2, 1, 1, 10)
+        );
+    }
+
     @Test
     public void computeAppliedLoss_clampsToRemainingRubricPoints() {
         assertEquals(3, GradingWindowController.computeAppliedLoss(3, 10, 2));
@@ -1271,6 +1284,42 @@ public class GradingWindowControllerTest {
         assertEquals(0, missing);
     }
 
+    @Test
+    public void hasDraftInProgress_falseForViewedStudent_trueOnceEdited() throws Exception {
+        GradingWindowController controller = new GradingWindowController();
+        Field field = controller.getClass().getDeclaredField("draftSessionService");
+        field.setAccessible(true);
+        GradingDraftSessionService drafts = (GradingDraftSessionService) field.get(controller);
+        drafts.setMarkdown("pkg1", "# Report");
+        drafts.setLoadedFromDisk("pkg1", true);
+
+        // Watch mode must still regrade a student who was only looked at.
+        assertFalse(controller.hasDraftInProgress("pkg1"));
+
+        drafts.markEdited("pkg1");
+        assertTrue(controller.hasDraftInProgress("pkg1"));
+    }
+
+    @Test
+    public void configuredAutosaveDelay_isOffUnlessAPositiveDelayIsSet(@TempDir Path tmp)
+            throws IOException {
+        Path settingsPath = tmp.resolve("settings.json");
+        assertNull(GradingWindowController.configuredAutosaveDelay(settingsPath));
+
+        Settings settings = new Settings();
+        new SettingsStore().save(settingsPath, settings);
+        assertNull(GradingWindowController.configuredAutosaveDelay(settingsPath));
+
+        settings.setAutosaveDelaySeconds(-1);
+        new SettingsStore().save(settingsPath, settings);
+        assertNull(GradingWindowController.configuredAutosaveDelay(settingsPath));
+
+        settings.setAutosaveDelaySeconds(7);
+        new SettingsStore().save(settingsPath, settings);
+        assertEquals(Duration.ofSeconds(7),
+                GradingWindowController.configuredAutosaveDelay(settingsPath));
+    }
+
     @Test
     public void handleSaveDraftResult_clearsInProgressFlag() throws Exception {
         GradingWindowController controller = new GradingWindowController();
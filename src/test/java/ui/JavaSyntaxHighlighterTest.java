@@ -0,0 +1,164 @@
+package ui;
+
+import org.fxmisc.richtext.model.StyleSpan;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaSyntaxHighlighterTest {
+
+    private static final String REPORT = String.join("\n",
+            "# Report",
+            "Some prose with class and int that must stay plain.",
+            "```",
+            "public class Main {",
+            "    int x = 1; // note",
+            "}",
+            "```",
+            "More prose."
+    );
+
+    @Test
+    void computeAll_stylesOnlyInsideFences() {
+        List<String> styles = styleAt(JavaSyntaxHighlighter.computeAll(REPORT), REPORT);
+
+        assertEquals("", styles.get(REPORT.indexOf("class and")));
+        assertEquals("kw", styles.get(REPORT.indexOf("public")));
+        assertEquals("semi", styles.get(REPORT.indexOf(';')));
+        assertEquals("cmt", styles.get(REPORT.indexOf("// note")));
+        assertEquals("", styles.get(REPORT.indexOf("More")));
+    }
+
+    @Test
+    void update_unchangedText_hasNoChanges() {
+        JavaSyntaxHighlighter.Update first =
+                JavaSyntaxHighlighter.update(JavaSyntaxHighlighter.State.EMPTY, REPORT);
+
+        JavaSyntaxHighlighter.Update second = JavaSyntaxHighlighter.update(first.state(), REPORT);
+
+        assertFalse(second.hasChanges());
+        assertEquals(8, second.state().paragraphCount());
+    }
+
+    @Test
+    void update_editInsideFence_restylesOnlyThatParagraph() {
+        JavaSyntaxHighlighter.State state =
+                JavaSyntaxHighlighter.update(JavaSyntaxHighlighter.State.EMPTY, REPORT).state();
+        String edited = REPORT.replace("int x = 1;", "int x = 12;");
+
+        JavaSyntaxHighlighter.Update update = JavaSyntaxHighlighter.update(state, edited);
+
+        assertTrue(update.hasChanges());
+        assertEquals(edited.indexOf("    int x") - 1, update.offset());
+        assertEquals("\n    int x = 12; // note\n".length(), update.spans().length());
+    }
+
+    @Test
+    void update_removingOpeningFence_restylesFollowingParagraphs() {
+        JavaSyntaxHighlighter.State state =
+                JavaSyntaxHighlighter.update(JavaSyntaxHighlighter.State.EMPTY, REPORT).state();
+        String edited = REPORT.replaceFirst("```\npublic", "``\npublic");
+
+        JavaSyntaxHighlighter.Update update = JavaSyntaxHighlighter.update(state, edited);
+
+        assertEquals(edited.indexOf("``\npublic") - 1, update.offset());
+        List<String> styles = styleAt(JavaSyntaxHighlighter.computeAll(edited), edited);
+        assertEquals("", styles.get(edited.indexOf("public")));
+    }
+
+    @Test
+    void update_insertAndDeleteParagraphs_matchesFullPass() {
+        SimulatedEditor editor = new SimulatedEditor();
+        editor.setText(REPORT);
+
+        String inserted = REPORT.replace("}\n```", "}\n\nvoid run() { return; }\n```");
+        editor.setText(inserted);
+
+        String withNewFence = inserted + "\n```\nfinal String s = \"x\";";
+        editor.setText(withNewFence);
+
+        editor.setText(withNewFence.substring(withNewFence.indexOf("```")));
+        editor.setText("");
+    }
+
+    @Test
+    void update_editFromCachedState_matchesFullPass() {
+        SimulatedEditor editor = new SimulatedEditor();
+        editor.setText(REPORT);
+
+        editor.setText(REPORT.replace("int x = 1;", "int x = 12;"));
+        editor.setText(REPORT.replaceFirst("```\npublic", "``\npublic"));
+        editor.setText(REPORT.replace("More prose.", "```\nchar c = 'a';"));
+    }
+
+    /**
+     * Keeps one style per character the way the code area does: untouched characters
+     * keep their style across an edit, and each update patches only its own range.
+     */
+    private static final class SimulatedEditor {
+
+        private JavaSyntaxHighlighter.State state = JavaSyntaxHighlighter.State.EMPTY;
+        private String text = "";
+        private List<String> styles = new ArrayList<>();
+
+        void setText(String newText) {
+            styles = keepUntouchedStyles(newText);
+            text = newText;
+
+            JavaSyntaxHighlighter.Update update = JavaSyntaxHighlighter.update(state, newText);
+            state = update.state();
+            if (update.hasChanges()) {
+                List<String> patch = styleAt(update.spans(), null);
+                for (int i = 0; i < patch.size() && update.offset() + i < styles.size(); i++) {
+                    styles.set(update.offset() + i, patch.get(i));
+                }
+            }
+
+            assertEquals(styleAt(JavaSyntaxHighlighter.computeAll(newText), newText), styles);
+        }
+
+        private List<String> keepUntouchedStyles(String newText) {
+            int shared = Math.min(text.length(), newText.length());
+            int prefix = 0;
+            while (prefix < shared && text.charAt(prefix) == newText.charAt(prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < shared - prefix
+                    && text.charAt(text.length() - 1 - suffix)
+                    == newText.charAt(newText.length() - 1 - suffix)) {
+                suffix++;
+            }
+
+            List<String> result = new ArrayList<>(styles.subList(0, prefix));
+            for (int i = prefix; i < newText.length() - suffix; i++) {
+                result.add("?");
+            }
+            result.addAll(styles.subList(text.length() - suffix, text.length()));
+            return result;
+        }
+    }
+
+    private static List<String> styleAt(StyleSpans<Collection<String>> spans, String text) {
+        List<String> styles = new ArrayList<>();
+        for (StyleSpan<Collection<String>> span : spans) {
+            String style = span.getStyle().isEmpty() ? "" : span.getStyle().iterator().next();
+            for (int i = 0; i < span.getLength(); i++) {
+                styles.add(style);
+            }
+        }
+        if (text != null) {
+            while (styles.size() > text.length()) {
+                styles.remove(styles.size() - 1);
+            }
+        }
+        return styles;
+    }
+}
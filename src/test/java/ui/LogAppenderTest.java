@@ -5,7 +5,12 @@ import javafx.scene.control.TextArea;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.RotatingLogFile;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -55,7 +60,7 @@ class LogAppenderTest {
         appender.log("hello");
         flushFxQueue();
 
-        assertEquals("hello" + System.lineSeparator(), runOnFxAndWaitResult(textArea::getText));
+        assertEquals("hello\n", runOnFxAndWaitResult(textArea::getText));
     }
 
     @Test
@@ -70,13 +75,76 @@ class LogAppenderTest {
         flushFxQueue();
 
         assertEquals(
-                "one" + System.lineSeparator()
-                        + "two" + System.lineSeparator()
-                        + "three" + System.lineSeparator(),
+                "one\ntwo\nthree\n",
                 runOnFxAndWaitResult(textArea::getText)
         );
     }
 
+    @Test
+    void log_pastMaxLines_keepsOnlyNewestLinesOnScreen() throws Exception {
+        requireFxRuntime();
+        TextArea textArea = runOnFxAndWaitResult(TextArea::new);
+        LogAppender appender = new LogAppender(textArea, 3, null);
+        String sep = "\n";
+
+        for (int i = 1; i <= 5; i++) {
+            appender.log("line" + i);
+        }
+        waitForText(textArea, "line3" + sep + "line4" + sep + "line5" + sep);
+
+        appender.log("line6");
+        appender.log("line7");
+        waitForText(textArea, "line5" + sep + "line6" + sep + "line7" + sep);
+    }
+
+    @Test
+    void log_linesWithControlCharacters_trimOnlyTheOldestLines() throws Exception {
+        requireFxRuntime();
+        TextArea textArea = runOnFxAndWaitResult(TextArea::new);
+        LogAppender appender = new LogAppender(textArea, 2, null);
+
+        appender.log("\u001B[32mgreen\u001B[0m\r");
+        appender.log("second\r");
+        waitForText(textArea, "[32mgreen[0m\nsecond\n");
+
+        appender.log("third");
+        waitForText(textArea, "second\nthird\n");
+    }
+
+    @Test
+    void screenText_dropsCharactersTheTextAreaFilters() {
+        assertEquals("a\tb\nc", LogAppender.screenText("a\tb\r\nc\u0007\u007F"));
+        assertEquals("plain", LogAppender.screenText("plain"));
+    }
+
+    @Test
+    void log_withLogFile_writesEveryLineToFile(@TempDir Path tempDir) throws Exception {
+        requireFxRuntime();
+        TextArea textArea = runOnFxAndWaitResult(TextArea::new);
+        Path file = tempDir.resolve("logs").resolve("app.log");
+        LogAppender appender = new LogAppender(textArea, 1, new RotatingLogFile(file));
+
+        appender.log("first");
+        appender.log("second");
+        appender.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith("first"));
+        assertTrue(lines.get(1).endsWith("second"));
+        waitForText(textArea, "second\n");
+    }
+
+    private static void waitForText(TextArea textArea, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + fxTimeoutMillis;
+        String actual = runOnFxAndWaitResult(textArea::getText);
+        while (!expected.equals(actual) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+            actual = runOnFxAndWaitResult(textArea::getText);
+        }
+        assertEquals(expected, actual);
+    }
+
     private void requireFxRuntime() {
         Assumptions.assumeTrue(fxRuntimeAvailable, "JavaFX runtime is unavailable");
     }
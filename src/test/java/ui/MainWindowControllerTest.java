@@ -13,6 +13,7 @@ import service.GitService;
 import service.GradingDraftService;
 import service.MappingService;
 import service.ProcessRunner;
+import service.RemainingTimeEstimator;
 import service.ReportHtmlWrapper;
 import service.ReportService;
 import service.ServiceLogger;
@@ -25,6 +26,7 @@ import service.steps.StepStatus;
 import service.steps.WorkflowStep;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -582,6 +584,21 @@ class MainWindowControllerTest {
                 MainWindowController.browseRootSetMessage(Path.of("/tmp/repos")));
     }
 
+    @Test
+    void remainingTimeMessage_describesReportProgress() {
+        assertEquals("", MainWindowController.remainingTimeMessage(
+                new RemainingTimeEstimator.Progress(0, 0, Duration.ZERO)));
+        assertEquals("Reports: 0 of 4 done, estimating time remaining...",
+                MainWindowController.remainingTimeMessage(
+                        new RemainingTimeEstimator.Progress(0, 4, null)));
+        assertEquals("Reports: 1 of 4 done, about 1 min 5 s remaining.",
+                MainWindowController.remainingTimeMessage(
+                        new RemainingTimeEstimator.Progress(1, 4, Duration.ofMillis(64_200))));
+        assertEquals("Reports: 4 of 4 done.", MainWindowController.remainingTimeMessage(
+                new RemainingTimeEstimator.Progress(4, 4, Duration.ZERO)));
+        assertEquals("2 h 5 min", MainWindowController.formatDuration(Duration.ofMinutes(125)));
+    }
+
     @Test
     void exportAssignmentsAbortReason_reportsWhenAssignmentsMissing() {
         assertEquals(
@@ -947,7 +964,10 @@ class MainWindowControllerTest {
         }
 
         @Override
-        public int runAndLog(List<String> args, Path workingDir, LineLogger logger) {
+        public int runAndLog(List<String> args,
+                             Path workingDir,
+                             LineLogger logger,
+                             Duration timeout) {
             lastRunArgs = args;
             lastRunWorkingDir = workingDir;
             return exitCodeToReturn;
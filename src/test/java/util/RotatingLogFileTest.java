@@ -0,0 +1,65 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class RotatingLogFileTest {
+
+    @Test
+    void append_createsParentDirectoriesAndTimestampsLines(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("logs").resolve("app.log");
+
+        try (RotatingLogFile log = new RotatingLogFile(file)) {
+            log.append("hello");
+            log.append(null);
+            log.flush();
+
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0).matches("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3}  hello"));
+        }
+    }
+
+    @Test
+    void append_pastMaxBytes_rotatesAndKeepsLimitedArchives(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("app.log");
+
+        try (RotatingLogFile log = new RotatingLogFile(file, 100, 2)) {
+            for (int i = 0; i < 20; i++) {
+                log.append("line " + i + " padded to make each entry longer");
+            }
+        }
+
+        assertTrue(Files.exists(tempDir.resolve("app.log.1")));
+        assertTrue(Files.exists(tempDir.resolve("app.log.2")));
+        assertFalse(Files.exists(tempDir.resolve("app.log.3")));
+        List<String> newest = Files.exists(file)
+                ? Files.readAllLines(file)
+                : Files.readAllLines(tempDir.resolve("app.log.1"));
+        assertTrue(newest.get(newest.size() - 1).endsWith("line 19 padded to make each entry longer"));
+    }
+
+    @Test
+    void append_afterReopen_continuesExistingFile(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("app.log");
+
+        try (RotatingLogFile log = new RotatingLogFile(file)) {
+            log.append("first run");
+        }
+        try (RotatingLogFile log = new RotatingLogFile(file)) {
+            log.append("second run");
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).endsWith("second run"));
+    }
+}